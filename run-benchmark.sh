@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# 运行基准测试（位于 src/test/java/com/jdatabase/benchmark）
+BENCH=$1
+
+if [ -z "$BENCH" ]; then
+    echo "用法: ./run-benchmark.sh <benchmark-name> [参数...]"
+    echo ""
+    echo "可用的基准测试:"
+    echo "  - PageManagerBenchmark   页面I/O：逐次打开文件 vs 复用FileChannel"
+    echo "  - PageSizeBenchmark      不同页面大小的插入/扫描/点查吞吐量"
+    echo "  - RecordCodecBenchmark   记录编解码：逐值读写Page vs 批量缓冲区编解码"
+    echo "  - BulkLoadBenchmark      批量导入：逐行insertRecord vs bulkLoad"
+    echo "  - ReadAheadBenchmark     顺序预读：关闭/开启read_ahead的全表扫描吞吐量"
+    echo "  - PaxLayoutBenchmark     PAX布局：宽表单列求和，行存 vs PAX游标 vs 直接读取minipage"
+    echo "  - CompressionBenchmark   页面压缩：none/deflate的文件大小、压缩比、扫描吞吐量和解压耗时"
+    echo "  - DictionaryEncodingBenchmark 字典编码：低基数VARCHAR列的文件大小、全表扫描和等值过滤吞吐量"
+    echo "  - ExtentAllocationBenchmark 区段扩展：逐页扩展 vs 按区段预分配时的持续插入吞吐量"
+    echo "  - BufferPoolLookupBenchmark 缓冲池命中查找：1/4/16线程的lookups/s及每次查找分配的字节数"
+    echo "  - BufferPolicyBenchmark  替换策略：LRU vs CLOCK在并发读下的吞吐量和命中率"
+    echo "  - BufferPoolMissBenchmark 缓冲池未命中：模拟读盘延迟下1/4/16线程、1/16分区的加载吞吐量"
+    echo "  - ScanResistanceBenchmark 抗扫描：点查与并发全表扫描混合时LRU/CLOCK/2Q及环形缓冲的命中率"
+    echo "  - BackgroundWriterBenchmark 后台写线程：读写混合负载下未命中延迟、前台写回页数、后台写回速度和剩余脏页"
+    echo "  - PageLatchBenchmark     页面锁：不同页面/同一热点页面的并发读写，监视器 vs 共享/排他页面锁的ops/s"
+    echo "  - OffHeapArenaBenchmark  堆外帧区：堆内页面 vs 堆外帧区的堆占用、完整GC耗时、查找吞吐量和GC次数"
+    exit 1
+fi
+shift
+
+echo "运行基准测试: $BENCH"
+echo ""
+
+# 编译项目（包括测试代码）
+mvn test-compile -q
+
+# 运行基准测试
+mvn exec:java -Dexec.mainClass="com.jdatabase.benchmark.$BENCH" -Dexec.classpathScope=test -Dexec.args="$*" -q
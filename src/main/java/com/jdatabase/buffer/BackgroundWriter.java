@@ -0,0 +1,112 @@
+package com.jdatabase.buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后台写线程
+ * 定期检查缓冲池各分区的空闲帧，不足freeFraction时按替换策略提前替换页面，选中的脏页先写回，
+ * 这样查询未命中时直接使用空闲帧，不必在自己的线程里同步写回被替换的脏页。
+ * 每轮最多写回maxPagesPerRound个页面，限制对前台I/O的影响。
+ */
+public class BackgroundWriter implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 200;
+    public static final double DEFAULT_FREE_FRACTION = 1.0 / 32;
+    public static final int DEFAULT_MAX_PAGES_PER_ROUND = 100;
+
+    private final BufferPool bufferPool;
+    private final long intervalMillis;
+    private final double freeFraction;
+    private final int maxPagesPerRound;
+    private final BufferWriterStats stats;
+    private ScheduledExecutorService scheduler;
+
+    public BackgroundWriter(BufferPool bufferPool) {
+        this(bufferPool, DEFAULT_INTERVAL_MILLIS, DEFAULT_FREE_FRACTION, DEFAULT_MAX_PAGES_PER_ROUND);
+    }
+
+    /**
+     * @param intervalMillis   两轮之间的间隔
+     * @param freeFraction     每个分区保持空闲的帧占分区容量的比例（至少1帧）
+     * @param maxPagesPerRound 每轮最多写回的页面数
+     */
+    public BackgroundWriter(BufferPool bufferPool, long intervalMillis, double freeFraction, int maxPagesPerRound) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        if (freeFraction <= 0 || freeFraction >= 1) {
+            throw new IllegalArgumentException("freeFraction must be between 0 and 1: " + freeFraction);
+        }
+        if (maxPagesPerRound <= 0) {
+            throw new IllegalArgumentException("maxPagesPerRound must be positive: " + maxPagesPerRound);
+        }
+        this.bufferPool = bufferPool;
+        this.intervalMillis = intervalMillis;
+        this.freeFraction = freeFraction;
+        this.maxPagesPerRound = maxPagesPerRound;
+        this.stats = new BufferWriterStats();
+    }
+
+    /**
+     * 启动后台线程
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jdb-bgwriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runRound, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 执行一轮，返回写回的页面数
+     */
+    public int writeRound() throws IOException {
+        long start = System.nanoTime();
+        int written = bufferPool.prepareFreeFrames(freeFraction, maxPagesPerRound);
+        stats.recordRound(written, System.nanoTime() - start);
+        return written;
+    }
+
+    public BufferWriterStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 缓冲池中仍然是脏页的页面数
+     */
+    public int getDirtyPageCount() {
+        return bufferPool.getDirtyPageCount();
+    }
+
+    /**
+     * 停止后台线程，等待正在进行的一轮结束（不中断线程：中断会关闭正在读写的文件通道）
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+    }
+
+    private void runRound() {
+        try {
+            writeRound();
+        } catch (Exception e) {
+            System.err.println("Background writer failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+
+/**
+ * 缓冲区访问策略（环形缓冲）
+ * 大表的顺序扫描和批量插入只访问每个页面一次，如果按普通方式装入缓冲池，会把热点页面全部挤出。
+ * 带策略访问时，操作自己装入的页面记在一个小环中（默认256KB），环满后再装入页面时，
+ * 优先回收环中最早的帧（脏页先写回），而不是让替换策略替换其他页面，操作在缓冲池中的占用不超过环的大小。
+ * 环中的页面被其他不带策略的访问命中过，说明它对别人有用，不再回收，按普通页面交给替换策略。
+ * 缓冲池分区时环按分区平分，回收的帧与新页面总在同一个分区。
+ * 每个操作（游标、一条INSERT语句）使用自己的实例，不是线程安全的。
+ */
+public class BufferAccessStrategy {
+    public static final int DEFAULT_RING_BYTES = 256 * 1024;
+    // 表的大小超过缓冲池容量的1/POOL_FRACTION时，扫描和批量插入使用环形缓冲
+    public static final int POOL_FRACTION = 4;
+    static final long NO_KEY = -1L;
+    private static final int MIN_RING_PAGES = 2;
+
+    private final int ringBytes;
+    // 每个分区的环：页面键、下一个写入位置、已用数量（首次使用时按分区数和页面大小分配）
+    private long[][] rings;
+    private int[] positions;
+    private int[] sizes;
+    private long recycledCount;
+
+    public BufferAccessStrategy() {
+        this(DEFAULT_RING_BYTES);
+    }
+
+    public BufferAccessStrategy(int ringBytes) {
+        if (ringBytes < Page.PAGE_SIZE) {
+            throw new IllegalArgumentException("Ring must hold at least one page: " + ringBytes);
+        }
+        this.ringBytes = ringBytes;
+    }
+
+    public int getRingBytes() {
+        return ringBytes;
+    }
+
+    /**
+     * 从环中回收的帧数
+     */
+    public long getRecycledCount() {
+        return recycledCount;
+    }
+
+    /**
+     * 分区的环已满时返回最早的页面键（下一次装入将覆盖它），否则返回NO_KEY（调用方持有分区锁）
+     */
+    long oldest(int partition, int partitions, int pageSize) {
+        ensureRings(partitions, pageSize);
+        long[] ring = rings[partition];
+        return sizes[partition] == ring.length ? ring[positions[partition]] : NO_KEY;
+    }
+
+    /**
+     * 记录新装入的页面，覆盖最早的位置（调用方持有分区锁）
+     */
+    void add(int partition, int partitions, int pageSize, long key) {
+        ensureRings(partitions, pageSize);
+        long[] ring = rings[partition];
+        ring[positions[partition]] = key;
+        positions[partition] = (positions[partition] + 1) % ring.length;
+        if (sizes[partition] < ring.length) {
+            sizes[partition]++;
+        }
+    }
+
+    void recycled() {
+        recycledCount++;
+    }
+
+    private void ensureRings(int partitions, int pageSize) {
+        if (rings != null) {
+            return;
+        }
+        int pages = Math.max(MIN_RING_PAGES, ringBytes / pageSize / partitions);
+        rings = new long[partitions][pages];
+        positions = new int[partitions];
+        sizes = new int[partitions];
+    }
+}
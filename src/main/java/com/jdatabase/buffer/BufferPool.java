@@ -4,108 +4,147 @@ import com.jdatabase.storage.Page;
 import com.jdatabase.storage.PageManager;
 
 import java.io.IOException;
-import java.util.*;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * 缓冲池（LRU替换策略）
+ * 缓冲池
+ * 容量以默认大小（4KB）的页面数计，按字节预算：一个16KB的页面占用4个默认页面的额度。
+ * 访问页面使用fetchPage/unpinPage：fetchPage返回的页面被固定（pin），固定期间不会被替换或丢弃；
+ * 用完后把返回的页面传给unpinPage解除固定，修改过页面时传入dirty=true。脏页在被替换、flush或clear时写回。
+ * 多个线程可以同时固定同一页面，页面内容的并发读写由调用方用页面锁保护（读持有共享锁、修改持有排他锁，
+ * 见Page.latchShared/latchExclusive），缓冲池写回页面时持有共享锁。
+ * 页面键为 (fileId << 32 | pageId)（见FileIdRegistry），按键的哈希分到若干个独立的分区
+ * （见BufferPoolPartition），每个分区有自己的锁、页表、帧数组和替换策略状态，容量平分。
+ * 读盘和写回都在分区锁外进行，不同页面的未命中可以并行加载，同一页面只加载一次。
+ * 后台写线程（BackgroundWriter）提前写回并替换页面，保持一定数量的空闲帧，查询未命中时通常不必同步写回脏页；
+ * 检查点（Checkpointer）定期按文件、页号顺序限速写回所有脏页。
+ * 大表扫描和批量插入可以传入访问策略（BufferAccessStrategy），只在一个小环中循环使用帧。
+ * 配置为堆外（BufferPoolConfig.setOffHeap）时，所有帧在创建时从一个堆外帧区（FrameArena）中分配，
+ * 4KB页面是帧的视图，大缓冲池不会增加GC需要扫描的堆。
+ * 替换策略可插拔（见ReplacementPolicy），默认CLOCK：命中只设置引用位，以乐观读（StampedLock）
+ * 查页表并固定页面，校验期间没有独占锁介入即成功，命中路径不写任何共享状态；
+ * LRU命中需要移动链表节点，在分区的独占锁下完成。
  */
 public class BufferPool {
+    public static final int DEFAULT_CAPACITY = 4096;
+
     private final int capacity;
     private final PageManager pageManager;
-    private final Map<Integer, Page> pages;
-    private final Map<Integer, String> keyToFileName; // key到文件名的映射
-    private final LinkedHashMap<Integer, Long> accessOrder; // LRU跟踪
-    private final ReadWriteLock lock;
-    private long accessCounter;
+    private final FileIdRegistry fileIds;
+    private final BufferPoolPartition[] partitions;
+    // 堆外帧区，null表示页面在堆内分配
+    private final FrameArena arena;
+    // 分区数是2的幂，取混合后哈希的高位
+    private final int partitionShift;
 
     public BufferPool(int capacity, PageManager pageManager) {
+        this(new BufferPoolConfig().setCapacity(capacity), pageManager);
+    }
+
+    public BufferPool(BufferPoolConfig config, PageManager pageManager) {
+        int capacity = config.getCapacity();
+        int count = config.resolvePartitions();
         this.capacity = capacity;
         this.pageManager = pageManager;
-        this.pages = new HashMap<>();
-        this.keyToFileName = new HashMap<>();
-        this.accessOrder = new LinkedHashMap<>(16, 0.75f, true);
-        this.lock = new ReentrantReadWriteLock();
-        this.accessCounter = 0;
+        this.fileIds = new FileIdRegistry();
+        this.arena = config.isOffHeap() ? new FrameArena(capacity, Page.PAGE_SIZE) : null;
+        this.partitions = new BufferPoolPartition[count];
+        int frameBase = 0;
+        for (int i = 0; i < count; i++) {
+            // 余数分给前面的分区
+            int share = capacity / count + (i < capacity % count ? 1 : 0);
+            partitions[i] = new BufferPoolPartition(i, count, share, config.getPolicy(), pageManager, arena,
+                    frameBase);
+            frameBase += share;
+        }
+        this.partitionShift = 64 - Integer.numberOfTrailingZeros(count);
     }
 
     /**
-     * 获取页面（带读锁）
+     * 获取页面（不固定，页面随时可能被替换，只适合立即使用的场合）
      */
     public Page getPage(String fileName, int pageId) throws IOException {
-        lock.readLock().lock();
-        try {
-            int key = getKey(fileName, pageId);
-            Page page = pages.get(key);
-            
-            if (page != null) {
-                updateAccessOrder(key);
-                return page;
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
-
-        // 页面不在缓冲池中，需要加载
-        lock.writeLock().lock();
-        try {
-            int key = getKey(fileName, pageId);
-            Page page = pages.get(key);
-            
-            if (page != null) {
-                updateAccessOrder(key);
-                return page;
-            }
-
-            // 如果缓冲池已满，需要替换
-            if (pages.size() >= capacity) {
-                evictPage();
-            }
-
-            // 加载页面
-            page = pageManager.readPage(fileName, pageId);
-            pages.put(key, page);
-            keyToFileName.put(key, fileName);
-            updateAccessOrder(key);
-            return page;
-        } finally {
-            lock.writeLock().unlock();
+        long key = pageKey(fileName, pageId);
+        return partitionOf(key).fetch(key, fileName, pageId, false, null);
+    }
+
+    /**
+     * 获取并固定页面，不在缓冲池中时从磁盘读取；用完后必须调用unpinPage
+     */
+    public Page fetchPage(String fileName, int pageId) throws IOException {
+        return fetchPage(fileName, pageId, null);
+    }
+
+    /**
+     * 按访问策略获取并固定页面（strategy为null时同普通访问）
+     */
+    public Page fetchPage(String fileName, int pageId, BufferAccessStrategy strategy) throws IOException {
+        long key = pageKey(fileName, pageId);
+        return partitionOf(key).fetch(key, fileName, pageId, true, strategy);
+    }
+
+    /**
+     * 为新分配的页面创建全零的缓存页面并固定，不读取磁盘
+     * 页面标记为脏页，至少会被写回一次。
+     */
+    public Page newPage(String fileName, int pageId) throws IOException {
+        return newPage(fileName, pageId, null);
+    }
+
+    /**
+     * 按访问策略创建新页面（strategy为null时同普通访问）
+     */
+    public Page newPage(String fileName, int pageId, BufferAccessStrategy strategy) throws IOException {
+        long key = pageKey(fileName, pageId);
+        return partitionOf(key).newPage(key, fileName, pageId, strategy);
+    }
+
+    /**
+     * 为估计访问estimatedBytes字节的扫描或批量插入选择访问策略：
+     * 超过缓冲池容量的1/POOL_FRACTION时返回环形缓冲策略，否则返回null（普通访问）
+     */
+    public BufferAccessStrategy selectStrategy(long estimatedBytes) {
+        long capacityBytes = (long) capacity * Page.PAGE_SIZE;
+        if (estimatedBytes > capacityBytes / BufferAccessStrategy.POOL_FRACTION) {
+            return new BufferAccessStrategy();
         }
+        return null;
+    }
+
+    /**
+     * 解除固定fetchPage/newPage返回的页面
+     * 按页面对象而不是页面键解除固定：页面被丢弃后同一键可能已装入另一个页面。
+     *
+     * @param dirty 固定期间是否修改了页面
+     */
+    public void unpinPage(Page page, boolean dirty) {
+        if (!page.isPinned()) {
+            throw new IllegalStateException("Page is not pinned: " + page.getPageId());
+        }
+        if (dirty) {
+            page.markDirty();
+        }
+        page.unpin();
     }
 
     /**
      * 标记页面为脏页
      */
     public void markDirty(String fileName, int pageId) {
-        lock.writeLock().lock();
-        try {
-            int key = getKey(fileName, pageId);
-            Page page = pages.get(key);
-            if (page != null) {
-                page.markDirty();
-            }
-        } finally {
-            lock.writeLock().unlock();
+        long key = pageKey(fileName, pageId);
+        Page page = partitionOf(key).find(key);
+        if (page != null) {
+            page.markDirty();
         }
     }
 
     /**
-     * 刷新所有脏页
+     * 刷新所有脏页（逐个分区在锁外写回）
      */
     public void flushAll() throws IOException {
-        lock.writeLock().lock();
-        try {
-            for (Map.Entry<Integer, Page> entry : pages.entrySet()) {
-                Page page = entry.getValue();
-                if (page.isDirty()) {
-                    String fileName = getFileName(entry.getKey());
-                    pageManager.writePage(fileName, page);
-                    page.setDirty(false);
-                }
-            }
-        } finally {
-            lock.writeLock().unlock();
+        for (BufferPoolPartition partition : partitions) {
+            partition.flush(-1);
         }
     }
 
@@ -113,37 +152,38 @@ public class BufferPool {
      * 刷新指定文件的脏页
      */
     public void flushFile(String fileName) throws IOException {
-        lock.writeLock().lock();
-        try {
-            for (Map.Entry<Integer, Page> entry : pages.entrySet()) {
-                if (getFileName(entry.getKey()).equals(fileName)) {
-                    Page page = entry.getValue();
-                    if (page.isDirty()) {
-                        pageManager.writePage(fileName, page);
-                        page.setDirty(false);
-                    }
-                }
-            }
-        } finally {
-            lock.writeLock().unlock();
+        int fileId = fileIds.getFileId(fileName);
+        for (BufferPoolPartition partition : partitions) {
+            partition.flush(fileId);
         }
     }
 
     /**
-     * 移除页面
+     * 移除页面（脏页先写回）
+     * 页面被固定时等待解除固定，超时仍被固定则抛出IllegalStateException
      */
     public void removePage(String fileName, int pageId) throws IOException {
-        lock.writeLock().lock();
-        try {
-            int key = getKey(fileName, pageId);
-            Page page = pages.remove(key);
-            if (page != null && page.isDirty()) {
-                pageManager.writePage(fileName, page);
-            }
-            keyToFileName.remove(key);
-            accessOrder.remove(key);
-        } finally {
-            lock.writeLock().unlock();
+        long key = pageKey(fileName, pageId);
+        partitionOf(key).remove(key);
+    }
+
+    /**
+     * 丢弃页面，不写回（页面已被绕过缓冲池直接写入磁盘时调用）
+     * 页面被固定时等待解除固定，超时仍被固定则抛出IllegalStateException
+     */
+    public void discardPage(String fileName, int pageId) throws IOException {
+        long key = pageKey(fileName, pageId);
+        partitionOf(key).discard(key);
+    }
+
+    /**
+     * 丢弃指定文件的所有页面，不写回（删除文件前调用）
+     * 有页面被固定时等待解除固定，超时仍被固定则抛出IllegalStateException（未被固定的页面已丢弃）
+     */
+    public void discardFile(String fileName) throws IOException {
+        int fileId = fileIds.getFileId(fileName);
+        for (BufferPoolPartition partition : partitions) {
+            partition.discardFile(fileId);
         }
     }
 
@@ -151,47 +191,152 @@ public class BufferPool {
      * 清空缓冲池
      */
     public void clear() throws IOException {
-        flushAll();
-        lock.writeLock().lock();
-        try {
-            pages.clear();
-            keyToFileName.clear();
-            accessOrder.clear();
-        } finally {
-            lock.writeLock().unlock();
+        for (BufferPoolPartition partition : partitions) {
+            partition.clear();
         }
     }
 
-    private void evictPage() throws IOException {
-        // LRU: 移除最久未访问的页面
-        if (accessOrder.isEmpty()) {
-            return;
+    /**
+     * 后台写线程调用：每个分区替换出页面直到空闲帧达到分区容量的freeFraction（至少1帧），
+     * 选中的脏页在锁外写回，总共最多写回maxWrites个页面。返回写回的页面数
+     */
+    public int prepareFreeFrames(double freeFraction, int maxWrites) throws IOException {
+        int written = 0;
+        for (BufferPoolPartition partition : partitions) {
+            int target = Math.max(1, (int) (partition.getCapacity() * freeFraction));
+            written += partition.prepareFreeFrames(target, maxWrites - written);
         }
+        return written;
+    }
 
-        Integer lruKey = accessOrder.entrySet().iterator().next().getKey();
-        Page page = pages.get(lruKey);
-        
-        if (page != null) {
-            if (page.isDirty()) {
-                String fileName = getFileName(lruKey);
-                pageManager.writePage(fileName, page);
-            }
-            pages.remove(lruKey);
-            keyToFileName.remove(lruKey);
-            accessOrder.remove(lruKey);
+    /**
+     * 收集当前所有脏页的页面键和文件名（检查点调用），不固定页面，写回时才逐个固定
+     */
+    List<DirtyPage> collectDirtyPages() {
+        List<DirtyPage> dirtyPages = new ArrayList<>();
+        for (BufferPoolPartition partition : partitions) {
+            partition.collectDirtyPages(dirtyPages);
         }
+        return dirtyPages;
     }
 
-    private void updateAccessOrder(int key) {
-        accessOrder.put(key, ++accessCounter);
+    /**
+     * 缓存的脏页数
+     */
+    public int getDirtyPageCount() {
+        int dirty = 0;
+        for (BufferPoolPartition partition : partitions) {
+            dirty += partition.getDirtyCount();
+        }
+        return dirty;
     }
 
-    private int getKey(String fileName, int pageId) {
-        return Objects.hash(fileName, pageId);
+    /**
+     * 空闲帧数
+     */
+    public int getFreeFrameCount() {
+        int free = 0;
+        for (BufferPoolPartition partition : partitions) {
+            free += partition.getFreeFrameCount();
+        }
+        return free;
+    }
+
+    /**
+     * 缓存页面占用的字节数
+     */
+    public long getUsedBytes() {
+        long used = 0;
+        for (BufferPoolPartition partition : partitions) {
+            used += partition.getUsedBytes();
+        }
+        return used;
     }
 
-    private String getFileName(int key) {
-        return keyToFileName.getOrDefault(key, "unknown");
+    /**
+     * 缓存的页面数
+     */
+    public int getPageCount() {
+        int count = 0;
+        for (BufferPoolPartition partition : partitions) {
+            count += partition.getPageCount();
+        }
+        return count;
     }
-}
 
+    /**
+     * 当前被固定的页面数
+     */
+    public int getPinnedCount() {
+        int pinned = 0;
+        for (BufferPoolPartition partition : partitions) {
+            pinned += partition.getPinnedCount();
+        }
+        return pinned;
+    }
+
+    public long getHitCount() {
+        long hits = 0;
+        for (BufferPoolPartition partition : partitions) {
+            hits += partition.getHitCount();
+        }
+        return hits;
+    }
+
+    public long getMissCount() {
+        long misses = 0;
+        for (BufferPoolPartition partition : partitions) {
+            misses += partition.getMissCount();
+        }
+        return misses;
+    }
+
+    /**
+     * 因替换、flush或移除而写回磁盘的脏页数
+     */
+    public long getWriteBackCount() {
+        long writes = 0;
+        for (BufferPoolPartition partition : partitions) {
+            writes += partition.getWriteBackCount();
+        }
+        return writes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * 堆外帧区，页面在堆内分配时返回null
+     */
+    public FrameArena getFrameArena() {
+        return arena;
+    }
+
+    /**
+     * 页面所在的分区号
+     */
+    int partitionIndex(String fileName, int pageId) {
+        return partitionIndex(pageKey(fileName, pageId));
+    }
+
+    private int partitionIndex(long key) {
+        if (partitions.length == 1) {
+            return 0;
+        }
+        // 乘法哈希取高位（乘数与PageTable不同，分区内的槽位仍然分散），同一文件的相邻页面分散到不同分区
+        return (int) ((key * 0xC2B2AE3D27D4EB4FL) >>> partitionShift);
+    }
+
+    private BufferPoolPartition partitionOf(long key) {
+        return partitions[partitionIndex(key)];
+    }
+
+    private long pageKey(String fileName, int pageId) {
+        return FileIdRegistry.pageKey(fileIds.getFileId(fileName), pageId);
+    }
+}
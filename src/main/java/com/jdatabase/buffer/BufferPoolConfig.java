@@ -0,0 +1,98 @@
+package com.jdatabase.buffer;
+
+/**
+ * 缓冲池配置，打开数据库时指定
+ * capacity：容量（以4KB页面数计）；policy：替换策略（lru、clock、2q）；
+ * partitions：分区数（2的幂），0表示按CPU数和容量自动选择；
+ * offHeap：帧分配在堆外帧区（FrameArena），页面内容不占用Java堆，直接内存上限用-XX:MaxDirectMemorySize设置。
+ */
+public class BufferPoolConfig {
+    // 自动选择时每个分区至少有这么多帧，小缓冲池不分区，替换行为与单一缓冲池一致
+    static final int MIN_PARTITION_FRAMES = 256;
+    static final int MAX_PARTITIONS = 64;
+
+    private int capacity;
+    private String policy;
+    private int partitions;
+    private boolean offHeap;
+
+    public BufferPoolConfig() {
+        this.capacity = BufferPool.DEFAULT_CAPACITY;
+        this.policy = ReplacementPolicy.CLOCK;
+        this.partitions = 0;
+        this.offHeap = false;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public BufferPoolConfig setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer pool capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public BufferPoolConfig setPolicy(String policy) {
+        // 提前校验名称
+        ReplacementPolicy.create(policy, 1);
+        this.policy = policy.toLowerCase();
+        return this;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public BufferPoolConfig setPartitions(int partitions) {
+        if (partitions < 0 || partitions > MAX_PARTITIONS || Integer.bitCount(partitions) > 1) {
+            throw new IllegalArgumentException("Buffer pool partitions must be 0 or a power of two up to "
+                    + MAX_PARTITIONS + ": " + partitions);
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public BufferPoolConfig setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+        return this;
+    }
+
+    /**
+     * 实际使用的分区数：显式指定时不超过容量；自动时取不小于4倍CPU数的2的幂，
+     * 再减半直到每个分区不少于MIN_PARTITION_FRAMES帧
+     */
+    int resolvePartitions() {
+        if (partitions > 0) {
+            int count = partitions;
+            while (count > capacity) {
+                count >>= 1;
+            }
+            return count;
+        }
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 4 && count < MAX_PARTITIONS) {
+            count <<= 1;
+        }
+        while (count > 1 && capacity / count < MIN_PARTITION_FRAMES) {
+            count >>= 1;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPoolConfig(capacity=" + capacity + ", policy=" + policy + ", partitions=" + partitions
+                + ", offHeap=" + offHeap + ")";
+    }
+}
@@ -0,0 +1,877 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+
+/**
+ * 缓冲池分区
+ * 每个分区有自己的锁、页表、帧数组和替换策略状态，页面按页面键的哈希固定落在一个分区（见BufferPool）。
+ * 磁盘读写都不持有分区锁：
+ * 未命中时在锁内预留帧和字节额度并登记"加载中"，释放锁读盘，再加锁放入预留的帧；
+ * 同一页面的其他读者等待这次加载完成后重查，不重复读盘。
+ * 需要替换脏页时先固定它（避免被再次选中或移除），释放锁写回后重新选择替换对象；
+ * 写回期间页面仍在页表中，其他线程照常命中，不会读到磁盘上的旧内容。
+ * 带访问策略（BufferAccessStrategy）装入的页面标记为环中的帧，策略的环满时优先回收。
+ * 使用堆外帧区（FrameArena）时，分区的第i帧对应帧区的第frameBase + i帧，大小等于帧大小的页面
+ * 直接读入帧中，页面是帧的视图；其他大小的页面仍在堆内分配。
+ * 帧被复用后旧的页面视图会看到新页面的内容，因此newPage替换掉仍被固定的旧页面时，旧页面的帧先退役，
+ * 解除固定后才回收（见releaseFrame）。
+ * 丢弃（discard、discardFile）只移除没有被固定的页面，被固定的页面等持有者解除固定后再丢弃，
+ * 持有者解除固定的总是它固定的那个页面对象。
+ */
+class BufferPoolPartition {
+    private static final int NIL = -1;
+    // makeRoom的返回值：已腾出空间；需要等待正在进行的加载
+    private static final int ROOM_READY = -1;
+    private static final int ROOM_WAIT = -2;
+    private static final long NO_KEY = -1L;
+    // 丢弃被固定的页面时最多等待多久，以及检查是否已解除固定的间隔
+    static final long DISCARD_TIMEOUT_MILLIS = 5000;
+    private static final long UNPIN_POLL_MILLIS = 1;
+
+    private final int index;
+    private final int partitionCount;
+    private final int capacity;
+    private final long capacityBytes;
+    // 已缓存和已预留（加载中）的页面占用的字节数
+    private long usedBytes;
+    private final PageManager pageManager;
+    private final PageTable pageTable;
+    // 帧：页面、页面键、文件名（写回时使用）；预留给加载中页面的帧，页面为null
+    private final Page[] frames;
+    private final long[] frameKeys;
+    private final String[] frameFiles;
+    // 帧是否由访问策略装入且之后没有被不带策略的访问命中
+    private final boolean[] ringOwned;
+    private final ReplacementPolicy policy;
+    private final IntPredicate evictable;
+    // 空闲帧栈
+    private final int[] freeFrames;
+    private int freeCount;
+    // 堆外帧区（null表示页面在堆内分配）及本分区第一帧在帧区中的序号
+    private final FrameArena arena;
+    private final int frameBase;
+    // 退役的帧及其中的页面：页面已移出分区但仍被固定，解除固定后帧才能复用
+    private final int[] retiredFrames;
+    private final Page[] retiredPages;
+    private int retiredCount;
+    // 加载中的页面：页面键 -> 加载完成时打开的门闩
+    private final Map<Long, CountDownLatch> loading;
+    private final StampedLock lock;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder writeBackCount;
+
+    BufferPoolPartition(int index, int partitionCount, int capacity, String policyName, PageManager pageManager) {
+        this(index, partitionCount, capacity, policyName, pageManager, null, 0);
+    }
+
+    BufferPoolPartition(int index, int partitionCount, int capacity, String policyName, PageManager pageManager,
+                        FrameArena arena, int frameBase) {
+        this.index = index;
+        this.partitionCount = partitionCount;
+        this.capacity = capacity;
+        this.capacityBytes = (long) capacity * Page.PAGE_SIZE;
+        this.usedBytes = 0;
+        this.pageManager = pageManager;
+        // 页面不小于4KB，同时缓存的页面数不超过capacity
+        this.pageTable = new PageTable(capacity);
+        this.frames = new Page[capacity];
+        this.frameKeys = new long[capacity];
+        this.frameFiles = new String[capacity];
+        this.ringOwned = new boolean[capacity];
+        this.policy = ReplacementPolicy.create(policyName, capacity);
+        this.evictable = f -> !frames[f].isPinned();
+        this.freeFrames = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeFrames[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+        this.arena = arena;
+        this.frameBase = frameBase;
+        this.retiredFrames = new int[capacity];
+        this.retiredPages = new Page[capacity];
+        this.retiredCount = 0;
+        this.loading = new HashMap<>();
+        this.lock = new StampedLock();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.writeBackCount = new LongAdder();
+    }
+
+    /**
+     * 查找页面，不在分区中时从磁盘读取
+     *
+     * @param pin      是否固定返回的页面
+     * @param strategy 访问策略，null表示普通访问
+     */
+    Page fetch(long key, String fileName, int pageId, boolean pin, BufferAccessStrategy strategy)
+            throws IOException {
+        if (policy.isConcurrentAccess()) {
+            Page page = findShared(key, pin, strategy);
+            if (page != null) {
+                return page;
+            }
+        }
+        while (true) {
+            CountDownLatch wait;
+            CountDownLatch load = null;
+            Page victim = null;
+            String victimFile = null;
+            int frame = NIL;
+            int pageSize = 0;
+            long stamp = lock.writeLock();
+            try {
+                int found = pageTable.get(key);
+                if (found != NIL) {
+                    Page page = frames[found];
+                    if (pin) {
+                        page.pin();
+                    }
+                    return hit(found, page, strategy);
+                }
+                wait = loading.get(key);
+                if (wait == null) {
+                    pageSize = pageManager.getPageSize(fileName);
+                    int room = makeRoom(pageSize, strategy);
+                    if (room == ROOM_WAIT) {
+                        wait = anyLoad();
+                    } else if (room != ROOM_READY) {
+                        victim = frames[room];
+                        victimFile = frameFiles[room];
+                    } else {
+                        missCount.increment();
+                        frame = reserveFrame(pageSize);
+                        load = new CountDownLatch(1);
+                        loading.put(key, load);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (wait != null) {
+                await(wait);
+            } else if (victim != null) {
+                // 锁外写回被选中的脏页，写回后它是干净的，重新选择替换对象
+                try {
+                    writeBack(victimFile, victim);
+                } finally {
+                    victim.unpin();
+                }
+            } else {
+                return load(key, fileName, pageId, pin, frame, pageSize, load, strategy);
+            }
+        }
+    }
+
+    /**
+     * 锁外读盘，然后把页面放入预留的帧，唤醒等待同一页面的线程
+     */
+    private Page load(long key, String fileName, int pageId, boolean pin, int frame, int pageSize,
+                      CountDownLatch load, BufferAccessStrategy strategy) throws IOException {
+        Page page = null;
+        try {
+            page = arena != null ? pageManager.readPage(fileName, pageId, arena.frame(frameBase + frame))
+                    : pageManager.readPage(fileName, pageId);
+            if (pin) {
+                page.pin();
+            }
+            return page;
+        } finally {
+            long stamp = lock.writeLock();
+            try {
+                loading.remove(key);
+                if (page != null) {
+                    install(frame, key, fileName, page, strategy);
+                } else {
+                    // 读盘失败：归还预留，等待的线程重查后自行加载
+                    usedBytes -= pageSize;
+                    freeFrames[freeCount++] = frame;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            load.countDown();
+        }
+    }
+
+    /**
+     * 为新分配的页面创建全零的缓存页面并固定，不读取磁盘
+     */
+    Page newPage(long key, String fileName, int pageId, BufferAccessStrategy strategy) throws IOException {
+        int pageSize = pageManager.getPageSize(fileName);
+        while (true) {
+            CountDownLatch wait;
+            Page victim = null;
+            String victimFile = null;
+            long stamp = lock.writeLock();
+            try {
+                wait = loading.get(key);
+                if (wait == null) {
+                    int stale = pageTable.remove(key);
+                    if (stale != NIL) {
+                        releaseFrame(stale);
+                    }
+                    int room = makeRoom(pageSize, strategy);
+                    if (room == ROOM_WAIT) {
+                        wait = anyLoad();
+                    } else if (room != ROOM_READY) {
+                        victim = frames[room];
+                        victimFile = frameFiles[room];
+                    } else {
+                        int frame = reserveFrame(pageSize);
+                        Page page = arena != null && pageSize == arena.getFrameSize()
+                                ? new Page(pageId, arena.zeroedFrame(frameBase + frame)) : new Page(pageId, pageSize);
+                        page.markDirty();
+                        page.pin();
+                        install(frame, key, fileName, page, strategy);
+                        return page;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (wait != null) {
+                await(wait);
+            } else {
+                try {
+                    writeBack(victimFile, victim);
+                } finally {
+                    victim.unpin();
+                }
+            }
+        }
+    }
+
+    /**
+     * 查找已缓存的页面，不存在时返回null
+     */
+    Page find(long key) {
+        long stamp = lock.tryOptimisticRead();
+        int frame = pageTable.get(key);
+        Page page = frame != NIL ? frames[frame] : null;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                frame = pageTable.get(key);
+                page = frame != NIL ? frames[frame] : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 写回脏页，fileId为NIL时写回分区中的所有脏页
+     * 在锁内固定脏页，锁外逐个写回后解除固定。
+     */
+    void flush(int fileId) throws IOException {
+        List<Integer> dirty = new ArrayList<>();
+        List<Page> pages = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            for (int frame = 0; frame < capacity; frame++) {
+                Page page = frames[frame];
+                if (page == null || (fileId != NIL && FileIdRegistry.fileIdOf(frameKeys[frame]) != fileId)) {
+                    continue;
+                }
+                // 固定计数的原子更新保证能看到解除固定前设置的脏标记
+                page.pin();
+                if (page.isDirty()) {
+                    dirty.add(frame);
+                    pages.add(page);
+                    files.add(frameFiles[frame]);
+                } else {
+                    page.unpin();
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        writeBackPinned(files, pages);
+    }
+
+    /**
+     * 锁外逐个写回已固定的页面并解除固定，第一次写回失败后不再写盘（仍解除固定）
+     */
+    private void writeBackPinned(List<String> files, List<Page> pages) throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < pages.size(); i++) {
+            try {
+                if (failure == null) {
+                    writeBack(files.get(i), pages.get(i));
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                pages.get(i).unpin();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 替换出页面直到有freeTarget个空闲帧（后台写线程调用），选中的脏页先在锁外写回，
+     * 最多写回maxWrites个页面。返回写回的页面数
+     */
+    int prepareFreeFrames(int freeTarget, int maxWrites) throws IOException {
+        int written = 0;
+        while (true) {
+            Page victim;
+            String victimFile;
+            long victimKey;
+            long stamp = lock.writeLock();
+            try {
+                if (freeCount >= Math.min(freeTarget, capacity)) {
+                    return written;
+                }
+                if (retiredCount > 0 && reclaimRetired()) {
+                    continue;
+                }
+                int frame = pageTable.size() > 0 ? policy.selectVictim(evictable) : NIL;
+                if (frame == NIL) {
+                    return written;
+                }
+                victim = frames[frame];
+                victimFile = frameFiles[frame];
+                victimKey = frameKeys[frame];
+                if (!victim.isDirty()) {
+                    if (victim.tryEvict()) {
+                        pageTable.remove(victimKey);
+                        releaseFrame(frame);
+                    }
+                    continue;
+                }
+                if (written >= maxWrites) {
+                    return written;
+                }
+                victim.pin();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            boolean clean;
+            try {
+                clean = writeBack(victimFile, victim);
+                if (clean) {
+                    written++;
+                }
+            } finally {
+                victim.unpin();
+            }
+            if (clean) {
+                // 写回后立即替换，否则替换策略会继续选择下一个脏页
+                stamp = lock.writeLock();
+                try {
+                    int frame = pageTable.get(victimKey);
+                    if (frame != NIL && frames[frame] == victim && freeCount < Math.min(freeTarget, capacity)
+                            && !victim.isDirty() && victim.tryEvict()) {
+                        pageTable.remove(victimKey);
+                        releaseFrame(frame);
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把分区中所有脏页的页面键和文件名加入out（检查点调用），不固定页面
+     */
+    void collectDirtyPages(List<DirtyPage> out) {
+        long stamp = lock.readLock();
+        try {
+            for (int frame = 0; frame < capacity; frame++) {
+                Page page = frames[frame];
+                if (page != null && page.isDirty()) {
+                    out.add(new DirtyPage(this, frameKeys[frame], frameFiles[frame]));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 写回仍在分区中的脏页（检查点调用）：在锁内查找并固定页面，锁外写回后解除固定。
+     * 页面已不在分区中（被替换或丢弃）或已不是脏页时不写，返回是否写了页面
+     */
+    boolean writeBackCached(long key, String fileName) throws IOException {
+        Page page;
+        long stamp = lock.readLock();
+        try {
+            int frame = pageTable.get(key);
+            if (frame == NIL) {
+                return false;
+            }
+            page = frames[frame];
+            if (!page.isDirty()) {
+                return false;
+            }
+            page.pin();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        try {
+            return writeBack(fileName, page);
+        } finally {
+            page.unpin();
+        }
+    }
+
+    /**
+     * 移除页面（脏页先在锁外写回，页面正在加载时等待加载完成）
+     * 页面被其他使用者固定时不移除，在锁外等待解除固定后重试（写回之后的修改不会丢失），
+     * 超时仍被固定则抛出IllegalStateException
+     */
+    void remove(long key) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISCARD_TIMEOUT_MILLIS);
+        while (true) {
+            CountDownLatch wait;
+            Page dirtyPage = null;
+            String fileName = null;
+            long stamp = lock.writeLock();
+            try {
+                wait = loading.get(key);
+                if (wait == null) {
+                    int frame = pageTable.get(key);
+                    if (frame == NIL) {
+                        return;
+                    }
+                    Page page = frames[frame];
+                    if (page.isDirty()) {
+                        dirtyPage = page;
+                        fileName = frameFiles[frame];
+                        dirtyPage.pin();
+                    } else if (discardFrame(frame)) {
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (wait != null) {
+                await(wait);
+            } else if (dirtyPage != null) {
+                try {
+                    writeBack(fileName, dirtyPage);
+                } finally {
+                    dirtyPage.unpin();
+                }
+            } else {
+                awaitUnpin(key, deadline);
+            }
+        }
+    }
+
+    /**
+     * 丢弃页面，不写回（页面正在加载时等待加载完成后再丢弃）
+     * 页面被固定时不丢弃，在锁外等待解除固定后重试，超时仍被固定则抛出IllegalStateException
+     */
+    void discard(long key) throws InterruptedIOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISCARD_TIMEOUT_MILLIS);
+        while (true) {
+            CountDownLatch wait;
+            long stamp = lock.writeLock();
+            try {
+                wait = loading.get(key);
+                if (wait == null) {
+                    int frame = pageTable.get(key);
+                    if (frame == NIL || discardFrame(frame)) {
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (wait != null) {
+                await(wait);
+            } else {
+                awaitUnpin(key, deadline);
+            }
+        }
+    }
+
+    /**
+     * 丢弃文件的所有页面，不写回（有该文件的页面正在加载时等待加载完成）
+     * 未被固定的页面立即丢弃，被固定的页面在锁外等待解除固定后重试，超时仍被固定则抛出IllegalStateException
+     */
+    void discardFile(int fileId) throws InterruptedIOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISCARD_TIMEOUT_MILLIS);
+        while (true) {
+            CountDownLatch wait = null;
+            long pinnedKey = NO_KEY;
+            long stamp = lock.writeLock();
+            try {
+                for (Map.Entry<Long, CountDownLatch> entry : loading.entrySet()) {
+                    if (FileIdRegistry.fileIdOf(entry.getKey()) == fileId) {
+                        wait = entry.getValue();
+                        break;
+                    }
+                }
+                if (wait == null) {
+                    for (int frame = 0; frame < capacity; frame++) {
+                        if (frames[frame] != null && FileIdRegistry.fileIdOf(frameKeys[frame]) == fileId) {
+                            long key = frameKeys[frame];
+                            if (!discardFrame(frame)) {
+                                pinnedKey = key;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (wait != null) {
+                await(wait);
+            } else if (pinnedKey != NO_KEY) {
+                awaitUnpin(pinnedKey, deadline);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写回脏页后清空分区（加载中的页面不受影响）
+     * 被固定的页面留在分区中，持有者仍按原样解除固定；flush之后又被修改的页面（极少见）
+     * 与makeRoom相同，在锁内固定、锁外补写，下一轮再移除。
+     */
+    void clear() throws IOException {
+        flush(NIL);
+        while (true) {
+            List<Page> pages = new ArrayList<>();
+            List<String> files = new ArrayList<>();
+            long stamp = lock.writeLock();
+            try {
+                for (int frame = 0; frame < capacity; frame++) {
+                    Page page = frames[frame];
+                    if (page == null || page.isPinned()) {
+                        continue;
+                    }
+                    if (page.isDirty()) {
+                        page.pin();
+                        pages.add(page);
+                        files.add(frameFiles[frame]);
+                    } else if (page.tryEvict()) {
+                        pageTable.remove(frameKeys[frame]);
+                        releaseFrame(frame);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (pages.isEmpty()) {
+                return;
+            }
+            writeBackPinned(files, pages);
+        }
+    }
+
+    long getUsedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int getPageCount() {
+        long stamp = lock.readLock();
+        try {
+            return pageTable.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int getDirtyCount() {
+        long stamp = lock.readLock();
+        try {
+            int dirty = 0;
+            for (Page page : frames) {
+                if (page != null && page.isDirty()) {
+                    dirty++;
+                }
+            }
+            return dirty;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int getFreeFrameCount() {
+        long stamp = lock.readLock();
+        try {
+            return freeCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int getPinnedCount() {
+        long stamp = lock.readLock();
+        try {
+            int pinned = 0;
+            for (Page page : frames) {
+                if (page != null && page.isPinned()) {
+                    pinned++;
+                }
+            }
+            return pinned;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+    long getWriteBackCount() {
+        return writeBackCount.sum();
+    }
+
+    /**
+     * 不加独占锁查找已缓存的页面，未命中返回null（仅用于支持并发访问的策略）
+     * 先乐观读：查页表、固定页面后校验，期间有独占锁介入（页表或帧可能已改变）则撤销固定，
+     * 改用共享锁重查。替换只在独占锁下进行并跳过被固定的页面，校验成功后页面不会被替换。
+     */
+    private Page findShared(long key, boolean pin, BufferAccessStrategy strategy) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int frame = pageTable.get(key);
+            Page page = frame != NIL ? frames[frame] : null;
+            // 替换保护：页面在读取页表之后被替换时固定失败
+            boolean pinned = page != null && pin && page.tryPin();
+            if ((page == null || !pin || pinned) && lock.validate(stamp)) {
+                return page != null ? hit(frame, page, strategy) : null;
+            }
+            if (pinned) {
+                page.unpin();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int frame = pageTable.get(key);
+            if (frame == NIL) {
+                return null;
+            }
+            Page page = frames[frame];
+            if (pin) {
+                page.pin();
+            }
+            return hit(frame, page, strategy);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Page hit(int frame, Page page, BufferAccessStrategy strategy) {
+        // 环中的页面被普通访问命中，不再由策略回收（只在置位时写，避免命中路径写共享状态）
+        if (strategy == null && ringOwned[frame]) {
+            ringOwned[frame] = false;
+        }
+        policy.onAccess(frame);
+        hitCount.increment();
+        return page;
+    }
+
+    /**
+     * 替换干净页面直到放得下pageSize字节（调用方持有写锁）
+     * 选中脏页时固定它并返回其帧下标，由调用方在锁外写回后重试；
+     * 所有页面都被固定但有加载在进行时返回ROOM_WAIT。
+     * 带访问策略且策略的环已满时，先回收环中最早的帧（仍未被固定、未被普通访问命中）。
+     */
+    private int makeRoom(int pageSize, BufferAccessStrategy strategy) {
+        if (strategy != null) {
+            long oldest = strategy.oldest(index, partitionCount, pageSize);
+            int frame = oldest != BufferAccessStrategy.NO_KEY ? pageTable.get(oldest) : NIL;
+            if (frame != NIL && ringOwned[frame] && !frames[frame].isPinned()) {
+                Page page = frames[frame];
+                if (page.isDirty()) {
+                    page.pin();
+                    return frame;
+                }
+                if (page.tryEvict()) {
+                    pageTable.remove(oldest);
+                    releaseFrame(frame);
+                    strategy.recycled();
+                }
+            }
+        }
+        // 分区为空时允许放入一个超出预算的大页面
+        while (freeCount == 0 || (freeCount < capacity && usedBytes + pageSize > capacityBytes)) {
+            if (retiredCount > 0 && reclaimRetired()) {
+                continue;
+            }
+            int frame = pageTable.size() > 0 ? policy.selectVictim(evictable) : NIL;
+            if (frame == NIL) {
+                if (!loading.isEmpty()) {
+                    return ROOM_WAIT;
+                }
+                throw new RuntimeException("Buffer pool is full: all " + pageTable.size() + " pages are pinned");
+            }
+            Page page = frames[frame];
+            if (page.isDirty()) {
+                page.pin();
+                return frame;
+            }
+            // 无锁命中刚刚固定了该页面时替换失败，重新选择
+            if (page.tryEvict()) {
+                pageTable.remove(frameKeys[frame]);
+                releaseFrame(frame);
+            }
+        }
+        return ROOM_READY;
+    }
+
+    /**
+     * 从空闲帧栈取出一帧并计入字节额度，页面稍后由install放入（调用方持有写锁）
+     */
+    private int reserveFrame(int pageSize) {
+        usedBytes += pageSize;
+        return freeFrames[--freeCount];
+    }
+
+    /**
+     * 把页面放入预留的帧并登记到页表和替换策略（调用方持有写锁）
+     */
+    private void install(int frame, long key, String fileName, Page page, BufferAccessStrategy strategy) {
+        frames[frame] = page;
+        frameKeys[frame] = key;
+        frameFiles[frame] = fileName;
+        ringOwned[frame] = strategy != null;
+        if (strategy != null) {
+            strategy.add(index, partitionCount, page.getPageSize(), key);
+        }
+        policy.onInstall(frame);
+        pageTable.put(key, frame);
+    }
+
+    /**
+     * 归还帧（调用方已从页表中删除）
+     * 堆外帧中的页面仍被固定时（newPage替换旧页面），持有者还在读写帧的内容，帧先退役，不进入空闲栈
+     */
+    private void releaseFrame(int frame) {
+        Page page = frames[frame];
+        policy.onRemove(frame);
+        frames[frame] = null;
+        ringOwned[frame] = false;
+        frameFiles[frame] = null;
+        usedBytes -= page.getPageSize();
+        if (arena != null && page.isPinned()) {
+            retiredFrames[retiredCount] = frame;
+            retiredPages[retiredCount++] = page;
+        } else {
+            freeFrames[freeCount++] = frame;
+        }
+    }
+
+    /**
+     * 回收已解除固定的退役帧（调用方持有写锁），回收了至少一帧时返回true
+     */
+    private boolean reclaimRetired() {
+        boolean reclaimed = false;
+        for (int i = retiredCount - 1; i >= 0; i--) {
+            // 替换保护：回收后旧页面不能再被固定
+            if (retiredPages[i].tryEvict()) {
+                freeFrames[freeCount++] = retiredFrames[i];
+                retiredCount--;
+                retiredFrames[i] = retiredFrames[retiredCount];
+                retiredPages[i] = retiredPages[retiredCount];
+                retiredPages[retiredCount] = null;
+                reclaimed = true;
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 丢弃帧中的页面，不写回（调用方持有写锁）；页面被固定时不丢弃，返回false
+     * 替换保护成功后没有线程固定着该页面，也就没有正在进行的写回（写回前总是先固定），可以直接清除脏标记
+     */
+    private boolean discardFrame(int frame) {
+        Page page = frames[frame];
+        if (!page.tryEvict()) {
+            return false;
+        }
+        page.setDirty(false);
+        pageTable.remove(frameKeys[frame]);
+        releaseFrame(frame);
+        return true;
+    }
+
+    private CountDownLatch anyLoad() {
+        return loading.values().iterator().next();
+    }
+
+    /**
+     * 移除或丢弃时等待被固定的页面解除固定（调用方不持有分区锁），超过截止时间时抛出IllegalStateException
+     */
+    private static void awaitUnpin(long key, long deadline) throws InterruptedIOException {
+        if (System.nanoTime() - deadline > 0) {
+            throw new IllegalStateException("Cannot remove pinned page: file " + FileIdRegistry.fileIdOf(key)
+                    + ", page " + FileIdRegistry.pageIdOf(key));
+        }
+        try {
+            Thread.sleep(UNPIN_POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for page unpin");
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedIOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for page load");
+        }
+    }
+
+    /**
+     * 脏页写回磁盘，持有共享页面锁，避免写出修改到一半的页面（读者不受影响）；页面不脏时返回false
+     */
+    boolean writeBack(String fileName, Page page) throws IOException {
+        page.latchShared();
+        try {
+            if (!page.isDirty()) {
+                return false;
+            }
+            pageManager.writePage(fileName, page);
+            // 修改持有排他锁，写回期间页面不会再变脏
+            page.setDirty(false);
+            writeBackCount.increment();
+            return true;
+        } finally {
+            page.unlatchShared();
+        }
+    }
+}
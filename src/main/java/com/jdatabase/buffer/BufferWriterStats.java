@@ -0,0 +1,61 @@
+package com.jdatabase.buffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 后台写线程和检查点的统计：运行轮数、写回的页面数、写回速度
+ * 写回速度按最近一轮计算（写回页面数 / 该轮耗时，包括限速等待），累计值另行提供。
+ */
+public class BufferWriterStats {
+    private final AtomicLong rounds = new AtomicLong();
+    private final AtomicLong pagesWritten = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile long lastRoundPages;
+    private volatile long lastRoundNanos;
+
+    void recordRound(long pages, long nanos) {
+        rounds.incrementAndGet();
+        pagesWritten.addAndGet(pages);
+        busyNanos.addAndGet(nanos);
+        lastRoundPages = pages;
+        lastRoundNanos = nanos;
+    }
+
+    public long getRounds() {
+        return rounds.get();
+    }
+
+    public long getPagesWritten() {
+        return pagesWritten.get();
+    }
+
+    /**
+     * 最近一轮写回的页面数
+     */
+    public long getLastRoundPages() {
+        return lastRoundPages;
+    }
+
+    /**
+     * 最近一轮的写回速度（页/秒）
+     */
+    public double getPagesPerSecond() {
+        long nanos = lastRoundNanos;
+        return nanos == 0 ? 0 : lastRoundPages * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * 所有轮次平均的写回速度（页/秒），只计运行时间，不计两轮之间的空闲
+     */
+    public double getAveragePagesPerSecond() {
+        long nanos = busyNanos.get();
+        return nanos == 0 ? 0 : pagesWritten.get() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rounds=%d, pagesWritten=%d, pages/s=%.0f", getRounds(), getPagesWritten(),
+                getPagesPerSecond());
+    }
+}
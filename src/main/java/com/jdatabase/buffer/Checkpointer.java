@@ -0,0 +1,150 @@
+package com.jdatabase.buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查点
+ * 定期写回缓冲池中的所有脏页：先收集当时脏页的页面键，按文件、页号排序后顺序写回，
+ * 同一文件的相邻页面连续写出；按每秒页面数限速，避免检查点的写入突发挤占前台I/O。
+ * 每个页面只在自己写回期间被固定，限速等待时不固定任何页面，不妨碍替换；
+ * 收集之后已被写回、替换或丢弃的页面跳过。
+ * 写回不持有缓冲池的锁，写回期间页面照常可读（共享页面锁保证写出的是完整的页面，修改等待写完）。
+ */
+public class Checkpointer implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 30000;
+    public static final int DEFAULT_PAGES_PER_SECOND = 2000;
+
+    private final BufferPool bufferPool;
+    private final long intervalMillis;
+    private final int pagesPerSecond;
+    private final BufferWriterStats stats;
+    private final Object runLock;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    public Checkpointer(BufferPool bufferPool) {
+        this(bufferPool, DEFAULT_INTERVAL_MILLIS, DEFAULT_PAGES_PER_SECOND);
+    }
+
+    /**
+     * @param intervalMillis 两次检查点之间的间隔
+     * @param pagesPerSecond 每秒最多写回的页面数（0表示不限速）
+     */
+    public Checkpointer(BufferPool bufferPool, long intervalMillis, int pagesPerSecond) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        if (pagesPerSecond < 0) {
+            throw new IllegalArgumentException("pagesPerSecond must not be negative: " + pagesPerSecond);
+        }
+        this.bufferPool = bufferPool;
+        this.intervalMillis = intervalMillis;
+        this.pagesPerSecond = pagesPerSecond;
+        this.stats = new BufferWriterStats();
+        this.runLock = new Object();
+    }
+
+    /**
+     * 启动后台线程
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jdb-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runCheckpoint, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即执行一次限速的检查点，返回写回的页面数
+     */
+    public int checkpoint() throws IOException {
+        synchronized (runLock) {
+            long start = System.nanoTime();
+            long nanosPerPage = pagesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / pagesPerSecond : 0;
+            List<DirtyPage> dirtyPages = bufferPool.collectDirtyPages();
+            dirtyPages.sort(Comparator.comparingLong(DirtyPage::getKey));
+            int written = 0;
+            try {
+                for (DirtyPage dirtyPage : dirtyPages) {
+                    if (dirtyPage.write()) {
+                        written++;
+                        throttle(start, written * nanosPerPage);
+                    }
+                }
+            } finally {
+                stats.recordRound(written, System.nanoTime() - start);
+            }
+            return written;
+        }
+    }
+
+    public BufferWriterStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 缓冲池中仍然是脏页的页面数
+     */
+    public int getDirtyPageCount() {
+        return bufferPool.getDirtyPageCount();
+    }
+
+    /**
+     * 停止后台线程：正在进行的检查点取消限速、写完剩余页面后结束
+     * （不中断线程：中断会关闭正在读写的文件通道）
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        synchronized (runLock) {
+            runLock.notifyAll();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 写得比预算快时等待到预算时刻（调用方持有runLock，关闭时提前唤醒）
+     */
+    private void throttle(long start, long budgetNanos) throws InterruptedIOException {
+        long waitNanos;
+        while (!closed && (waitNanos = start + budgetNanos - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.timedWait(runLock, waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Checkpoint interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.jdatabase.buffer;
+
+import java.util.function.IntPredicate;
+
+/**
+ * CLOCK替换策略（二次机会）
+ * 每个帧有一个引用位，命中时只把引用位置1，不修改任何共享结构，因此命中可以在共享锁下并发进行。
+ * 替换时指针沿帧数组循环扫描：引用位为1的帧清零后跳过，遇到引用位为0且未被固定的帧即替换。
+ */
+public class ClockPolicy implements ReplacementPolicy {
+    private final byte[] referenced;
+    private final boolean[] occupied;
+    private int hand;
+
+    public ClockPolicy(int frames) {
+        this.referenced = new byte[frames];
+        this.occupied = new boolean[frames];
+        this.hand = 0;
+    }
+
+    @Override
+    public void onInstall(int frame) {
+        occupied[frame] = true;
+        referenced[frame] = 1;
+    }
+
+    @Override
+    public void onAccess(int frame) {
+        // 已置位时不再写，避免热点帧所在的缓存行在各核之间来回传递
+        if (referenced[frame] == 0) {
+            referenced[frame] = 1;
+        }
+    }
+
+    @Override
+    public void onRemove(int frame) {
+        occupied[frame] = false;
+        referenced[frame] = 0;
+    }
+
+    @Override
+    public int selectVictim(IntPredicate evictable) {
+        int frames = occupied.length;
+        // 第一圈清除引用位，第二圈必然能找到未被固定的帧（如果存在）
+        for (int step = 0; step < 2 * frames; step++) {
+            int frame = hand;
+            hand = (hand + 1) % frames;
+            if (!occupied[frame]) {
+                continue;
+            }
+            if (referenced[frame] != 0) {
+                referenced[frame] = 0;
+                continue;
+            }
+            if (evictable.test(frame)) {
+                return frame;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isConcurrentAccess() {
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.jdatabase.buffer;
+
+import java.io.IOException;
+
+/**
+ * 检查点收集的脏页：只记录页面键和文件名，写回时才固定页面
+ */
+class DirtyPage {
+    private final BufferPoolPartition partition;
+    private final long key;
+    private final String fileName;
+
+    DirtyPage(BufferPoolPartition partition, long key, String fileName) {
+        this.partition = partition;
+        this.key = key;
+        this.fileName = fileName;
+    }
+
+    /**
+     * 页面键 (fileId << 32 | pageId)，按它排序即按文件、页号排序
+     */
+    long getKey() {
+        return key;
+    }
+
+    /**
+     * 写回页面（收集之后已被写回、替换或丢弃时不写），返回是否写了页面
+     */
+    boolean write() throws IOException {
+        return partition.writeBackCached(key, fileName);
+    }
+}
@@ -0,0 +1,64 @@
+package com.jdatabase.buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件编号注册表
+ * 为每个文件名分配一个从0开始递增的整数编号，缓冲池用 (fileId << 32 | pageId) 作为页面键。
+ * 编号在注册表的生命周期内不回收，同名文件删除后重新创建仍使用原编号。
+ */
+public class FileIdRegistry {
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+
+    public FileIdRegistry() {
+        this.ids = new ConcurrentHashMap<>();
+        this.names = new ArrayList<>();
+    }
+
+    /**
+     * 获取文件编号，首次出现的文件分配新编号（已注册的文件不分配对象）
+     */
+    public int getFileId(String fileName) {
+        Integer id = ids.get(fileName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (names) {
+            id = ids.get(fileName);
+            if (id == null) {
+                id = names.size();
+                names.add(fileName);
+                ids.put(fileName, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 按编号取文件名
+     */
+    public String getFileName(int fileId) {
+        synchronized (names) {
+            return names.get(fileId);
+        }
+    }
+
+    /**
+     * 由文件编号和页号组成64位页面键
+     */
+    public static long pageKey(int fileId, int pageId) {
+        return ((long) fileId << 32) | (pageId & 0xFFFFFFFFL);
+    }
+
+    public static int fileIdOf(long pageKey) {
+        return (int) (pageKey >>> 32);
+    }
+
+    public static int pageIdOf(long pageKey) {
+        return (int) pageKey;
+    }
+}
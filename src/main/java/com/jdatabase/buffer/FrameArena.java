@@ -0,0 +1,95 @@
+package com.jdatabase.buffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 堆外帧区
+ * 缓冲池的帧分配在少数几个大的直接内存块（slab）中，每块不超过MAX_SLAB_BYTES，按帧大小切分；
+ * 缓存的页面是帧的视图（见Page(int, ByteBuffer)），页面内容不占用Java堆，GC不需要标记或复制它们，
+ * 堆中只剩页面对象本身。直接内存的上限由-XX:MaxDirectMemorySize控制（未设置时等于最大堆），
+ * 帧区可以独立于-Xmx配置。帧区在创建缓冲池时一次分配，缓冲池不再被引用后随之回收。
+ * 帧的分配和复用由缓冲池分区负责：每个分区使用从frameBase开始的一段连续帧。
+ */
+public class FrameArena {
+    public static final int MAX_SLAB_BYTES = 1 << 30;
+
+    private final int frameSize;
+    private final int frameCount;
+    // 每块的帧数是2的幂：帧号的高位是块号，低位是块内序号
+    private final int slabShift;
+    private final ByteBuffer[] slabs;
+    private final byte[] zeros;
+
+    public FrameArena(int frameCount, int frameSize) {
+        this(frameCount, frameSize, MAX_SLAB_BYTES);
+    }
+
+    FrameArena(int frameCount, int frameSize, int maxSlabBytes) {
+        if (frameCount <= 0) {
+            throw new IllegalArgumentException("Frame count must be positive: " + frameCount);
+        }
+        if (frameSize <= 0 || Integer.bitCount(frameSize) != 1 || frameSize > maxSlabBytes) {
+            throw new IllegalArgumentException("Invalid frame size: " + frameSize);
+        }
+        this.frameSize = frameSize;
+        this.frameCount = frameCount;
+        this.slabShift = 31 - Integer.numberOfLeadingZeros(maxSlabBytes / frameSize);
+        int framesPerSlab = 1 << slabShift;
+        this.slabs = new ByteBuffer[(frameCount + framesPerSlab - 1) >>> slabShift];
+        for (int i = 0; i < slabs.length; i++) {
+            int frames = Math.min(framesPerSlab, frameCount - (i << slabShift));
+            slabs[i] = ByteBuffer.allocateDirect(frames * frameSize);
+        }
+        this.zeros = new byte[Math.min(frameSize, 65536)];
+    }
+
+    /**
+     * 帧的视图（与帧区共享内容，容量为帧大小，大端序）
+     */
+    public ByteBuffer frame(int index) {
+        if (index < 0 || index >= frameCount) {
+            throw new IndexOutOfBoundsException("Frame " + index + " out of " + frameCount);
+        }
+        ByteBuffer view = slabs[index >>> slabShift].duplicate();
+        int offset = (index & ((1 << slabShift) - 1)) * frameSize;
+        view.limit(offset + frameSize);
+        view.position(offset);
+        return view.slice();
+    }
+
+    /**
+     * 清零后的帧视图（用于新分配的页面）
+     */
+    ByteBuffer zeroedFrame(int index) {
+        ByteBuffer view = frame(index);
+        while (view.hasRemaining()) {
+            view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+        }
+        view.clear();
+        return view;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getSlabCount() {
+        return slabs.length;
+    }
+
+    /**
+     * 帧区占用的直接内存字节数
+     */
+    public long getCapacityBytes() {
+        return (long) frameCount * frameSize;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameArena(frames=" + frameCount + ", frameSize=" + frameSize + ", slabs=" + slabs.length + ")";
+    }
+}
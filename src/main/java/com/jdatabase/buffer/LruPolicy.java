@@ -0,0 +1,83 @@
+package com.jdatabase.buffer;
+
+import java.util.function.IntPredicate;
+
+/**
+ * LRU替换策略
+ * 帧下标用int[] prev/next串成双向链表，head为最久未访问的帧。
+ * 每次命中都要移动链表节点，因此命中也需要缓冲池的独占锁。
+ */
+public class LruPolicy implements ReplacementPolicy {
+    private static final int NIL = -1;
+
+    private final int[] prev;
+    private final int[] next;
+    private int head;
+    private int tail;
+
+    public LruPolicy(int frames) {
+        this.prev = new int[frames];
+        this.next = new int[frames];
+        this.head = NIL;
+        this.tail = NIL;
+    }
+
+    @Override
+    public void onInstall(int frame) {
+        linkTail(frame);
+    }
+
+    @Override
+    public void onAccess(int frame) {
+        if (frame != tail) {
+            unlink(frame);
+            linkTail(frame);
+        }
+    }
+
+    @Override
+    public void onRemove(int frame) {
+        unlink(frame);
+    }
+
+    @Override
+    public int selectVictim(IntPredicate evictable) {
+        for (int frame = head; frame != NIL; frame = next[frame]) {
+            if (evictable.test(frame)) {
+                return frame;
+            }
+        }
+        return NIL;
+    }
+
+    @Override
+    public boolean isConcurrentAccess() {
+        return false;
+    }
+
+    private void linkTail(int frame) {
+        prev[frame] = tail;
+        next[frame] = NIL;
+        if (tail != NIL) {
+            next[tail] = frame;
+        } else {
+            head = frame;
+        }
+        tail = frame;
+    }
+
+    private void unlink(int frame) {
+        int p = prev[frame];
+        int n = next[frame];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            head = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            tail = p;
+        }
+    }
+}
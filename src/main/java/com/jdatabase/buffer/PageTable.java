@@ -0,0 +1,143 @@
+package com.jdatabase.buffer;
+
+import java.util.Arrays;
+
+/**
+ * 页表：64位页面键到帧下标的开放寻址哈希表
+ * 键和值分别存放在long[]和int[]中，线性探测，删除时向前移动后续条目（不使用墓碑）。
+ * 查找不分配对象。非线程安全，由缓冲池的锁保护。
+ */
+public class PageTable {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expectedSize 预计的最大条目数，表按两倍大小分配，装载因子不超过0.5
+     */
+    public PageTable(int expectedSize) {
+        allocate(tableSizeFor(Math.max(16, expectedSize * 2)));
+    }
+
+    /**
+     * 查找键对应的帧下标，不存在时返回-1
+     */
+    public int get(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 插入或覆盖
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Invalid page key: " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除键，返回原来的帧下标（不存在时返回-1）
+     */
+    public int remove(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                return -1;
+            }
+            if (k == key) {
+                break;
+            }
+            i = (i + 1) & mask;
+        }
+        int value = values[i];
+        // 把探测链上可以前移的条目移入空位，保证之后的查找不会提前遇到空槽
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == EMPTY) {
+                break;
+            }
+            int home = slot(k);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(n);
+        return capacity < n ? capacity << 1 : capacity;
+    }
+}
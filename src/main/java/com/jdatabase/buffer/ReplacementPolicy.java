@@ -0,0 +1,56 @@
+package com.jdatabase.buffer;
+
+import java.util.function.IntPredicate;
+
+/**
+ * 缓冲池替换策略
+ * 策略只跟踪帧下标，不接触页面内容。除onAccess外的方法都在缓冲池的独占锁下调用；
+ * isConcurrentAccess()为true的策略，命中时在共享锁下并发调用onAccess。
+ */
+public interface ReplacementPolicy {
+    String LRU = "lru";
+    String CLOCK = "clock";
+    String TWO_QUEUE = "2q";
+
+    /**
+     * 页面装入帧
+     */
+    void onInstall(int frame);
+
+    /**
+     * 命中帧中的页面
+     */
+    void onAccess(int frame);
+
+    /**
+     * 帧中的页面被移出（替换、丢弃或清空）
+     */
+    void onRemove(int frame);
+
+    /**
+     * 选出一个可替换的帧，evictable判断帧是否可以替换（未被固定）；没有可替换的帧时返回-1
+     * 返回的帧由缓冲池随后调用onRemove移出。
+     */
+    int selectVictim(IntPredicate evictable);
+
+    /**
+     * onAccess能否在共享锁下被多个线程同时调用
+     */
+    boolean isConcurrentAccess();
+
+    /**
+     * 按名称创建策略（lru、clock、2q）
+     */
+    static ReplacementPolicy create(String name, int frames) {
+        switch (name.toLowerCase()) {
+            case LRU:
+                return new LruPolicy(frames);
+            case CLOCK:
+                return new ClockPolicy(frames);
+            case TWO_QUEUE:
+                return new TwoQueuePolicy(frames);
+            default:
+                throw new IllegalArgumentException("Unknown replacement policy: " + name);
+        }
+    }
+}
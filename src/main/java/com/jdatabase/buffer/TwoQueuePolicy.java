@@ -0,0 +1,124 @@
+package com.jdatabase.buffer;
+
+import java.util.function.IntPredicate;
+
+/**
+ * 2Q替换策略（抗扫描）
+ * 新装入的页面进入试用队列（FIFO），再次被访问才晋升到保护队列（LRU）。
+ * 替换时先从试用队列的队头选择，试用队列没有可替换的帧时才替换保护队列中最久未访问的帧。
+ * 全表扫描只访问每个页面一次，扫描的页面在试用队列中相互替换，不会挤出反复访问的热点页面。
+ * 保护队列最多占3/4的帧，超出时把保护队列中最久未访问的帧降回试用队列队尾。
+ * 策略只跟踪帧下标，不保留已替换页面的历史（原始2Q的A1out队列），晋升以页面在缓冲池中被再次访问为准。
+ * 命中需要移动链表节点，在缓冲池的独占锁下完成。
+ */
+public class TwoQueuePolicy implements ReplacementPolicy {
+    private static final int NIL = -1;
+    private static final byte NONE = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final int[] prev;
+    private final int[] next;
+    private final byte[] queue;
+    // 两个队列的队头（最先进入/最久未访问）和队尾，下标0为试用队列，1为保护队列
+    private final int[] heads;
+    private final int[] tails;
+    private int protectedSize;
+    private final int protectedCapacity;
+
+    public TwoQueuePolicy(int frames) {
+        this.prev = new int[frames];
+        this.next = new int[frames];
+        this.queue = new byte[frames];
+        this.heads = new int[]{NIL, NIL};
+        this.tails = new int[]{NIL, NIL};
+        this.protectedSize = 0;
+        this.protectedCapacity = Math.max(1, frames - frames / 4);
+    }
+
+    @Override
+    public void onInstall(int frame) {
+        linkTail(frame, PROBATION);
+    }
+
+    @Override
+    public void onAccess(int frame) {
+        if (queue[frame] == PROTECTED) {
+            if (frame != tails[1]) {
+                unlink(frame);
+                linkTail(frame, PROTECTED);
+            }
+            return;
+        }
+        // 试用队列中的页面第二次被访问，晋升
+        unlink(frame);
+        linkTail(frame, PROTECTED);
+        if (protectedSize > protectedCapacity) {
+            int demoted = heads[1];
+            unlink(demoted);
+            linkTail(demoted, PROBATION);
+        }
+    }
+
+    @Override
+    public void onRemove(int frame) {
+        unlink(frame);
+        queue[frame] = NONE;
+    }
+
+    @Override
+    public int selectVictim(IntPredicate evictable) {
+        for (int q = 0; q < 2; q++) {
+            for (int frame = heads[q]; frame != NIL; frame = next[frame]) {
+                if (evictable.test(frame)) {
+                    return frame;
+                }
+            }
+        }
+        return NIL;
+    }
+
+    @Override
+    public boolean isConcurrentAccess() {
+        return false;
+    }
+
+    int getProtectedSize() {
+        return protectedSize;
+    }
+
+    private void linkTail(int frame, byte target) {
+        int q = target - 1;
+        queue[frame] = target;
+        prev[frame] = tails[q];
+        next[frame] = NIL;
+        if (tails[q] != NIL) {
+            next[tails[q]] = frame;
+        } else {
+            heads[q] = frame;
+        }
+        tails[q] = frame;
+        if (target == PROTECTED) {
+            protectedSize++;
+        }
+    }
+
+    private void unlink(int frame) {
+        int q = queue[frame] - 1;
+        int p = prev[frame];
+        int n = next[frame];
+        if (p != NIL) {
+            next[p] = n;
+        } else {
+            heads[q] = n;
+        }
+        if (n != NIL) {
+            prev[n] = p;
+        } else {
+            tails[q] = p;
+        }
+        if (queue[frame] == PROTECTED) {
+            protectedSize--;
+        }
+    }
+}
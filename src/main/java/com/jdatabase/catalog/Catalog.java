@@ -1,8 +1,12 @@
 package com.jdatabase.catalog;
 
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
 import com.jdatabase.common.Schema;
+import com.jdatabase.common.Types;
 import com.jdatabase.storage.PageManager;
 import com.jdatabase.storage.RecordManager;
+import com.jdatabase.storage.StorageOptions;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -17,31 +21,90 @@ import java.util.Map;
 public class Catalog {
     private static final String CATALOG_FILE = "catalog.dat";
     private static final String INDEX_CATALOG_FILE = "index_catalog.dat";
+    private static final String TABLE_OPTIONS_FILE = "table_options.dat";
     private final PageManager pageManager;
     private final RecordManager recordManager;
     private final Map<String, Schema> schemas;
     private final Map<String, String> indexes; // key: "tableName.columnName"
+    private final Map<String, StorageOptions> tableOptions;
     private final String dataDir;
 
     public Catalog(String dataDir) {
+        this(dataDir, new StorageOptions());
+    }
+
+    /**
+     * @param defaultOptions 数据库级默认存储选项，建表时未指定的选项从这里继承
+     */
+    public Catalog(String dataDir, StorageOptions defaultOptions) {
+        this(dataDir, defaultOptions, BufferPool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param bufferPoolSize 堆页面缓冲池的容量（以4KB页面数计）
+     */
+    public Catalog(String dataDir, StorageOptions defaultOptions, int bufferPoolSize) {
+        this(dataDir, defaultOptions, new BufferPoolConfig().setCapacity(bufferPoolSize));
+    }
+
+    /**
+     * @param bufferPoolConfig 堆页面缓冲池的容量和替换策略
+     */
+    public Catalog(String dataDir, StorageOptions defaultOptions, BufferPoolConfig bufferPoolConfig) {
         this.dataDir = dataDir;
-        this.pageManager = new PageManager(dataDir);
-        this.recordManager = new RecordManager(pageManager);
+        this.pageManager = new PageManager(dataDir, defaultOptions);
+        this.recordManager = new RecordManager(pageManager, new BufferPool(bufferPoolConfig, pageManager));
         this.schemas = new HashMap<>();
         this.indexes = new HashMap<>();
+        this.tableOptions = new HashMap<>();
         loadCatalog();
         loadIndexCatalog();
+        loadTableOptions();
     }
 
     /**
-     * 创建表
+     * 创建表（使用数据库级默认存储选项）
      */
     public void createTable(Schema schema) {
+        createTable(schema, getDefaultStorageOptions().copy());
+    }
+
+    /**
+     * 按指定存储选项创建表
+     */
+    public void createTable(Schema schema, StorageOptions options) {
         if (schemas.containsKey(schema.getTableName())) {
             throw new RuntimeException("Table already exists: " + schema.getTableName());
         }
+        for (String column : options.getDictionaryColumns()) {
+            Schema.Column definition = schema.getColumn(column);
+            if (definition == null) {
+                throw new RuntimeException("Dictionary column not found: " + column);
+            }
+            if (definition.getType() != Types.VARCHAR) {
+                throw new RuntimeException("Dictionary column must be VARCHAR: " + column);
+            }
+        }
         schemas.put(schema.getTableName(), schema);
+        tableOptions.put(schema.getTableName(), options);
+        pageManager.setFileOptions(schema.getTableName() + ".dat", options);
         saveCatalog();
+        saveTableOptions();
+    }
+
+    /**
+     * 获取表的存储选项
+     */
+    public StorageOptions getStorageOptions(String tableName) {
+        StorageOptions options = tableOptions.get(tableName);
+        return options != null ? options : getDefaultStorageOptions();
+    }
+
+    /**
+     * 数据库级默认存储选项
+     */
+    public StorageOptions getDefaultStorageOptions() {
+        return pageManager.getDefaultOptions();
     }
 
     /**
@@ -66,18 +129,21 @@ public class Catalog {
             throw new RuntimeException("Table does not exist: " + tableName);
         }
         schemas.remove(tableName);
+        tableOptions.remove(tableName);
         
-        // 删除数据文件
+        // 删除数据文件（先关闭打开的文件句柄）
         try {
-            Path dataFile = Paths.get(dataDir, tableName + ".dat");
-            if (Files.exists(dataFile)) {
-                Files.delete(dataFile);
-            }
+            recordManager.dropFreeSpaceMap(tableName + ".dat");
+            recordManager.dropOverflowFile(tableName + ".dat");
+            recordManager.dropDictionary(tableName + ".dat");
+            recordManager.getBufferPool().discardFile(tableName + ".dat");
+            pageManager.deleteFile(tableName + ".dat");
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete table file", e);
         }
         
         saveCatalog();
+        saveTableOptions();
     }
 
     /**
@@ -158,6 +224,24 @@ public class Catalog {
         return recordManager;
     }
 
+    /**
+     * 关闭目录，释放打开的数据文件
+     */
+    public void close() {
+        try {
+            recordManager.flush();
+        } catch (IOException e) {
+            // 脏页写回失败时修改会丢失；FSM只是提示信息，保存失败下次打开时会重建
+            System.err.println("Failed to flush buffer pool and free space maps: " + e.getMessage());
+        }
+        try {
+            recordManager.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close dictionary files: " + e.getMessage());
+        }
+        pageManager.close();
+    }
+
     /**
      * 加载索引目录
      */
@@ -190,5 +274,40 @@ public class Catalog {
             throw new RuntimeException("Failed to save index catalog", e);
         }
     }
-}
 
+    /**
+     * 加载表存储选项，并登记到页面管理器
+     */
+    private void loadTableOptions() {
+        Path optionsPath = Paths.get(dataDir, TABLE_OPTIONS_FILE);
+        if (!Files.exists(optionsPath)) {
+            return;
+        }
+
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new FileInputStream(optionsPath.toFile()))) {
+            @SuppressWarnings("unchecked")
+            Map<String, StorageOptions> loaded = (Map<String, StorageOptions>) ois.readObject();
+            tableOptions.putAll(loaded);
+            for (Map.Entry<String, StorageOptions> entry : loaded.entrySet()) {
+                pageManager.setFileOptions(entry.getKey() + ".dat", entry.getValue());
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            // 如果加载失败，使用默认选项
+            System.err.println("Failed to load table options: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 保存表存储选项
+     */
+    private void saveTableOptions() {
+        Path optionsPath = Paths.get(dataDir, TABLE_OPTIONS_FILE);
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new FileOutputStream(optionsPath.toFile()))) {
+            oos.writeObject(tableOptions);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save table options", e);
+        }
+    }
+}
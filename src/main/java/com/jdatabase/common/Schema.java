@@ -1,5 +1,6 @@
 package com.jdatabase.common;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -8,7 +9,9 @@ import java.util.Map;
 /**
  * 表结构定义
  */
-public class Schema {
+public class Schema implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private final String tableName;
     private final List<Column> columns;
     private final Map<String, Integer> columnIndexMap;
@@ -62,7 +65,9 @@ public class Schema {
     /**
      * 列定义
      */
-    public static class Column {
+    public static class Column implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         private final String name;
         private final Types type;
         private final int length;  // 对于VARCHAR类型
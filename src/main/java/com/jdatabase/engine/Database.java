@@ -1,5 +1,9 @@
 package com.jdatabase.engine;
 
+import com.jdatabase.buffer.BackgroundWriter;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.buffer.Checkpointer;
 import com.jdatabase.catalog.Catalog;
 import com.jdatabase.common.Schema;
 import com.jdatabase.common.Tuple;
@@ -9,9 +13,14 @@ import com.jdatabase.optimizer.QueryOptimizer;
 import com.jdatabase.parser.SQLParser;
 import com.jdatabase.parser.ast.*;
 import com.jdatabase.storage.StorageManager;
+import com.jdatabase.storage.StorageOptions;
+import com.jdatabase.storage.TableScanCursor;
+import com.jdatabase.storage.VacuumService;
+import com.jdatabase.storage.VacuumStats;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据库引擎主类
@@ -22,13 +31,44 @@ public class Database {
     private final QueryExecutor queryExecutor;
     private final IndexManager indexManager;
     private final QueryOptimizer queryOptimizer;
+    private final VacuumService vacuumService;
+    private final BackgroundWriter backgroundWriter;
+    private final Checkpointer checkpointer;
 
     public Database(String dataDir) {
-        this.catalog = new Catalog(dataDir);
+        this(dataDir, new StorageOptions());
+    }
+
+    /**
+     * @param defaultStorageOptions 数据库级默认存储选项（可被建表语句的WITH子句覆盖）
+     */
+    public Database(String dataDir, StorageOptions defaultStorageOptions) {
+        this(dataDir, defaultStorageOptions, BufferPool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param bufferPoolSize 缓冲池容量（以4KB页面数计），所有表的堆页面共用
+     */
+    public Database(String dataDir, StorageOptions defaultStorageOptions, int bufferPoolSize) {
+        this(dataDir, defaultStorageOptions, new BufferPoolConfig().setCapacity(bufferPoolSize));
+    }
+
+    /**
+     * @param bufferPoolConfig 缓冲池容量、替换策略（lru、clock、2q）、分区数以及是否使用堆外帧区
+     */
+    public Database(String dataDir, StorageOptions defaultStorageOptions, BufferPoolConfig bufferPoolConfig) {
+        this.catalog = new Catalog(dataDir, defaultStorageOptions, bufferPoolConfig);
         this.indexManager = new IndexManager(dataDir);
         this.queryOptimizer = new QueryOptimizer();
         this.storageManager = new StorageManager(catalog, indexManager);
         this.queryExecutor = new QueryExecutor(storageManager, indexManager, queryOptimizer);
+        this.vacuumService = new VacuumService(storageManager, indexManager);
+        this.vacuumService.start();
+        BufferPool bufferPool = catalog.getRecordManager().getBufferPool();
+        this.backgroundWriter = new BackgroundWriter(bufferPool);
+        this.backgroundWriter.start();
+        this.checkpointer = new Checkpointer(bufferPool);
+        this.checkpointer.start();
     }
 
     /**
@@ -51,6 +91,8 @@ public class Database {
                 return executeUpdate((UpdateStatement) stmt);
             } else if (stmt instanceof DeleteStatement) {
                 return executeDelete((DeleteStatement) stmt);
+            } else if (stmt instanceof VacuumStatement) {
+                return executeVacuum((VacuumStatement) stmt);
             } else {
                 return Result.error("Unsupported statement type");
             }
@@ -62,7 +104,11 @@ public class Database {
     private Result executeCreateTable(CreateTableStatement stmt) {
         try {
             Schema schema = stmt.toSchema();
-            catalog.createTable(schema);
+            StorageOptions options = catalog.getDefaultStorageOptions().copy();
+            for (Map.Entry<String, String> option : stmt.getOptions().entrySet()) {
+                options.setOption(option.getKey(), option.getValue());
+            }
+            catalog.createTable(schema, options);
             
             // 如果定义了主键，自动创建索引
             if (schema.getPrimaryKey() != null) {
@@ -109,30 +155,18 @@ public class Database {
     }
 
     private void buildIndexForExistingData(String tableName, String columnName, Schema schema) throws IOException {
-        String fileName = tableName + ".dat";
-        com.jdatabase.storage.RecordManager recordManager = catalog.getRecordManager();
-        com.jdatabase.storage.PageManager pageManager = catalog.getPageManager();
-        
         int colIndex = schema.getColumnIndex(columnName);
-        int pageCount = pageManager.getPageCount(fileName);
-        
-        for (int pageId = 0; pageId < pageCount; pageId++) {
-            com.jdatabase.storage.Page page = pageManager.readPage(fileName, pageId);
-            int slotCount = page.readInt(4); // SLOT_COUNT_OFFSET
-            
-            for (int slotId = 0; slotId < slotCount; slotId++) {
-                int slotOffset = com.jdatabase.storage.Page.PAGE_HEADER_SIZE + slotId * 8; // SLOT_SIZE
-                int recordOffset = page.readInt(slotOffset + 4);
-                
-                if (recordOffset > 0) { // 有效记录
-                    com.jdatabase.storage.RecordId recordId = new com.jdatabase.storage.RecordId(pageId, slotId);
-                    Tuple tuple = recordManager.readRecord(fileName, schema, recordId);
-                    if (tuple != null) {
-                        com.jdatabase.common.Value value = tuple.getValue(colIndex);
-                        if (value != null && value.getValue() != null) {
-                            indexManager.insert(tableName, columnName, (Comparable<?>) value.getValue(), recordId);
-                        }
-                    }
+        java.util.BitSet columns = new java.util.BitSet();
+        columns.set(colIndex);
+
+        // 通过缓冲池逐页扫描，只解码索引列
+        try (TableScanCursor cursor = storageManager.openScan(tableName, columns)) {
+            while (cursor.hasNext()) {
+                Tuple tuple = cursor.next();
+                com.jdatabase.common.Value value = tuple.getValue(colIndex);
+                if (value != null && value.getValue() != null) {
+                    indexManager.insert(tableName, columnName, (Comparable<?>) value.getValue(),
+                            cursor.getCurrentRecordId());
                 }
             }
         }
@@ -174,6 +208,20 @@ public class Database {
         }
     }
 
+    private Result executeVacuum(VacuumStatement stmt) {
+        try {
+            if (!catalog.tableExists(stmt.getTableName())) {
+                return Result.error("Table does not exist: " + stmt.getTableName());
+            }
+            VacuumStats stats = vacuumService.vacuum(stmt.getTableName());
+            return Result.success("Vacuumed " + stmt.getTableName() + ": " + stats.getPagesCompacted()
+                    + " page(s) compacted, " + stats.getBytesReclaimed() + " byte(s) reclaimed, "
+                    + stats.getIndexEntriesRemoved() + " index entry(s) removed");
+        } catch (IOException e) {
+            return Result.error("Failed to vacuum: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取目录管理器
      */
@@ -188,11 +236,36 @@ public class Database {
         return indexManager;
     }
 
+    /**
+     * 获取清理服务（查看VACUUM进度和回收统计）
+     */
+    public VacuumService getVacuumService() {
+        return vacuumService;
+    }
+
+    /**
+     * 获取后台写线程（查看写回速度和剩余脏页数）
+     */
+    public BackgroundWriter getBackgroundWriter() {
+        return backgroundWriter;
+    }
+
+    /**
+     * 获取检查点（查看写回速度和剩余脏页数，或立即执行检查点）
+     */
+    public Checkpointer getCheckpointer() {
+        return checkpointer;
+    }
+
     /**
      * 关闭数据库
      */
     public void close() {
         // 清理资源
+        vacuumService.close();
+        backgroundWriter.close();
+        checkpointer.close();
+        catalog.close();
     }
 
     /**
@@ -29,14 +29,16 @@ public class AggregateOperator implements Operator {
 
     @Override
     public void open() {
-        child.open();
-        
         // 收集所有元组
         List<Tuple> tuples = new ArrayList<>();
-        while (child.hasNext()) {
-            tuples.add(child.next());
+        try {
+            child.open();
+            while (child.hasNext()) {
+                tuples.add(child.next());
+            }
+        } finally {
+            child.close();
         }
-        child.close();
 
         // 执行聚合
         aggregatedTuples = performAggregation(tuples);
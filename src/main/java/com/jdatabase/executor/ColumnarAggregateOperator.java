@@ -0,0 +1,369 @@
+package com.jdatabase.executor;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import com.jdatabase.parser.ast.Expression;
+import com.jdatabase.parser.ast.SelectStatement;
+import com.jdatabase.storage.ColumnScanCursor;
+import com.jdatabase.storage.MiniPage;
+import com.jdatabase.storage.PaxPage;
+import com.jdatabase.storage.StorageManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式聚合操作符
+ * 直接遍历PAX表各页面中聚合列的minipage计算COUNT/SUM/AVG/MIN/MAX，不构造中间元组；
+ * 支持按列GROUP BY。输出元组的列与SELECT项一一对应，QueryExecutor只在supports()成立时使用。
+ */
+public class ColumnarAggregateOperator implements Operator {
+    private final StorageManager storageManager;
+    private final String tableName;
+    private final Schema schema;
+    private final List<SelectStatement.SelectItem> selectItems;
+    private final int[] groupColumns;
+    private List<Tuple> results;
+    private int currentIndex;
+
+    public ColumnarAggregateOperator(StorageManager storageManager, String tableName, Schema schema,
+                                     List<SelectStatement.SelectItem> selectItems, List<Expression> groupBy) {
+        this.storageManager = storageManager;
+        this.tableName = tableName;
+        this.schema = schema;
+        this.selectItems = selectItems;
+        int groupCount = groupBy != null ? groupBy.size() : 0;
+        this.groupColumns = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            groupColumns[i] = columnIndex(groupBy.get(i), schema);
+        }
+    }
+
+    /**
+     * 查询能否由列式聚合完成：SELECT项均为聚合函数或GROUP BY列，GROUP BY均为本表的列
+     */
+    public static boolean supports(List<SelectStatement.SelectItem> selectItems, List<Expression> groupBy,
+                                   Schema schema) {
+        List<Integer> groupColumns = new ArrayList<>();
+        if (groupBy != null) {
+            for (Expression expr : groupBy) {
+                int index = columnIndex(expr, schema);
+                if (index < 0) {
+                    return false;
+                }
+                groupColumns.add(index);
+            }
+        }
+        boolean hasAggregate = false;
+        for (SelectStatement.SelectItem item : selectItems) {
+            Expression expr = item.getExpression();
+            if (expr instanceof Expression.FunctionCall) {
+                if (!supportsFunction((Expression.FunctionCall) expr, schema)) {
+                    return false;
+                }
+                hasAggregate = true;
+            } else if (!groupColumns.contains(columnIndex(expr, schema))) {
+                return false;
+            }
+        }
+        return hasAggregate || !groupColumns.isEmpty();
+    }
+
+    @Override
+    public void open() {
+        try {
+            results = aggregate();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan table: " + tableName, e);
+        }
+        currentIndex = 0;
+    }
+
+    @Override
+    public Tuple next() {
+        if (results != null && currentIndex < results.size()) {
+            return results.get(currentIndex++);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        results = null;
+        currentIndex = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return results != null && currentIndex < results.size();
+    }
+
+    private List<Tuple> aggregate() throws IOException {
+        int itemCount = selectItems.size();
+        // 每个SELECT项对应的列下标（COUNT(*)为-1）
+        int[] itemColumns = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            Expression expr = selectItems.get(i).getExpression();
+            itemColumns[i] = expr instanceof Expression.FunctionCall
+                    ? argumentColumn((Expression.FunctionCall) expr, schema) : columnIndex(expr, schema);
+        }
+
+        Map<List<Object>, Accumulator[]> groups = new LinkedHashMap<>();
+        if (groupColumns.length == 0) {
+            groups.put(new ArrayList<>(), newAccumulators());
+        }
+
+        try (ColumnScanCursor cursor = storageManager.openColumnScan(tableName)) {
+            while (cursor.hasNext()) {
+                PaxPage page = cursor.next();
+                if (groupColumns.length == 0) {
+                    accumulatePage(page, itemColumns, groups.get(new ArrayList<>()));
+                } else {
+                    accumulateGroups(page, itemColumns, groups);
+                }
+            }
+        }
+
+        Schema outputSchema = outputSchema(itemColumns);
+        List<Tuple> tuples = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Accumulator[]> entry : groups.entrySet()) {
+            Tuple tuple = new Tuple(outputSchema);
+            for (int i = 0; i < itemCount; i++) {
+                Expression expr = selectItems.get(i).getExpression();
+                Types type = outputSchema.getColumn(i).getType();
+                Object value;
+                if (expr instanceof Expression.FunctionCall) {
+                    value = entry.getValue()[i].result();
+                } else {
+                    value = entry.getKey().get(groupPosition(itemColumns[i]));
+                }
+                tuple.setValue(i, value != null ? new Value(type, value) : null);
+            }
+            tuples.add(tuple);
+        }
+        return tuples;
+    }
+
+    /**
+     * 无GROUP BY：按列逐个遍历minipage
+     */
+    private void accumulatePage(PaxPage page, int[] itemColumns, Accumulator[] accumulators) {
+        int rowCount = page.getRowCount();
+        boolean hasDeleted = page.getLiveCount() < rowCount;
+        for (int i = 0; i < itemColumns.length; i++) {
+            Accumulator accumulator = accumulators[i];
+            if (accumulator == null) {
+                continue;
+            }
+            if (itemColumns[i] < 0) {
+                accumulator.count += page.getLiveCount();
+                continue;
+            }
+            MiniPage miniPage = page.getMiniPage(itemColumns[i]);
+            for (int row = 0; row < rowCount; row++) {
+                if ((hasDeleted && page.isDeleted(row)) || miniPage.isNull(row)) {
+                    continue;
+                }
+                accumulator.add(miniPage, row);
+            }
+        }
+    }
+
+    /**
+     * 有GROUP BY：逐行取分组键，再累加各聚合列
+     */
+    private void accumulateGroups(PaxPage page, int[] itemColumns, Map<List<Object>, Accumulator[]> groups) {
+        int rowCount = page.getRowCount();
+        MiniPage[] keyPages = new MiniPage[groupColumns.length];
+        for (int g = 0; g < groupColumns.length; g++) {
+            keyPages[g] = page.getMiniPage(groupColumns[g]);
+        }
+        for (int row = 0; row < rowCount; row++) {
+            if (page.isDeleted(row)) {
+                continue;
+            }
+            List<Object> key = new ArrayList<>(groupColumns.length);
+            for (MiniPage keyPage : keyPages) {
+                Value value = keyPage.getValue(row);
+                key.add(value != null ? value.getValue() : null);
+            }
+            Accumulator[] accumulators = groups.get(key);
+            if (accumulators == null) {
+                accumulators = newAccumulators();
+                groups.put(key, accumulators);
+            }
+            for (int i = 0; i < itemColumns.length; i++) {
+                if (accumulators[i] == null) {
+                    continue;
+                }
+                if (itemColumns[i] < 0) {
+                    accumulators[i].count++;
+                    continue;
+                }
+                MiniPage miniPage = page.getMiniPage(itemColumns[i]);
+                if (!miniPage.isNull(row)) {
+                    accumulators[i].add(miniPage, row);
+                }
+            }
+        }
+    }
+
+    private Schema outputSchema(int[] itemColumns) {
+        List<Schema.Column> columns = new ArrayList<>();
+        for (int i = 0; i < selectItems.size(); i++) {
+            SelectStatement.SelectItem item = selectItems.get(i);
+            Expression expr = item.getExpression();
+            String name;
+            Types type;
+            if (expr instanceof Expression.FunctionCall) {
+                Expression.FunctionCall call = (Expression.FunctionCall) expr;
+                String function = call.getFunctionName().toUpperCase();
+                name = function + "(" + (itemColumns[i] < 0 ? "*" : schema.getColumn(itemColumns[i]).getName()) + ")";
+                if (function.equals("COUNT")) {
+                    type = Types.LONG;
+                } else if (function.equals("SUM") || function.equals("AVG")) {
+                    type = Types.DOUBLE;
+                } else {
+                    type = schema.getColumn(itemColumns[i]).getType();
+                }
+            } else {
+                name = schema.getColumn(itemColumns[i]).getName();
+                type = schema.getColumn(itemColumns[i]).getType();
+            }
+            columns.add(new Schema.Column(item.getAlias() != null ? item.getAlias() : name, type, -1, true, false));
+        }
+        return new Schema(tableName, columns, null);
+    }
+
+    private int groupPosition(int column) {
+        for (int g = 0; g < groupColumns.length; g++) {
+            if (groupColumns[g] == column) {
+                return g;
+            }
+        }
+        throw new IllegalStateException("Column is not in GROUP BY: " + column);
+    }
+
+    /**
+     * 为每个聚合函数项创建累加器，GROUP BY列对应的位置为null
+     */
+    private Accumulator[] newAccumulators() {
+        Accumulator[] accumulators = new Accumulator[selectItems.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            Expression expr = selectItems.get(i).getExpression();
+            if (expr instanceof Expression.FunctionCall) {
+                accumulators[i] = new Accumulator(((Expression.FunctionCall) expr).getFunctionName().toUpperCase());
+            }
+        }
+        return accumulators;
+    }
+
+    private static boolean supportsFunction(Expression.FunctionCall call, Schema schema) {
+        if (call.isDistinct() || call.getArguments().size() > 1) {
+            return false;
+        }
+        String function = call.getFunctionName().toUpperCase();
+        if (!Arrays.asList("COUNT", "SUM", "AVG", "MIN", "MAX").contains(function)) {
+            return false;
+        }
+        int column = argumentColumn(call, schema);
+        if (column == -1) {
+            return function.equals("COUNT");
+        }
+        if (column < 0) {
+            return false;
+        }
+        Types type = schema.getColumn(column).getType();
+        if (function.equals("SUM") || function.equals("AVG")) {
+            return type == Types.INT || type == Types.LONG || type == Types.FLOAT || type == Types.DOUBLE;
+        }
+        return function.equals("COUNT") || type != Types.BOOLEAN;
+    }
+
+    /**
+     * 聚合函数参数对应的列下标：COUNT(*)或无参数为-1，不是本表的列时为-2
+     */
+    private static int argumentColumn(Expression.FunctionCall call, Schema schema) {
+        if (call.getArguments().isEmpty()) {
+            return -1;
+        }
+        Expression arg = call.getArguments().get(0);
+        if (arg instanceof Expression.ColumnReference
+                && "*".equals(((Expression.ColumnReference) arg).getColumnName())) {
+            return -1;
+        }
+        int index = columnIndex(arg, schema);
+        return index >= 0 ? index : -2;
+    }
+
+    private static int columnIndex(Expression expr, Schema schema) {
+        if (!(expr instanceof Expression.ColumnReference)) {
+            return -1;
+        }
+        return schema.getColumnIndex(((Expression.ColumnReference) expr).getColumnName());
+    }
+
+    /**
+     * 单个聚合项的累加状态
+     */
+    private static class Accumulator {
+        final String function;
+        long count;
+        double sum;
+        Comparable<Object> min;
+        Comparable<Object> max;
+
+        Accumulator(String function) {
+            this.function = function;
+        }
+
+        /**
+         * 累加minipage中的一个非NULL值；SUM/AVG直接读取数值，不装箱
+         */
+        @SuppressWarnings("unchecked")
+        void add(MiniPage miniPage, int row) {
+            count++;
+            switch (function) {
+                case "SUM":
+                case "AVG":
+                    sum += miniPage.getNumber(row);
+                    break;
+                case "MIN":
+                case "MAX":
+                    Comparable<Object> value = (Comparable<Object>) miniPage.getValue(row).getValue();
+                    if (min == null || value.compareTo(min) < 0) {
+                        min = value;
+                    }
+                    if (max == null || value.compareTo(max) > 0) {
+                        max = value;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Object result() {
+            switch (function) {
+                case "COUNT":
+                    return count;
+                case "SUM":
+                    return count > 0 ? sum : null;
+                case "AVG":
+                    return count > 0 ? sum / count : null;
+                case "MIN":
+                    return min;
+                case "MAX":
+                    return max;
+                default:
+                    throw new IllegalStateException("Unsupported aggregate: " + function);
+            }
+        }
+    }
+}
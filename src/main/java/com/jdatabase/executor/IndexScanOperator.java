@@ -7,6 +7,7 @@ import com.jdatabase.storage.RecordId;
 import com.jdatabase.storage.StorageManager;
 
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -20,17 +21,28 @@ public class IndexScanOperator implements Operator {
     private final Schema schema;
     private final String columnName;
     private final Comparable<?> searchKey;
+    private final BitSet columns;
     private Iterator<Tuple> iterator;
     private List<Tuple> tuples;
 
     public IndexScanOperator(StorageManager storageManager, IndexManager indexManager,
                            String tableName, Schema schema, String columnName, Comparable<?> searchKey) {
+        this(storageManager, indexManager, tableName, schema, columnName, searchKey, null);
+    }
+
+    /**
+     * @param columns 需要解码的列，null表示全部列
+     */
+    public IndexScanOperator(StorageManager storageManager, IndexManager indexManager,
+                           String tableName, Schema schema, String columnName, Comparable<?> searchKey,
+                           BitSet columns) {
         this.storageManager = storageManager;
         this.indexManager = indexManager;
         this.tableName = tableName;
         this.schema = schema;
         this.columnName = columnName;
         this.searchKey = searchKey;
+        this.columns = columns;
     }
 
     @Override
@@ -42,7 +54,7 @@ public class IndexScanOperator implements Operator {
             // 根据 RecordId 读取元组
             tuples = new java.util.ArrayList<>();
             for (RecordId recordId : recordIds) {
-                Tuple tuple = storageManager.readTuple(tableName, recordId);
+                Tuple tuple = storageManager.readTuple(tableName, recordId, columns);
                 if (tuple != null) {
                     tuples.add(tuple);
                 }
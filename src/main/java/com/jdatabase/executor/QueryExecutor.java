@@ -1,5 +1,6 @@
 package com.jdatabase.executor;
 
+import com.jdatabase.buffer.BufferAccessStrategy;
 import com.jdatabase.common.Schema;
 import com.jdatabase.common.Tuple;
 import com.jdatabase.common.Value;
@@ -7,10 +8,14 @@ import com.jdatabase.index.IndexManager;
 import com.jdatabase.optimizer.QueryOptimizer;
 import com.jdatabase.parser.ast.*;
 import com.jdatabase.storage.StorageManager;
+import com.jdatabase.storage.TableScanCursor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,15 +41,19 @@ public class QueryExecutor {
         
         Operator root = buildExecutionPlan(optimizedStmt);
         
-        root.open();
+        // 扫描游标在next()之间固定着当前页面，出错时也必须关闭操作符树释放固定
         List<Tuple> results = new ArrayList<>();
-        while (root.hasNext()) {
-            Tuple tuple = root.next();
-            if (tuple != null) {
-                results.add(tuple);
+        try {
+            root.open();
+            while (root.hasNext()) {
+                Tuple tuple = root.next();
+                if (tuple != null) {
+                    results.add(tuple);
+                }
             }
+        } finally {
+            root.close();
         }
-        root.close();
         
         return results;
     }
@@ -60,6 +69,8 @@ public class QueryExecutor {
         }
 
         int count = 0;
+        // 多行INSERT的数据量超过缓冲池容量的一定比例时，用环形缓冲插入，不挤出缓冲池中的其他页面
+        BufferAccessStrategy strategy = null;
         for (List<Expression> values : stmt.getValuesList()) {
             Tuple tuple = new Tuple(schema);
             
@@ -81,7 +92,10 @@ public class QueryExecutor {
                 }
             }
             
-            storageManager.insertTuple(tableName, tuple);
+            if (count == 0 && stmt.getValuesList().size() > 1) {
+                strategy = storageManager.selectInsertStrategy(tableName, tuple, stmt.getValuesList().size());
+            }
+            storageManager.insertTuple(tableName, tuple, strategy);
             count++;
         }
         
@@ -98,27 +112,9 @@ public class QueryExecutor {
             throw new RuntimeException("Table not found: " + tableName);
         }
 
-        // 扫描表并应用WHERE条件
-        List<Tuple> tuples = storageManager.scanTable(tableName);
-        int count = 0;
-        
-        for (Tuple tuple : tuples) {
-            if (stmt.getWhereClause() == null || 
-                evaluateCondition(stmt.getWhereClause(), tuple)) {
-                // 更新元组
-                for (UpdateStatement.Assignment assignment : stmt.getAssignments()) {
-                    int colIndex = schema.getColumnIndex(assignment.getColumnName());
-                    if (colIndex >= 0) {
-                        Value newValue = evaluateExpression(assignment.getValue(), tuple);
-                        tuple.setValue(colIndex, newValue);
-                    }
-                }
-                // 注意：这里需要RecordId来更新，简化处理
-                count++;
-            }
-        }
-        
-        return count;
+        // 扫描表并应用WHERE条件，只需解码WHERE引用的列
+        // 注意：这里只统计匹配的行，尚未实际更新记录和索引（简化处理）
+        return countMatches(tableName, schema, stmt.getWhereClause());
     }
 
     /**
@@ -131,18 +127,26 @@ public class QueryExecutor {
             throw new RuntimeException("Table not found: " + tableName);
         }
 
-        // 扫描表并应用WHERE条件
-        List<Tuple> tuples = storageManager.scanTable(tableName);
+        // 扫描表并应用WHERE条件，只需解码WHERE引用的列
+        // 注意：这里只统计匹配的行，尚未实际删除记录和索引（简化处理）
+        return countMatches(tableName, schema, stmt.getWhereClause());
+    }
+
+    /**
+     * 流式扫描表，统计满足WHERE条件的行数（whereClause为null时统计所有行）
+     */
+    private int countMatches(String tableName, Schema schema, Expression whereClause) throws IOException {
+        BitSet columns = new BitSet(schema.getColumnCount());
+        collectColumns(whereClause, null, schema, columns);
         int count = 0;
-        
-        for (Tuple tuple : tuples) {
-            if (stmt.getWhereClause() == null || 
-                evaluateCondition(stmt.getWhereClause(), tuple)) {
-                // 注意：这里需要RecordId来删除，简化处理
-                count++;
+        try (TableScanCursor cursor = storageManager.openScan(tableName, columns)) {
+            while (cursor.hasNext()) {
+                Tuple tuple = cursor.next();
+                if (whereClause == null || evaluateCondition(whereClause, tuple)) {
+                    count++;
+                }
             }
         }
-        
         return count;
     }
 
@@ -152,7 +156,13 @@ public class QueryExecutor {
     private Operator buildExecutionPlan(SelectStatement stmt) {
         // 构建FROM子句的扫描操作符
         List<SelectStatement.TableReference> tables = stmt.getFromClause();
-        Operator root = null;
+        Operator root = buildColumnarAggregate(stmt);
+        if (root != null) {
+            if (stmt.getOrderByClause() != null) {
+                root = new SortOperator(root, stmt.getOrderByClause());
+            }
+            return root;
+        }
         
         for (int i = 0; i < tables.size(); i++) {
             SelectStatement.TableReference tableRef = tables.get(i);
@@ -161,8 +171,9 @@ public class QueryExecutor {
                 throw new RuntimeException("Table not found: " + tableRef.getTableName());
             }
             
-            // 尝试使用索引优化扫描
-            Operator scan = buildScanOperator(tableRef.getTableName(), schema, stmt.getWhereClause());
+            // 尝试使用索引优化扫描，只解码查询引用的列
+            BitSet columns = referencedColumns(stmt, tableRef, schema);
+            Operator scan = buildScanOperator(tableRef.getTableName(), schema, stmt.getWhereClause(), columns);
             
             if (i == 0) {
                 root = scan;
@@ -195,6 +206,23 @@ public class QueryExecutor {
         return root;
     }
 
+    /**
+     * PAX表上没有WHERE/HAVING的单表聚合直接读取列minipage，不满足条件时返回null
+     */
+    private Operator buildColumnarAggregate(SelectStatement stmt) {
+        if (stmt.getFromClause().size() != 1 || stmt.getWhereClause() != null || stmt.getHavingClause() != null) {
+            return null;
+        }
+        String tableName = stmt.getFromClause().get(0).getTableName();
+        Schema schema = storageManager.getCatalog().getSchema(tableName);
+        if (schema == null || !storageManager.isColumnar(tableName)
+                || !ColumnarAggregateOperator.supports(stmt.getSelectItems(), stmt.getGroupByClause(), schema)) {
+            return null;
+        }
+        return new ColumnarAggregateOperator(storageManager, tableName, schema,
+                stmt.getSelectItems(), stmt.getGroupByClause());
+    }
+
     private boolean hasAggregateFunctions(List<SelectStatement.SelectItem> selectItems) {
         for (SelectStatement.SelectItem item : selectItems) {
             if (item.getExpression() instanceof Expression.FunctionCall) {
@@ -278,18 +306,118 @@ public class QueryExecutor {
     /**
      * 构建扫描操作符，尝试使用索引优化
      */
-    private Operator buildScanOperator(String tableName, Schema schema, Expression whereClause) {
+    private Operator buildScanOperator(String tableName, Schema schema, Expression whereClause, BitSet columns) {
         // 检查 WHERE 条件中是否有可以使用索引的等值查询
         if (whereClause != null) {
             IndexScanInfo indexInfo = findIndexableCondition(whereClause, tableName, schema);
             if (indexInfo != null) {
                 return new IndexScanOperator(storageManager, indexManager, 
-                    tableName, schema, indexInfo.columnName, indexInfo.searchKey);
+                    tableName, schema, indexInfo.columnName, indexInfo.searchKey, columns);
             }
         }
         
-        // 默认使用顺序扫描
-        return new SeqScanOperator(storageManager, tableName, schema);
+        // 默认使用顺序扫描，字典编码列上的等值条件下推到扫描游标
+        Map<Integer, String> equalityFilters = new LinkedHashMap<>();
+        collectDictionaryFilters(whereClause, tableName, schema, equalityFilters);
+        return new SeqScanOperator(storageManager, tableName, schema, columns, equalityFilters);
+    }
+
+    /**
+     * 收集WHERE中以AND连接的"字典编码列 = 字符串常量"条件
+     * 这些条件仍由FilterOperator复核，下推只是让扫描跳过不匹配的记录而不解码。
+     */
+    private void collectDictionaryFilters(Expression expr, String tableName, Schema schema,
+                                          Map<Integer, String> filters) {
+        if (!(expr instanceof Expression.BinaryExpression)) {
+            return;
+        }
+        Expression.BinaryExpression binExpr = (Expression.BinaryExpression) expr;
+        String op = binExpr.getOperator();
+        if (op.equalsIgnoreCase("AND")) {
+            collectDictionaryFilters(binExpr.getLeft(), tableName, schema, filters);
+            collectDictionaryFilters(binExpr.getRight(), tableName, schema, filters);
+            return;
+        }
+        if (!op.equals("=") && !op.equals("==")) {
+            return;
+        }
+        Expression left = binExpr.getLeft();
+        Expression right = binExpr.getRight();
+        if (right instanceof Expression.ColumnReference && left instanceof Expression.Literal) {
+            left = binExpr.getRight();
+            right = binExpr.getLeft();
+        }
+        if (!(left instanceof Expression.ColumnReference) || !(right instanceof Expression.Literal)
+                || !(((Expression.Literal) right).getValue() instanceof String)) {
+            return;
+        }
+        Expression.ColumnReference colRef = (Expression.ColumnReference) left;
+        if (colRef.getTableName() != null && !colRef.getTableName().equals(tableName)) {
+            return;
+        }
+        int index = schema.getColumnIndex(colRef.getColumnName());
+        if (index >= 0 && storageManager.isDictionaryEncoded(tableName, colRef.getColumnName())
+                && !filters.containsKey(index)) {
+            filters.put(index, (String) ((Expression.Literal) right).getValue());
+        }
+    }
+
+    /**
+     * 计算查询引用了表的哪些列（投影下推）
+     * SELECT * 时返回null（解码全部列）；COUNT(*)等函数参数中的*不引用任何列。
+     */
+    private BitSet referencedColumns(SelectStatement stmt, SelectStatement.TableReference tableRef, Schema schema) {
+        BitSet columns = new BitSet(schema.getColumnCount());
+        for (SelectStatement.SelectItem item : stmt.getSelectItems()) {
+            Expression expr = item.getExpression();
+            if (expr instanceof Expression.ColumnReference
+                    && "*".equals(((Expression.ColumnReference) expr).getColumnName())) {
+                return null;
+            }
+            collectColumns(expr, tableRef, schema, columns);
+        }
+        collectColumns(stmt.getWhereClause(), tableRef, schema, columns);
+        collectColumns(stmt.getHavingClause(), tableRef, schema, columns);
+        if (stmt.getGroupByClause() != null) {
+            for (Expression expr : stmt.getGroupByClause()) {
+                collectColumns(expr, tableRef, schema, columns);
+            }
+        }
+        if (stmt.getOrderByClause() != null) {
+            for (SelectStatement.OrderByItem item : stmt.getOrderByClause()) {
+                collectColumns(item.getExpression(), tableRef, schema, columns);
+            }
+        }
+        for (SelectStatement.TableReference ref : stmt.getFromClause()) {
+            collectColumns(ref.getJoinCondition(), tableRef, schema, columns);
+        }
+        return columns;
+    }
+
+    private void collectColumns(Expression expr, SelectStatement.TableReference tableRef,
+                                Schema schema, BitSet columns) {
+        if (expr instanceof Expression.ColumnReference) {
+            Expression.ColumnReference colRef = (Expression.ColumnReference) expr;
+            String qualifier = colRef.getTableName();
+            if (qualifier != null && tableRef != null && !qualifier.equalsIgnoreCase(tableRef.getTableName())
+                    && !qualifier.equalsIgnoreCase(tableRef.getAlias())) {
+                return;
+            }
+            int index = schema.getColumnIndex(colRef.getColumnName());
+            if (index >= 0) {
+                columns.set(index);
+            }
+        } else if (expr instanceof Expression.BinaryExpression) {
+            Expression.BinaryExpression binExpr = (Expression.BinaryExpression) expr;
+            collectColumns(binExpr.getLeft(), tableRef, schema, columns);
+            collectColumns(binExpr.getRight(), tableRef, schema, columns);
+        } else if (expr instanceof Expression.UnaryExpression) {
+            collectColumns(((Expression.UnaryExpression) expr).getOperand(), tableRef, schema, columns);
+        } else if (expr instanceof Expression.FunctionCall) {
+            for (Expression arg : ((Expression.FunctionCall) expr).getArguments()) {
+                collectColumns(arg, tableRef, schema, columns);
+            }
+        }
     }
 
     /**
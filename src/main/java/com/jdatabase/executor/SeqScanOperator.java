@@ -2,52 +2,80 @@ package com.jdatabase.executor;
 
 import com.jdatabase.common.Tuple;
 import com.jdatabase.storage.StorageManager;
+import com.jdatabase.storage.TableScanCursor;
 
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.List;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * 顺序扫描操作符
+ * 通过表扫描游标逐页拉取元组，内存占用与表大小无关
+ * 只解码查询引用的列（列掩码），未引用的列为null
+ * 可下推VARCHAR列的等值条件，由游标在解码记录之前判断（字典编码列直接比较编码）
  */
 public class SeqScanOperator implements Operator {
     private final StorageManager storageManager;
     private final String tableName;
-    private Iterator<Tuple> iterator;
-    private List<Tuple> tuples;
+    private final BitSet columns;
+    private final Map<Integer, String> equalityFilters;
+    private TableScanCursor cursor;
 
-    public SeqScanOperator(StorageManager storageManager, String tableName, @SuppressWarnings("unused") com.jdatabase.common.Schema schema) {
+    public SeqScanOperator(StorageManager storageManager, String tableName, com.jdatabase.common.Schema schema) {
+        this(storageManager, tableName, schema, null);
+    }
+
+    public SeqScanOperator(StorageManager storageManager, String tableName,
+                           @SuppressWarnings("unused") com.jdatabase.common.Schema schema, BitSet columns) {
+        this(storageManager, tableName, schema, columns, Collections.<Integer, String>emptyMap());
+    }
+
+    /**
+     * @param equalityFilters 下推的等值条件：列下标 -> 值
+     */
+    public SeqScanOperator(StorageManager storageManager, String tableName, com.jdatabase.common.Schema schema,
+                           BitSet columns, Map<Integer, String> equalityFilters) {
         this.storageManager = storageManager;
         this.tableName = tableName;
+        this.columns = columns;
+        this.equalityFilters = equalityFilters;
     }
 
     @Override
     public void open() {
-        try {
-            tuples = storageManager.scanTable(tableName);
-            iterator = tuples.iterator();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to scan table: " + tableName, e);
+        cursor = storageManager.openScan(tableName, columns);
+        for (Map.Entry<Integer, String> filter : equalityFilters.entrySet()) {
+            cursor.filterEquals(filter.getKey(), filter.getValue());
         }
     }
 
     @Override
     public Tuple next() {
-        if (iterator != null && iterator.hasNext()) {
-            return iterator.next();
+        try {
+            if (cursor != null && cursor.hasNext()) {
+                return cursor.next();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan table: " + tableName, e);
         }
-        return null;
     }
 
     @Override
     public void close() {
-        iterator = null;
-        tuples = null;
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
     }
 
     @Override
     public boolean hasNext() {
-        return iterator != null && iterator.hasNext();
+        try {
+            return cursor != null && cursor.hasNext();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan table: " + tableName, e);
+        }
     }
 }
-
@@ -24,12 +24,15 @@ public class SortOperator implements Operator {
 
     @Override
     public void open() {
-        child.open();
         List<Tuple> tuples = new ArrayList<>();
-        while (child.hasNext()) {
-            tuples.add(child.next());
+        try {
+            child.open();
+            while (child.hasNext()) {
+                tuples.add(child.next());
+            }
+        } finally {
+            child.close();
         }
-        child.close();
 
         // 排序
         tuples.sort(createComparator());
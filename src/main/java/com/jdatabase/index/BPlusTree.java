@@ -62,6 +62,61 @@ public class BPlusTree {
         deleteInternal(rootPageId, key);
     }
 
+    /**
+     * 按键的顺序分批删除满足条件的条目（用于VACUUM清理指向已删除记录的条目）：
+     * 从键大于afterKey（null表示从头开始）的条目开始检查，检查满limit条后在键变化处停止，
+     * 同一键的条目总在同一批中检查。下一批从返回的最后一个键之后继续。
+     * 只修改叶子节点，不合并节点。
+     */
+    public RemoveBatch removeIf(Comparable<?> afterKey, int limit, EntryFilter filter) throws IOException {
+        RemoveBatch batch = new RemoveBatch();
+        batch.hasMore = removeIfInternal(rootPageId, afterKey, limit, filter, batch);
+        return batch;
+    }
+
+    /**
+     * 返回true表示本批已满、还有未检查的条目
+     */
+    private boolean removeIfInternal(int pageId, Comparable<?> afterKey, int limit, EntryFilter filter,
+                                     RemoveBatch batch) throws IOException {
+        BPlusTreeNode node = pageManager.readNode(indexFile, pageId);
+        if (!node.isLeaf) {
+            // 分隔键不大于afterKey的子树中只有不大于afterKey的键，跳过
+            int start = afterKey == null ? 0 : findChildIndex(node.keys, afterKey);
+            for (int i = start; i < node.children.size(); i++) {
+                if (removeIfInternal(node.children.get(i), afterKey, limit, filter, batch)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int removed = 0;
+        boolean full = false;
+        for (int i = 0; i < node.keys.size(); i++) {
+            Comparable<?> key = node.keys.get(i);
+            if (afterKey != null && compareKeys(key, afterKey) <= 0) {
+                continue;
+            }
+            if (batch.checked >= limit && compareKeys(key, batch.lastKey) != 0) {
+                full = true;
+                break;
+            }
+            batch.checked++;
+            batch.lastKey = key;
+            if (filter.test(key, node.values.get(i))) {
+                node.keys.remove(i);
+                node.values.remove(i);
+                i--;
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            pageManager.writeNode(indexFile, pageId, node);
+            batch.removed += removed;
+        }
+        return full;
+    }
+
     private InsertResult insertInternal(BPlusTreeNode node, Comparable<?> key, RecordId recordId) throws IOException {
         if (node.isLeaf) {
             // 叶子节点：插入键值对
@@ -196,6 +251,45 @@ public class BPlusTree {
         return ((Comparable<Object>) k1).compareTo(k2);
     }
 
+    /**
+     * 索引条目过滤条件
+     */
+    public interface EntryFilter {
+        boolean test(Comparable<?> key, RecordId recordId) throws IOException;
+    }
+
+    /**
+     * 一批removeIf的结果
+     */
+    public static class RemoveBatch {
+        private int checked;
+        private int removed;
+        private Comparable<?> lastKey;
+        private boolean hasMore;
+
+        /**
+         * 检查的条目数
+         */
+        public int getChecked() {
+            return checked;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        /**
+         * 检查的最后一个键，作为下一批的afterKey
+         */
+        public Comparable<?> getLastKey() {
+            return lastKey;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
     private static class InsertResult {
         final Comparable<?> newKey;
         final int newPageId;
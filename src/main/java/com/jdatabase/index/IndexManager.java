@@ -38,6 +38,21 @@ public class IndexManager {
         index.insert(key, recordId);
     }
 
+    /**
+     * 批量插入索引条目：先按键排序，再按顺序插入，相邻的插入落在同一叶子节点
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void insertAll(String tableName, String columnName,
+                          List<Map.Entry<Comparable<?>, RecordId>> entries) throws IOException {
+        String indexFile = getIndexFileName(tableName, columnName);
+        BPlusTree index = getOrCreateIndex(indexFile);
+        List<Map.Entry<Comparable<?>, RecordId>> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> ((Comparable) a.getKey()).compareTo(b.getKey()));
+        for (Map.Entry<Comparable<?>, RecordId> entry : sorted) {
+            index.insert(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * 查找索引
      */
@@ -61,6 +76,20 @@ public class IndexManager {
         }
     }
 
+    /**
+     * 从键大于afterKey的条目开始检查一批（约limit条）索引条目，删除满足条件的条目（见BPlusTree.removeIf）
+     * 索引不存在时返回null
+     */
+    public BPlusTree.RemoveBatch removeIf(String tableName, String columnName, Comparable<?> afterKey, int limit,
+                                          BPlusTree.EntryFilter filter) throws IOException {
+        String indexFile = getIndexFileName(tableName, columnName);
+        BPlusTree index = indexes.get(indexFile);
+        if (index == null) {
+            return null;
+        }
+        return index.removeIf(afterKey, limit, filter);
+    }
+
     /**
      * 检查索引是否存在
      */
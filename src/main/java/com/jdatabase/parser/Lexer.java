@@ -42,6 +42,7 @@ public class Lexer {
         KEYWORDS.put("NOT", TokenType.NOT);
         KEYWORDS.put("NULL", TokenType.NULL);
         KEYWORDS.put("IS", TokenType.IS);
+        KEYWORDS.put("VACUUM", TokenType.VACUUM);
         KEYWORDS.put("INT", TokenType.INT);
         KEYWORDS.put("LONG", TokenType.LONG);
         KEYWORDS.put("FLOAT", TokenType.FLOAT);
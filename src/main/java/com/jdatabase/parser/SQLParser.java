@@ -44,6 +44,8 @@ public class SQLParser {
             return parseUpdate();
         } else if (match(TokenType.DELETE)) {
             return parseDelete();
+        } else if (match(TokenType.VACUUM)) {
+            return parseVacuum();
         } else {
             throw new RuntimeException("Unexpected token: " + currentToken);
         }
@@ -107,9 +109,31 @@ public class SQLParser {
         if (primaryKey != null) {
             stmt.setPrimaryKey(primaryKey);
         }
+        
+        // 存储选项：WITH (key = value, ...)
+        if (currentToken.getType() == TokenType.IDENTIFIER && currentToken.getValue().equalsIgnoreCase("WITH")) {
+            currentToken = lexer.nextToken();
+            expect(TokenType.LPAREN);
+            do {
+                String key = expectIdentifier();
+                expect(TokenType.EQ);
+                stmt.setOption(key, expectOptionValue());
+            } while (match(TokenType.COMMA));
+            expect(TokenType.RPAREN);
+        }
         return stmt;
     }
 
+    private String expectOptionValue() {
+        TokenType type = currentToken.getType();
+        if (type != TokenType.STRING && type != TokenType.NUMBER && type != TokenType.IDENTIFIER) {
+            throw new RuntimeException("Expected option value, got: " + currentToken);
+        }
+        String value = currentToken.getValue();
+        currentToken = lexer.nextToken();
+        return value;
+    }
+
     private Types parseType() {
         if (match(TokenType.INT)) {
             return Types.INT;
@@ -312,6 +336,11 @@ public class SQLParser {
         return stmt;
     }
 
+    private VacuumStatement parseVacuum() {
+        // VACUUM 已经匹配
+        return new VacuumStatement(expectIdentifier());
+    }
+
     private Expression parseExpression() {
         return parseOrExpression();
     }
@@ -7,7 +7,7 @@ public enum TokenType {
     // 关键字
     CREATE, TABLE, INDEX, INSERT, INTO, VALUES, SELECT, FROM, WHERE, UPDATE, SET, DELETE,
     JOIN, ON, INNER, LEFT, RIGHT, ORDER, BY, GROUP, HAVING, AS,
-    AND, OR, NOT, NULL, IS,
+    AND, OR, NOT, NULL, IS, VACUUM,
     
     // 数据类型
     INT, LONG, FLOAT, DOUBLE, VARCHAR, BOOLEAN,
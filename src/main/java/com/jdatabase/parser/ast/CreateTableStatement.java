@@ -4,7 +4,9 @@ import com.jdatabase.common.Schema;
 import com.jdatabase.common.Types;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * CREATE TABLE语句
@@ -12,11 +14,13 @@ import java.util.List;
 public class CreateTableStatement implements Statement {
     private final String tableName;
     private final List<ColumnDefinition> columns;
+    private final Map<String, String> options; // WITH (key = value, ...)
     private String primaryKey;
 
     public CreateTableStatement(String tableName, List<ColumnDefinition> columns) {
         this.tableName = tableName;
         this.columns = columns;
+        this.options = new LinkedHashMap<>();
     }
 
     public String getTableName() {
@@ -35,6 +39,14 @@ public class CreateTableStatement implements Statement {
         this.primaryKey = primaryKey;
     }
 
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    public void setOption(String key, String value) {
+        options.put(key, value);
+    }
+
     /**
      * 转换为Schema对象
      */
@@ -0,0 +1,16 @@
+package com.jdatabase.parser.ast;
+
+/**
+ * VACUUM语句
+ */
+public class VacuumStatement implements Statement {
+    private final String tableName;
+
+    public VacuumStatement(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+}
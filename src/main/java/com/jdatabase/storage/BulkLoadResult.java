@@ -0,0 +1,51 @@
+package com.jdatabase.storage;
+
+/**
+ * 批量导入结果
+ */
+public class BulkLoadResult {
+    private final long rowCount;
+    private final int pageCount;
+    private final long elapsedNanos;
+
+    public BulkLoadResult(long rowCount, int pageCount, long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.pageCount = pageCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 写入的数据页数量
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 每秒导入的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 在导入结果上追加额外耗时（例如批量建索引）
+     */
+    public BulkLoadResult plusNanos(long extraNanos) {
+        return new BulkLoadResult(rowCount, pageCount, elapsedNanos + extraNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Loaded %d row(s) into %d page(s) in %d ms (%.0f rows/s)",
+                rowCount, pageCount, elapsedNanos / 1000000, getRowsPerSecond());
+    }
+}
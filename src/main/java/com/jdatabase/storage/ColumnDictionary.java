@@ -0,0 +1,63 @@
+package com.jdatabase.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个VARCHAR列的字典：字符串与从0开始连续分配的整数编码一一对应
+ * 只追加、不删除；decode返回字典中缓存的同一个String实例，读取时不再逐行构造字符串。
+ */
+public class ColumnDictionary {
+    /**
+     * 字典中不存在的值的编码
+     */
+    public static final int NO_CODE = -1;
+
+    private final String columnName;
+    private final List<String> values;
+    private final Map<String, Integer> codes;
+
+    ColumnDictionary(String columnName) {
+        this.columnName = columnName;
+        this.values = new ArrayList<>();
+        this.codes = new HashMap<>();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * 值的编码，不在字典中时返回NO_CODE
+     */
+    public synchronized int lookup(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : NO_CODE;
+    }
+
+    /**
+     * 编码对应的值
+     */
+    public synchronized String decode(int code) {
+        if (code < 0 || code >= values.size()) {
+            throw new RuntimeException("Unknown dictionary code " + code + " for column " + columnName);
+        }
+        return values.get(code);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * 追加新值并返回其编码（调用方保证值尚不在字典中）
+     */
+    synchronized int add(String value) {
+        int code = values.size();
+        values.add(value);
+        codes.put(value, code);
+        return code;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.buffer.BufferAccessStrategy;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.common.Schema;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * 列式扫描游标
+ * 按页顺序遍历PAX表，每次返回一个页面的PaxPage视图，调用方直接读取所需列的minipage，
+ * 不构造中间元组。跳过没有行的页面。
+ * 页面从缓冲池获取，返回的是固定期间复制的快照，调用方读取时不占用缓冲池的页面。
+ * 扫描大表时带环形缓冲策略（见BufferAccessStrategy）。
+ */
+public class ColumnScanCursor implements Closeable {
+    private final PageManager pageManager;
+    private final BufferPool bufferPool;
+    private final BufferAccessStrategy strategy;
+    private final String fileName;
+    private final Schema schema;
+
+    private int pageId;
+    private PaxPage nextPage;
+    private boolean closed;
+
+    ColumnScanCursor(PageManager pageManager, BufferPool bufferPool, BufferAccessStrategy strategy, String fileName,
+                     Schema schema) {
+        this.pageManager = pageManager;
+        this.bufferPool = bufferPool;
+        this.strategy = strategy;
+        this.fileName = fileName;
+        this.schema = schema;
+        this.pageId = -1;
+    }
+
+    /**
+     * 是否还有页面
+     */
+    public boolean hasNext() throws IOException {
+        while (nextPage == null && !closed && pageId + 1 < pageManager.getPageCount(fileName)) {
+            pageId++;
+            PaxPage page = new PaxPage(readSnapshot(pageId), schema);
+            if (page.getLiveCount() > 0) {
+                nextPage = page;
+            }
+        }
+        return nextPage != null;
+    }
+
+    /**
+     * 返回下一个页面
+     */
+    public PaxPage next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PaxPage page = nextPage;
+        nextPage = null;
+        return page;
+    }
+
+    private Page readSnapshot(int pageId) throws IOException {
+        Page page = bufferPool.fetchPage(fileName, pageId, strategy);
+        try {
+            page.latchShared();
+            try {
+                return page.copy();
+            } finally {
+                page.unlatchShared();
+            }
+        } finally {
+            bufferPool.unpinPage(page, false);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        nextPage = null;
+    }
+}
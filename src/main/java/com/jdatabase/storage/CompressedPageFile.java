@@ -0,0 +1,294 @@
+package com.jdatabase.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩的页面文件
+ * 页面写入时用Deflater逐页压缩，压缩后的长度不定，因此数据文件不再按页号定长寻址，
+ * 而是由页面偏移表（文件名加.pmap后缀）记录每个页面在数据文件中的位置：
+ * 每页一项16字节：offset(8B) + length(4B) + capacity(4B)。
+ * 压缩后的页面按SECTOR_SIZE向上取整分配空间；改写后仍放得下时原地覆盖，否则追加到文件末尾，
+ * 原空间成为无法复用的空洞（见getGarbageBytes）。
+ * length为0表示已分配但尚未写入的页面（读出全零页）；压缩后不小于页面大小时按原样存放（length等于页面大小）。
+ * 压缩和解压在调用线程中进行，不持有文件锁。
+ */
+public class CompressedPageFile implements Closeable {
+    public static final String PAGE_MAP_SUFFIX = ".pmap";
+    static final int SECTOR_SIZE = 256;
+    private static final int ENTRY_SIZE = 16;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final Path path;
+    private final int pageSize;
+    private final CompressionStats stats;
+    private final RandomAccessFile dataFile;
+    private final FileChannel dataChannel;
+    private final RandomAccessFile mapFile;
+    private final FileChannel mapChannel;
+
+    private long[] offsets;
+    private int[] lengths;
+    private int[] capacities;
+    private int pageCount;
+    private long dataEnd;
+
+    public CompressedPageFile(Path path, int pageSize, CompressionStats stats) throws IOException {
+        Page.validatePageSize(pageSize);
+        this.path = path;
+        this.pageSize = pageSize;
+        this.stats = stats;
+        this.dataFile = new RandomAccessFile(path.toFile(), "rw");
+        this.dataChannel = dataFile.getChannel();
+        this.mapFile = new RandomAccessFile(pageMapPath(path).toFile(), "rw");
+        this.mapChannel = mapFile.getChannel();
+        loadPageMap();
+    }
+
+    /**
+     * 数据文件对应的页面偏移表路径
+     */
+    public static Path pageMapPath(Path dataPath) {
+        return Paths.get(dataPath.toString() + PAGE_MAP_SUFFIX);
+    }
+
+    /**
+     * 读取并解压页面，超出文件末尾时返回null
+     */
+    public Page readPage(int pageId) throws IOException {
+        byte[] stored;
+        synchronized (this) {
+            if (pageId < 0 || pageId >= pageCount) {
+                return null;
+            }
+            int length = lengths[pageId];
+            if (length == 0) {
+                return new Page(pageId, pageSize);
+            }
+            stored = new byte[length];
+            readFully(dataChannel, ByteBuffer.wrap(stored), offsets[pageId]);
+        }
+
+        Page page = new Page(pageId, pageSize);
+        if (stored.length == pageSize) {
+            page.getBuffer().put(stored);
+            page.getBuffer().clear();
+            return page;
+        }
+        long start = System.nanoTime();
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(stored);
+        try {
+            int n = inflater.inflate(page.getBuffer().array(), 0, pageSize);
+            if (n != pageSize || !inflater.finished()) {
+                throw new IOException("Corrupted compressed page " + pageId + " in " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed page " + pageId + " in " + path, e);
+        }
+        stats.recordDecompress(System.nanoTime() - start);
+        return page;
+    }
+
+    /**
+     * 压缩并写入页面
+     */
+    public void writePage(Page page) throws IOException {
+        byte[] stored = compress(page);
+        synchronized (this) {
+            int pageId = page.getPageId();
+            if (pageId >= pageCount) {
+                extend(pageId + 1);
+            }
+            if (stored.length > capacities[pageId]) {
+                // 原空间放不下：追加到文件末尾
+                offsets[pageId] = dataEnd;
+                capacities[pageId] = roundUp(stored.length);
+                dataEnd += capacities[pageId];
+            }
+            lengths[pageId] = stored.length;
+            writeFully(dataChannel, ByteBuffer.wrap(stored), offsets[pageId]);
+            writeEntry(pageId);
+        }
+    }
+
+    /**
+     * 在文件末尾分配新页面
+     */
+    public synchronized int allocatePage() throws IOException {
+        return allocatePages(1);
+    }
+
+    /**
+     * 一次分配count个连续页面，返回第一个页号；未写入的页面不占用数据文件空间
+     */
+    public synchronized int allocatePages(int count) throws IOException {
+        int pageId = pageCount;
+        extend(pageCount + count);
+        return pageId;
+    }
+
+    public synchronized int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * 数据文件已使用的字节数（包括空洞）
+     */
+    public synchronized long getDataBytes() {
+        return dataEnd;
+    }
+
+    /**
+     * 页面改写后迁移留下的、不再被任何页面引用的字节数
+     */
+    public synchronized long getGarbageBytes() {
+        long used = 0;
+        for (int i = 0; i < pageCount; i++) {
+            used += capacities[i];
+        }
+        return dataEnd - used;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 将数据文件和偏移表刷到磁盘
+     */
+    public synchronized void force() throws IOException {
+        dataChannel.force(false);
+        mapChannel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            force();
+        } finally {
+            dataFile.close();
+            mapFile.close();
+        }
+    }
+
+    private byte[] compress(Page page) {
+        ByteBuffer buffer = page.getBuffer();
+        byte[] raw;
+        int rawOffset;
+        if (buffer.hasArray()) {
+            raw = buffer.array();
+            rawOffset = buffer.arrayOffset();
+        } else {
+            raw = new byte[pageSize];
+            rawOffset = 0;
+            ByteBuffer dup = buffer.duplicate();
+            dup.clear();
+            dup.get(raw);
+        }
+
+        long start = System.nanoTime();
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(raw, rawOffset, pageSize);
+        deflater.finish();
+        // 输出缓冲区比页面小1字节：放不下说明压缩无收益，按原样存放
+        byte[] out = new byte[pageSize - 1];
+        int length = 0;
+        while (!deflater.finished() && length < out.length) {
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        byte[] stored = deflater.finished()
+                ? Arrays.copyOf(out, length)
+                : Arrays.copyOfRange(raw, rawOffset, rawOffset + pageSize);
+        stats.recordCompress(pageSize, stored.length, System.nanoTime() - start);
+        return stored;
+    }
+
+    private void loadPageMap() throws IOException {
+        int count = (int) (mapChannel.size() / ENTRY_SIZE);
+        ByteBuffer map = ByteBuffer.allocate(count * ENTRY_SIZE);
+        readFully(mapChannel, map, 0);
+        map.flip();
+        offsets = new long[Math.max(16, count)];
+        lengths = new int[offsets.length];
+        capacities = new int[offsets.length];
+        dataEnd = 0;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = map.getLong();
+            lengths[i] = map.getInt();
+            capacities[i] = map.getInt();
+            dataEnd = Math.max(dataEnd, offsets[i] + capacities[i]);
+        }
+        pageCount = count;
+    }
+
+    /**
+     * 增加页面数到newPageCount，新页面为未写入状态
+     */
+    private void extend(int newPageCount) throws IOException {
+        if (newPageCount > offsets.length) {
+            int capacity = Math.max(newPageCount, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            capacities = Arrays.copyOf(capacities, capacity);
+        }
+        int first = pageCount;
+        pageCount = newPageCount;
+        ByteBuffer entries = ByteBuffer.allocate((newPageCount - first) * ENTRY_SIZE);
+        writeFully(mapChannel, entries, (long) first * ENTRY_SIZE);
+    }
+
+    private void writeEntry(int pageId) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+        entry.putLong(offsets[pageId]).putInt(lengths[pageId]).putInt(capacities[pageId]);
+        entry.flip();
+        writeFully(mapChannel, entry, (long) pageId * ENTRY_SIZE);
+    }
+
+    private static int roundUp(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE * SECTOR_SIZE;
+    }
+
+    /**
+     * 删除数据文件对应的页面偏移表
+     */
+    static void deletePageMap(Path dataPath) throws IOException {
+        Files.deleteIfExists(pageMapPath(dataPath));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at " + (position + total));
+            }
+            total += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.jdatabase.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 页面压缩统计：压缩比和压缩/解压耗费的CPU时间
+ */
+public class CompressionStats {
+    private final AtomicLong pagesCompressed = new AtomicLong();
+    private final AtomicLong pagesDecompressed = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    void recordCompress(int pageSize, int storedBytes, long nanos) {
+        pagesCompressed.incrementAndGet();
+        uncompressedBytes.addAndGet(pageSize);
+        compressedBytes.addAndGet(storedBytes);
+        compressNanos.addAndGet(nanos);
+    }
+
+    void recordDecompress(long nanos) {
+        pagesDecompressed.incrementAndGet();
+        decompressNanos.addAndGet(nanos);
+    }
+
+    public long getPagesCompressed() {
+        return pagesCompressed.get();
+    }
+
+    public long getPagesDecompressed() {
+        return pagesDecompressed.get();
+    }
+
+    /**
+     * 写入的页面原始字节数
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    /**
+     * 写入的页面实际占用的字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * 压缩比（原始字节数/压缩后字节数），没有写入时为1
+     */
+    public double getCompressionRatio() {
+        long compressed = compressedBytes.get();
+        return compressed == 0 ? 1.0 : (double) uncompressedBytes.get() / compressed;
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    /**
+     * 平均每页解压耗时（纳秒）
+     */
+    public double getAverageDecompressNanos() {
+        long pages = pagesDecompressed.get();
+        return pages == 0 ? 0 : (double) decompressNanos.get() / pages;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressionStats(pagesCompressed=%d, pagesDecompressed=%d, ratio=%.2f, "
+                        + "compressMs=%.1f, decompressMs=%.1f)", getPagesCompressed(), getPagesDecompressed(),
+                getCompressionRatio(), compressNanos.get() / 1e6, decompressNanos.get() / 1e6);
+    }
+}
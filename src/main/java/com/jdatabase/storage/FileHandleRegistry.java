@@ -0,0 +1,194 @@
+package com.jdatabase.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件句柄注册表
+ * 每个数据文件保持一个长期打开的FileChannel，避免每次页面I/O都执行open/close。
+ * 打开的句柄数有上限，超出时按LRU顺序淘汰；正在使用的句柄在释放后才真正关闭。
+ * 句柄只负责I/O，不记录文件的高水位：句柄随时可能被淘汰并重新打开，高水位由PageManager按文件保存。
+ */
+public class FileHandleRegistry implements Closeable {
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+    private final int maxOpenFiles;
+    private final LinkedHashMap<Path, FileHandle> handles; // 按访问顺序排列
+    private final Map<Path, FileHandle> draining; // 已淘汰但仍在使用的句柄
+    private boolean closed;
+
+    public FileHandleRegistry() {
+        this(DEFAULT_MAX_OPEN_FILES);
+    }
+
+    public FileHandleRegistry(int maxOpenFiles) {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("maxOpenFiles must be positive: " + maxOpenFiles);
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        this.handles = new LinkedHashMap<>(16, 0.75f, true);
+        this.draining = new HashMap<>();
+    }
+
+    /**
+     * 获取文件句柄，调用方使用完毕后必须调用release
+     *
+     * @param create 文件不存在时是否创建；为false且文件不存在时返回null
+     */
+    public synchronized FileHandle acquire(Path path, boolean create) throws IOException {
+        if (closed) {
+            throw new IOException("File handle registry is closed");
+        }
+
+        FileHandle handle = handles.get(path);
+        if (handle == null && draining.containsKey(path)) {
+            // 同一文件只保留一个句柄；淘汰后仍在使用的句柄直接恢复
+            handle = draining.remove(path);
+            handle.retired = false;
+            handles.put(path, handle);
+            evictIfNecessary();
+        } else if (handle == null) {
+            if (!Files.exists(path)) {
+                if (!create) {
+                    return null;
+                }
+                Files.createFile(path);
+            }
+            handle = new FileHandle(path, new RandomAccessFile(path.toFile(), "rw"));
+            handles.put(path, handle);
+            evictIfNecessary();
+        }
+        handle.refCount++;
+        return handle;
+    }
+
+    /**
+     * 释放文件句柄
+     */
+    public synchronized void release(FileHandle handle) throws IOException {
+        handle.refCount--;
+        if (handle.retired && handle.refCount == 0) {
+            draining.remove(handle.path, handle);
+            handle.closeQuietly();
+        }
+    }
+
+    /**
+     * 关闭指定文件的句柄（例如删除文件之前）
+     */
+    public synchronized void closeFile(Path path) {
+        FileHandle handle = handles.remove(path);
+        if (handle != null) {
+            retire(handle);
+        }
+        // 文件即将删除，仍在使用的旧句柄不能再被恢复
+        draining.remove(path);
+    }
+
+    /**
+     * 当前打开的句柄数量
+     */
+    public synchronized int getOpenFileCount() {
+        return handles.size();
+    }
+
+    public int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    /**
+     * 关闭所有句柄
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        List<FileHandle> all = new ArrayList<>(handles.values());
+        handles.clear();
+        for (FileHandle handle : all) {
+            retire(handle);
+        }
+    }
+
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<Path, FileHandle>> it = handles.entrySet().iterator();
+        while (handles.size() > maxOpenFiles && it.hasNext()) {
+            FileHandle eldest = it.next().getValue();
+            it.remove();
+            retire(eldest);
+        }
+    }
+
+    private void retire(FileHandle handle) {
+        handle.retired = true;
+        if (handle.refCount == 0) {
+            handle.closeQuietly();
+        } else {
+            draining.put(handle.path, handle);
+        }
+    }
+
+    /**
+     * 已打开的文件句柄
+     */
+    public static class FileHandle {
+        private static final ByteBuffer ZEROS = ByteBuffer.allocate(64 * 1024);
+
+        private final Path path;
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private int refCount;
+        private boolean retired;
+
+        FileHandle(Path path, RandomAccessFile file) {
+            this.path = path;
+            this.file = file;
+            this.channel = file.getChannel();
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        /**
+         * 设置文件长度（FileChannel只能截断，扩展需要通过RandomAccessFile）
+         */
+        public void setLength(long length) throws IOException {
+            file.setLength(length);
+        }
+
+        /**
+         * 用零填充[from, to)，让文件系统一次分配连续的块（setLength只会产生稀疏文件）
+         */
+        void preallocate(long from, long to) throws IOException {
+            long position = from;
+            while (position < to) {
+                ByteBuffer zeros = ZEROS.duplicate();
+                zeros.limit((int) Math.min(zeros.capacity(), to - position));
+                position += channel.write(zeros, position);
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close file " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
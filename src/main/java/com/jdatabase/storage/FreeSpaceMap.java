@@ -0,0 +1,163 @@
+package com.jdatabase.storage;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 空闲空间映射（FSM）
+ * 每个堆文件一份，按页记录空闲字节数所在的桶（1字节，共256个桶，每桶页面大小/256 字节）。
+ * 叶子之上维护一棵最大值二叉树，查找“第一个空闲空间足够的页面”为O(log n)。
+ *
+ * FSM只是提示：桶值向下取整，插入前仍需在页面上确认空间；
+ * 发现不准确时由调用方用实际值修正。持久化文件为 &lt;表名&gt;.fsm。
+ */
+public class FreeSpaceMap {
+    public static final int CATEGORIES = 256;
+    private static final int MAGIC = 0x46534D31; // "FSM1"
+
+    private final int categorySize;
+    private int[] tree;     // tree[1]为根，叶子从capacity开始
+    private int capacity;   // 叶子数量（2的幂）
+    private int pageCount;
+    private boolean dirty;
+
+    public FreeSpaceMap() {
+        this(Page.PAGE_SIZE);
+    }
+
+    public FreeSpaceMap(int pageSize) {
+        this.categorySize = pageSize / CATEGORIES;
+        this.capacity = 16;
+        this.tree = new int[2 * capacity];
+        this.pageCount = 0;
+    }
+
+    /**
+     * 查找空闲空间不少于requiredBytes的页面（页号最小者），没有则返回-1
+     */
+    public synchronized int findPage(int requiredBytes) {
+        int needed = Math.max(1, (requiredBytes + categorySize - 1) / categorySize);
+        if (needed >= CATEGORIES || tree[1] < needed) {
+            return -1;
+        }
+        int node = 1;
+        while (node < capacity) {
+            node = tree[2 * node] >= needed ? 2 * node : 2 * node + 1;
+        }
+        return node - capacity;
+    }
+
+    /**
+     * 记录页面的空闲字节数
+     */
+    public synchronized void update(int pageId, int freeBytes) {
+        if (pageId >= capacity) {
+            grow(pageId + 1);
+        }
+        if (pageId >= pageCount) {
+            pageCount = pageId + 1;
+            dirty = true;
+        }
+        int category = Math.max(0, Math.min(CATEGORIES - 1, freeBytes / categorySize));
+        int node = capacity + pageId;
+        if (tree[node] == category) {
+            return;
+        }
+        tree[node] = category;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+        dirty = true;
+    }
+
+    /**
+     * 页面的空闲字节数下界
+     */
+    public synchronized int getFreeBytes(int pageId) {
+        if (pageId >= pageCount) {
+            return 0;
+        }
+        return tree[capacity + pageId] * categorySize;
+    }
+
+    /**
+     * 已登记的页面数量
+     */
+    public synchronized int getPageCount() {
+        return pageCount;
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 保存到文件（先写临时文件再替换）
+     */
+    public synchronized void save(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                out.writeByte(tree[capacity + i]);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+    }
+
+    /**
+     * 从文件加载，文件不存在或格式不对时返回null
+     */
+    public static FreeSpaceMap load(Path path) throws IOException {
+        return load(path, Page.PAGE_SIZE);
+    }
+
+    public static FreeSpaceMap load(Path path, int pageSize) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(path.toFile())))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            int count = in.readInt();
+            FreeSpaceMap fsm = new FreeSpaceMap(pageSize);
+            for (int i = 0; i < count; i++) {
+                fsm.update(i, (in.readByte() & 0xFF) * fsm.categorySize);
+            }
+            fsm.dirty = false;
+            return fsm;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 堆文件对应的FSM文件名，例如 users.dat -> users.fsm
+     */
+    public static String fileNameFor(String dataFileName) {
+        int dot = dataFileName.lastIndexOf('.');
+        String base = dot > 0 ? dataFileName.substring(0, dot) : dataFileName;
+        return base + ".fsm";
+    }
+
+    private void grow(int minLeaves) {
+        int newCapacity = capacity;
+        while (newCapacity < minLeaves) {
+            newCapacity *= 2;
+        }
+        int[] newTree = new int[2 * newCapacity];
+        System.arraycopy(tree, capacity, newTree, newCapacity, capacity);
+        for (int node = newCapacity - 1; node >= 1; node--) {
+            newTree[node] = Math.max(newTree[2 * node], newTree[2 * node + 1]);
+        }
+        capacity = newCapacity;
+        tree = newTree;
+    }
+}
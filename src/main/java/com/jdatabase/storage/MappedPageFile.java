@@ -0,0 +1,172 @@
+package com.jdatabase.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存映射的页面文件
+ * 文件按固定大小的段（默认64MB）映射为MappedByteBuffer，
+ * 页面以映射区域切片的形式返回，读取时不经过byte[]复制。
+ * 段总是整段映射（映射会把文件扩展到段的末尾），分配页面只推进逻辑末尾，跨过段边界时才映射新段，
+ * 已有的映射不会被替换。关闭时把文件截断到逻辑末尾；未正常关闭的文件长度按段对齐，
+ * 重新打开时（recovering）从末尾去掉全零的页面（最多一个段）。
+ */
+public class MappedPageFile implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path path;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int segmentSize;
+    private final int pageSize;
+    private final List<MappedByteBuffer> segments;
+    // 逻辑末尾：已分配页面的末尾，映射的长度可以超过它
+    private long dataEnd;
+
+    public MappedPageFile(Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedPageFile(Path path, int segmentSize) throws IOException {
+        this(path, segmentSize, Page.PAGE_SIZE);
+    }
+
+    public MappedPageFile(Path path, int segmentSize, int pageSize) throws IOException {
+        this(path, segmentSize, pageSize, false);
+    }
+
+    /**
+     * @param recovering 文件上次未正常关闭，末尾可能留有映射时扩展出的全零空间
+     */
+    MappedPageFile(Path path, int segmentSize, int pageSize, boolean recovering) throws IOException {
+        Page.validatePageSize(pageSize);
+        if (segmentSize <= 0 || segmentSize % pageSize != 0) {
+            throw new IllegalArgumentException("Segment size must be a positive multiple of " + pageSize);
+        }
+        this.path = path;
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+        this.channel = file.getChannel();
+        this.segmentSize = segmentSize;
+        this.pageSize = pageSize;
+        this.segments = new ArrayList<>();
+        long end = channel.size() / pageSize * pageSize;
+        this.dataEnd = recovering ? PageManager.stripPreallocatedTail(channel, end, pageSize, segmentSize) : end;
+        mapUpTo(dataEnd);
+    }
+
+    /**
+     * 读取页面视图，超出文件末尾时返回null
+     */
+    public synchronized Page readPage(int pageId) {
+        ByteBuffer view = pageView(pageId);
+        return view == null ? null : new Page(pageId, view);
+    }
+
+    /**
+     * 写入页面
+     * 如果页面本身就是映射视图，修改已经直接作用于映射区域，这里的复制是同一内存上的覆盖
+     */
+    public synchronized void writePage(Page page) throws IOException {
+        int pageId = page.getPageId();
+        long end = (long) (pageId + 1) * pageSize;
+        if (end > dataEnd) {
+            grow(end);
+        }
+        pageView(pageId).put(page.getBuffer());
+    }
+
+    /**
+     * 在文件末尾分配新页面
+     */
+    public synchronized int allocatePage() throws IOException {
+        int pageId = getPageCount();
+        grow((long) (pageId + 1) * pageSize);
+        return pageId;
+    }
+
+    /**
+     * 一次分配count个连续页面，返回第一个页号
+     */
+    public synchronized int allocatePages(int count) throws IOException {
+        int pageId = getPageCount();
+        grow((long) (pageId + count) * pageSize);
+        return pageId;
+    }
+
+    public synchronized int getPageCount() {
+        return (int) (dataEnd / pageSize);
+    }
+
+    /**
+     * 当前映射段数量
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * 将映射区域的修改刷到磁盘
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        segments.clear();
+        try {
+            // 去掉映射扩展出的未分配空间（页面视图只覆盖逻辑末尾之前的部分）
+            if (channel.size() > dataEnd) {
+                channel.truncate(dataEnd);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private ByteBuffer pageView(int pageId) {
+        long offset = (long) pageId * pageSize;
+        if (offset + pageSize > dataEnd) {
+            return null;
+        }
+        MappedByteBuffer segment = segments.get((int) (offset / segmentSize));
+        ByteBuffer dup = segment.duplicate();
+        int inSegment = (int) (offset % segmentSize);
+        dup.position(inSegment);
+        dup.limit(inSegment + pageSize);
+        return dup.slice();
+    }
+
+    private void grow(long newEnd) throws IOException {
+        mapUpTo(newEnd);
+        dataEnd = newEnd;
+    }
+
+    /**
+     * 确保[0, length)都已映射：只在跨过段边界时追加整段映射
+     */
+    private void mapUpTo(long length) throws IOException {
+        int needed = (int) ((length + segmentSize - 1) / segmentSize);
+        for (int i = segments.size(); i < needed; i++) {
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PAX页面中单个列的minipage视图（不复制页面数据）
+ * 定长列：NULL位图 + rowCount个定长值；
+ * VARCHAR列：NULL位图 + (rowCount+1)个结束偏移(4B) + 连续存放的UTF-8数据。
+ * NULL和已删除行在定长区中占位（值为0），在VARCHAR区中长度为0。
+ */
+public class MiniPage {
+    private final ByteBuffer buffer;
+    private final Types type;
+    private final int rowCount;
+    private final int nullBitmapOffset;
+    private final int valuesOffset;
+    private final int dataOffset; // 仅VARCHAR：字符串数据起始偏移
+
+    MiniPage(Page page, Types type, int offset, int rowCount) {
+        this.buffer = page.getBuffer();
+        this.type = type;
+        this.rowCount = rowCount;
+        this.nullBitmapOffset = offset;
+        this.valuesOffset = offset + PaxPage.bitmapSize(rowCount);
+        this.dataOffset = type == Types.VARCHAR ? valuesOffset + 4 * (rowCount + 1) : valuesOffset;
+    }
+
+    public Types getType() {
+        return type;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isNull(int row) {
+        return (buffer.get(nullBitmapOffset + (row >> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    public int getInt(int row) {
+        return buffer.getInt(valuesOffset + row * 4);
+    }
+
+    public long getLong(int row) {
+        return buffer.getLong(valuesOffset + row * 8);
+    }
+
+    public float getFloat(int row) {
+        return buffer.getFloat(valuesOffset + row * 4);
+    }
+
+    public double getDouble(int row) {
+        return buffer.getDouble(valuesOffset + row * 8);
+    }
+
+    public boolean getBoolean(int row) {
+        return buffer.get(valuesOffset + row) != 0;
+    }
+
+    public String getString(int row) {
+        int start = buffer.getInt(valuesOffset + row * 4);
+        int end = buffer.getInt(valuesOffset + row * 4 + 4);
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + dataOffset + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(dataOffset + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 数值列的值（转为double，用于SUM/AVG等聚合）
+     */
+    public double getNumber(int row) {
+        switch (type) {
+            case INT:
+                return getInt(row);
+            case LONG:
+                return getLong(row);
+            case FLOAT:
+                return getFloat(row);
+            case DOUBLE:
+                return getDouble(row);
+            default:
+                throw new RuntimeException("Column is not numeric: " + type);
+        }
+    }
+
+    /**
+     * 读取一行的值，NULL返回null
+     */
+    public Value getValue(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        switch (type) {
+            case INT:
+                return new Value(Types.INT, getInt(row));
+            case LONG:
+                return new Value(Types.LONG, getLong(row));
+            case FLOAT:
+                return new Value(Types.FLOAT, getFloat(row));
+            case DOUBLE:
+                return new Value(Types.DOUBLE, getDouble(row));
+            case VARCHAR:
+                return new Value(Types.VARCHAR, getString(row));
+            case BOOLEAN:
+                return new Value(Types.BOOLEAN, getBoolean(row));
+            default:
+                throw new RuntimeException("Unsupported type: " + type);
+        }
+    }
+}
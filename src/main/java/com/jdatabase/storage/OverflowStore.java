@@ -0,0 +1,146 @@
+package com.jdatabase.storage;
+
+import java.io.IOException;
+
+/**
+ * 溢出页存储（TOAST）
+ * 超过阈值的VARCHAR值存放在单独的溢出文件（&lt;表名&gt;.ovf）中，记录内只保留指针。
+ * 每个值占用一条溢出页链；页面大小与数据文件相同。
+ *
+ * 第0页为元数据页：magic(4B) + 空闲链表头(4B)。
+ * 溢出页：nextPageId(4B) + 本页数据长度(4B) + 数据；删除的值按页挂回空闲链表复用。
+ */
+public class OverflowStore {
+    private static final int MAGIC = 0x4F564631; // "OVF1"
+    private static final int META_PAGE_ID = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FREE_LIST_OFFSET = 4;
+    private static final int NEXT_PAGE_OFFSET = 0;
+    private static final int DATA_LENGTH_OFFSET = 4;
+    private static final int DATA_OFFSET = 8;
+
+    private final PageManager pageManager;
+    private final String fileName;
+
+    public OverflowStore(PageManager pageManager, String fileName) {
+        this.pageManager = pageManager;
+        this.fileName = fileName;
+    }
+
+    /**
+     * 写入一个值，返回溢出链的首页号
+     */
+    public synchronized int write(byte[] data) throws IOException {
+        Page meta = readMetaPage();
+        int capacity = pageManager.getPageSize(fileName) - DATA_OFFSET;
+        int pageCount = Math.max(1, (data.length + capacity - 1) / capacity);
+
+        // 先分配整条链的页号，再从后往前写入，每页只写一次
+        int[] pageIds = new int[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pageIds[i] = allocatePage(meta);
+        }
+        for (int i = pageCount - 1; i >= 0; i--) {
+            int start = i * capacity;
+            int length = Math.min(capacity, data.length - start);
+            Page page = new Page(pageIds[i], pageManager.getPageSize(fileName));
+            page.writeInt(NEXT_PAGE_OFFSET, i + 1 < pageCount ? pageIds[i + 1] : -1);
+            page.writeInt(DATA_LENGTH_OFFSET, length);
+            page.writeBytes(DATA_OFFSET, data, start, length);
+            pageManager.writePage(fileName, page);
+        }
+        pageManager.writePage(fileName, meta);
+        return pageIds[0];
+    }
+
+    /**
+     * 读取从firstPageId开始、总长度为length的值
+     */
+    public synchronized byte[] read(int firstPageId, int length) throws IOException {
+        byte[] data = new byte[length];
+        int offset = 0;
+        int pageId = firstPageId;
+        while (offset < length) {
+            if (pageId <= META_PAGE_ID) {
+                throw new RuntimeException("Broken overflow chain at page " + firstPageId + " in " + fileName);
+            }
+            Page page = pageManager.readPage(fileName, pageId);
+            int chunk = Math.min(page.readInt(DATA_LENGTH_OFFSET), length - offset);
+            if (chunk <= 0) {
+                throw new RuntimeException("Broken overflow chain at page " + firstPageId + " in " + fileName);
+            }
+            page.readBytes(DATA_OFFSET, data, offset, chunk);
+            offset += chunk;
+            pageId = page.readInt(NEXT_PAGE_OFFSET);
+        }
+        return data;
+    }
+
+    /**
+     * 释放从firstPageId开始的溢出链，页面挂回空闲链表
+     */
+    public synchronized void free(int firstPageId) throws IOException {
+        Page meta = readMetaPage();
+        int freeHead = meta.readInt(FREE_LIST_OFFSET);
+        int pageId = firstPageId;
+        while (pageId > META_PAGE_ID) {
+            Page page = pageManager.readPage(fileName, pageId);
+            int next = page.readInt(NEXT_PAGE_OFFSET);
+            page.writeInt(NEXT_PAGE_OFFSET, freeHead);
+            page.writeInt(DATA_LENGTH_OFFSET, 0);
+            pageManager.writePage(fileName, page);
+            freeHead = pageId;
+            pageId = next;
+        }
+        meta.writeInt(FREE_LIST_OFFSET, freeHead);
+        pageManager.writePage(fileName, meta);
+    }
+
+    /**
+     * 溢出文件的页面数（包括元数据页和空闲页）
+     */
+    public int getPageCount() throws IOException {
+        return pageManager.getPageCount(fileName);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 数据文件对应的溢出文件名，例如 users.dat -> users.ovf
+     */
+    public static String fileNameFor(String dataFileName) {
+        int dot = dataFileName.lastIndexOf('.');
+        String base = dot > 0 ? dataFileName.substring(0, dot) : dataFileName;
+        return base + ".ovf";
+    }
+
+    private Page readMetaPage() throws IOException {
+        if (pageManager.getPageCount(fileName) == 0) {
+            int pageId = pageManager.allocatePage(fileName);
+            Page meta = new Page(pageId, pageManager.getPageSize(fileName));
+            meta.writeInt(MAGIC_OFFSET, MAGIC);
+            meta.writeInt(FREE_LIST_OFFSET, -1);
+            return meta;
+        }
+        Page meta = pageManager.readPage(fileName, META_PAGE_ID);
+        if (meta.readInt(MAGIC_OFFSET) != MAGIC) {
+            throw new RuntimeException("Invalid overflow file: " + fileName);
+        }
+        return meta;
+    }
+
+    /**
+     * 优先从空闲链表取页，否则在文件末尾分配
+     */
+    private int allocatePage(Page meta) throws IOException {
+        int freeHead = meta.readInt(FREE_LIST_OFFSET);
+        if (freeHead >= 0) {
+            Page page = pageManager.readPage(fileName, freeHead);
+            meta.writeInt(FREE_LIST_OFFSET, page.readInt(NEXT_PAGE_OFFSET));
+            return freeHead;
+        }
+        return pageManager.allocatePage(fileName);
+    }
+}
@@ -1,39 +1,121 @@
 package com.jdatabase.storage;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.StampedLock;
+
 /**
  * 页面抽象类
- * 页面大小：4KB (4096 bytes)
+ * 默认页面大小4KB (4096 bytes)，可按表配置为4KB~64KB之间的2的幂
+ * 页面内容由ByteBuffer承载：普通页面使用堆内数组，
+ * 内存映射模式下页面直接是映射区域的视图（不复制）。
+ * 多字节值统一按大端序存储，保证数据文件跨平台可读；ByteBuffer的getInt/putInt等
+ * 是JIT内建操作，字节序转换只是一条指令。
+ * writeXxx方法每次调用都会标记脏页；批量修改（如记录编码）可直接操作getBuffer()，
+ * 结束后调用一次markDirty()。
+ * 固定计数是原子的，缓冲池命中时可以在共享锁下并发固定同一页面。
+ * 缓冲池替换页面时用tryEvict把固定计数从0置为EVICTED，之后tryPin失败，
+ * 与替换并发的无锁命中不会固定已被替换的页面。
+ * 页面锁（latch）与缓冲池的锁分开：读页面内容持有共享锁，修改持有排他锁，
+ * 不同页面的读写互不影响，同一页面的读者并行、写者串行。页面锁不可重入，
+ * 加锁顺序为先缓冲池分区锁后页面锁，持有页面锁时不访问同一页面。
  */
 public class Page {
     public static final int PAGE_SIZE = 4096;
+    public static final int MIN_PAGE_SIZE = 4096;
+    public static final int MAX_PAGE_SIZE = 65536;
     public static final int PAGE_HEADER_SIZE = 16;
+    private static final AtomicIntegerFieldUpdater<Page> PIN_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(Page.class, "pinCount");
+    // 已被缓冲池替换的页面的固定计数
+    private static final int EVICTED = -1;
 
     private final int pageId;
-    private final byte[] data;
-    private boolean dirty;
-    private int pinCount;
+    private final ByteBuffer buffer;
+    private final StampedLock latch = new StampedLock();
+    private volatile boolean dirty;
+    private volatile int pinCount;
 
     public Page(int pageId) {
+        this(pageId, PAGE_SIZE);
+    }
+
+    public Page(int pageId, int pageSize) {
+        validatePageSize(pageSize);
         this.pageId = pageId;
-        this.data = new byte[PAGE_SIZE];
+        this.buffer = ByteBuffer.allocate(pageSize);
         this.dirty = false;
         this.pinCount = 0;
     }
 
     public Page(int pageId, byte[] data) {
+        this(pageId);
+        buffer.put(data, 0, Math.min(data.length, PAGE_SIZE));
+        buffer.clear();
+    }
+
+    /**
+     * 以给定缓冲区作为页面内容（不复制），缓冲区容量即页面大小
+     */
+    public Page(int pageId, ByteBuffer view) {
+        validatePageSize(view.capacity());
         this.pageId = pageId;
-        this.data = new byte[PAGE_SIZE];
-        System.arraycopy(data, 0, this.data, 0, Math.min(data.length, PAGE_SIZE));
+        this.buffer = view.duplicate();
+        this.buffer.clear();
         this.dirty = false;
         this.pinCount = 0;
     }
 
+    /**
+     * 复制页面内容得到独立的页面（不复制脏标记和固定计数）
+     */
+    public Page copy() {
+        Page copy = new Page(pageId, getPageSize());
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        copy.buffer.put(source);
+        copy.buffer.clear();
+        return copy;
+    }
+
+    /**
+     * 检查页面大小是否合法（4KB~64KB之间的2的幂）
+     */
+    public static void validatePageSize(int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize
+                    + " (must be a power of two between " + MIN_PAGE_SIZE + " and " + MAX_PAGE_SIZE + ")");
+        }
+    }
+
     public int getPageId() {
         return pageId;
     }
 
+    public int getPageSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 获取页面内容的字节数组
+     * 堆内页面直接返回底层数组；映射视图返回一份拷贝
+     */
     public byte[] getData() {
-        return data;
+        if (buffer.hasArray() && buffer.arrayOffset() == 0) {
+            return buffer.array();
+        }
+        byte[] copy = new byte[buffer.capacity()];
+        readBytes(0, copy, 0, copy.length);
+        return copy;
+    }
+
+    /**
+     * 获取覆盖整个页面的缓冲区（独立的position/limit，与页面共享内容）
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer dup = buffer.duplicate();
+        dup.clear();
+        return dup;
     }
 
     public boolean isDirty() {
@@ -45,20 +127,41 @@ public class Page {
     }
 
     public void markDirty() {
-        this.dirty = true;
+        // 已经是脏页时不写，避免每次writeXxx都写volatile字段
+        if (!dirty) {
+            dirty = true;
+        }
     }
 
     public int getPinCount() {
-        return pinCount;
+        return Math.max(pinCount, 0);
     }
 
     public void pin() {
-        pinCount++;
+        PIN_COUNT.incrementAndGet(this);
+    }
+
+    /**
+     * 固定页面，页面已被替换时返回false
+     */
+    public boolean tryPin() {
+        while (true) {
+            int count = pinCount;
+            if (count == EVICTED) {
+                return false;
+            }
+            if (PIN_COUNT.compareAndSet(this, count, count + 1)) {
+                return true;
+            }
+        }
     }
 
     public void unpin() {
-        if (pinCount > 0) {
-            pinCount--;
+        while (true) {
+            int count = pinCount;
+            if (count <= 0 || PIN_COUNT.compareAndSet(this, count, count - 1)) {
+                return;
+            }
         }
     }
 
@@ -66,24 +169,76 @@ public class Page {
         return pinCount > 0;
     }
 
+    /**
+     * 替换保护：页面没有被固定时标记为已替换并返回true，之后tryPin失败
+     */
+    public boolean tryEvict() {
+        return PIN_COUNT.compareAndSet(this, 0, EVICTED);
+    }
+
+    /**
+     * 获取共享页面锁（读页面内容）
+     */
+    public void latchShared() {
+        latch.readLock();
+    }
+
+    /**
+     * 释放共享页面锁，没有持有共享锁时抛出IllegalMonitorStateException
+     */
+    public void unlatchShared() {
+        if (!latch.tryUnlockRead()) {
+            throw new IllegalMonitorStateException("Page " + pageId + " is not latched shared");
+        }
+    }
+
+    /**
+     * 获取排他页面锁（修改页面内容）
+     */
+    public void latchExclusive() {
+        latch.writeLock();
+    }
+
+    /**
+     * 释放排他页面锁，没有持有排他锁时抛出IllegalMonitorStateException
+     */
+    public void unlatchExclusive() {
+        if (!latch.tryUnlockWrite()) {
+            throw new IllegalMonitorStateException("Page " + pageId + " is not latched exclusive");
+        }
+    }
+
+    public boolean isLatchedExclusive() {
+        return latch.isWriteLocked();
+    }
+
+    /**
+     * 从页面读取单个字节
+     */
+    public byte readByte(int offset) {
+        return buffer.get(offset);
+    }
+
+    /**
+     * 向页面写入单个字节
+     */
+    public void writeByte(int offset, byte value) {
+        buffer.put(offset, value);
+        markDirty();
+    }
+
     /**
      * 从页面读取整数
      */
     public int readInt(int offset) {
-        return ((data[offset] & 0xFF) << 24) |
-               ((data[offset + 1] & 0xFF) << 16) |
-               ((data[offset + 2] & 0xFF) << 8) |
-               (data[offset + 3] & 0xFF);
+        return buffer.getInt(offset);
     }
 
     /**
      * 向页面写入整数
      */
     public void writeInt(int offset, int value) {
-        data[offset] = (byte) (value >>> 24);
-        data[offset + 1] = (byte) (value >>> 16);
-        data[offset + 2] = (byte) (value >>> 8);
-        data[offset + 3] = (byte) value;
+        buffer.putInt(offset, value);
         markDirty();
     }
 
@@ -91,28 +246,14 @@ public class Page {
      * 从页面读取长整数
      */
     public long readLong(int offset) {
-        return ((long) (data[offset] & 0xFF) << 56) |
-               ((long) (data[offset + 1] & 0xFF) << 48) |
-               ((long) (data[offset + 2] & 0xFF) << 40) |
-               ((long) (data[offset + 3] & 0xFF) << 32) |
-               ((long) (data[offset + 4] & 0xFF) << 24) |
-               ((long) (data[offset + 5] & 0xFF) << 16) |
-               ((long) (data[offset + 6] & 0xFF) << 8) |
-               ((long) (data[offset + 7] & 0xFF));
+        return buffer.getLong(offset);
     }
 
     /**
      * 向页面写入长整数
      */
     public void writeLong(int offset, long value) {
-        data[offset] = (byte) (value >>> 56);
-        data[offset + 1] = (byte) (value >>> 48);
-        data[offset + 2] = (byte) (value >>> 40);
-        data[offset + 3] = (byte) (value >>> 32);
-        data[offset + 4] = (byte) (value >>> 24);
-        data[offset + 5] = (byte) (value >>> 16);
-        data[offset + 6] = (byte) (value >>> 8);
-        data[offset + 7] = (byte) value;
+        buffer.putLong(offset, value);
         markDirty();
     }
 
@@ -120,15 +261,18 @@ public class Page {
      * 从页面读取字节数组
      */
     public void readBytes(int offset, byte[] dest, int destOffset, int length) {
-        System.arraycopy(data, offset, dest, destOffset, length);
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.get(dest, destOffset, length);
     }
 
     /**
      * 向页面写入字节数组
      */
     public void writeBytes(int offset, byte[] src, int srcOffset, int length) {
-        System.arraycopy(src, srcOffset, data, offset, length);
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.put(src, srcOffset, length);
         markDirty();
     }
 }
-
@@ -0,0 +1,25 @@
+package com.jdatabase.storage;
+
+/**
+ * 页面压缩方式
+ */
+public enum PageCompression {
+    /**
+     * 不压缩：页面按页号定长存放
+     */
+    NONE,
+
+    /**
+     * Deflate压缩：写入时逐页压缩，读取时解压，适合很少更新、扫描受I/O限制的冷数据表
+     */
+    DEFLATE;
+
+    public static PageCompression fromString(String name) {
+        for (PageCompression compression : values()) {
+            if (compression.name().equalsIgnoreCase(name)) {
+                return compression;
+            }
+        }
+        throw new RuntimeException("Unknown page compression: " + name);
+    }
+}
@@ -0,0 +1,25 @@
+package com.jdatabase.storage;
+
+/**
+ * 页面文件访问模式
+ */
+public enum PageFileMode {
+    /**
+     * 通过FileChannel定位读写，每次读取复制一份页面
+     */
+    CHANNEL,
+
+    /**
+     * 内存映射，页面直接是映射区域的视图，适合读多写少的大表
+     */
+    MMAP;
+
+    public static PageFileMode fromString(String name) {
+        for (PageFileMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new RuntimeException("Unknown file mode: " + name);
+    }
+}
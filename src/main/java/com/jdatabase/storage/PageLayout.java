@@ -0,0 +1,25 @@
+package com.jdatabase.storage;
+
+/**
+ * 数据页布局
+ */
+public enum PageLayout {
+    /**
+     * 行存（NSM）：槽目录 + 整条记录，适合OLTP的点查和更新
+     */
+    ROW,
+
+    /**
+     * PAX：页内按列分组为minipage，扫描/聚合只读取引用列的minipage，适合分析型表
+     */
+    PAX;
+
+    public static PageLayout fromString(String name) {
+        for (PageLayout layout : values()) {
+            if (layout.name().equalsIgnoreCase(name)) {
+                return layout;
+            }
+        }
+        throw new RuntimeException("Unknown page layout: " + name);
+    }
+}
@@ -1,19 +1,120 @@
 package com.jdatabase.storage;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 页面管理器，负责页面的磁盘I/O
+ * 每个数据文件通过FileHandleRegistry保持一个长期打开的FileChannel，
+ * 页面读写使用定位读写（positional read/write），不再逐次打开文件。
+ * 文件模式为MMAP的文件改由MappedPageFile提供零拷贝的页面视图。
+ * 页面大小按文件取自存储选项，同一文件内的页面大小固定。
+ * 顺序读取的文件由ReadAheadPrefetcher在后台预读后续页面（可按表关闭read_ahead）。
+ * 开启压缩的文件由CompressedPageFile逐页压缩存放，读取时解压到页面缓冲区（不使用内存映射和预读）。
+ * 缓冲池使用堆外帧区（FrameArena）时，页面直接读入缓冲池提供的帧。
+ * 文件按区段预先扩展，每个文件的高水位（已分配页面的末尾）保存在这里，不随文件句柄的淘汰而丢失；
+ * 关闭时（close/closeFile）把文件长度调整到高水位。数据目录中的打开标记（OPEN_MARKER）在关闭时删除，
+ * 启动时标记仍在说明上次没有正常关闭，文件末尾可能留有未使用的预分配区段：
+ * 这时首次读取高水位会从长度按区段对齐的文件末尾去掉全零的页面（最多一个区段）。
  */
-public class PageManager {
+public class PageManager implements Closeable {
+    // 清零复用的帧
+    private static final byte[] ZEROS = new byte[Page.PAGE_SIZE];
+    // 打开期间存在于数据目录中的标记文件
+    static final String OPEN_MARKER = ".pagemanager.open";
+
     private final String dataDir;
+    private final FileHandleRegistry fileHandles;
+    private final StorageOptions defaultOptions;
+    private final Map<String, StorageOptions> fileOptions;
+    private final Map<String, MappedPageFile> mappedFiles;
+    private final Map<String, CompressedPageFile> compressedFiles;
+    private final CompressionStats compressionStats;
+    private final ReadAheadPrefetcher readAhead;
+    private final Map<String, HighWaterMark> highWaterMarks;
+    // 上次未正常关闭，高水位需要从文件内容恢复
+    private final boolean recovering;
 
     public PageManager(String dataDir) {
+        this(dataDir, new StorageOptions());
+    }
+
+    public PageManager(String dataDir, int maxOpenFiles) {
+        this(dataDir, new StorageOptions(), maxOpenFiles);
+    }
+
+    public PageManager(String dataDir, StorageOptions defaultOptions) {
+        this(dataDir, defaultOptions, FileHandleRegistry.DEFAULT_MAX_OPEN_FILES);
+    }
+
+    public PageManager(String dataDir, StorageOptions defaultOptions, int maxOpenFiles) {
         this.dataDir = dataDir;
+        this.fileHandles = new FileHandleRegistry(maxOpenFiles);
+        this.defaultOptions = defaultOptions;
+        this.fileOptions = new ConcurrentHashMap<>();
+        this.mappedFiles = new ConcurrentHashMap<>();
+        this.compressedFiles = new ConcurrentHashMap<>();
+        this.compressionStats = new CompressionStats();
+        this.readAhead = new ReadAheadPrefetcher(new ReadAheadPrefetcher.PageSource() {
+            @Override
+            public Page[] readPages(String fileName, int firstPageId, int count) throws IOException {
+                return readPageRun(fileName, firstPageId, count);
+            }
+
+            @Override
+            public int getPageCount(String fileName) throws IOException {
+                return PageManager.this.getPageCount(fileName);
+            }
+        }, ReadAheadPrefetcher.DEFAULT_THREADS);
+        this.highWaterMarks = new ConcurrentHashMap<>();
         ensureDataDir();
+        this.recovering = markOpen();
+    }
+
+    /**
+     * 为指定文件设置存储选项（未设置的文件使用默认选项）
+     */
+    public void setFileOptions(String fileName, StorageOptions options) {
+        StorageOptions previous = fileOptions.put(fileName, options);
+        if (previous != null && (previous.getFileMode() != options.getFileMode()
+                || previous.getPageSize() != options.getPageSize()
+                || previous.getCompression() != options.getCompression())) {
+            closeFile(fileName);
+        } else if (!options.isReadAhead()) {
+            readAhead.invalidateFile(fileName);
+        }
+    }
+
+    public StorageOptions getFileOptions(String fileName) {
+        StorageOptions options = fileOptions.get(fileName);
+        return options != null ? options : defaultOptions;
+    }
+
+    public StorageOptions getDefaultOptions() {
+        return defaultOptions;
+    }
+
+    /**
+     * 文件的页面大小
+     */
+    public int getPageSize(String fileName) {
+        return getFileOptions(fileName).getPageSize();
+    }
+
+    /**
+     * 文件扩展的区段大小，不小于页面大小（两者都是2的幂，区段总是页面的整数倍）
+     */
+    int getExtentSize(String fileName) {
+        StorageOptions options = getFileOptions(fileName);
+        return Math.max(options.getExtentSize(), options.getPageSize());
     }
 
     private void ensureDataDir() {
@@ -27,61 +128,245 @@ public class PageManager {
         }
     }
 
+    /**
+     * 创建打开标记，返回标记是否已经存在（上次未正常关闭）
+     */
+    private boolean markOpen() {
+        try {
+            Files.createFile(Paths.get(dataDir, OPEN_MARKER));
+            return false;
+        } catch (FileAlreadyExistsException e) {
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create open marker", e);
+        }
+    }
+
     /**
      * 读取页面
      */
     public Page readPage(String fileName, int pageId) throws IOException {
-        Path filePath = Paths.get(dataDir, fileName);
-        if (!Files.exists(filePath)) {
-            return new Page(pageId);
+        int pageSize = getPageSize(fileName);
+        if (isCompressed(fileName)) {
+            CompressedPageFile compressed = getCompressedFile(fileName, false);
+            Page page = compressed != null ? compressed.readPage(pageId) : null;
+            return page != null ? page : new Page(pageId, pageSize);
+        }
+        if (isMapped(fileName)) {
+            MappedPageFile mapped = getMappedFile(fileName, false);
+            Page page = mapped != null ? mapped.readPage(pageId) : null;
+            return page != null ? page : new Page(pageId, pageSize);
         }
 
-        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
-            long offset = (long) pageId * Page.PAGE_SIZE;
-            if (offset >= file.length()) {
-                return new Page(pageId);
+        boolean readAheadEnabled = getFileOptions(fileName).isReadAhead();
+        Page staged = readAheadEnabled ? readAhead.take(fileName, pageId) : null;
+        if (staged == null) {
+            FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), false);
+            if (handle == null) {
+                return new Page(pageId, pageSize);
+            }
+            try {
+                long offset = (long) pageId * pageSize;
+                // 直接读入页面缓冲区；部分页面的剩余部分保持为0
+                staged = new Page(pageId, pageSize);
+                readFully(handle.getChannel(), staged.getBuffer(), offset);
+            } finally {
+                fileHandles.release(handle);
             }
+        }
+        if (readAheadEnabled) {
+            readAhead.onRead(fileName, pageId);
+        }
+        return staged;
+    }
 
-            file.seek(offset);
-            byte[] data = new byte[Page.PAGE_SIZE];
-            int bytesRead = file.read(data);
-            if (bytesRead < Page.PAGE_SIZE) {
-                // 部分页面，用0填充
-                for (int i = bytesRead; i < Page.PAGE_SIZE; i++) {
-                    data[i] = 0;
-                }
+    /**
+     * 把页面读入给定的帧（如缓冲池的堆外帧），返回以帧为内容的页面，超出文件末尾的部分清零。
+     * 帧大小与文件的页面大小不同时按readPage(fileName, pageId)读取；内存映射文件直接返回映射视图，不使用帧。
+     */
+    public Page readPage(String fileName, int pageId, ByteBuffer frame) throws IOException {
+        int pageSize = getPageSize(fileName);
+        if (frame.capacity() != pageSize || isMapped(fileName)) {
+            return readPage(fileName, pageId);
+        }
+        Page page = new Page(pageId, frame);
+        ByteBuffer target = page.getBuffer();
+        if (isCompressed(fileName) || getFileOptions(fileName).isReadAhead()) {
+            // 解压或预读得到的页面复制到帧中
+            target.put(readPage(fileName, pageId).getBuffer());
+            return page;
+        }
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), false);
+        if (handle != null) {
+            try {
+                readFully(handle.getChannel(), target, (long) pageId * pageSize);
+            } finally {
+                fileHandles.release(handle);
             }
-            return new Page(pageId, data);
         }
+        // 帧可能残留之前页面的内容
+        while (target.hasRemaining()) {
+            target.put(ZEROS, 0, Math.min(ZEROS.length, target.remaining()));
+        }
+        return page;
+    }
+
+    /**
+     * 以一次定位读读取count个连续页面（供预读使用），各页面是同一缓冲区的不重叠视图
+     */
+    private Page[] readPageRun(String fileName, int firstPageId, int count) throws IOException {
+        int pageSize = getPageSize(fileName);
+        Page[] pages = new Page[count];
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), false);
+        if (handle == null) {
+            for (int i = 0; i < count; i++) {
+                pages[i] = new Page(firstPageId + i, pageSize);
+            }
+            return pages;
+        }
+        try {
+            ByteBuffer run = ByteBuffer.allocate(count * pageSize);
+            readFully(handle.getChannel(), run, (long) firstPageId * pageSize);
+            for (int i = 0; i < count; i++) {
+                run.limit((i + 1) * pageSize);
+                run.position(i * pageSize);
+                pages[i] = new Page(firstPageId + i, run.slice());
+            }
+            return pages;
+        } finally {
+            fileHandles.release(handle);
+        }
+    }
+
+    /**
+     * 顺序预读器（用于查看预读命中统计）
+     */
+    public ReadAheadPrefetcher getReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * 所有压缩文件的压缩统计
+     */
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
     }
 
     /**
      * 写入页面
      */
     public void writePage(String fileName, Page page) throws IOException {
-        Path filePath = Paths.get(dataDir, fileName);
-        ensureFileExists(filePath);
+        int pageSize = getPageSize(fileName);
+        if (page.getPageSize() != pageSize) {
+            throw new RuntimeException("Page size mismatch for " + fileName + ": expected "
+                    + pageSize + ", got " + page.getPageSize());
+        }
+        if (isCompressed(fileName)) {
+            getCompressedFile(fileName, true).writePage(page);
+            return;
+        }
+        if (isMapped(fileName)) {
+            getMappedFile(fileName, true).writePage(page);
+            return;
+        }
 
-        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")) {
-            long offset = (long) page.getPageId() * Page.PAGE_SIZE;
-            file.seek(offset);
-            file.write(page.getData());
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), true);
+        try {
+            long offset = (long) page.getPageId() * pageSize;
+            writeFully(handle.getChannel(), page.getBuffer(), offset);
+            markWritten(fileName, offset + pageSize);
+        } finally {
+            fileHandles.release(handle);
         }
+        // 写入完成后再使暂存副本失效，之后提交的预读一定读到新内容
+        readAhead.invalidate(fileName, page.getPageId());
     }
 
     /**
      * 分配新页面
      */
     public int allocatePage(String fileName) throws IOException {
-        Path filePath = Paths.get(dataDir, fileName);
-        ensureFileExists(filePath);
-
-        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")) {
-            long fileSize = file.length();
-            int pageId = (int) (fileSize / Page.PAGE_SIZE);
-            // 扩展文件以包含新页面
-            file.setLength((long) (pageId + 1) * Page.PAGE_SIZE);
-            return pageId;
+        int pageSize = getPageSize(fileName);
+        if (isCompressed(fileName)) {
+            return getCompressedFile(fileName, true).allocatePage();
+        }
+        if (isMapped(fileName)) {
+            return getMappedFile(fileName, true).allocatePage();
+        }
+
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), true);
+        try {
+            // 推进高水位，超出预分配空间时按区段扩展文件
+            return highWaterMark(fileName).allocate(handle, 1, pageSize, getExtentSize(fileName), recovering);
+        } finally {
+            fileHandles.release(handle);
+        }
+    }
+
+    /**
+     * 一次分配count个连续页面，返回第一个页号
+     */
+    public int allocatePages(String fileName, int count) throws IOException {
+        int pageSize = getPageSize(fileName);
+        if (isCompressed(fileName)) {
+            return getCompressedFile(fileName, true).allocatePages(count);
+        }
+        if (isMapped(fileName)) {
+            return getMappedFile(fileName, true).allocatePages(count);
+        }
+
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), true);
+        try {
+            return highWaterMark(fileName).allocate(handle, count, pageSize, getExtentSize(fileName), recovering);
+        } finally {
+            fileHandles.release(handle);
+        }
+    }
+
+    /**
+     * 批量写入页面：页号连续的页面合并为一次顺序写
+     */
+    public void writePages(String fileName, List<Page> pages) throws IOException {
+        if (pages.isEmpty()) {
+            return;
+        }
+        if (isCompressed(fileName) || isMapped(fileName)) {
+            for (Page page : pages) {
+                writePage(fileName, page);
+            }
+            return;
+        }
+
+        int pageSize = getPageSize(fileName);
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), true);
+        try {
+            int start = 0;
+            while (start < pages.size()) {
+                // 找出从start开始页号连续的一段
+                int end = start + 1;
+                while (end < pages.size() && pages.get(end).getPageId() == pages.get(end - 1).getPageId() + 1) {
+                    end++;
+                }
+                ByteBuffer run = ByteBuffer.allocate((end - start) * pageSize);
+                for (int i = start; i < end; i++) {
+                    Page page = pages.get(i);
+                    if (page.getPageSize() != pageSize) {
+                        throw new RuntimeException("Page size mismatch for " + fileName + ": expected "
+                                + pageSize + ", got " + page.getPageSize());
+                    }
+                    run.put(page.getBuffer());
+                }
+                run.flip();
+                long offset = (long) pages.get(start).getPageId() * pageSize;
+                writeFully(handle.getChannel(), run, offset);
+                markWritten(fileName, offset + (long) (end - start) * pageSize);
+                start = end;
+            }
+        } finally {
+            fileHandles.release(handle);
+        }
+        for (Page page : pages) {
+            readAhead.invalidate(fileName, page.getPageId());
         }
     }
 
@@ -89,24 +374,307 @@ public class PageManager {
      * 获取文件中的页面数量
      */
     public int getPageCount(String fileName) throws IOException {
-        Path filePath = Paths.get(dataDir, fileName);
-        if (!Files.exists(filePath)) {
+        if (isCompressed(fileName)) {
+            CompressedPageFile compressed = getCompressedFile(fileName, false);
+            return compressed != null ? compressed.getPageCount() : 0;
+        }
+        if (isMapped(fileName)) {
+            MappedPageFile mapped = getMappedFile(fileName, false);
+            return mapped != null ? mapped.getPageCount() : 0;
+        }
+
+        FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), false);
+        if (handle == null) {
             return 0;
         }
 
-        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
-            return (int) (file.length() / Page.PAGE_SIZE);
+        try {
+            // 页面数由高水位决定，预分配但尚未分配的区段不计入
+            int pageSize = getPageSize(fileName);
+            return (int) (highWaterMark(fileName).load(handle, pageSize, getExtentSize(fileName), recovering)
+                    / pageSize);
+        } finally {
+            fileHandles.release(handle);
+        }
+    }
+
+    /**
+     * 关闭指定文件的句柄（删除文件前调用）
+     */
+    public void closeFile(String fileName) {
+        readAhead.invalidateFile(fileName);
+        HighWaterMark highWaterMark = highWaterMarks.remove(fileName);
+        if (highWaterMark != null) {
+            resizeToHighWaterMark(fileName, highWaterMark);
+        }
+        fileHandles.closeFile(getFilePath(fileName));
+        MappedPageFile mapped = mappedFiles.remove(fileName);
+        if (mapped != null) {
+            closeQuietly(mapped);
+        }
+        CompressedPageFile compressed = compressedFiles.remove(fileName);
+        if (compressed != null) {
+            closeQuietly(compressed);
         }
     }
 
-    private void ensureFileExists(Path filePath) throws IOException {
-        if (!Files.exists(filePath)) {
-            Files.createFile(filePath);
+    /**
+     * 关闭并删除文件（包括压缩文件的页面偏移表）
+     */
+    public void deleteFile(String fileName) throws IOException {
+        closeFile(fileName);
+        Path filePath = getFilePath(fileName);
+        Files.deleteIfExists(filePath);
+        CompressedPageFile.deletePageMap(filePath);
+    }
+
+    /**
+     * 关闭所有打开的文件
+     */
+    @Override
+    public void close() {
+        readAhead.close();
+        for (Map.Entry<String, HighWaterMark> entry : highWaterMarks.entrySet()) {
+            resizeToHighWaterMark(entry.getKey(), entry.getValue());
+        }
+        highWaterMarks.clear();
+        fileHandles.close();
+        for (MappedPageFile mapped : mappedFiles.values()) {
+            closeQuietly(mapped);
+        }
+        mappedFiles.clear();
+        for (CompressedPageFile compressed : compressedFiles.values()) {
+            closeQuietly(compressed);
+        }
+        compressedFiles.clear();
+        try {
+            Files.deleteIfExists(Paths.get(dataDir, OPEN_MARKER));
+        } catch (IOException e) {
+            System.err.println("Failed to delete open marker in " + dataDir + ": " + e.getMessage());
         }
     }
 
     public String getDataDir() {
         return dataDir;
     }
-}
 
+    public FileHandleRegistry getFileHandles() {
+        return fileHandles;
+    }
+
+    private HighWaterMark highWaterMark(String fileName) {
+        return highWaterMarks.computeIfAbsent(fileName, name -> new HighWaterMark());
+    }
+
+    /**
+     * 直接写到高水位之后的页面时推进高水位
+     */
+    private void markWritten(String fileName, long end) {
+        HighWaterMark highWaterMark = highWaterMarks.get(fileName);
+        // 高水位尚未读取时无需记录，之后从文件长度恢复
+        if (highWaterMark != null) {
+            highWaterMark.markWritten(end);
+        }
+    }
+
+    /**
+     * 把文件长度调整到高水位：截掉未使用的预分配空间，已分配但从未写回的页面补齐
+     */
+    private void resizeToHighWaterMark(String fileName, HighWaterMark highWaterMark) {
+        long end = highWaterMark.get();
+        if (end < 0) {
+            return;
+        }
+        try {
+            FileHandleRegistry.FileHandle handle = fileHandles.acquire(getFilePath(fileName), false);
+            if (handle == null) {
+                return;
+            }
+            try {
+                long size = handle.getChannel().size();
+                if (size > end) {
+                    handle.getChannel().truncate(end);
+                } else if (size < end) {
+                    handle.setLength(end);
+                }
+            } finally {
+                fileHandles.release(handle);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to truncate file " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private Path getFilePath(String fileName) {
+        return Paths.get(dataDir, fileName);
+    }
+
+    private boolean isMapped(String fileName) {
+        return getFileOptions(fileName).getFileMode() == PageFileMode.MMAP;
+    }
+
+    private boolean isCompressed(String fileName) {
+        return getFileOptions(fileName).getCompression() != PageCompression.NONE;
+    }
+
+    /**
+     * 获取压缩文件，文件不存在且create为false时返回null
+     */
+    private CompressedPageFile getCompressedFile(String fileName, boolean create) throws IOException {
+        CompressedPageFile compressed = compressedFiles.get(fileName);
+        if (compressed != null) {
+            return compressed;
+        }
+        synchronized (compressedFiles) {
+            compressed = compressedFiles.get(fileName);
+            if (compressed == null) {
+                Path filePath = getFilePath(fileName);
+                if (!create && !Files.exists(filePath)) {
+                    return null;
+                }
+                compressed = new CompressedPageFile(filePath, getPageSize(fileName), compressionStats);
+                compressedFiles.put(fileName, compressed);
+            }
+            return compressed;
+        }
+    }
+
+    /**
+     * 获取映射文件，文件不存在且create为false时返回null
+     */
+    private MappedPageFile getMappedFile(String fileName, boolean create) throws IOException {
+        MappedPageFile mapped = mappedFiles.get(fileName);
+        if (mapped != null) {
+            return mapped;
+        }
+        synchronized (mappedFiles) {
+            mapped = mappedFiles.get(fileName);
+            if (mapped == null) {
+                Path filePath = getFilePath(fileName);
+                if (!create && !Files.exists(filePath)) {
+                    return null;
+                }
+                mapped = new MappedPageFile(filePath, MappedPageFile.DEFAULT_SEGMENT_SIZE, getPageSize(fileName),
+                        recovering);
+                mappedFiles.put(fileName, mapped);
+            }
+            return mapped;
+        }
+    }
+
+    private static void closeQuietly(MappedPageFile mapped) {
+        try {
+            mapped.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close mapped file " + mapped.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(CompressedPageFile compressed) {
+        try {
+            compressed.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close compressed file " + compressed.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从指定位置读满缓冲区，返回实际读取的字节数（文件末尾时可能不足）
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+    }
+
+    /**
+     * 未正常关闭的文件：长度按区段对齐时，末尾一个区段内全零的页面视为未使用的预分配空间，返回恢复的末尾
+     * 只在进程内首次打开文件时调用，此时本进程还没有在该文件上分配过页面。
+     */
+    static long stripPreallocatedTail(FileChannel channel, long end, int pageSize, int extentSize)
+            throws IOException {
+        if (end % extentSize != 0) {
+            return end;
+        }
+        long limit = Math.max(0, end - extentSize);
+        ByteBuffer page = ByteBuffer.allocate(pageSize);
+        while (end > limit) {
+            page.clear();
+            readFully(channel, page, end - pageSize);
+            if (!isZero(page.array())) {
+                break;
+            }
+            end -= pageSize;
+        }
+        return end;
+    }
+
+    private static boolean isZero(byte[] data) {
+        for (byte b : data) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文件的高水位（已分配页面的末尾，字节），文件的物理长度可以超过高水位
+     * 同一文件的分配在这里串行化，避免并发分配得到相同的页号。
+     */
+    private static final class HighWaterMark {
+        private long end = -1; // -1表示尚未读取
+
+        synchronized long get() {
+            return end;
+        }
+
+        /**
+         * 读取高水位，首次读取时由文件长度确定；recovering为true时去掉末尾未使用的预分配页面
+         */
+        synchronized long load(FileHandleRegistry.FileHandle handle, int pageSize, int extentSize,
+                               boolean recovering) throws IOException {
+            if (end < 0) {
+                end = handle.getChannel().size() / pageSize * pageSize;
+                if (recovering) {
+                    end = stripPreallocatedTail(handle.getChannel(), end, pageSize, extentSize);
+                }
+            }
+            return end;
+        }
+
+        /**
+         * 分配count个连续页面，返回第一个页号；超出文件物理长度时按区段对齐整块扩展，并写零完成预分配
+         */
+        synchronized int allocate(FileHandleRegistry.FileHandle handle, int count, int pageSize, int extentSize,
+                                  boolean recovering) throws IOException {
+            int pageId = (int) (load(handle, pageSize, extentSize, recovering) / pageSize);
+            long newEnd = (long) (pageId + count) * pageSize;
+            long physical = handle.getChannel().size();
+            if (newEnd > physical) {
+                handle.preallocate(physical, (newEnd + extentSize - 1) / extentSize * extentSize);
+            }
+            end = newEnd;
+            return pageId;
+        }
+
+        synchronized void markWritten(long written) {
+            if (end >= 0 && written > end) {
+                end = written;
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * PAX页面（Partition Attributes Across）
+ * 页面内按列分组存储：每列的值连续存放在各自的minipage中，
+ * 扫描和聚合只需读取引用列的minipage，不再逐条跳过整行。
+ * 页面布局：
+ * [页头(16B)] [列目录(列数*4B)] [删除位图] [minipage 0] [minipage 1] ...
+ * 页头：magic(4B) + rowCount(4B) + usedBytes(4B) + liveCount(4B)；列目录保存各minipage的起始偏移。
+ * 行号即RecordId的slotId；删除只设置删除位，行号保持不变并在插入时复用。
+ * 页面整体重新编码写入，适合批量导入和追加为主的分析型表；PAX表不使用溢出页，单行必须放得进一个页面。
+ */
+public class PaxPage {
+    static final int MAGIC = 0x50415831; // "PAX1"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int ROW_COUNT_OFFSET = 4;
+    private static final int USED_BYTES_OFFSET = 8;
+    private static final int LIVE_COUNT_OFFSET = 12;
+    private static final int DIRECTORY_OFFSET = Page.PAGE_HEADER_SIZE;
+
+    private final Page page;
+    private final Schema schema;
+    private final int rowCount;
+    private final MiniPage[] miniPages;
+
+    public PaxPage(Page page, Schema schema) {
+        this.page = page;
+        this.schema = schema;
+        this.rowCount = isPaxPage(page) ? page.readInt(ROW_COUNT_OFFSET) : 0;
+        this.miniPages = new MiniPage[schema.getColumnCount()];
+    }
+
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * 行数（包括已删除的行）
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 未删除的行数
+     */
+    public int getLiveCount() {
+        return rowCount == 0 ? 0 : page.readInt(LIVE_COUNT_OFFSET);
+    }
+
+    public boolean isDeleted(int row) {
+        int offset = deleteBitmapOffset(schema.getColumnCount());
+        return (page.getBuffer().get(offset + (row >> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    /**
+     * 列的minipage视图
+     */
+    public MiniPage getMiniPage(int column) {
+        MiniPage miniPage = miniPages[column];
+        if (miniPage == null) {
+            int offset = page.readInt(DIRECTORY_OFFSET + column * 4);
+            miniPage = new MiniPage(page, schema.getColumn(column).getType(), offset, rowCount);
+            miniPages[column] = miniPage;
+        }
+        return miniPage;
+    }
+
+    /**
+     * 读取一行，只解码列掩码中的列（null表示全部列）；行不存在或已删除时返回null
+     */
+    public Tuple readRow(int row, BitSet columns) {
+        if (row < 0 || row >= rowCount || isDeleted(row)) {
+            return null;
+        }
+        Tuple tuple = new Tuple(schema);
+        for (int i = 0; i < schema.getColumnCount(); i++) {
+            tuple.setValue(i, columns == null || columns.get(i) ? getMiniPage(i).getValue(row) : null);
+        }
+        return tuple;
+    }
+
+    /**
+     * 解码全部行，已删除的行为null（用于重新编码页面）
+     */
+    List<Tuple> readRows() {
+        List<Tuple> rows = new ArrayList<>(rowCount + 1);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(readRow(row, null));
+        }
+        return rows;
+    }
+
+    /**
+     * 是否为PAX格式的页面；全零的未初始化页面不是
+     */
+    public static boolean isPaxPage(Page page) {
+        return page.readInt(MAGIC_OFFSET) == MAGIC;
+    }
+
+    /**
+     * 页面剩余的空闲字节数；未初始化的页面视为空页
+     */
+    static int getFreeSpace(Page page) {
+        if (!isPaxPage(page)) {
+            return page.getPageSize() - Page.PAGE_HEADER_SIZE;
+        }
+        return page.getPageSize() - page.readInt(USED_BYTES_OFFSET);
+    }
+
+    /**
+     * 一行在各minipage中占用的值字节数：定长列固定占位，VARCHAR为4B偏移加数据长度
+     */
+    static int valueBytes(Schema schema, Tuple tuple) {
+        int bytes = 0;
+        for (int i = 0; i < schema.getColumnCount(); i++) {
+            Types type = schema.getColumn(i).getType();
+            if (type == Types.VARCHAR) {
+                Value value = tuple.getValue(i);
+                bytes += 4;
+                if (value != null && value.getValue() != null) {
+                    bytes += RecordCodec.utf8Length(value.getString());
+                }
+            } else {
+                bytes += type.getSize();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 向页面追加一行最多增加的字节数（值字节加上每个位图可能增长的1字节）
+     */
+    static int maxRowCost(Schema schema, Tuple tuple) {
+        return valueBytes(schema, tuple) + schema.getColumnCount() + 1;
+    }
+
+    /**
+     * rowCount行、值字节总数为valueBytes时编码后的页面大小
+     */
+    static int encodedSize(Schema schema, int rowCount, int valueBytes) {
+        int columnCount = schema.getColumnCount();
+        int size = deleteBitmapOffset(columnCount) + bitmapSize(rowCount) * (columnCount + 1) + valueBytes;
+        for (Schema.Column column : schema.getColumns()) {
+            if (column.getType() == Types.VARCHAR) {
+                size += 4; // 偏移数组比行数多一项
+            }
+        }
+        return size;
+    }
+
+    static int encodedSize(Schema schema, List<Tuple> rows) {
+        int valueBytes = 0;
+        for (Tuple row : rows) {
+            valueBytes += row != null ? valueBytes(schema, row) : deletedRowBytes(schema);
+        }
+        return encodedSize(schema, rows.size(), valueBytes);
+    }
+
+    /**
+     * 按PAX布局重新编码整个页面，rows中的null表示已删除的行
+     */
+    static void write(Page page, Schema schema, List<Tuple> rows) {
+        int columnCount = schema.getColumnCount();
+        int rowCount = rows.size();
+        int bitmapSize = bitmapSize(rowCount);
+        ByteBuffer buffer = page.getBuffer();
+
+        // 删除位图
+        int offset = deleteBitmapOffset(columnCount);
+        int liveCount = 0;
+        for (Tuple row : rows) {
+            if (row != null) {
+                liveCount++;
+            }
+        }
+        writeBitmap(buffer, offset, rowCount, row -> rows.get(row) == null);
+        offset += bitmapSize;
+
+        for (int i = 0; i < columnCount; i++) {
+            final int column = i;
+            Types type = schema.getColumn(i).getType();
+            buffer.putInt(DIRECTORY_OFFSET + i * 4, offset);
+            writeBitmap(buffer, offset, rowCount, row -> valueOf(rows.get(row), column) == null);
+            offset += bitmapSize;
+
+            if (type == Types.VARCHAR) {
+                // 先写偏移数组，再写数据
+                int offsetsStart = offset;
+                int dataStart = offset + 4 * (rowCount + 1);
+                int dataLength = 0;
+                buffer.putInt(offsetsStart, 0);
+                buffer.position(dataStart);
+                for (int row = 0; row < rowCount; row++) {
+                    Value value = valueOf(rows.get(row), column);
+                    if (value != null) {
+                        byte[] bytes = value.getString().getBytes(StandardCharsets.UTF_8);
+                        buffer.put(bytes);
+                        dataLength += bytes.length;
+                    }
+                    buffer.putInt(offsetsStart + 4 * (row + 1), dataLength);
+                }
+                offset = dataStart + dataLength;
+            } else {
+                int width = type.getSize();
+                for (int row = 0; row < rowCount; row++) {
+                    writeFixed(buffer, offset + row * width, type, valueOf(rows.get(row), column));
+                }
+                offset += rowCount * width;
+            }
+        }
+
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(ROW_COUNT_OFFSET, rowCount);
+        buffer.putInt(USED_BYTES_OFFSET, offset);
+        buffer.putInt(LIVE_COUNT_OFFSET, liveCount);
+        page.markDirty();
+    }
+
+    static int bitmapSize(int rowCount) {
+        return (rowCount + 7) / 8;
+    }
+
+    private static int deleteBitmapOffset(int columnCount) {
+        return DIRECTORY_OFFSET + columnCount * 4;
+    }
+
+    /**
+     * 已删除行占用的值字节数（定长列仍占位，VARCHAR只占偏移）
+     */
+    private static int deletedRowBytes(Schema schema) {
+        int bytes = 0;
+        for (Schema.Column column : schema.getColumns()) {
+            bytes += column.getType() == Types.VARCHAR ? 4 : column.getType().getSize();
+        }
+        return bytes;
+    }
+
+    private static Value valueOf(Tuple row, int column) {
+        if (row == null) {
+            return null;
+        }
+        Value value = row.getValue(column);
+        return value != null && value.getValue() != null ? value : null;
+    }
+
+    private static void writeBitmap(ByteBuffer buffer, int offset, int rowCount, IntPredicate isSet) {
+        for (int b = 0; b < bitmapSize(rowCount); b++) {
+            int bits = 0;
+            for (int row = b * 8; row < Math.min(rowCount, b * 8 + 8); row++) {
+                if (isSet.test(row)) {
+                    bits |= 1 << (row - b * 8);
+                }
+            }
+            buffer.put(offset + b, (byte) bits);
+        }
+    }
+
+    private static void writeFixed(ByteBuffer buffer, int position, Types type, Value value) {
+        switch (type) {
+            case INT:
+                buffer.putInt(position, value != null ? value.getInt() : 0);
+                break;
+            case LONG:
+                buffer.putLong(position, value != null ? value.getLong() : 0L);
+                break;
+            case FLOAT:
+                buffer.putFloat(position, value != null ? value.getFloat() : 0f);
+                break;
+            case DOUBLE:
+                buffer.putDouble(position, value != null ? value.getDouble() : 0d);
+                break;
+            case BOOLEAN:
+                buffer.put(position, (byte) (value != null && value.getBoolean() ? 1 : 0));
+                break;
+            default:
+                throw new RuntimeException("Unsupported type: " + type);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.jdatabase.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 顺序预读器
+ * 按文件检测顺序访问：连续读到READ_AHEAD_TRIGGER个相邻页面后，在后台I/O线程池中
+ * 以一次大块定位读预取后续N个页面，放入暂存区；readPage命中暂存区时直接取走，不再阻塞于磁盘。
+ * 预读窗口N自适应：顺序访问持续时从MIN_WINDOW起逐次翻倍到MAX_WINDOW，出现随机访问时回到MIN_WINDOW。
+ * 暂存的页面只被取走一次；写入、分配或关闭文件时使对应的暂存页失效。
+ * I/O线程池在第一次预读时才创建，从不顺序读取的PageManager不占用线程。
+ */
+public class ReadAheadPrefetcher implements Closeable {
+    public static final int DEFAULT_THREADS = 2;
+    static final int READ_AHEAD_TRIGGER = 2;
+    static final int MIN_WINDOW = 4;
+    static final int MAX_WINDOW = 64;
+
+    /**
+     * 预读的数据来源
+     */
+    interface PageSource {
+        /**
+         * 以一次定位读读取从firstPageId开始的count个连续页面
+         */
+        Page[] readPages(String fileName, int firstPageId, int count) throws IOException;
+
+        int getPageCount(String fileName) throws IOException;
+    }
+
+    private final PageSource source;
+    private final int threads;
+    private volatile ExecutorService executor;
+    private boolean closed;
+    private final Map<String, FileState> files;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong prefetchedPages;
+
+    ReadAheadPrefetcher(PageSource source, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.source = source;
+        this.threads = threads;
+        this.files = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.prefetchedPages = new AtomicLong();
+    }
+
+    /**
+     * 取走暂存区中的页面；预读尚未完成时等待其完成。未预读返回null
+     */
+    Page take(String fileName, int pageId) throws IOException {
+        FileState state = files.get(fileName);
+        CompletableFuture<Page> staged = state != null ? state.staged.remove(pageId) : null;
+        if (staged == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            Page page = staged.get();
+            hits.incrementAndGet();
+            return page;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for read-ahead of page " + pageId, e);
+        } catch (ExecutionException e) {
+            // 预读失败时由调用方同步读取
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 记录一次页面读取，检测到顺序访问时提交预读（不超过文件末尾）
+     */
+    void onRead(String fileName, int pageId) throws IOException {
+        FileState state = files.computeIfAbsent(fileName, name -> new FileState());
+        int from;
+        int count;
+        synchronized (state) {
+            if (pageId == state.lastPageId + 1) {
+                state.sequentialRun++;
+            } else {
+                state.sequentialRun = 1;
+                state.window = MIN_WINDOW;
+                state.prefetchedUpTo = -1;
+                state.staged.clear();
+            }
+            state.lastPageId = pageId;
+            // 已经读过的暂存页不会再被顺序扫描取走
+            state.staged.headMap(pageId, true).clear();
+
+            if (state.sequentialRun < READ_AHEAD_TRIGGER) {
+                return;
+            }
+            // 预读区间剩余不到半个窗口时补齐下一个窗口
+            if (state.prefetchedUpTo - pageId > state.window / 2) {
+                return;
+            }
+            from = Math.max(pageId + 1, state.prefetchedUpTo + 1);
+            int to = Math.min(source.getPageCount(fileName), pageId + 1 + state.window);
+            count = to - from;
+            if (count <= 0) {
+                return;
+            }
+            state.prefetchedUpTo = to - 1;
+            state.window = Math.min(MAX_WINDOW, state.window * 2);
+        }
+        submit(fileName, state, from, count);
+    }
+
+    /**
+     * 使文件中某个页面的暂存副本失效（页面被写入时调用）
+     */
+    void invalidate(String fileName, int pageId) {
+        FileState state = files.get(fileName);
+        if (state != null) {
+            state.staged.remove(pageId);
+        }
+    }
+
+    /**
+     * 丢弃文件的所有暂存页和访问状态
+     */
+    void invalidateFile(String fileName) {
+        FileState state = files.remove(fileName);
+        if (state != null) {
+            state.staged.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 后台预读的页面总数
+     */
+    public long getPrefetchedPageCount() {
+        return prefetchedPages.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            // 不中断I/O线程：中断会关闭共享的FileChannel
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        files.clear();
+    }
+
+    /**
+     * I/O线程池，第一次使用时创建；已关闭时抛出RejectedExecutionException
+     */
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new RejectedExecutionException("Read-ahead prefetcher is closed");
+            }
+            if (executor == null) {
+                AtomicInteger threadId = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "jdb-read-ahead-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return executor;
+        }
+    }
+
+    private void submit(String fileName, FileState state, int from, int count) {
+        // 先放入占位，写入页面时可以在预读完成前使其失效
+        List<CompletableFuture<Page>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CompletableFuture<Page> future = new CompletableFuture<>();
+            futures.add(future);
+            state.staged.put(from + i, future);
+        }
+        try {
+            executor().execute(() -> {
+                try {
+                    Page[] pages = source.readPages(fileName, from, count);
+                    prefetchedPages.addAndGet(count);
+                    for (int i = 0; i < count; i++) {
+                        futures.get(i).complete(pages[i]);
+                    }
+                } catch (Throwable e) {
+                    for (CompletableFuture<Page> future : futures) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 预读器已关闭
+            for (int i = 0; i < count; i++) {
+                state.staged.remove(from + i, futures.get(i));
+            }
+        }
+    }
+
+    /**
+     * 单个文件的顺序访问状态
+     */
+    private static class FileState {
+        final ConcurrentNavigableMap<Integer, CompletableFuture<Page>> staged = new ConcurrentSkipListMap<>();
+        int lastPageId = -2;
+        int sequentialRun;
+        int window = MIN_WINDOW;
+        int prefetchedUpTo = -1;
+    }
+}
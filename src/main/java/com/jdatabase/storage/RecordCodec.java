@@ -0,0 +1,364 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 记录编解码
+ * 记录格式：[NULL位图] [非NULL列的值...]
+ * NULL位图每列1位（第i列在第i/8字节的第i%8位）；VARCHAR为4B长度 + UTF-8字节。
+ * 存放在溢出页中的VARCHAR为指针：长度位置写-1，随后是溢出链首页号(4B)和值的长度(4B)。
+ * 字典编码的VARCHAR只占长度位置的4B，写为-(编码+2)，读取时通过TableDictionary还原。
+ * 编解码在页面缓冲区上用相对位置的批量get/put完成，一条记录只标记一次脏页。
+ */
+public class RecordCodec {
+    private static final int OVERFLOW_MARKER = -1;
+    private static final int POINTER_SIZE = 12; // marker(4B) + firstPageId(4B) + length(4B)
+    private static final int DICTIONARY_CODE_BASE = -2; // 字典编码c写为 -2 - c
+
+    private RecordCodec() {
+    }
+
+    /**
+     * 计算记录编码后的字节数
+     */
+    public static int recordSize(Schema schema, Tuple tuple) {
+        return recordSize(schema, tuple, null);
+    }
+
+    /**
+     * 计算记录编码后的字节数
+     *
+     * @param overflowPages 每列的溢出链首页号，-1表示内联存储；null表示全部内联
+     */
+    public static int recordSize(Schema schema, Tuple tuple, int[] overflowPages) {
+        return recordSize(schema, tuple, overflowPages, null);
+    }
+
+    /**
+     * 计算记录编码后的字节数
+     *
+     * @param overflowPages   每列的溢出链首页号，-1表示内联存储；null表示全部内联
+     * @param dictionaryCodes 每列的字典编码，-1表示不使用字典；null表示没有字典编码的列
+     */
+    public static int recordSize(Schema schema, Tuple tuple, int[] overflowPages, int[] dictionaryCodes) {
+        int columnCount = schema.getColumnCount();
+        int size = nullBitmapSize(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            Value value = tuple.getValue(i);
+            if (value != null && value.getValue() != null) {
+                Types type = schema.getColumn(i).getType();
+                if (dictionaryCodes != null && dictionaryCodes[i] >= 0) {
+                    size += 4;
+                } else if (overflowPages != null && overflowPages[i] >= 0) {
+                    size += POINTER_SIZE;
+                } else {
+                    size += type == Types.VARCHAR ? 4 + utf8Length(value.getString()) : type.getSize();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 将记录写入页面的指定偏移
+     */
+    public static void write(Page page, int offset, Schema schema, Tuple tuple) {
+        write(page, offset, schema, tuple, null);
+    }
+
+    /**
+     * 将记录写入页面的指定偏移，overflowPages中首页号不为-1的列写为溢出指针
+     */
+    public static void write(Page page, int offset, Schema schema, Tuple tuple, int[] overflowPages) {
+        write(page, offset, schema, tuple, overflowPages, null);
+    }
+
+    /**
+     * 将记录写入页面的指定偏移，dictionaryCodes中不为-1的列只写字典编码
+     */
+    public static void write(Page page, int offset, Schema schema, Tuple tuple, int[] overflowPages,
+                             int[] dictionaryCodes) {
+        int columnCount = schema.getColumnCount();
+        ByteBuffer buffer = page.getBuffer();
+        buffer.position(offset);
+
+        // 写入NULL位图
+        int bitmapSize = nullBitmapSize(columnCount);
+        for (int b = 0; b < bitmapSize; b++) {
+            int bits = 0;
+            for (int i = b * 8; i < Math.min(columnCount, b * 8 + 8); i++) {
+                Value value = tuple.getValue(i);
+                if (value == null || value.getValue() == null) {
+                    bits |= 1 << (i - b * 8);
+                }
+            }
+            buffer.put((byte) bits);
+        }
+
+        // 写入列数据
+        for (int i = 0; i < columnCount; i++) {
+            Value value = tuple.getValue(i);
+            if (value != null && value.getValue() != null) {
+                if (dictionaryCodes != null && dictionaryCodes[i] >= 0) {
+                    buffer.putInt(DICTIONARY_CODE_BASE - dictionaryCodes[i]);
+                } else if (overflowPages != null && overflowPages[i] >= 0) {
+                    buffer.putInt(OVERFLOW_MARKER);
+                    buffer.putInt(overflowPages[i]);
+                    buffer.putInt(utf8Length(value.getString()));
+                } else {
+                    writeValue(buffer, schema.getColumn(i).getType(), value);
+                }
+            }
+        }
+        page.markDirty();
+    }
+
+    /**
+     * 从页面的指定偏移读取记录
+     */
+    public static Tuple read(Page page, int offset, Schema schema) {
+        return read(page, offset, schema, null);
+    }
+
+    /**
+     * 按列掩码读取记录：只解码掩码中的列，其余列为null（元组宽度不变，列下标保持有效）
+     * 未请求的定长列按类型大小跳过，VARCHAR按长度前缀跳过；最后一个请求列之后不再解析。
+     *
+     * @param columns 需要解码的列，null表示全部列
+     */
+    public static Tuple read(Page page, int offset, Schema schema, BitSet columns) {
+        try {
+            return read(page, offset, schema, columns, null);
+        } catch (IOException e) {
+            // 没有溢出存储时不会发生I/O
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 按列掩码读取记录，溢出指针通过overflowStore读取（只读取掩码中的列，不访问其他列的溢出页）
+     */
+    public static Tuple read(Page page, int offset, Schema schema, BitSet columns,
+                             OverflowStore overflowStore) throws IOException {
+        return read(page, offset, schema, columns, overflowStore, null);
+    }
+
+    /**
+     * 按列掩码读取记录，字典编码的字段通过dictionary还原为字典中缓存的字符串
+     */
+    public static Tuple read(Page page, int offset, Schema schema, BitSet columns,
+                             OverflowStore overflowStore, TableDictionary dictionary) throws IOException {
+        int columnCount = schema.getColumnCount();
+        ByteBuffer buffer = page.getBuffer();
+        int bitmapSize = nullBitmapSize(columnCount);
+        int position = offset + bitmapSize;
+        int lastColumn = columns == null ? columnCount : Math.min(columnCount, columns.length());
+
+        Tuple tuple = new Tuple(schema);
+        for (int i = 0; i < columnCount; i++) {
+            boolean isNull = (buffer.get(offset + (i >> 3)) & (1 << (i & 7))) != 0;
+            if (isNull || i >= lastColumn) {
+                tuple.setValue(i, null);
+                continue;
+            }
+            Types type = schema.getColumn(i).getType();
+            int length = type == Types.VARCHAR ? buffer.getInt(position) : 0;
+            if (columns != null && !columns.get(i)) {
+                tuple.setValue(i, null);
+                position += fieldSize(buffer, position, type);
+            } else if (length <= DICTIONARY_CODE_BASE) {
+                if (dictionary == null || !dictionary.isEncoded(i)) {
+                    throw new RuntimeException("Record has dictionary codes but no dictionary was given");
+                }
+                String value = dictionary.getColumn(i).decode(DICTIONARY_CODE_BASE - length);
+                tuple.setValue(i, new Value(Types.VARCHAR, value));
+                position += 4;
+            } else if (length == OVERFLOW_MARKER) {
+                if (overflowStore == null) {
+                    throw new RuntimeException("Record has overflow values but no overflow store was given");
+                }
+                byte[] data = overflowStore.read(buffer.getInt(position + 4), buffer.getInt(position + 8));
+                tuple.setValue(i, new Value(Types.VARCHAR, new String(data, StandardCharsets.UTF_8)));
+                position += POINTER_SIZE;
+            } else {
+                buffer.position(position);
+                tuple.setValue(i, readValue(buffer, type));
+                position = buffer.position();
+            }
+        }
+        return tuple;
+    }
+
+    /**
+     * 记录中所有溢出指针指向的溢出链首页号（删除或更新记录时释放）
+     */
+    public static List<Integer> overflowPages(Page page, int offset, Schema schema) {
+        List<Integer> pages = new ArrayList<>();
+        int columnCount = schema.getColumnCount();
+        ByteBuffer buffer = page.getBuffer();
+        int position = offset + nullBitmapSize(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            if ((buffer.get(offset + (i >> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            Types type = schema.getColumn(i).getType();
+            if (type == Types.VARCHAR && buffer.getInt(position) == OVERFLOW_MARKER) {
+                pages.add(buffer.getInt(position + 4));
+            }
+            position += fieldSize(buffer, position, type);
+        }
+        return pages;
+    }
+
+    /**
+     * 记录的某个VARCHAR列是否等于给定值，不解码其他列：
+     * 字典编码的字段直接比较编码，内联字段比较UTF-8字节，溢出字段先比较长度再读取溢出页
+     *
+     * @param code 值在该列字典中的编码，不在字典中为ColumnDictionary.NO_CODE
+     * @param utf8 值的UTF-8字节
+     */
+    static boolean fieldEquals(Page page, int offset, Schema schema, int column, int code, byte[] utf8,
+                               OverflowStore overflowStore) throws IOException {
+        ByteBuffer buffer = page.getBuffer();
+        if ((buffer.get(offset + (column >> 3)) & (1 << (column & 7))) != 0) {
+            return false;
+        }
+        int position = offset + nullBitmapSize(schema.getColumnCount());
+        for (int i = 0; i < column; i++) {
+            if ((buffer.get(offset + (i >> 3)) & (1 << (i & 7))) == 0) {
+                position += fieldSize(buffer, position, schema.getColumn(i).getType());
+            }
+        }
+        int length = buffer.getInt(position);
+        if (length <= DICTIONARY_CODE_BASE) {
+            return code != ColumnDictionary.NO_CODE && DICTIONARY_CODE_BASE - length == code;
+        }
+        if (length == OVERFLOW_MARKER) {
+            if (buffer.getInt(position + 8) != utf8.length) {
+                return false;
+            }
+            return Arrays.equals(overflowStore.read(buffer.getInt(position + 4), utf8.length), utf8);
+        }
+        if (length != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + 4 + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字段在记录中占用的字节数
+     */
+    private static int fieldSize(ByteBuffer buffer, int position, Types type) {
+        if (type != Types.VARCHAR) {
+            return type.getSize();
+        }
+        int length = buffer.getInt(position);
+        if (length <= DICTIONARY_CODE_BASE) {
+            return 4;
+        }
+        return length == OVERFLOW_MARKER ? POINTER_SIZE : 4 + length;
+    }
+
+    static int nullBitmapSize(int columnCount) {
+        return (columnCount + 7) / 8;
+    }
+
+    private static void writeValue(ByteBuffer buffer, Types type, Value value) {
+        switch (type) {
+            case INT:
+                buffer.putInt(value.getInt());
+                break;
+            case LONG:
+                buffer.putLong(value.getLong());
+                break;
+            case FLOAT:
+                buffer.putFloat(value.getFloat());
+                break;
+            case DOUBLE:
+                buffer.putDouble(value.getDouble());
+                break;
+            case VARCHAR:
+                byte[] strBytes = value.getString().getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(strBytes.length);
+                buffer.put(strBytes);
+                break;
+            case BOOLEAN:
+                buffer.put((byte) (value.getBoolean() ? 1 : 0));
+                break;
+            default:
+                throw new RuntimeException("Unsupported type: " + type);
+        }
+    }
+
+    private static Value readValue(ByteBuffer buffer, Types type) {
+        switch (type) {
+            case INT:
+                return new Value(Types.INT, buffer.getInt());
+            case LONG:
+                return new Value(Types.LONG, buffer.getLong());
+            case FLOAT:
+                return new Value(Types.FLOAT, buffer.getFloat());
+            case DOUBLE:
+                return new Value(Types.DOUBLE, buffer.getDouble());
+            case VARCHAR:
+                int length = buffer.getInt();
+                String str;
+                if (buffer.hasArray()) {
+                    // 堆内页面直接从底层数组解码，避免中间拷贝
+                    int start = buffer.arrayOffset() + buffer.position();
+                    str = new String(buffer.array(), start, length, StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + length);
+                } else {
+                    byte[] strBytes = new byte[length];
+                    buffer.get(strBytes);
+                    str = new String(strBytes, StandardCharsets.UTF_8);
+                }
+                return new Value(Types.VARCHAR, str);
+            case BOOLEAN:
+                return new Value(Types.BOOLEAN, buffer.get() != 0);
+            default:
+                throw new RuntimeException("Unsupported type: " + type);
+        }
+    }
+
+    /**
+     * 字符串的UTF-8编码长度（不分配字节数组）
+     */
+    static int utf8Length(String str) {
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length()
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符编码为'?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
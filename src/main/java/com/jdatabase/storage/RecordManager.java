@@ -1,73 +1,540 @@
 package com.jdatabase.storage;
 
+import com.jdatabase.buffer.BufferAccessStrategy;
+import com.jdatabase.buffer.BufferPool;
 import com.jdatabase.common.Schema;
 import com.jdatabase.common.Tuple;
 import com.jdatabase.common.Types;
 import com.jdatabase.common.Value;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * 记录管理器，负责在页面中存储和读取记录
  * 页面布局：
  * [页头(16B)] [槽目录(变长)] [记录数据(从后往前)]
- * 页头：freeSpaceOffset(4B) + slotCount(4B) + nextPageId(4B) + reserved(4B)
+ * 页头：freeSpaceOffset(4B) + slotCount(4B) + nextPageId(4B) + fragmentedBytes(4B)
+ * 槽：length(4B) + offset(4B)；offset>0为有效记录，offset<0为已删除（字节尚未回收）；
+ * offset==0时按length区分：DEAD_SLOT为死槽（字节已被整理回收，索引中可能仍有条目指向它），
+ * VACUUMED_SLOT为VACUUM正在清理索引引用的槽，0为空闲槽。
+ * 插入只复用空闲槽：已删除的槽要等VACUUM删除指向它的索引条目后才变为空闲槽（见vacuumPage/freeVacuumedSlots），
+ * 索引中的旧条目不会指向新记录。页面整理不移动槽，RecordId保持不变。
+ * 每个堆文件配有一份空闲空间映射（FSM），插入时据此直接定位有空间的页面。
+ * 页面大小取自文件的存储选项。
+ * 超过页面1/4的VARCHAR值存入溢出文件（见OverflowStore），记录内只保留指针。
+ * 存储选项layout=pax的表改用PAX页面（见PaxPage），RecordId的slotId为页内行号。
+ * 存储选项dictionary列出的VARCHAR列按字典编码存放（见TableDictionary），PAX表不使用字典。
+ * 堆页面的读写都经过缓冲池：访问前固定页面，读写页面内容时持有页面对象的锁，用完后解除固定；
+ * 修改过的页面由缓冲池在替换或flush时写回。批量导入的新页面绕过缓冲池直接顺序写出。
  */
 public class RecordManager {
     private static final int FREE_SPACE_OFFSET = 0;
     private static final int SLOT_COUNT_OFFSET = 4;
     private static final int NEXT_PAGE_ID_OFFSET = 8;
-    private static final int SLOT_SIZE = 8; // slotId(4B) + offset(4B)
+    private static final int FRAGMENTED_BYTES_OFFSET = 12;
+    private static final int SLOT_SIZE = 8; // length(4B) + offset(4B)
+    // offset==0的槽的length标记
+    private static final int DEAD_SLOT = -1;
+    private static final int VACUUMED_SLOT = -2;
+    // 批量导入时每批预留并顺序写出的页面数
+    private static final int BULK_LOAD_CHUNK_PAGES = 64;
 
     private final PageManager pageManager;
+    private final BufferPool bufferPool;
+    private final Map<String, FreeSpaceMap> freeSpaceMaps;
+    // 按文件加载FSM的锁，重建一个文件的FSM不阻塞其他文件
+    private final Map<String, Object> freeSpaceMapLocks;
+    private final Map<String, OverflowStore> overflowStores;
+    private final Map<String, TableDictionary> dictionaries;
 
     public RecordManager(PageManager pageManager) {
+        this(pageManager, new BufferPool(BufferPool.DEFAULT_CAPACITY, pageManager));
+    }
+
+    public RecordManager(PageManager pageManager, BufferPool bufferPool) {
         this.pageManager = pageManager;
+        this.bufferPool = bufferPool;
+        this.freeSpaceMaps = new ConcurrentHashMap<>();
+        this.freeSpaceMapLocks = new ConcurrentHashMap<>();
+        this.overflowStores = new ConcurrentHashMap<>();
+        this.dictionaries = new ConcurrentHashMap<>();
     }
 
     /**
      * 插入记录
      */
     public RecordId insertRecord(String fileName, Schema schema, Tuple tuple) throws IOException {
-        int pageId = findPageWithSpace(fileName, schema, tuple);
-        Page page = pageManager.readPage(fileName, pageId);
+        return insertRecord(fileName, schema, tuple, null);
+    }
+
+    /**
+     * 按缓冲区访问策略插入记录（批量插入时使用环形缓冲，见selectInsertStrategy；null为普通访问）
+     */
+    public RecordId insertRecord(String fileName, Schema schema, Tuple tuple, BufferAccessStrategy strategy)
+            throws IOException {
+        if (isPax(fileName)) {
+            return insertPaxRecord(fileName, schema, tuple, strategy);
+        }
+        int pageSize = pageManager.getPageSize(fileName);
+        int[] dictionaryCodes = encodeDictionaryValues(fileName, schema, tuple);
+        int[] overflowPages = storeOverflowValues(fileName, schema, tuple, dictionaryCodes);
+        int recordSize = RecordCodec.recordSize(schema, tuple, overflowPages, dictionaryCodes);
+        if (recordSize + SLOT_SIZE > pageSize - Page.PAGE_HEADER_SIZE) {
+            freeOverflowValues(fileName, overflowPages);
+            throw new RuntimeException("Record too large for page: " + recordSize + " bytes");
+        }
         
-        try {
-            RecordId recordId = insertRecordInPage(page, schema, tuple, pageId);
-            pageManager.writePage(fileName, page);
-            return recordId;
-        } finally {
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        while (true) {
+            int pageId = fsm.findPage(recordSize + SLOT_SIZE);
+            boolean newPage = pageId < 0;
+            Page page;
+            if (newPage) {
+                // 没有页面有足够空间，分配新页面
+                pageId = pageManager.allocatePage(fileName);
+                page = bufferPool.newPage(fileName, pageId, strategy);
+            } else {
+                page = bufferPool.fetchPage(fileName, pageId, strategy);
+            }
+
+            boolean inserted = false;
+            try {
+                page.latchExclusive();
+                try {
+                    if (newPage) {
+                        initPage(page);
+                    } else if (!hasSpace(page, recordSize)) {
+                        // FSM信息过时，修正后重新查找
+                        fsm.update(pageId, getFreeSpace(page));
+                        continue;
+                    }
+                    RecordId recordId = insertRecordInPage(page, schema, tuple, pageId, overflowPages,
+                            dictionaryCodes);
+                    page.markDirty();
+                    inserted = true;
+                    fsm.update(pageId, getFreeSpace(page));
+                    return recordId;
+                } finally {
+                    page.unlatchExclusive();
+                }
+            } finally {
+                bufferPool.unpinPage(page, newPage || inserted);
+            }
+        }
+    }
+
+    /**
+     * 批量导入记录
+     * 在内存中填满新页面，每批预留BULK_LOAD_CHUNK_PAGES个连续页号并一次顺序写出，
+     * 不对已有页面做逐行的读-改-写。最后一批未用完的预留页面写成空页，登记到FSM供后续插入使用。
+     *
+     * @param listener 每插入一行回调一次（可为null），用于收集索引条目
+     */
+    public BulkLoadResult bulkLoad(String fileName, Schema schema, Iterator<Tuple> tuples,
+                                   BiConsumer<Tuple, RecordId> listener) throws IOException {
+        if (isPax(fileName)) {
+            return bulkLoadPax(fileName, schema, tuples, listener);
+        }
+        long start = System.nanoTime();
+        int pageSize = pageManager.getPageSize(fileName);
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        List<Page> chunk = new ArrayList<>(BULK_LOAD_CHUNK_PAGES);
+        int firstPageId = -1;
+        Page page = null;
+        long rowCount = 0;
+        int pageCount = 0;
+        
+        while (tuples.hasNext()) {
+            Tuple tuple = tuples.next();
+            int[] dictionaryCodes = encodeDictionaryValues(fileName, schema, tuple);
+            int[] overflowPages = storeOverflowValues(fileName, schema, tuple, dictionaryCodes);
+            int recordSize = RecordCodec.recordSize(schema, tuple, overflowPages, dictionaryCodes);
+            if (recordSize + SLOT_SIZE > pageSize - Page.PAGE_HEADER_SIZE) {
+                freeOverflowValues(fileName, overflowPages);
+                throw new RuntimeException("Record too large for page: " + recordSize + " bytes");
+            }
+            
+            if (page == null || !hasSpace(page, recordSize)) {
+                if (chunk.size() == BULK_LOAD_CHUNK_PAGES) {
+                    writeBulkChunk(fileName, chunk, fsm);
+                    firstPageId = -1;
+                }
+                if (firstPageId < 0) {
+                    firstPageId = pageManager.allocatePages(fileName, BULK_LOAD_CHUNK_PAGES);
+                }
+                page = new Page(firstPageId + chunk.size(), pageSize);
+                initPage(page);
+                chunk.add(page);
+                pageCount++;
+            }
+            
+            RecordId recordId = insertRecordInPage(page, schema, tuple, page.getPageId(), overflowPages,
+                    dictionaryCodes);
+            rowCount++;
+            if (listener != null) {
+                listener.accept(tuple, recordId);
+            }
+        }
+        
+        if (firstPageId >= 0) {
+            while (chunk.size() < BULK_LOAD_CHUNK_PAGES) {
+                Page empty = new Page(firstPageId + chunk.size(), pageSize);
+                initPage(empty);
+                chunk.add(empty);
+            }
+            writeBulkChunk(fileName, chunk, fsm);
+        }
+        
+        return new BulkLoadResult(rowCount, pageCount, System.nanoTime() - start);
+    }
+
+    /**
+     * PAX表的批量导入：按行累积到页面放不下为止，再一次编码整个页面
+     */
+    private BulkLoadResult bulkLoadPax(String fileName, Schema schema, Iterator<Tuple> tuples,
+                                       BiConsumer<Tuple, RecordId> listener) throws IOException {
+        long start = System.nanoTime();
+        int pageSize = pageManager.getPageSize(fileName);
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        List<Page> chunk = new ArrayList<>(BULK_LOAD_CHUNK_PAGES);
+        List<Tuple> rows = new ArrayList<>();
+        int valueBytes = 0;
+        int firstPageId = -1;
+        Page page = null;
+        long rowCount = 0;
+        int pageCount = 0;
+        
+        while (tuples.hasNext()) {
+            Tuple tuple = tuples.next();
+            int bytes = PaxPage.valueBytes(schema, tuple);
+            if (PaxPage.encodedSize(schema, 1, bytes) > pageSize) {
+                throw new RuntimeException("Record too large for page: " + bytes + " bytes");
+            }
+            
+            if (page == null || PaxPage.encodedSize(schema, rows.size() + 1, valueBytes + bytes) > pageSize) {
+                if (page != null) {
+                    PaxPage.write(page, schema, rows);
+                    rows.clear();
+                    valueBytes = 0;
+                }
+                if (chunk.size() == BULK_LOAD_CHUNK_PAGES) {
+                    writeBulkChunk(fileName, chunk, fsm);
+                    firstPageId = -1;
+                }
+                if (firstPageId < 0) {
+                    firstPageId = pageManager.allocatePages(fileName, BULK_LOAD_CHUNK_PAGES);
+                }
+                page = new Page(firstPageId + chunk.size(), pageSize);
+                chunk.add(page);
+                pageCount++;
+            }
+            
+            rows.add(tuple);
+            valueBytes += bytes;
+            rowCount++;
+            if (listener != null) {
+                listener.accept(tuple, new RecordId(page.getPageId(), rows.size() - 1));
+            }
+        }
+        
+        if (page != null) {
+            PaxPage.write(page, schema, rows);
+            while (chunk.size() < BULK_LOAD_CHUNK_PAGES) {
+                Page empty = new Page(firstPageId + chunk.size(), pageSize);
+                PaxPage.write(empty, schema, Collections.<Tuple>emptyList());
+                chunk.add(empty);
+            }
+            writeBulkChunk(fileName, chunk, fsm);
+        }
+        
+        return new BulkLoadResult(rowCount, pageCount, System.nanoTime() - start);
+    }
+
+    private void writeBulkChunk(String fileName, List<Page> chunk, FreeSpaceMap fsm) throws IOException {
+        pageManager.writePages(fileName, chunk);
+        for (Page page : chunk) {
+            // 新页面直接写入了磁盘，丢弃缓冲池中可能存在的旧副本
+            bufferPool.discardPage(fileName, page.getPageId());
             page.setDirty(false);
+            fsm.update(page.getPageId(), getFreeSpace(page));
         }
+        chunk.clear();
     }
 
     /**
      * 读取记录
      */
     public Tuple readRecord(String fileName, Schema schema, RecordId recordId) throws IOException {
-        Page page = pageManager.readPage(fileName, recordId.getPageId());
-        return readRecordFromPage(page, schema, recordId);
+        return readRecord(fileName, schema, recordId, null);
+    }
+
+    /**
+     * 读取记录，只解码列掩码中的列（null表示全部列）
+     */
+    public Tuple readRecord(String fileName, Schema schema, RecordId recordId, BitSet columns) throws IOException {
+        OverflowStore overflowStore = getOverflowStore(fileName);
+        TableDictionary dictionary = getDictionary(fileName, schema);
+        Page page = bufferPool.fetchPage(fileName, recordId.getPageId());
+        try {
+            page.latchShared();
+            try {
+                return readRecordFromPage(page, schema, recordId, columns, overflowStore, dictionary);
+            } finally {
+                page.unlatchShared();
+            }
+        } finally {
+            bufferPool.unpinPage(page, false);
+        }
     }
 
     /**
      * 更新记录
      */
     public void updateRecord(String fileName, Schema schema, RecordId recordId, Tuple newTuple) throws IOException {
-        Page page = pageManager.readPage(fileName, recordId.getPageId());
-        updateRecordInPage(page, schema, recordId, newTuple);
-        pageManager.writePage(fileName, page);
+        // 溢出值和字典编码在固定页面之前准备好，缩短持有页面锁的时间
+        boolean pax = isPax(fileName);
+        int[] dictionaryCodes = pax ? null : encodeDictionaryValues(fileName, schema, newTuple);
+        int[] overflowPages = pax ? null : storeOverflowValues(fileName, schema, newTuple, dictionaryCodes);
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        List<Integer> oldOverflowPages;
+        boolean updated = false;
+        Page page = bufferPool.fetchPage(fileName, recordId.getPageId());
+        try {
+            page.latchExclusive();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    updatePaxRecord(fsm, schema, page, recordId.getSlotId(), newTuple);
+                    updated = true;
+                    return;
+                }
+                oldOverflowPages = overflowPagesOf(page, schema, recordId);
+                try {
+                    updateRecordInPage(page, schema, recordId, newTuple, overflowPages, dictionaryCodes);
+                } catch (RuntimeException e) {
+                    freeOverflowValues(fileName, overflowPages);
+                    throw e;
+                }
+                page.markDirty();
+                updated = true;
+                fsm.update(recordId.getPageId(), getFreeSpace(page));
+            } finally {
+                page.unlatchExclusive();
+            }
+        } finally {
+            bufferPool.unpinPage(page, updated);
+        }
+        for (int firstPageId : oldOverflowPages) {
+            getOverflowStore(fileName).free(firstPageId);
+        }
     }
 
     /**
      * 删除记录
      */
     public void deleteRecord(String fileName, Schema schema, RecordId recordId) throws IOException {
-        Page page = pageManager.readPage(fileName, recordId.getPageId());
-        deleteRecordInPage(page, recordId);
-        pageManager.writePage(fileName, page);
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        List<Integer> overflowPages;
+        boolean deleted = false;
+        Page page = bufferPool.fetchPage(fileName, recordId.getPageId());
+        try {
+            page.latchExclusive();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    deleted = deletePaxRecord(fsm, schema, page, recordId.getSlotId());
+                    return;
+                }
+                overflowPages = overflowPagesOf(page, schema, recordId);
+                deleteRecordInPage(page, recordId);
+                page.markDirty();
+                deleted = true;
+                fsm.update(recordId.getPageId(), getFreeSpace(page));
+            } finally {
+                page.unlatchExclusive();
+            }
+        } finally {
+            bufferPool.unpinPage(page, deleted);
+        }
+        for (int firstPageId : overflowPages) {
+            getOverflowStore(fileName).free(firstPageId);
+        }
+    }
+
+    /**
+     * 整理页面：把有效记录紧凑地移到页尾，回收已删除记录占用的字节
+     * 槽位置不变（已删除的槽变为死槽，仍不能复用），RecordId保持稳定。
+     * PAX页面在删除时已经重新编码，不需要整理。
+     *
+     * @return 回收的字节数
+     */
+    public int compactPage(String fileName, int pageId) throws IOException {
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        int reclaimed = 0;
+        Page page = bufferPool.fetchPage(fileName, pageId);
+        try {
+            page.latchExclusive();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    return 0;
+                }
+                reclaimed = compactPage(page);
+                if (reclaimed > 0) {
+                    page.markDirty();
+                }
+                fsm.update(pageId, getFreeSpace(page));
+            } finally {
+                page.unlatchExclusive();
+            }
+        } finally {
+            bufferPool.unpinPage(page, reclaimed > 0);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 清理页面（VACUUM第一步）：整理页面回收已删除记录的字节，把已删除的槽和死槽标记为VACUUMED_SLOT，
+     * 截掉槽目录末尾的空闲槽，并用整理后的空闲空间更新FSM。没有可回收空间、也没有要标记的槽的页面不写回。
+     * 标记的槽在删除指向它们的索引条目后由freeVacuumedSlots变为空闲槽；之后删除的记录不受影响。
+     * PAX页面的已删除行保留行号供插入复用，不做处理。
+     *
+     * @return 回收的字节数
+     */
+    public int vacuumPage(String fileName, int pageId) throws IOException {
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        int reclaimed = 0;
+        boolean modified = false;
+        Page page = bufferPool.fetchPage(fileName, pageId);
+        try {
+            page.latchExclusive();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    fsm.update(pageId, PaxPage.getFreeSpace(page));
+                    return 0;
+                }
+                reclaimed = page.readInt(FRAGMENTED_BYTES_OFFSET) > 0 ? compactPage(page) : 0;
+                int slotCount = page.readInt(SLOT_COUNT_OFFSET);
+                for (int slotId = 0; slotId < slotCount; slotId++) {
+                    int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
+                    if (page.readInt(slotOffset + 4) == 0 && page.readInt(slotOffset) == DEAD_SLOT) {
+                        page.writeInt(slotOffset, VACUUMED_SLOT);
+                        modified = true;
+                    }
+                }
+                reclaimed += trimFreeSlots(page);
+                modified |= reclaimed > 0;
+                if (modified) {
+                    page.markDirty();
+                }
+                fsm.update(pageId, getFreeSpace(page));
+            } finally {
+                page.unlatchExclusive();
+            }
+        } finally {
+            bufferPool.unpinPage(page, modified);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * VACUUM最后一步：索引中指向已删除记录的条目删除后，把vacuumPage标记的槽变为空闲槽供插入复用，
+     * 再截掉槽目录末尾的空闲槽
+     *
+     * @return 回收的字节数
+     */
+    public int freeVacuumedSlots(String fileName, int pageId) throws IOException {
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        int reclaimed = 0;
+        boolean modified = false;
+        Page page = bufferPool.fetchPage(fileName, pageId);
+        try {
+            page.latchExclusive();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    return 0;
+                }
+                int slotCount = page.readInt(SLOT_COUNT_OFFSET);
+                for (int slotId = 0; slotId < slotCount; slotId++) {
+                    int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
+                    if (page.readInt(slotOffset + 4) == 0 && page.readInt(slotOffset) == VACUUMED_SLOT) {
+                        page.writeInt(slotOffset, 0);
+                        modified = true;
+                    }
+                }
+                if (!modified) {
+                    return 0;
+                }
+                reclaimed = trimFreeSlots(page);
+                page.markDirty();
+                fsm.update(pageId, getFreeSpace(page));
+            } finally {
+                page.unlatchExclusive();
+            }
+        } finally {
+            bufferPool.unpinPage(page, modified);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 打开表扫描游标，按页逐条读取记录
+     */
+    public TableScanCursor openScan(String fileName, Schema schema) {
+        return openScan(fileName, schema, null);
+    }
+
+    /**
+     * 打开只解码部分列的表扫描游标（null表示全部列）
+     */
+    public TableScanCursor openScan(String fileName, Schema schema, BitSet columns) {
+        TableDictionary dictionary;
+        try {
+            dictionary = getDictionary(fileName, schema);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load dictionary for " + fileName, e);
+        }
+        return new TableScanCursor(this, pageManager, bufferPool, selectScanStrategy(fileName), fileName, schema,
+                columns, getOverflowStore(fileName), dictionary);
+    }
+
+    /**
+     * 打开列式扫描游标，逐页返回PAX页面（仅用于layout=pax的表）
+     */
+    public ColumnScanCursor openColumnScan(String fileName, Schema schema) {
+        if (!isPax(fileName)) {
+            throw new RuntimeException("File is not stored in PAX layout: " + fileName);
+        }
+        return new ColumnScanCursor(pageManager, bufferPool, selectScanStrategy(fileName), fileName, schema);
+    }
+
+    /**
+     * 扫描大表（超过缓冲池容量的1/4）时使用环形缓冲，扫描不会挤出缓冲池中的其他页面
+     */
+    private BufferAccessStrategy selectScanStrategy(String fileName) {
+        try {
+            return bufferPool.selectStrategy((long) pageManager.getPageCount(fileName) * pageManager.getPageSize(fileName));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to get page count of " + fileName, e);
+        }
+    }
+
+    /**
+     * 为插入rows行选择缓冲区访问策略（以sample估计每行大小），插入的数据量超过缓冲池容量的1/4时
+     * 返回环形缓冲策略，否则返回null
+     */
+    public BufferAccessStrategy selectInsertStrategy(Schema schema, Tuple sample, int rows) {
+        return bufferPool.selectStrategy((long) rows * (RecordCodec.recordSize(schema, sample) + SLOT_SIZE));
     }
 
     /**
@@ -75,81 +542,511 @@ public class RecordManager {
      */
     public List<Tuple> scanRecords(String fileName, Schema schema) throws IOException {
         List<Tuple> records = new ArrayList<>();
-        int pageCount = pageManager.getPageCount(fileName);
-        
-        for (int pageId = 0; pageId < pageCount; pageId++) {
-            Page page = pageManager.readPage(fileName, pageId);
-            int slotCount = page.readInt(SLOT_COUNT_OFFSET);
-            
-            for (int slotId = 0; slotId < slotCount; slotId++) {
-                int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
-                int recordOffset = page.readInt(slotOffset + 4);
-                
-                if (recordOffset > 0) { // 有效记录
-                    RecordId recordId = new RecordId(pageId, slotId);
-                    Tuple tuple = readRecordFromPage(page, schema, recordId);
-                    if (tuple != null) {
-                        records.add(tuple);
+        try (TableScanCursor cursor = openScan(fileName, schema)) {
+            while (cursor.hasNext()) {
+                records.add(cursor.next());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 获取堆文件的空闲空间映射
+     * 首次访问时从.fsm文件加载；文件缺失或落后于数据文件时，读取缺失的页面补齐
+     * （只持有该文件的加载锁，大表按访问策略使用环形缓冲读取）
+     */
+    public FreeSpaceMap getFreeSpaceMap(String fileName) throws IOException {
+        FreeSpaceMap fsm = freeSpaceMaps.get(fileName);
+        if (fsm != null) {
+            return fsm;
+        }
+        synchronized (freeSpaceMapLocks.computeIfAbsent(fileName, name -> new Object())) {
+            fsm = freeSpaceMaps.get(fileName);
+            if (fsm == null) {
+                int pageSize = pageManager.getPageSize(fileName);
+                fsm = FreeSpaceMap.load(getFreeSpaceMapPath(fileName), pageSize);
+                if (fsm == null) {
+                    fsm = new FreeSpaceMap(pageSize);
+                }
+                int pageCount = pageManager.getPageCount(fileName);
+                BufferAccessStrategy strategy = bufferPool.selectStrategy(
+                        (long) (pageCount - fsm.getPageCount()) * pageSize);
+                for (int pageId = fsm.getPageCount(); pageId < pageCount; pageId++) {
+                    Page page = bufferPool.fetchPage(fileName, pageId, strategy);
+                    try {
+                        page.latchShared();
+                        try {
+                            fsm.update(pageId, getFreeSpace(page));
+                        } finally {
+                            page.unlatchShared();
+                        }
+                    } finally {
+                        bufferPool.unpinPage(page, false);
                     }
                 }
+                freeSpaceMaps.put(fileName, fsm);
             }
+            return fsm;
         }
-        
-        return records;
     }
 
-    private int findPageWithSpace(String fileName, Schema schema, Tuple tuple) throws IOException {
-        int pageCount = pageManager.getPageCount(fileName);
-        
-        // 先尝试在现有页面中找空间
-        for (int pageId = 0; pageId < pageCount; pageId++) {
-            Page page = pageManager.readPage(fileName, pageId);
-            int recordSize = calculateRecordSize(schema, tuple);
-            if (hasSpace(page, recordSize)) {
-                return pageId;
+    /**
+     * 将缓冲池中的脏页和所有修改过的FSM写回磁盘
+     */
+    public void flush() throws IOException {
+        bufferPool.flushAll();
+        for (Map.Entry<String, FreeSpaceMap> entry : freeSpaceMaps.entrySet()) {
+            if (entry.getValue().isDirty()) {
+                entry.getValue().save(getFreeSpaceMapPath(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * 删除堆文件对应的FSM（删除表时调用）
+     */
+    public void dropFreeSpaceMap(String fileName) throws IOException {
+        freeSpaceMaps.remove(fileName);
+        Files.deleteIfExists(getFreeSpaceMapPath(fileName));
+    }
+
+    /**
+     * 获取数据文件对应的溢出存储，溢出文件与数据文件使用相同的存储选项
+     */
+    public OverflowStore getOverflowStore(String fileName) {
+        OverflowStore store = overflowStores.get(fileName);
+        if (store != null) {
+            return store;
+        }
+        synchronized (overflowStores) {
+            store = overflowStores.get(fileName);
+            if (store == null) {
+                String overflowFile = OverflowStore.fileNameFor(fileName);
+                pageManager.setFileOptions(overflowFile, pageManager.getFileOptions(fileName));
+                store = new OverflowStore(pageManager, overflowFile);
+                overflowStores.put(fileName, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * 删除数据文件对应的溢出文件（删除表时调用）
+     */
+    public void dropOverflowFile(String fileName) throws IOException {
+        overflowStores.remove(fileName);
+        String overflowFile = OverflowStore.fileNameFor(fileName);
+        pageManager.deleteFile(overflowFile);
+    }
+
+    /**
+     * 获取数据文件的字典，存储选项没有字典编码列（或为PAX表）时返回null
+     * 首次访问时从.dict侧文件加载
+     */
+    public TableDictionary getDictionary(String fileName, Schema schema) throws IOException {
+        TableDictionary dictionary = dictionaries.get(fileName);
+        if (dictionary != null) {
+            return dictionary;
+        }
+        StorageOptions options = pageManager.getFileOptions(fileName);
+        if (options.getDictionaryColumns().isEmpty() || options.getLayout() == PageLayout.PAX) {
+            return null;
+        }
+        synchronized (dictionaries) {
+            dictionary = dictionaries.get(fileName);
+            if (dictionary == null) {
+                dictionary = TableDictionary.load(getDictionaryPath(fileName), schema, options.getDictionaryColumns());
+                dictionaries.put(fileName, dictionary);
             }
+            return dictionary;
+        }
+    }
+
+    /**
+     * 删除数据文件对应的字典侧文件（删除表时调用）
+     */
+    public void dropDictionary(String fileName) throws IOException {
+        TableDictionary dictionary = dictionaries.remove(fileName);
+        if (dictionary != null) {
+            dictionary.close();
+        }
+        Files.deleteIfExists(getDictionaryPath(fileName));
+    }
+
+    /**
+     * 写回缓冲池中的脏页，关闭打开的字典侧文件
+     */
+    public void close() throws IOException {
+        bufferPool.flushAll();
+        for (TableDictionary dictionary : dictionaries.values()) {
+            dictionary.close();
+        }
+        dictionaries.clear();
+    }
+
+    /**
+     * 堆页面使用的缓冲池
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    private Path getDictionaryPath(String fileName) {
+        return Paths.get(pageManager.getDataDir(), TableDictionary.fileNameFor(fileName));
+    }
+
+    /**
+     * 为字典编码列取得编码，返回每列的编码（-1为内联）；没有字典编码的值时返回null
+     */
+    private int[] encodeDictionaryValues(String fileName, Schema schema, Tuple tuple) throws IOException {
+        TableDictionary dictionary = getDictionary(fileName, schema);
+        return dictionary != null ? dictionary.encode(tuple) : null;
+    }
+
+    /**
+     * 把超过阈值的VARCHAR值写入溢出页，返回每列的溢出链首页号（-1为内联）；没有溢出值时返回null
+     * 已有字典编码的列不会溢出。
+     */
+    private int[] storeOverflowValues(String fileName, Schema schema, Tuple tuple, int[] dictionaryCodes)
+            throws IOException {
+        int threshold = pageManager.getPageSize(fileName) / 4;
+        int[] overflowPages = null;
+        for (int i = 0; i < schema.getColumnCount(); i++) {
+            Value value = tuple.getValue(i);
+            if (schema.getColumn(i).getType() != Types.VARCHAR || value == null || value.getValue() == null
+                    || (dictionaryCodes != null && dictionaryCodes[i] >= 0)
+                    || RecordCodec.utf8Length(value.getString()) <= threshold) {
+                continue;
+            }
+            if (overflowPages == null) {
+                overflowPages = new int[schema.getColumnCount()];
+                Arrays.fill(overflowPages, -1);
+            }
+            byte[] data = value.getString().getBytes(StandardCharsets.UTF_8);
+            overflowPages[i] = getOverflowStore(fileName).write(data);
+        }
+        return overflowPages;
+    }
+
+    private void freeOverflowValues(String fileName, int[] overflowPages) throws IOException {
+        if (overflowPages == null) {
+            return;
+        }
+        for (int firstPageId : overflowPages) {
+            if (firstPageId >= 0) {
+                getOverflowStore(fileName).free(firstPageId);
+            }
+        }
+    }
+
+    /**
+     * 记录引用的溢出链（记录不存在时为空）
+     */
+    private List<Integer> overflowPagesOf(Page page, Schema schema, RecordId recordId) {
+        if (PaxPage.isPaxPage(page) || recordId.getSlotId() >= page.readInt(SLOT_COUNT_OFFSET)) {
+            return Collections.emptyList();
+        }
+        int recordOffset = page.readInt(Page.PAGE_HEADER_SIZE + recordId.getSlotId() * SLOT_SIZE + 4);
+        if (recordOffset <= 0) {
+            return Collections.emptyList();
+        }
+        return RecordCodec.overflowPages(page, recordOffset, schema);
+    }
+
+    private boolean isPax(String fileName) {
+        return pageManager.getFileOptions(fileName).getLayout() == PageLayout.PAX;
+    }
+
+    /**
+     * 向PAX表插入一行：优先复用已删除的行号，整页重新编码后写回
+     */
+    private RecordId insertPaxRecord(String fileName, Schema schema, Tuple tuple, BufferAccessStrategy strategy)
+            throws IOException {
+        int pageSize = pageManager.getPageSize(fileName);
+        if (PaxPage.encodedSize(schema, Collections.singletonList(tuple)) > pageSize) {
+            throw new RuntimeException("Record too large for page: " + PaxPage.valueBytes(schema, tuple) + " bytes");
         }
         
-        // 分配新页面
-        return pageManager.allocatePage(fileName);
+        int rowCost = PaxPage.maxRowCost(schema, tuple);
+        FreeSpaceMap fsm = getFreeSpaceMap(fileName);
+        while (true) {
+            int pageId = fsm.findPage(rowCost);
+            boolean newPage = pageId < 0;
+            Page page;
+            if (newPage) {
+                pageId = pageManager.allocatePage(fileName);
+                page = bufferPool.newPage(fileName, pageId, strategy);
+            } else {
+                page = bufferPool.fetchPage(fileName, pageId, strategy);
+            }
+
+            boolean inserted = false;
+            try {
+                page.latchExclusive();
+                try {
+                    List<Tuple> rows = newPage ? new ArrayList<>() : new PaxPage(page, schema).readRows();
+                    int row = rows.indexOf(null);
+                    if (row >= 0) {
+                        rows.set(row, tuple);
+                    } else {
+                        row = rows.size();
+                        rows.add(tuple);
+                    }
+                    if (PaxPage.encodedSize(schema, rows) > pageSize) {
+                        // FSM信息过时，修正后重新查找
+                        fsm.update(pageId, Math.min(PaxPage.getFreeSpace(page), rowCost - 1));
+                        continue;
+                    }
+
+                    PaxPage.write(page, schema, rows);
+                    page.markDirty();
+                    inserted = true;
+                    fsm.update(pageId, PaxPage.getFreeSpace(page));
+                    return new RecordId(pageId, row);
+                } finally {
+                    page.unlatchExclusive();
+                }
+            } finally {
+                bufferPool.unpinPage(page, newPage || inserted);
+            }
+        }
     }
 
-    private boolean hasSpace(Page page, int recordSize) {
+    private void updatePaxRecord(FreeSpaceMap fsm, Schema schema, Page page, int row, Tuple newTuple) {
+        PaxPage paxPage = new PaxPage(page, schema);
+        if (row >= paxPage.getRowCount() || paxPage.isDeleted(row)) {
+            throw new RuntimeException("Record not found");
+        }
+        List<Tuple> rows = paxPage.readRows();
+        rows.set(row, newTuple);
+        if (PaxPage.encodedSize(schema, rows) > page.getPageSize()) {
+            throw new RuntimeException("Page has no space for record");
+        }
+        PaxPage.write(page, schema, rows);
+        page.markDirty();
+        fsm.update(page.getPageId(), PaxPage.getFreeSpace(page));
+    }
+
+    /**
+     * @return 是否删除了行（行不存在时返回false，页面未修改）
+     */
+    private boolean deletePaxRecord(FreeSpaceMap fsm, Schema schema, Page page, int row) {
+        PaxPage paxPage = new PaxPage(page, schema);
+        if (row >= paxPage.getRowCount() || paxPage.isDeleted(row)) {
+            return false;
+        }
+        // 重新编码时已删除行的值不再占用空间
+        List<Tuple> rows = paxPage.readRows();
+        rows.set(row, null);
+        PaxPage.write(page, schema, rows);
+        page.markDirty();
+        fsm.update(page.getPageId(), PaxPage.getFreeSpace(page));
+        return true;
+    }
+
+    private Path getFreeSpaceMapPath(String fileName) {
+        return Paths.get(pageManager.getDataDir(), FreeSpaceMap.fileNameFor(fileName));
+    }
+
+    /**
+     * 初始化新分配的页面
+     */
+    private void initPage(Page page) {
+        page.writeInt(FREE_SPACE_OFFSET, page.getPageSize());
+        page.writeInt(SLOT_COUNT_OFFSET, 0);
+        page.writeInt(NEXT_PAGE_ID_OFFSET, -1);
+        page.writeInt(FRAGMENTED_BYTES_OFFSET, 0);
+    }
+
+    /**
+     * 读取空闲空间起始偏移；未初始化的全零页面视为空页
+     */
+    private int getFreeSpaceOffset(Page page) {
         int freeSpaceOffset = page.readInt(FREE_SPACE_OFFSET);
+        return freeSpaceOffset == 0 ? page.getPageSize() : freeSpaceOffset;
+    }
+
+    /**
+     * 槽目录末尾与记录区之间的连续空闲字节数
+     */
+    private int getAvailableSpace(Page page) {
+        int freeSpaceOffset = getFreeSpaceOffset(page);
         int slotCount = page.readInt(SLOT_COUNT_OFFSET);
-        int slotDirectorySize = slotCount * SLOT_SIZE;
-        int usedSpace = Page.PAGE_HEADER_SIZE + slotDirectorySize + (Page.PAGE_SIZE - freeSpaceOffset);
-        int availableSpace = Page.PAGE_SIZE - usedSpace;
-        return availableSpace >= recordSize + SLOT_SIZE; // 需要空间存储记录和槽
+        int slotDirectoryEnd = Page.PAGE_HEADER_SIZE + slotCount * SLOT_SIZE;
+        return Math.max(0, freeSpaceOffset - slotDirectoryEnd);
     }
 
-    private RecordId insertRecordInPage(Page page, Schema schema, Tuple tuple, int pageId) {
-        int recordSize = calculateRecordSize(schema, tuple);
-        int freeSpaceOffset = page.readInt(FREE_SPACE_OFFSET);
+    /**
+     * 页面可用的全部空闲字节数（连续空间 + 整理后可回收的碎片）
+     */
+    private int getFreeSpace(Page page) {
+        if (PaxPage.isPaxPage(page)) {
+            return PaxPage.getFreeSpace(page);
+        }
+        return getAvailableSpace(page) + page.readInt(FRAGMENTED_BYTES_OFFSET);
+    }
+
+    private boolean hasSpace(Page page, int recordSize) {
+        // 没有可复用的槽时还需要空间存储新槽
+        int slotCost = findReusableSlot(page) >= 0 ? 0 : SLOT_SIZE;
+        return getFreeSpace(page) >= recordSize + slotCost;
+    }
+
+    /**
+     * 查找可复用的空闲槽，没有则返回-1
+     * 已删除的槽和死槽可能仍被索引条目引用，不复用
+     */
+    private int findReusableSlot(Page page) {
+        int slotCount = page.readInt(SLOT_COUNT_OFFSET);
+        for (int slotId = 0; slotId < slotCount; slotId++) {
+            if (isFreeSlot(page, slotId)) {
+                return slotId;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isFreeSlot(Page page, int slotId) {
+        int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
+        return page.readInt(slotOffset + 4) == 0 && page.readInt(slotOffset) == 0;
+    }
+
+    /**
+     * 截掉槽目录末尾的空闲槽（不被任何RecordId引用），返回回收的字节数
+     */
+    private int trimFreeSlots(Page page) {
+        int slotCount = page.readInt(SLOT_COUNT_OFFSET);
+        int trimmed = slotCount;
+        while (trimmed > 0 && isFreeSlot(page, trimmed - 1)) {
+            trimmed--;
+        }
+        if (trimmed == slotCount) {
+            return 0;
+        }
+        page.writeInt(SLOT_COUNT_OFFSET, trimmed);
+        return (slotCount - trimmed) * SLOT_SIZE;
+    }
+
+    /**
+     * 确保连续空闲空间至少为needed字节，不够时先整理页面
+     */
+    private void ensureContiguousSpace(Page page, int needed) {
+        if (getAvailableSpace(page) < needed && page.readInt(FRAGMENTED_BYTES_OFFSET) > 0) {
+            compactPage(page);
+        }
+        if (getAvailableSpace(page) < needed) {
+            throw new RuntimeException("Page has no space for record");
+        }
+    }
+
+    /**
+     * 整理页面，返回回收的字节数
+     */
+    private int compactPage(Page page) {
+        int fragmented = page.readInt(FRAGMENTED_BYTES_OFFSET);
         int slotCount = page.readInt(SLOT_COUNT_OFFSET);
         
+        // 先把有效记录复制出来，再从页尾依次写回
+        byte[] snapshot = new byte[page.getPageSize()];
+        page.readBytes(0, snapshot, 0, snapshot.length);
+        int writeOffset = snapshot.length;
+        for (int slotId = 0; slotId < slotCount; slotId++) {
+            int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
+            int recordOffset = page.readInt(slotOffset + 4);
+            if (recordOffset > 0) {
+                int length = page.readInt(slotOffset);
+                writeOffset -= length;
+                page.writeBytes(writeOffset, snapshot, recordOffset, length);
+                page.writeInt(slotOffset + 4, writeOffset);
+            } else if (recordOffset < 0) {
+                // 已删除的槽变为死槽，VACUUM清理索引引用后才能复用
+                page.writeInt(slotOffset, DEAD_SLOT);
+                page.writeInt(slotOffset + 4, 0);
+            }
+        }
+        page.writeInt(FREE_SPACE_OFFSET, writeOffset);
+        page.writeInt(FRAGMENTED_BYTES_OFFSET, 0);
+        return fragmented;
+    }
+
+    /**
+     * 碎片超过页面的1/4时自动整理
+     */
+    private void compactIfFragmented(Page page) {
+        if (page.readInt(FRAGMENTED_BYTES_OFFSET) > page.getPageSize() / 4) {
+            compactPage(page);
+        }
+    }
+
+    private RecordId insertRecordInPage(Page page, Schema schema, Tuple tuple, int pageId, int[] overflowPages,
+                                        int[] dictionaryCodes) {
+        int recordSize = RecordCodec.recordSize(schema, tuple, overflowPages, dictionaryCodes);
+        
         // 检查空间
         if (!hasSpace(page, recordSize)) {
             throw new RuntimeException("Page has no space for record");
         }
         
+        // 优先复用空闲槽，否则在槽目录末尾追加
+        int slotId = findReusableSlot(page);
+        int slotCount = page.readInt(SLOT_COUNT_OFFSET);
+        boolean newSlot = slotId < 0;
+        if (newSlot) {
+            slotId = slotCount;
+            ensureContiguousSpace(page, recordSize + SLOT_SIZE);
+        } else {
+            ensureContiguousSpace(page, recordSize);
+        }
+        
         // 写入记录（从后往前）
-        int recordOffset = freeSpaceOffset - recordSize;
-        writeRecordToPage(page, schema, tuple, recordOffset);
+        int recordOffset = getFreeSpaceOffset(page) - recordSize;
+        RecordCodec.write(page, recordOffset, schema, tuple, overflowPages, dictionaryCodes);
         
-        // 添加槽
-        int slotOffset = Page.PAGE_HEADER_SIZE + slotCount * SLOT_SIZE;
-        page.writeInt(slotOffset, slotCount); // slotId
+        // 设置槽
+        int slotOffset = Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE;
+        page.writeInt(slotOffset, recordSize);
         page.writeInt(slotOffset + 4, recordOffset);
         
         // 更新页头
         page.writeInt(FREE_SPACE_OFFSET, recordOffset);
-        page.writeInt(SLOT_COUNT_OFFSET, slotCount + 1);
+        if (newSlot) {
+            page.writeInt(SLOT_COUNT_OFFSET, slotCount + 1);
+        }
         
-        return new RecordId(pageId, slotCount);
+        return new RecordId(pageId, slotId);
     }
 
-    private Tuple readRecordFromPage(Page page, Schema schema, RecordId recordId) {
+    int getSlotCount(Page page) {
+        return page.readInt(SLOT_COUNT_OFFSET);
+    }
+
+    /**
+     * 读取页面中指定槽的记录，槽无效或已删除时返回null
+     */
+    Tuple readRecordInPage(Page page, Schema schema, int slotId, BitSet columns,
+                           OverflowStore overflowStore, TableDictionary dictionary) throws IOException {
+        return readRecordFromPage(page, schema, new RecordId(page.getPageId(), slotId), columns, overflowStore,
+                dictionary);
+    }
+
+    /**
+     * 槽对应记录在页面中的偏移，槽无效或记录已删除时返回0
+     */
+    int getRecordOffset(Page page, int slotId) {
+        if (slotId >= page.readInt(SLOT_COUNT_OFFSET)) {
+            return 0;
+        }
+        return Math.max(0, page.readInt(Page.PAGE_HEADER_SIZE + slotId * SLOT_SIZE + 4));
+    }
+
+    private Tuple readRecordFromPage(Page page, Schema schema, RecordId recordId, BitSet columns,
+                                     OverflowStore overflowStore, TableDictionary dictionary) throws IOException {
+        if (PaxPage.isPaxPage(page)) {
+            return new PaxPage(page, schema).readRow(recordId.getSlotId(), columns);
+        }
+        if (recordId.getSlotId() >= page.readInt(SLOT_COUNT_OFFSET)) {
+            return null;
+        }
         int slotOffset = Page.PAGE_HEADER_SIZE + recordId.getSlotId() * SLOT_SIZE;
         int recordOffset = page.readInt(slotOffset + 4);
         
@@ -157,168 +1054,61 @@ public class RecordManager {
             return null; // 已删除的记录
         }
         
-        return readRecordFromOffset(page, schema, recordOffset);
+        return RecordCodec.read(page, recordOffset, schema, columns, overflowStore, dictionary);
     }
 
-    private void updateRecordInPage(Page page, Schema schema, RecordId recordId, Tuple newTuple) {
+    private void updateRecordInPage(Page page, Schema schema, RecordId recordId, Tuple newTuple,
+                                    int[] overflowPages, int[] dictionaryCodes) {
         int slotOffset = Page.PAGE_HEADER_SIZE + recordId.getSlotId() * SLOT_SIZE;
         int oldRecordOffset = page.readInt(slotOffset + 4);
         
-        if (oldRecordOffset <= 0) {
+        if (recordId.getSlotId() >= page.readInt(SLOT_COUNT_OFFSET) || oldRecordOffset <= 0) {
             throw new RuntimeException("Record not found");
         }
         
-        // 删除旧记录（标记为已删除）
-        page.writeInt(slotOffset + 4, -oldRecordOffset);
+        int oldLength = page.readInt(slotOffset);
+        int newRecordSize = RecordCodec.recordSize(schema, newTuple, overflowPages, dictionaryCodes);
+        int fragmented = page.readInt(FRAGMENTED_BYTES_OFFSET);
         
-        // 插入新记录
-        int newRecordSize = calculateRecordSize(schema, newTuple);
-        int freeSpaceOffset = page.readInt(FREE_SPACE_OFFSET);
-        int newRecordOffset = freeSpaceOffset - newRecordSize;
+        if (newRecordSize <= oldLength) {
+            // 新记录放得下：原地覆盖，多出的字节计入碎片
+            RecordCodec.write(page, oldRecordOffset, schema, newTuple, overflowPages, dictionaryCodes);
+            page.writeInt(slotOffset, newRecordSize);
+            page.writeInt(FRAGMENTED_BYTES_OFFSET, fragmented + oldLength - newRecordSize);
+            compactIfFragmented(page);
+            return;
+        }
+        
+        if (getFreeSpace(page) + oldLength < newRecordSize) {
+            throw new RuntimeException("Page has no space for record");
+        }
+        
+        // 旧记录变为碎片，槽暂时置空，必要时整理后在连续空间写入新记录
+        page.writeInt(slotOffset, 0);
+        page.writeInt(slotOffset + 4, 0);
+        page.writeInt(FRAGMENTED_BYTES_OFFSET, fragmented + oldLength);
+        ensureContiguousSpace(page, newRecordSize);
         
-        writeRecordToPage(page, schema, newTuple, newRecordOffset);
+        int newRecordOffset = getFreeSpaceOffset(page) - newRecordSize;
+        RecordCodec.write(page, newRecordOffset, schema, newTuple, overflowPages, dictionaryCodes);
+        page.writeInt(slotOffset, newRecordSize);
         page.writeInt(slotOffset + 4, newRecordOffset);
         page.writeInt(FREE_SPACE_OFFSET, newRecordOffset);
     }
 
     private void deleteRecordInPage(Page page, RecordId recordId) {
+        if (recordId.getSlotId() >= page.readInt(SLOT_COUNT_OFFSET)) {
+            return;
+        }
         int slotOffset = Page.PAGE_HEADER_SIZE + recordId.getSlotId() * SLOT_SIZE;
         int recordOffset = page.readInt(slotOffset + 4);
         
         if (recordOffset > 0) {
-            // 标记为已删除（使用负偏移量）
+            // 标记为已删除（使用负偏移量），记录字节计入碎片
             page.writeInt(slotOffset + 4, -recordOffset);
+            int length = page.readInt(slotOffset);
+            page.writeInt(FRAGMENTED_BYTES_OFFSET, page.readInt(FRAGMENTED_BYTES_OFFSET) + length);
+            compactIfFragmented(page);
         }
     }
-
-    private void writeRecordToPage(Page page, Schema schema, Tuple tuple, int offset) {
-        int currentOffset = offset;
-        
-        // 写入NULL位图
-        BitSet nullBitmap = new BitSet(schema.getColumnCount());
-        byte[] nullBytes = new byte[(schema.getColumnCount() + 7) / 8];
-        for (int i = 0; i < schema.getColumnCount(); i++) {
-            Value value = tuple.getValue(i);
-            if (value == null || value.getValue() == null) {
-                nullBitmap.set(i);
-            }
-        }
-        nullBitmap.toByteArray();
-        System.arraycopy(nullBitmap.toByteArray(), 0, nullBytes, 0, 
-                        Math.min(nullBitmap.toByteArray().length, nullBytes.length));
-        page.writeBytes(currentOffset, nullBytes, 0, nullBytes.length);
-        currentOffset += nullBytes.length;
-        
-        // 写入列数据
-        for (int i = 0; i < schema.getColumnCount(); i++) {
-            Value value = tuple.getValue(i);
-            if (!nullBitmap.get(i) && value != null) {
-                currentOffset = writeValue(page, schema.getColumn(i), value, currentOffset);
-            }
-        }
-    }
-
-    private Tuple readRecordFromOffset(Page page, Schema schema, int offset) {
-        Tuple tuple = new Tuple(schema);
-        int currentOffset = offset;
-        
-        // 读取NULL位图
-        int nullBitmapSize = (schema.getColumnCount() + 7) / 8;
-        byte[] nullBytes = new byte[nullBitmapSize];
-        page.readBytes(currentOffset, nullBytes, 0, nullBitmapSize);
-        BitSet nullBitmap = BitSet.valueOf(nullBytes);
-        currentOffset += nullBitmapSize;
-        
-        // 读取列数据
-        for (int i = 0; i < schema.getColumnCount(); i++) {
-            if (!nullBitmap.get(i)) {
-                Value value = readValue(page, schema.getColumn(i), currentOffset);
-                tuple.setValue(i, value);
-                currentOffset += getValueSize(schema.getColumn(i), value);
-            } else {
-                tuple.setValue(i, null);
-            }
-        }
-        
-        return tuple;
-    }
-
-    private int writeValue(Page page, Schema.Column column, Value value, int offset) {
-        Types type = column.getType();
-        switch (type) {
-            case INT:
-                page.writeInt(offset, value.getInt());
-                return offset + 4;
-            case LONG:
-                page.writeLong(offset, value.getLong());
-                return offset + 8;
-            case FLOAT:
-                page.writeInt(offset, Float.floatToIntBits(value.getFloat()));
-                return offset + 4;
-            case DOUBLE:
-                page.writeLong(offset, Double.doubleToLongBits(value.getDouble()));
-                return offset + 8;
-            case VARCHAR:
-                String str = value.getString();
-                byte[] strBytes = str.getBytes();
-                page.writeInt(offset, strBytes.length);
-                page.writeBytes(offset + 4, strBytes, 0, strBytes.length);
-                return offset + 4 + strBytes.length;
-            case BOOLEAN:
-                page.writeBytes(offset, new byte[]{(byte) (value.getBoolean() ? 1 : 0)}, 0, 1);
-                return offset + 1;
-            default:
-                throw new RuntimeException("Unsupported type: " + type);
-        }
-    }
-
-    private Value readValue(Page page, Schema.Column column, int offset) {
-        Types type = column.getType();
-        switch (type) {
-            case INT:
-                return new Value(Types.INT, page.readInt(offset));
-            case LONG:
-                return new Value(Types.LONG, page.readLong(offset));
-            case FLOAT:
-                return new Value(Types.FLOAT, Float.intBitsToFloat(page.readInt(offset)));
-            case DOUBLE:
-                return new Value(Types.DOUBLE, Double.longBitsToDouble(page.readLong(offset)));
-            case VARCHAR:
-                int length = page.readInt(offset);
-                byte[] strBytes = new byte[length];
-                page.readBytes(offset + 4, strBytes, 0, length);
-                return new Value(Types.VARCHAR, new String(strBytes));
-            case BOOLEAN:
-                byte[] boolBytes = new byte[1];
-                page.readBytes(offset, boolBytes, 0, 1);
-                return new Value(Types.BOOLEAN, boolBytes[0] != 0);
-            default:
-                throw new RuntimeException("Unsupported type: " + type);
-        }
-    }
-
-    private int getValueSize(Schema.Column column, Value value) {
-        Types type = column.getType();
-        if (type.isFixedLength()) {
-            return type.getSize();
-        } else if (type == Types.VARCHAR) {
-            String str = value.getString();
-            return 4 + str.getBytes().length; // length(4B) + data
-        }
-        return 0;
-    }
-
-    private int calculateRecordSize(Schema schema, Tuple tuple) {
-        int size = (schema.getColumnCount() + 7) / 8; // NULL位图
-        
-        for (int i = 0; i < schema.getColumnCount(); i++) {
-            Value value = tuple.getValue(i);
-            if (value != null && value.getValue() != null) {
-                size += getValueSize(schema.getColumn(i), value);
-            }
-        }
-        
-        return size;
-    }
 }
-
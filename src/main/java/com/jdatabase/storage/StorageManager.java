@@ -1,5 +1,6 @@
 package com.jdatabase.storage;
 
+import com.jdatabase.buffer.BufferAccessStrategy;
 import com.jdatabase.catalog.Catalog;
 import com.jdatabase.common.Schema;
 import com.jdatabase.common.Tuple;
@@ -7,25 +8,46 @@ import com.jdatabase.common.Value;
 import com.jdatabase.index.IndexManager;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 存储管理器，提供高级存储接口
+ * 同一张表的写操作按表串行化，后台VACUUM整理页面时持有同一把锁。
+ * 删除和更新留下的死元组按表计数，供VacuumService决定何时清理。
  */
 public class StorageManager {
     private final Catalog catalog;
     private final IndexManager indexManager;
+    private final Map<String, Object> tableLocks;
+    private final Map<String, AtomicLong> deadTuples;
 
     public StorageManager(Catalog catalog, IndexManager indexManager) {
         this.catalog = catalog;
         this.indexManager = indexManager;
+        this.tableLocks = new ConcurrentHashMap<>();
+        this.deadTuples = new ConcurrentHashMap<>();
     }
 
     /**
      * 插入元组
      */
     public RecordId insertTuple(String tableName, Tuple tuple) throws IOException {
+        return insertTuple(tableName, tuple, null);
+    }
+
+    /**
+     * 按缓冲区访问策略插入元组（多行INSERT时由selectInsertStrategy选择，null为普通访问）
+     */
+    public RecordId insertTuple(String tableName, Tuple tuple, BufferAccessStrategy strategy) throws IOException {
         Schema schema = catalog.getSchema(tableName);
         if (schema == null) {
             throw new RuntimeException("Table not found: " + tableName);
@@ -35,29 +57,107 @@ public class StorageManager {
         validateTuple(schema, tuple);
         
         String fileName = tableName + ".dat";
-        RecordId recordId = catalog.getRecordManager().insertRecord(fileName, schema, tuple);
+        synchronized (tableLock(tableName)) {
+            RecordId recordId = catalog.getRecordManager().insertRecord(fileName, schema, tuple, strategy);
+            
+            // 更新索引
+            updateIndexesOnInsert(tableName, schema, tuple, recordId);
+            
+            return recordId;
+        }
+    }
+
+    /**
+     * 为向表中插入rows行选择缓冲区访问策略（以sample估计每行大小），数据量不大时返回null
+     */
+    public BufferAccessStrategy selectInsertStrategy(String tableName, Tuple sample, int rows) {
+        Schema schema = catalog.getSchema(tableName);
+        if (schema == null) {
+            throw new RuntimeException("Table not found: " + tableName);
+        }
+        validateTuple(schema, sample);
+        return catalog.getRecordManager().selectInsertStrategy(schema, sample, rows);
+    }
+
+    /**
+     * 批量导入元组
+     * 数据页在内存中填满后成批顺序写出，索引在导入结束后按键排序一次性批量更新。
+     * 返回结果中包含导入行数和吞吐量（rows/sec）。
+     */
+    public BulkLoadResult bulkInsert(String tableName, Iterator<Tuple> tuples) throws IOException {
+        Schema schema = catalog.getSchema(tableName);
+        if (schema == null) {
+            throw new RuntimeException("Table not found: " + tableName);
+        }
         
-        // 更新索引
-        updateIndexesOnInsert(tableName, schema, tuple, recordId);
+        // 收集需要更新的索引条目
+        Set<String> indexedColumns = catalog.getIndexedColumns(tableName);
+        Map<String, List<Map.Entry<Comparable<?>, RecordId>>> indexEntries = new HashMap<>();
+        for (String columnName : indexedColumns) {
+            if (schema.getColumnIndex(columnName) >= 0) {
+                indexEntries.put(columnName, new ArrayList<>());
+            }
+        }
+        
+        Iterator<Tuple> validated = new Iterator<Tuple>() {
+            @Override
+            public boolean hasNext() {
+                return tuples.hasNext();
+            }
+
+            @Override
+            public Tuple next() {
+                Tuple tuple = tuples.next();
+                validateTuple(schema, tuple);
+                return tuple;
+            }
+        };
         
-        return recordId;
+        String fileName = tableName + ".dat";
+        synchronized (tableLock(tableName)) {
+            BulkLoadResult result = catalog.getRecordManager().bulkLoad(fileName, schema, validated,
+                    indexEntries.isEmpty() ? null : (tuple, recordId) -> {
+                        for (Map.Entry<String, List<Map.Entry<Comparable<?>, RecordId>>> entry
+                                : indexEntries.entrySet()) {
+                            Value value = tuple.getValue(schema.getColumnIndex(entry.getKey()));
+                            if (value != null && value.getValue() != null) {
+                                entry.getValue().add(
+                                        new AbstractMap.SimpleEntry<>((Comparable<?>) value.getValue(), recordId));
+                            }
+                        }
+                    });
+            
+            // 批量更新索引
+            long indexStart = System.nanoTime();
+            for (Map.Entry<String, List<Map.Entry<Comparable<?>, RecordId>>> entry : indexEntries.entrySet()) {
+                indexManager.insertAll(tableName, entry.getKey(), entry.getValue());
+            }
+            return result.plusNanos(System.nanoTime() - indexStart);
+        }
     }
 
     /**
      * 读取元组
      */
     public Tuple readTuple(String tableName, RecordId recordId) throws IOException {
+        return readTuple(tableName, recordId, null);
+    }
+
+    /**
+     * 读取元组，只解码列掩码中的列（null表示全部列）
+     */
+    public Tuple readTuple(String tableName, RecordId recordId, BitSet columns) throws IOException {
         Schema schema = catalog.getSchema(tableName);
         if (schema == null) {
             throw new RuntimeException("Table not found: " + tableName);
         }
         
         String fileName = tableName + ".dat";
-        return catalog.getRecordManager().readRecord(fileName, schema, recordId);
+        return catalog.getRecordManager().readRecord(fileName, schema, recordId, columns);
     }
 
     /**
-     * 更新元组
+     * 更新元组（记录已被删除时什么也不做）
      */
     public void updateTuple(String tableName, RecordId recordId, Tuple newTuple) throws IOException {
         Schema schema = catalog.getSchema(tableName);
@@ -65,20 +165,26 @@ public class StorageManager {
             throw new RuntimeException("Table not found: " + tableName);
         }
         
-        // 读取旧值以更新索引
-        Tuple oldTuple = readTuple(tableName, recordId);
-        
         validateTuple(schema, newTuple);
         
         String fileName = tableName + ".dat";
-        catalog.getRecordManager().updateRecord(fileName, schema, recordId, newTuple);
-        
-        // 更新索引
-        updateIndexesOnUpdate(tableName, schema, oldTuple, newTuple, recordId);
+        synchronized (tableLock(tableName)) {
+            // 读取旧值以更新索引；收集RecordId之后记录已被删除时不再更新
+            Tuple oldTuple = readTuple(tableName, recordId);
+            if (oldTuple == null) {
+                return;
+            }
+            
+            catalog.getRecordManager().updateRecord(fileName, schema, recordId, newTuple);
+            
+            // 更新索引
+            updateIndexesOnUpdate(tableName, schema, oldTuple, newTuple, recordId);
+        }
+        deadTupleCounter(tableName).incrementAndGet();
     }
 
     /**
-     * 删除元组
+     * 删除元组（记录已被删除时什么也不做）
      */
     public void deleteTuple(String tableName, RecordId recordId) throws IOException {
         Schema schema = catalog.getSchema(tableName);
@@ -86,14 +192,68 @@ public class StorageManager {
             throw new RuntimeException("Table not found: " + tableName);
         }
         
-        // 读取元组以更新索引
-        Tuple tuple = readTuple(tableName, recordId);
+        String fileName = tableName + ".dat";
+        synchronized (tableLock(tableName)) {
+            // 读取元组以更新索引；收集RecordId之后记录已被删除时不再删除
+            Tuple tuple = readTuple(tableName, recordId);
+            if (tuple == null) {
+                return;
+            }
+            
+            catalog.getRecordManager().deleteRecord(fileName, schema, recordId);
+            
+            // 更新索引
+            updateIndexesOnDelete(tableName, schema, tuple, recordId);
+        }
+        deadTupleCounter(tableName).incrementAndGet();
+    }
+
+    /**
+     * 打开表扫描游标
+     */
+    public TableScanCursor openScan(String tableName) {
+        return openScan(tableName, null);
+    }
+
+    /**
+     * 打开只解码部分列的表扫描游标（null表示全部列）
+     */
+    public TableScanCursor openScan(String tableName, BitSet columns) {
+        Schema schema = catalog.getSchema(tableName);
+        if (schema == null) {
+            throw new RuntimeException("Table not found: " + tableName);
+        }
         
         String fileName = tableName + ".dat";
-        catalog.getRecordManager().deleteRecord(fileName, schema, recordId);
+        return catalog.getRecordManager().openScan(fileName, schema, columns);
+    }
+
+    /**
+     * 打开列式扫描游标（仅用于layout=pax的表），逐页返回PAX页面供调用方直接读取minipage
+     */
+    public ColumnScanCursor openColumnScan(String tableName) {
+        Schema schema = catalog.getSchema(tableName);
+        if (schema == null) {
+            throw new RuntimeException("Table not found: " + tableName);
+        }
         
-        // 更新索引
-        updateIndexesOnDelete(tableName, schema, tuple, recordId);
+        String fileName = tableName + ".dat";
+        return catalog.getRecordManager().openColumnScan(fileName, schema);
+    }
+
+    /**
+     * 表是否使用PAX页面布局
+     */
+    public boolean isColumnar(String tableName) {
+        return catalog.getStorageOptions(tableName).getLayout() == PageLayout.PAX;
+    }
+
+    /**
+     * 表的某列是否按字典编码存放
+     */
+    public boolean isDictionaryEncoded(String tableName, String columnName) {
+        StorageOptions options = catalog.getStorageOptions(tableName);
+        return options.getLayout() != PageLayout.PAX && options.getDictionaryColumns().contains(columnName);
     }
 
     /**
@@ -134,6 +294,32 @@ public class StorageManager {
         return catalog;
     }
 
+    /**
+     * 上次VACUUM以来删除和更新的元组数
+     */
+    public long getDeadTupleCount(String tableName) {
+        AtomicLong counter = deadTuples.get(tableName);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * VACUUM完成后扣除已处理的死元组数（期间新增的保留到下一次）
+     */
+    void resetDeadTupleCount(String tableName, long processed) {
+        deadTupleCounter(tableName).addAndGet(-processed);
+    }
+
+    /**
+     * 表的写锁，写操作和VACUUM整理页面时持有
+     */
+    Object tableLock(String tableName) {
+        return tableLocks.computeIfAbsent(tableName, name -> new Object());
+    }
+
+    private AtomicLong deadTupleCounter(String tableName) {
+        return deadTuples.computeIfAbsent(tableName, name -> new AtomicLong());
+    }
+
     /**
      * 插入时更新索引
      */
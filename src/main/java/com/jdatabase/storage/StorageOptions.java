@@ -0,0 +1,232 @@
+package com.jdatabase.storage;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 表级存储选项
+ * 建表时确定并保存在目录中；未显式指定的选项继承数据库级默认值。
+ * SQL中通过 CREATE TABLE ... WITH (key = value, ...) 指定。
+ */
+public class StorageOptions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String FILE_MODE = "file_mode";
+    public static final String PAGE_SIZE = "page_size";
+    public static final String READ_AHEAD = "read_ahead";
+    public static final String LAYOUT = "layout";
+    public static final String COMPRESSION = "compression";
+    public static final String DICTIONARY = "dictionary";
+    public static final String EXTENT_SIZE = "extent_size";
+
+    public static final int DEFAULT_EXTENT_SIZE = 1024 * 1024;
+    public static final int MAX_EXTENT_SIZE = 64 * 1024 * 1024;
+
+    private PageFileMode fileMode;
+    private int pageSize;
+    private Boolean readAhead; // 旧版本保存的选项中为null，视为开启
+    private PageLayout layout;
+    private PageCompression compression;
+    private String dictionaryColumns; // 逗号分隔的列名
+    private int extentSize; // 旧版本保存的选项中为0，视为默认值
+
+    public StorageOptions() {
+        this.fileMode = PageFileMode.CHANNEL;
+        this.pageSize = Page.PAGE_SIZE;
+    }
+
+    public PageFileMode getFileMode() {
+        return fileMode;
+    }
+
+    public StorageOptions setFileMode(PageFileMode fileMode) {
+        this.fileMode = fileMode;
+        return this;
+    }
+
+    /**
+     * 页面大小，建表后不可修改
+     */
+    public int getPageSize() {
+        // 旧版本保存的选项没有该字段，反序列化后为0
+        return pageSize > 0 ? pageSize : Page.PAGE_SIZE;
+    }
+
+    public StorageOptions setPageSize(int pageSize) {
+        Page.validatePageSize(pageSize);
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * 数据页布局，建表后不可修改
+     */
+    public PageLayout getLayout() {
+        // 旧版本保存的选项没有该字段
+        return layout != null ? layout : PageLayout.ROW;
+    }
+
+    public StorageOptions setLayout(PageLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    /**
+     * 页面压缩方式，建表后不可修改
+     */
+    public PageCompression getCompression() {
+        // 旧版本保存的选项没有该字段
+        return compression != null ? compression : PageCompression.NONE;
+    }
+
+    public StorageOptions setCompression(PageCompression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * 按字典编码存放的VARCHAR列，建表后不可修改
+     */
+    public List<String> getDictionaryColumns() {
+        return splitColumns(dictionaryColumns);
+    }
+
+    public StorageOptions setDictionaryColumns(List<String> columns) {
+        this.dictionaryColumns = columns.isEmpty() ? null : String.join(",", columns);
+        return this;
+    }
+
+    /**
+     * 数据文件每次扩展的区段大小（字节），实际扩展时按页面大小向上取整
+     */
+    public int getExtentSize() {
+        return extentSize > 0 ? extentSize : DEFAULT_EXTENT_SIZE;
+    }
+
+    public StorageOptions setExtentSize(int extentSize) {
+        if (extentSize < Page.MIN_PAGE_SIZE || extentSize > MAX_EXTENT_SIZE
+                || Integer.bitCount(extentSize) != 1) {
+            throw new RuntimeException("Invalid extent size: " + extentSize
+                    + " (must be a power of two between " + Page.MIN_PAGE_SIZE + " and " + MAX_EXTENT_SIZE + ")");
+        }
+        this.extentSize = extentSize;
+        return this;
+    }
+
+    /**
+     * 顺序扫描时是否后台预读后续页面（默认开启）
+     */
+    public boolean isReadAhead() {
+        return readAhead == null || readAhead;
+    }
+
+    public StorageOptions setReadAhead(boolean readAhead) {
+        this.readAhead = readAhead;
+        return this;
+    }
+
+    /**
+     * 按名称设置选项（用于解析WITH子句）
+     */
+    public StorageOptions setOption(String key, String value) {
+        switch (key.toLowerCase()) {
+            case FILE_MODE:
+                setFileMode(PageFileMode.fromString(value));
+                break;
+            case PAGE_SIZE:
+                setPageSize(parseSize(key, value));
+                break;
+            case READ_AHEAD:
+                setReadAhead(parseBoolean(key, value));
+                break;
+            case LAYOUT:
+                setLayout(PageLayout.fromString(value));
+                break;
+            case COMPRESSION:
+                setCompression(PageCompression.fromString(value));
+                break;
+            case DICTIONARY:
+                setDictionaryColumns(splitColumns(value));
+                break;
+            case EXTENT_SIZE:
+                setExtentSize(parseSize(key, value));
+                break;
+            default:
+                throw new RuntimeException("Unknown storage option: " + key);
+        }
+        return this;
+    }
+
+    public StorageOptions copy() {
+        StorageOptions copy = new StorageOptions();
+        copy.fileMode = fileMode;
+        copy.pageSize = getPageSize();
+        copy.readAhead = isReadAhead();
+        copy.layout = getLayout();
+        copy.compression = getCompression();
+        copy.dictionaryColumns = dictionaryColumns;
+        copy.extentSize = getExtentSize();
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "StorageOptions(" + FILE_MODE + "=" + fileMode + ", " + PAGE_SIZE + "=" + getPageSize()
+                + ", " + READ_AHEAD + "=" + isReadAhead() + ", " + LAYOUT + "=" + getLayout()
+                + ", " + COMPRESSION + "=" + getCompression() + ", " + DICTIONARY + "=" + getDictionaryColumns()
+                + ", " + EXTENT_SIZE + "=" + getExtentSize() + ")";
+    }
+
+    /**
+     * 解析逗号分隔的列名列表
+     */
+    private static List<String> splitColumns(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> columns = new ArrayList<>();
+        for (String name : value.split(",")) {
+            if (!name.trim().isEmpty()) {
+                columns.add(name.trim());
+            }
+        }
+        return columns;
+    }
+
+    private static boolean parseBoolean(String key, String value) {
+        String text = value.trim().toLowerCase();
+        if (text.equals("true") || text.equals("on")) {
+            return true;
+        }
+        if (text.equals("false") || text.equals("off")) {
+            return false;
+        }
+        throw new RuntimeException("Invalid value for " + key + ": " + value);
+    }
+
+    /**
+     * 解析字节数，支持K/M后缀（如 16K、256K、1M、64MB）
+     */
+    private static int parseSize(String key, String value) {
+        String text = value.trim().toUpperCase();
+        if (text.endsWith("B")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        int multiplier = 1;
+        if (text.endsWith("K")) {
+            multiplier = 1024;
+        } else if (text.endsWith("M")) {
+            multiplier = 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            text = text.substring(0, text.length() - 1);
+        }
+        try {
+            return Math.multiplyExact(Integer.parseInt(text.trim()), multiplier);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new RuntimeException("Invalid value for " + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 表的字典编码
+ * 存储选项dictionary列出的VARCHAR列在记录中只保存整数编码，字典本身保存在侧文件（&lt;表名&gt;.dict）中并常驻内存。
+ * 侧文件是只追加的日志：每个新值追加一条(列名, 值)，加载时按顺序重放即可还原编码。
+ * 新值在写入引用它的记录之前追加到侧文件。
+ * 超过MAX_VALUE_BYTES的值或字典已满（MAX_ENTRIES）时，该值仍按普通VARCHAR内联存放。
+ */
+public class TableDictionary implements Closeable {
+    public static final int MAX_ENTRIES = 65536;
+    public static final int MAX_VALUE_BYTES = 256;
+
+    private final Path path;
+    private final Schema schema;
+    private final ColumnDictionary[] columns; // 按列下标，未编码的列为null
+    private FileChannel channel;
+
+    private TableDictionary(Path path, Schema schema, ColumnDictionary[] columns) {
+        this.path = path;
+        this.schema = schema;
+        this.columns = columns;
+    }
+
+    /**
+     * 加载表的字典，侧文件不存在时为空字典
+     *
+     * @param columnNames 字典编码的列，必须是VARCHAR列
+     */
+    public static TableDictionary load(Path path, Schema schema, List<String> columnNames) throws IOException {
+        ColumnDictionary[] columns = new ColumnDictionary[schema.getColumnCount()];
+        for (String name : columnNames) {
+            int index = schema.getColumnIndex(name);
+            if (index < 0) {
+                throw new RuntimeException("Dictionary column not found: " + name);
+            }
+            if (schema.getColumn(index).getType() != Types.VARCHAR) {
+                throw new RuntimeException("Dictionary column must be VARCHAR: " + name);
+            }
+            columns[index] = new ColumnDictionary(name);
+        }
+        TableDictionary dictionary = new TableDictionary(path, schema, columns);
+        if (Files.exists(path)) {
+            dictionary.replay();
+        }
+        return dictionary;
+    }
+
+    /**
+     * 侧文件名：数据文件名去掉扩展名后加.dict
+     */
+    public static String fileNameFor(String dataFileName) {
+        int dot = dataFileName.lastIndexOf('.');
+        String base = dot > 0 ? dataFileName.substring(0, dot) : dataFileName;
+        return base + ".dict";
+    }
+
+    public boolean isEncoded(int column) {
+        return columns[column] != null;
+    }
+
+    /**
+     * 列的字典，未编码的列返回null
+     */
+    public ColumnDictionary getColumn(int column) {
+        return columns[column];
+    }
+
+    /**
+     * 为元组中字典编码列的值取得编码，新值加入字典；返回每列的编码（-1为内联存放），全部内联时返回null
+     */
+    public int[] encode(Tuple tuple) throws IOException {
+        int[] codes = null;
+        for (int i = 0; i < columns.length; i++) {
+            Value value = tuple.getValue(i);
+            if (columns[i] == null || value == null || value.getValue() == null) {
+                continue;
+            }
+            int code = encode(i, value.getString());
+            if (code == ColumnDictionary.NO_CODE) {
+                continue;
+            }
+            if (codes == null) {
+                codes = new int[columns.length];
+                Arrays.fill(codes, ColumnDictionary.NO_CODE);
+            }
+            codes[i] = code;
+        }
+        return codes;
+    }
+
+    /**
+     * 取得值的编码，新值追加到字典；值过长或字典已满时返回NO_CODE
+     */
+    public int encode(int column, String value) throws IOException {
+        ColumnDictionary dictionary = columns[column];
+        int code = dictionary.lookup(value);
+        if (code != ColumnDictionary.NO_CODE) {
+            return code;
+        }
+        synchronized (this) {
+            code = dictionary.lookup(value);
+            if (code != ColumnDictionary.NO_CODE) {
+                return code;
+            }
+            if (dictionary.size() >= MAX_ENTRIES || RecordCodec.utf8Length(value) > MAX_VALUE_BYTES) {
+                return ColumnDictionary.NO_CODE;
+            }
+            append(dictionary.getColumnName(), value);
+            return dictionary.add(value);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void append(String columnName, String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(columnName);
+        out.writeUTF(value);
+        out.flush();
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void replay() throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream in = new DataInputStream(bytes);
+        int validLength = 0;
+        while (bytes.available() > 0) {
+            String columnName;
+            String value;
+            try {
+                columnName = in.readUTF();
+                value = in.readUTF();
+            } catch (EOFException e) {
+                break;
+            }
+            int index = schema.getColumnIndex(columnName);
+            if (index < 0 || columns[index] == null) {
+                throw new RuntimeException("Dictionary file " + path + " references unknown column: " + columnName);
+            }
+            columns[index].add(value);
+            validLength = data.length - bytes.available();
+        }
+        if (validLength < data.length) {
+            // 末尾不完整的条目来自写入中断，引用它的记录从未写入；截掉以便继续追加
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(validLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.buffer.BufferAccessStrategy;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/**
+ * 表扫描游标
+ * 按页顺序遍历堆文件，每次只持有当前页面，逐条返回有效记录及其RecordId。
+ * 内存占用与表大小无关；扫描过程中追加的页面也会被访问到。
+ * 可指定列掩码，只解码查询需要的列；未请求列的溢出页不会被读取。
+ * PAX页面直接从各列的minipage读取请求的列。
+ * 可附加VARCHAR列的等值过滤（filterEquals），在解码记录之前判断，不匹配的记录不解码；
+ * 字典编码的列直接比较整数编码。
+ * 页面从缓冲池获取，当前页面在游标移到下一页或关闭前保持固定，逐条读取时持有页面锁；
+ * PAX页面整页重新编码，游标读取的是固定时复制的快照。
+ * 扫描大表时带环形缓冲策略（见BufferAccessStrategy），只在一个小环中循环使用缓冲池的帧。
+ */
+public class TableScanCursor implements Closeable {
+    private final RecordManager recordManager;
+    private final PageManager pageManager;
+    private final BufferPool bufferPool;
+    private final BufferAccessStrategy strategy;
+    private final String fileName;
+    private final Schema schema;
+    private final BitSet columns;
+    private final OverflowStore overflowStore;
+    private final TableDictionary dictionary;
+
+    // 等值过滤：列下标、值在字典中的编码（不在字典中为NO_CODE）、值及其UTF-8字节
+    private int[] filterColumns = new int[0];
+    private int[] filterCodes = new int[0];
+    private String[] filterValues = new String[0];
+    private byte[][] filterBytes = new byte[0][];
+    private long filteredCount;
+
+    private Page page;
+    private PaxPage paxPage; // 当前页面为PAX格式时的视图
+    private boolean pinned; // page是否为缓冲池中被固定的页面（PAX快照不是）
+    private int pageId;
+    private int slotId;
+    private Tuple nextTuple;
+    private RecordId nextRecordId;
+    private RecordId currentRecordId;
+    private boolean closed;
+
+    TableScanCursor(RecordManager recordManager, PageManager pageManager, BufferPool bufferPool,
+                    BufferAccessStrategy strategy, String fileName, Schema schema, BitSet columns,
+                    OverflowStore overflowStore, TableDictionary dictionary) {
+        this.recordManager = recordManager;
+        this.pageManager = pageManager;
+        this.bufferPool = bufferPool;
+        this.strategy = strategy;
+        this.fileName = fileName;
+        this.schema = schema;
+        this.columns = columns;
+        this.overflowStore = overflowStore;
+        this.dictionary = dictionary;
+        this.pageId = -1;
+    }
+
+    /**
+     * 只返回VARCHAR列column等于value的记录（可多次调用，条件之间为AND）
+     */
+    public TableScanCursor filterEquals(int column, String value) {
+        if (schema.getColumn(column).getType() != Types.VARCHAR) {
+            throw new RuntimeException("Equality filter requires a VARCHAR column: "
+                    + schema.getColumn(column).getName());
+        }
+        int n = filterColumns.length;
+        filterColumns = Arrays.copyOf(filterColumns, n + 1);
+        filterCodes = Arrays.copyOf(filterCodes, n + 1);
+        filterValues = Arrays.copyOf(filterValues, n + 1);
+        filterBytes = Arrays.copyOf(filterBytes, n + 1);
+        filterColumns[n] = column;
+        filterCodes[n] = lookupCode(column, value);
+        filterValues[n] = value;
+        filterBytes[n] = value.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    /**
+     * 扫描使用的缓冲区访问策略，小表为null（普通访问）
+     */
+    public BufferAccessStrategy getAccessStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 被等值过滤跳过、没有解码的记录数
+     */
+    public long getFilteredCount() {
+        return filteredCount;
+    }
+
+    /**
+     * 是否还有记录
+     */
+    public boolean hasNext() throws IOException {
+        if (nextTuple == null && !closed) {
+            advance();
+        }
+        return nextTuple != null;
+    }
+
+    /**
+     * 返回下一条记录
+     */
+    public Tuple next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Tuple tuple = nextTuple;
+        currentRecordId = nextRecordId;
+        nextTuple = null;
+        nextRecordId = null;
+        return tuple;
+    }
+
+    /**
+     * 最近一次next()返回的记录的RecordId
+     */
+    public RecordId getCurrentRecordId() {
+        return currentRecordId;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        releasePage();
+        nextTuple = null;
+        nextRecordId = null;
+    }
+
+    /**
+     * 定位到下一条有效记录，必要时读取下一个页面
+     */
+    private void advance() throws IOException {
+        while (true) {
+            if (page != null && advanceInPage()) {
+                return;
+            }
+            releasePage();
+            if (pageId + 1 >= pageManager.getPageCount(fileName)) {
+                return;
+            }
+            pageId++;
+            page = bufferPool.fetchPage(fileName, pageId, strategy);
+            pinned = true;
+            Page snapshot = null;
+            page.latchShared();
+            try {
+                if (PaxPage.isPaxPage(page)) {
+                    snapshot = page.copy();
+                }
+            } finally {
+                page.unlatchShared();
+            }
+            if (snapshot != null) {
+                // 先释放页面锁再解除固定，缓冲池写回时按相反的顺序加锁
+                releasePage();
+                page = snapshot;
+                paxPage = new PaxPage(page, schema);
+            }
+            slotId = 0;
+            refreshFilterCodes();
+        }
+    }
+
+    /**
+     * 在当前页面中定位下一条有效记录，页面已读完时返回false
+     */
+    private boolean advanceInPage() throws IOException {
+        page.latchShared();
+        try {
+            int slotCount = paxPage != null ? paxPage.getRowCount() : recordManager.getSlotCount(page);
+            while (slotId < slotCount) {
+                int current = slotId++;
+                if (filterColumns.length > 0 && !matchesFilters(current)) {
+                    continue;
+                }
+                Tuple tuple = paxPage != null ? paxPage.readRow(current, columns)
+                        : recordManager.readRecordInPage(page, schema, current, columns, overflowStore,
+                                dictionary);
+                if (tuple != null) {
+                    nextTuple = tuple;
+                    nextRecordId = new RecordId(pageId, current);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            page.unlatchShared();
+        }
+    }
+
+    /**
+     * 解除当前页面的固定
+     */
+    private void releasePage() {
+        if (pinned) {
+            bufferPool.unpinPage(page, false);
+            pinned = false;
+        }
+        page = null;
+        paxPage = null;
+    }
+
+    /**
+     * 记录是否满足所有等值过滤条件（无效槽返回true，交给后续读取跳过）
+     */
+    private boolean matchesFilters(int slot) throws IOException {
+        if (paxPage != null) {
+            if (slot >= paxPage.getRowCount() || paxPage.isDeleted(slot)) {
+                return true;
+            }
+            for (int i = 0; i < filterColumns.length; i++) {
+                MiniPage miniPage = paxPage.getMiniPage(filterColumns[i]);
+                if (miniPage.isNull(slot) || !miniPage.getString(slot).equals(filterValues[i])) {
+                    filteredCount++;
+                    return false;
+                }
+            }
+            return true;
+        }
+        int recordOffset = recordManager.getRecordOffset(page, slot);
+        if (recordOffset <= 0) {
+            return true;
+        }
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (!RecordCodec.fieldEquals(page, recordOffset, schema, filterColumns[i], filterCodes[i],
+                    filterBytes[i], overflowStore)) {
+                filteredCount++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 过滤值可能在扫描期间被插入字典，每读一个页面重新查找尚无编码的值
+     */
+    private void refreshFilterCodes() {
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (filterCodes[i] == ColumnDictionary.NO_CODE) {
+                filterCodes[i] = lookupCode(filterColumns[i], filterValues[i]);
+            }
+        }
+    }
+
+    private int lookupCode(int column, String value) {
+        if (dictionary == null || !dictionary.isEncoded(column)) {
+            return ColumnDictionary.NO_CODE;
+        }
+        return dictionary.getColumn(column).lookup(value);
+    }
+}
@@ -0,0 +1,339 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.catalog.Catalog;
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Value;
+import com.jdatabase.index.BPlusTree;
+import com.jdatabase.index.IndexManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 清理服务（VACUUM）
+ * 逐表回收已删除和被更新替换的记录占用的空间：按页整理堆页面、标记已删除的槽并更新FSM，
+ * 再删除索引中指向已删除记录的条目，最后把标记的槽变为空闲槽供插入复用（见RecordManager.vacuumPage），
+ * 索引条目不会指向复用槽的新记录。
+ * 后台线程定期检查各表的死元组数，超过AUTO_VACUUM_THRESHOLD时自动清理；
+ * 后台清理按每秒页面I/O预算限速，手动执行的VACUUM不限速。
+ * 整理页面时逐页、清理索引时逐批持有表的写锁，不会长时间阻塞写操作。
+ */
+public class VacuumService implements Closeable {
+    public static final int DEFAULT_PAGES_PER_SECOND = 2000;
+    public static final long DEFAULT_INTERVAL_MILLIS = 10000;
+    public static final long AUTO_VACUUM_THRESHOLD = 1000;
+    // 每批持有表锁检查的索引条目数
+    static final int INDEX_BATCH_SIZE = 256;
+
+    private final StorageManager storageManager;
+    private final IndexManager indexManager;
+    private final int pagesPerSecond;
+    private final long intervalMillis;
+    private final VacuumStats totalStats;
+    private final Object runLock;
+    // 限速等待的监视器，关闭时唤醒
+    private final Object throttleLock;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    // 当前进度
+    private volatile String currentTable;
+    private volatile int currentPage;
+    private volatile int currentPageCount;
+
+    public VacuumService(StorageManager storageManager, IndexManager indexManager) {
+        this(storageManager, indexManager, DEFAULT_PAGES_PER_SECOND, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param pagesPerSecond 后台清理每秒最多读写的页面数（0表示不限速）
+     * @param intervalMillis 后台检查各表死元组数的间隔
+     */
+    public VacuumService(StorageManager storageManager, IndexManager indexManager, int pagesPerSecond,
+                         long intervalMillis) {
+        if (pagesPerSecond < 0) {
+            throw new IllegalArgumentException("pagesPerSecond must not be negative: " + pagesPerSecond);
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        this.storageManager = storageManager;
+        this.indexManager = indexManager;
+        this.pagesPerSecond = pagesPerSecond;
+        this.intervalMillis = intervalMillis;
+        this.totalStats = new VacuumStats();
+        this.runLock = new Object();
+        this.throttleLock = new Object();
+    }
+
+    /**
+     * 启动后台清理线程
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jdb-vacuum");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::vacuumDeadTables, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 立即清理一张表（不限速），返回本次的统计
+     */
+    public VacuumStats vacuum(String tableName) throws IOException {
+        return vacuum(tableName, false);
+    }
+
+    /**
+     * 累计统计
+     */
+    public VacuumStats getTotalStats() {
+        return totalStats;
+    }
+
+    /**
+     * 正在清理的表，空闲时为null
+     */
+    public String getCurrentTable() {
+        return currentTable;
+    }
+
+    /**
+     * 当前表的清理进度（0~1），按已扫描的堆页面计算；空闲时为0
+     */
+    public double getProgress() {
+        int pageCount = currentPageCount;
+        return currentTable == null || pageCount == 0 ? 0 : Math.min(1.0, (double) currentPage / pageCount);
+    }
+
+    /**
+     * 停止后台清理：正在进行的清理在当前页面或当前一批索引条目处理完后取消
+     * （不中断线程：中断会关闭与其他使用者共享的文件通道）
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        synchronized (throttleLock) {
+            throttleLock.notifyAll();
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 后台任务：清理死元组数超过阈值的表
+     */
+    private void vacuumDeadTables() {
+        List<String> tables = new ArrayList<>();
+        for (String tableName : storageManager.getCatalog().getTableNames()) {
+            tables.add(tableName);
+        }
+        for (String tableName : tables) {
+            if (closed) {
+                return;
+            }
+            if (storageManager.getDeadTupleCount(tableName) < AUTO_VACUUM_THRESHOLD) {
+                continue;
+            }
+            try {
+                vacuum(tableName, true);
+            } catch (InterruptedIOException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("Vacuum failed for table " + tableName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private VacuumStats vacuum(String tableName, boolean throttled) throws IOException {
+        Catalog catalog = storageManager.getCatalog();
+        Schema schema = catalog.getSchema(tableName);
+        if (schema == null) {
+            throw new RuntimeException("Table not found: " + tableName);
+        }
+        String fileName = tableName + ".dat";
+        VacuumStats stats = new VacuumStats();
+        Throttle throttle = new Throttle(throttled ? pagesPerSecond : 0, stats);
+
+        synchronized (runLock) {
+            long deadTuples = storageManager.getDeadTupleCount(tableName);
+            currentTable = tableName;
+            try {
+                vacuumHeap(tableName, fileName, stats, throttle);
+                for (String columnName : catalog.getIndexedColumns(tableName)) {
+                    int column = schema.getColumnIndex(columnName);
+                    if (column >= 0) {
+                        vacuumIndex(tableName, fileName, schema, columnName, column, stats, throttle);
+                    }
+                }
+                freeVacuumedSlots(tableName, fileName, stats, throttle);
+            } finally {
+                currentTable = null;
+                currentPage = 0;
+                currentPageCount = 0;
+            }
+            stats.recordTable();
+            storageManager.resetDeadTupleCount(tableName, deadTuples);
+        }
+        totalStats.add(stats);
+        return stats;
+    }
+
+    private void vacuumHeap(String tableName, String fileName, VacuumStats stats, Throttle throttle)
+            throws IOException {
+        RecordManager recordManager = storageManager.getCatalog().getRecordManager();
+        int pageCount = storageManager.getCatalog().getPageManager().getPageCount(fileName);
+        currentPageCount = pageCount;
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            checkCancelled();
+            throttle.acquire();
+            int reclaimed;
+            synchronized (storageManager.tableLock(tableName)) {
+                reclaimed = recordManager.vacuumPage(fileName, pageId);
+            }
+            if (reclaimed > 0) {
+                // 整理后的页面写回
+                throttle.acquire();
+            }
+            stats.recordPage(reclaimed);
+            currentPage = pageId + 1;
+        }
+    }
+
+    /**
+     * 索引中已没有条目指向vacuumHeap标记的槽，逐页把它们变为空闲槽
+     */
+    private void freeVacuumedSlots(String tableName, String fileName, VacuumStats stats, Throttle throttle)
+            throws IOException {
+        RecordManager recordManager = storageManager.getCatalog().getRecordManager();
+        int pageCount = storageManager.getCatalog().getPageManager().getPageCount(fileName);
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            checkCancelled();
+            throttle.acquire();
+            int reclaimed;
+            synchronized (storageManager.tableLock(tableName)) {
+                reclaimed = recordManager.freeVacuumedSlots(fileName, pageId);
+            }
+            stats.recordReclaimed(reclaimed);
+        }
+    }
+
+    /**
+     * 删除索引中的失效条目：B+树不是线程安全的，按键的顺序分批检查，每批持有表的写锁，
+     * 与插入引起的节点分裂互斥；批之间释放锁并在锁外限速
+     */
+    private void vacuumIndex(String tableName, String fileName, Schema schema, String columnName, int column,
+                             VacuumStats stats, Throttle throttle) throws IOException {
+        RecordManager recordManager = storageManager.getCatalog().getRecordManager();
+        BitSet columns = new BitSet();
+        columns.set(column);
+        Comparable<?> afterKey = null;
+        while (true) {
+            checkCancelled();
+            BPlusTree.RemoveBatch batch;
+            synchronized (storageManager.tableLock(tableName)) {
+                batch = indexManager.removeIf(tableName, columnName, afterKey, INDEX_BATCH_SIZE,
+                        (key, recordId) -> isDangling(recordManager, fileName, schema, columns, column, key,
+                                recordId));
+            }
+            if (batch == null) {
+                return;
+            }
+            stats.recordIndexEntriesRemoved(batch.getRemoved());
+            // 每个条目回表读一次记录
+            throttle.acquire(batch.getChecked());
+            if (!batch.hasMore()) {
+                return;
+            }
+            afterKey = batch.getLastKey();
+        }
+    }
+
+    /**
+     * 服务已关闭时取消清理；已标记的槽留到下次清理释放
+     */
+    private void checkCancelled() throws InterruptedIOException {
+        if (closed) {
+            throw new InterruptedIOException("Vacuum cancelled");
+        }
+    }
+
+    /**
+     * 条目指向的记录已删除，或记录已被更新为其他键
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isDangling(RecordManager recordManager, String fileName, Schema schema, BitSet columns,
+                                      int column, Comparable<?> key, RecordId recordId) throws IOException {
+        Tuple tuple = recordManager.readRecord(fileName, schema, recordId, columns);
+        if (tuple == null) {
+            return true;
+        }
+        Value value = tuple.getValue(column);
+        return value == null || value.getValue() == null
+                || ((Comparable<Object>) key).compareTo(value.getValue()) != 0;
+    }
+
+    /**
+     * 按每秒页面数限速：每次I/O前计算应等待的时间，在throttleLock上等待，关闭时提前唤醒
+     */
+    private class Throttle {
+        private final long nanosPerPage;
+        private final VacuumStats stats;
+        private final long start;
+        private long budgetNanos;
+
+        Throttle(int pagesPerSecond, VacuumStats stats) {
+            this.nanosPerPage = pagesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / pagesPerSecond : 0;
+            this.stats = stats;
+            this.start = System.nanoTime();
+        }
+
+        void acquire() throws IOException {
+            acquire(1);
+        }
+
+        void acquire(int pages) throws IOException {
+            if (nanosPerPage == 0 || pages <= 0) {
+                return;
+            }
+            budgetNanos += nanosPerPage * pages;
+            long deadline = start + budgetNanos;
+            long waitStart = System.nanoTime();
+            if (deadline - waitStart <= 0) {
+                return;
+            }
+            synchronized (throttleLock) {
+                long waitNanos;
+                while (!closed && (waitNanos = deadline - System.nanoTime()) > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(throttleLock, waitNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Vacuum interrupted");
+                    }
+                }
+            }
+            stats.recordThrottle(System.nanoTime() - waitStart);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.jdatabase.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * VACUUM统计：扫描和整理的页面数、回收的字节数、删除的失效索引条目数
+ * 既用于单次VACUUM的结果，也用于VacuumService的累计值。
+ */
+public class VacuumStats {
+    private final AtomicLong tablesVacuumed = new AtomicLong();
+    private final AtomicLong pagesScanned = new AtomicLong();
+    private final AtomicLong pagesCompacted = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+    private final AtomicLong indexEntriesRemoved = new AtomicLong();
+    private final AtomicLong throttleNanos = new AtomicLong();
+
+    void recordPage(int reclaimed) {
+        pagesScanned.incrementAndGet();
+        if (reclaimed > 0) {
+            pagesCompacted.incrementAndGet();
+            bytesReclaimed.addAndGet(reclaimed);
+        }
+    }
+
+    /**
+     * 已扫描过的页面上再回收的字节（释放槽时截掉的槽目录）
+     */
+    void recordReclaimed(int reclaimed) {
+        if (reclaimed > 0) {
+            bytesReclaimed.addAndGet(reclaimed);
+        }
+    }
+
+    void recordIndexEntriesRemoved(int count) {
+        indexEntriesRemoved.addAndGet(count);
+    }
+
+    void recordThrottle(long nanos) {
+        throttleNanos.addAndGet(nanos);
+    }
+
+    void recordTable() {
+        tablesVacuumed.incrementAndGet();
+    }
+
+    /**
+     * 累加另一次VACUUM的结果
+     */
+    void add(VacuumStats other) {
+        tablesVacuumed.addAndGet(other.getTablesVacuumed());
+        pagesScanned.addAndGet(other.getPagesScanned());
+        pagesCompacted.addAndGet(other.getPagesCompacted());
+        bytesReclaimed.addAndGet(other.getBytesReclaimed());
+        indexEntriesRemoved.addAndGet(other.getIndexEntriesRemoved());
+        throttleNanos.addAndGet(other.getThrottleNanos());
+    }
+
+    public long getTablesVacuumed() {
+        return tablesVacuumed.get();
+    }
+
+    public long getPagesScanned() {
+        return pagesScanned.get();
+    }
+
+    /**
+     * 实际整理并写回的页面数
+     */
+    public long getPagesCompacted() {
+        return pagesCompacted.get();
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimed.get();
+    }
+
+    public long getIndexEntriesRemoved() {
+        return indexEntriesRemoved.get();
+    }
+
+    /**
+     * 因I/O预算限制而等待的总时间（纳秒）
+     */
+    public long getThrottleNanos() {
+        return throttleNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VacuumStats(tables=%d, pagesScanned=%d, pagesCompacted=%d, bytesReclaimed=%d, "
+                        + "indexEntriesRemoved=%d, throttleMs=%.1f)", getTablesVacuumed(), getPagesScanned(),
+                getPagesCompacted(), getBytesReclaimed(), getIndexEntriesRemoved(), throttleNanos.get() / 1e6);
+    }
+}
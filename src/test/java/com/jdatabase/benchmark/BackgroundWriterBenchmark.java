@@ -0,0 +1,177 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BackgroundWriter;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.buffer.Checkpointer;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 后台写线程基准测试：读写混合负载下未命中的延迟
+ * 缓冲池只能放下1/8的页面，线程按固定节奏随机访问页面，一半的访问修改页面。
+ * 读盘和写盘各附加固定延迟模拟设备。没有后台写线程时，未命中经常要先同步写回被替换的脏页；
+ * 后台写线程提前写回并腾出空闲帧，查询线程只需读盘。
+ * 输出访问延迟的中位数和P99、查询线程自己写回的页面数，以及后台写线程/检查点的写回速度和剩余脏页数。
+ *
+ * 运行方式：./run-benchmark.sh BackgroundWriterBenchmark [每线程访问次数] [读写盘延迟微秒]
+ */
+public class BackgroundWriterBenchmark {
+    private static final String FILE = "bench.dat";
+    private static final int PAGES = 8192;
+    private static final int THREADS = 2;
+    // 每个线程两次访问之间的间隔
+    private static final long PACE_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /**
+     * 读盘、写盘时附加固定延迟
+     */
+    private static class SlowPageManager extends PageManager {
+        private final long delayNanos;
+
+        SlowPageManager(String dataDir, long delayNanos) {
+            super(dataDir);
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public Page readPage(String fileName, int pageId) throws IOException {
+            long deadline = System.nanoTime() + delayNanos;
+            Page page = super.readPage(fileName, pageId);
+            sleepUntil(deadline);
+            return page;
+        }
+
+        @Override
+        public void writePage(String fileName, Page page) throws IOException {
+            long deadline = System.nanoTime() + delayNanos;
+            super.writePage(fileName, page);
+            sleepUntil(deadline);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accesses = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int delayMicros = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Path dir = Files.createTempDirectory("jdb-bgwriter-bench");
+        PageManager pageManager = new SlowPageManager(dir.toString(), TimeUnit.MICROSECONDS.toNanos(delayMicros));
+        try {
+            createFile(pageManager);
+            System.out.println("数据页: " + PAGES + "，缓冲池: " + PAGES / 8 + "，线程数: " + THREADS
+                    + "，每线程访问次数: " + accesses + "，读写盘延迟: " + delayMicros + "us");
+            System.out.println(String.format("%-20s %10s %10s %12s %12s %10s", "配置", "p50(us)", "p99(us)",
+                    "前台写回", "后台pages/s", "剩余脏页"));
+            for (String mode : new String[]{"none", "bgwriter", "bgwriter+checkpoint"}) {
+                BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(PAGES / 8), pageManager);
+                BackgroundWriter writer = null;
+                Checkpointer checkpointer = null;
+                if (!mode.equals("none")) {
+                    writer = new BackgroundWriter(pool, 10, 1.0 / 8, 200);
+                }
+                if (mode.endsWith("checkpoint")) {
+                    checkpointer = new Checkpointer(pool, 200, 1000);
+                }
+                // 预热：装满缓冲池
+                run(pool, THREADS, PAGES / 8 / THREADS);
+                long writeBacks = pool.getWriteBackCount();
+                if (writer != null) {
+                    writer.start();
+                }
+                if (checkpointer != null) {
+                    checkpointer.start();
+                }
+                long[] latencies = run(pool, THREADS, accesses);
+                long background = 0;
+                double pagesPerSecond = 0;
+                if (writer != null) {
+                    writer.close();
+                    background += writer.getStats().getPagesWritten();
+                    pagesPerSecond += writer.getStats().getAveragePagesPerSecond();
+                }
+                if (checkpointer != null) {
+                    checkpointer.close();
+                    background += checkpointer.getStats().getPagesWritten();
+                    pagesPerSecond += checkpointer.getStats().getAveragePagesPerSecond();
+                }
+                Arrays.sort(latencies);
+                System.out.println(String.format("%-20s %10.0f %10.0f %12d %12.0f %10d", mode,
+                        latencies[latencies.length / 2] / 1e3, latencies[latencies.length * 99 / 100] / 1e3,
+                        pool.getWriteBackCount() - writeBacks - background, pagesPerSecond,
+                        pool.getDirtyPageCount()));
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void createFile(PageManager pageManager) throws Exception {
+        int first = pageManager.allocatePages(FILE, PAGES);
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            pages.add(new Page(first + i));
+        }
+        pageManager.writePages(FILE, pages);
+    }
+
+    /**
+     * threads个线程按固定节奏随机访问，一半的访问修改页面，返回每次访问的耗时
+     */
+    private static long[] run(BufferPool pool, int threads, int accesses) throws InterruptedException {
+        long[] latencies = new long[threads * accesses];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int[] order = BenchmarkSupport.randomOrder(PAGES, System.nanoTime() + t);
+            int offset = t * accesses;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    long next = System.nanoTime();
+                    for (int i = 0; i < accesses; i++) {
+                        int pageId = order[i % PAGES];
+                        boolean modify = (i & 1) == 0;
+                        long t0 = System.nanoTime();
+                        Page page = pool.fetchPage(FILE, pageId);
+                        latencies[offset + i] = System.nanoTime() - t0;
+                        if (modify) {
+                            page.latchExclusive();
+                            try {
+                                page.writeInt(0, i);
+                            } finally {
+                                page.unlatchExclusive();
+                            }
+                        }
+                        pool.unpinPage(page, modify);
+                        next += PACE_NANOS;
+                        sleepUntil(next);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        start.countDown();
+        done.await();
+        return latencies;
+    }
+
+    private static void sleepUntil(long deadline) {
+        for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+}
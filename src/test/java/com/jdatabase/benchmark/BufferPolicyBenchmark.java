@@ -0,0 +1,120 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.buffer.ReplacementPolicy;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 替换策略基准测试：LRU vs CLOCK 在并发读下的吞吐量和命中率
+ * 两种负载：全部命中（缓冲池放得下所有页面）；热点访问（80%的访问落在20%的页面上，
+ * 缓冲池只能放下1/4的页面，未命中时从磁盘读取）。分别用1、4、16个线程运行。
+ *
+ * 运行方式：./run-benchmark.sh BufferPolicyBenchmark [每线程访问次数]
+ */
+public class BufferPolicyBenchmark {
+    private static final String FILE = "bench.dat";
+    private static final int PAGES = 8192;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final String[] POLICIES = {ReplacementPolicy.LRU, ReplacementPolicy.CLOCK};
+
+    public static void main(String[] args) throws Exception {
+        int accesses = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Path dir = Files.createTempDirectory("jdb-policy-bench");
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            createFile(pageManager);
+            System.out.println("数据页: " + PAGES + "，每线程访问次数: " + accesses);
+            System.out.println(String.format("%-10s %-8s %8s %16s %10s", "负载", "策略", "线程数", "accesses/s", "命中率"));
+            for (String workload : new String[]{"all-hit", "hot-80/20"}) {
+                int capacity = workload.equals("all-hit") ? PAGES : PAGES / 4;
+                for (String policy : POLICIES) {
+                    for (int threads : THREAD_COUNTS) {
+                        BufferPool pool = new BufferPool(
+                                new BufferPoolConfig().setCapacity(capacity).setPolicy(policy), pageManager);
+                        // 预热：加载页面并让JIT编译访问路径
+                        run(pool, workload, 4, accesses / 4);
+                        long hits = pool.getHitCount();
+                        long misses = pool.getMissCount();
+                        long nanos = run(pool, workload, threads, accesses);
+                        long total = (long) threads * accesses;
+                        double hitRatio = (double) (pool.getHitCount() - hits)
+                                / (pool.getHitCount() - hits + pool.getMissCount() - misses);
+                        System.out.println(String.format("%-10s %-8s %8d %16.0f %9.1f%%", workload, policy, threads,
+                                BenchmarkSupport.perSecond(total, nanos), hitRatio * 100));
+                    }
+                }
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void createFile(PageManager pageManager) throws Exception {
+        int first = pageManager.allocatePages(FILE, PAGES);
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            Page page = new Page(first + i);
+            page.writeInt(0, i);
+            pages.add(page);
+        }
+        pageManager.writePages(FILE, pages);
+    }
+
+    /**
+     * threads个线程同时访问，返回总耗时
+     */
+    private static long run(BufferPool pool, String workload, int threads, int accesses)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int[] pageIds = pageIds(workload, accesses, t);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int pageId : pageIds) {
+                        pool.unpinPage(pool.fetchPage(FILE, pageId), false);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - t0;
+    }
+
+    /**
+     * 预先生成访问序列，计时部分不包含随机数生成
+     */
+    private static int[] pageIds(String workload, int accesses, long seed) {
+        Random random = new Random(seed);
+        int hotPages = PAGES / 5;
+        int[] pageIds = new int[accesses];
+        for (int i = 0; i < accesses; i++) {
+            if (workload.equals("all-hit")) {
+                pageIds[i] = random.nextInt(PAGES);
+            } else if (random.nextInt(100) < 80) {
+                pageIds[i] = random.nextInt(hotPages);
+            } else {
+                pageIds[i] = hotPages + random.nextInt(PAGES - hotPages);
+            }
+        }
+        return pageIds;
+    }
+}
@@ -0,0 +1,104 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.storage.PageManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 缓冲池查找基准测试：页面全部命中时fetchPage + unpinPage的吞吐量
+ * 分别用1、4、16个线程随机访问多个文件中的已缓存页面，输出每秒查找次数；
+ * 单线程时另外统计每次查找分配的字节数（命中路径应不分配对象）。
+ *
+ * 运行方式：./run-benchmark.sh BufferPoolLookupBenchmark [每线程查找次数]
+ */
+public class BufferPoolLookupBenchmark {
+    private static final String[] FILES = {"users.dat", "orders.dat", "items.dat", "events.dat"};
+    private static final int PAGES_PER_FILE = 4096;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+
+    public static void main(String[] args) throws Exception {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        Path dir = Files.createTempDirectory("jdb-pool-bench");
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            // 容量按分区平分，页面在分区间不是绝对均匀，留1/16余量保证所有页面都能缓存
+            int pages = FILES.length * PAGES_PER_FILE;
+            BufferPool pool = new BufferPool(pages + pages / 16, pageManager);
+            // 预先加载所有页面，之后的查找全部命中
+            for (String file : FILES) {
+                for (int pageId = 0; pageId < PAGES_PER_FILE; pageId++) {
+                    pool.unpinPage(pool.fetchPage(file, pageId), false);
+                }
+            }
+
+            // 预热
+            run(pool, 4, lookups / 4);
+
+            System.out.println("缓存页面: " + FILES.length * PAGES_PER_FILE + "，每线程查找次数: " + lookups);
+            System.out.println(String.format("%-8s %16s", "线程数", "lookups/s"));
+            for (int threads : THREAD_COUNTS) {
+                long nanos = run(pool, threads, lookups);
+                System.out.println(String.format("%-8d %16.0f", threads,
+                        BenchmarkSupport.perSecond((long) threads * lookups, nanos)));
+            }
+            System.out.println(String.format("单线程每次查找分配: %.2f 字节", allocatedBytesPerLookup(pool, lookups)));
+            System.out.println("命中: " + pool.getHitCount() + "，未命中: " + pool.getMissCount());
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * threads个线程同时查找，返回总耗时
+     */
+    private static long run(BufferPool pool, int threads, int lookups) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int[] order = BenchmarkSupport.randomOrder(FILES.length * PAGES_PER_FILE, t);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    lookup(pool, order, lookups);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - t0;
+    }
+
+    private static void lookup(BufferPool pool, int[] order, int lookups) throws Exception {
+        for (int i = 0; i < lookups; i++) {
+            int page = order[i % order.length];
+            String file = FILES[page / PAGES_PER_FILE];
+            int pageId = page % PAGES_PER_FILE;
+            pool.unpinPage(pool.fetchPage(file, pageId), false);
+        }
+    }
+
+    private static double allocatedBytesPerLookup(BufferPool pool, int lookups) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return Double.NaN;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        int[] order = BenchmarkSupport.randomOrder(FILES.length * PAGES_PER_FILE, 99);
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        lookup(pool, order, lookups);
+        return (double) (threadBean.getThreadAllocatedBytes(threadId) - before) / lookups;
+    }
+}
@@ -0,0 +1,120 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓冲池未命中基准测试：并发未命中时的加载吞吐量
+ * 缓冲池只能放下1/8的页面，访问随机页面，大部分访问未命中。
+ * 每次读盘额外等待一段固定时间模拟设备延迟（临时目录通常在页缓存中，读盘本身很快），
+ * 读盘在分区锁外进行时，多个线程的等待可以重叠。分别用1、4、16个线程和1、16个分区运行。
+ *
+ * 运行方式：./run-benchmark.sh BufferPoolMissBenchmark [每线程访问次数] [读盘延迟微秒]
+ */
+public class BufferPoolMissBenchmark {
+    private static final String FILE = "bench.dat";
+    private static final int PAGES = 8192;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final int[] PARTITION_COUNTS = {1, 16};
+
+    /**
+     * 读盘时附加固定延迟
+     */
+    private static class SlowPageManager extends PageManager {
+        private final long delayNanos;
+
+        SlowPageManager(String dataDir, long delayNanos) {
+            super(dataDir);
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public Page readPage(String fileName, int pageId) throws IOException {
+            long deadline = System.nanoTime() + delayNanos;
+            Page page = super.readPage(fileName, pageId);
+            for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+            return page;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accesses = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int delayMicros = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Path dir = Files.createTempDirectory("jdb-miss-bench");
+        PageManager pageManager = new SlowPageManager(dir.toString(), TimeUnit.MICROSECONDS.toNanos(delayMicros));
+        try {
+            createFile(pageManager);
+            System.out.println("数据页: " + PAGES + "，缓冲池: " + PAGES / 8 + "，每线程访问次数: " + accesses
+                    + "，读盘延迟: " + delayMicros + "us");
+            System.out.println(String.format("%8s %8s %14s %14s", "分区数", "线程数", "accesses/s", "misses/s"));
+            for (int partitions : PARTITION_COUNTS) {
+                for (int threads : THREAD_COUNTS) {
+                    BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(PAGES / 8)
+                            .setPartitions(partitions), pageManager);
+                    run(pool, 2, accesses / 4);
+                    long misses = pool.getMissCount();
+                    long nanos = run(pool, threads, accesses);
+                    System.out.println(String.format("%8d %8d %14.0f %14.0f", pool.getPartitionCount(), threads,
+                            BenchmarkSupport.perSecond((long) threads * accesses, nanos),
+                            BenchmarkSupport.perSecond(pool.getMissCount() - misses, nanos)));
+                }
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void createFile(PageManager pageManager) throws Exception {
+        int first = pageManager.allocatePages(FILE, PAGES);
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            Page page = new Page(first + i);
+            page.writeInt(0, i);
+            pages.add(page);
+        }
+        pageManager.writePages(FILE, pages);
+    }
+
+    /**
+     * threads个线程同时随机访问，返回总耗时
+     */
+    private static long run(BufferPool pool, int threads, int accesses) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int[] order = BenchmarkSupport.randomOrder(PAGES, t);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < accesses; i++) {
+                        int pageId = order[i % PAGES];
+                        pool.unpinPage(pool.fetchPage(FILE, pageId), false);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - t0;
+    }
+}
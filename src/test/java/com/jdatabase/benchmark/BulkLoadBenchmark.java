@@ -0,0 +1,85 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.storage.BulkLoadResult;
+import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.RecordManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入基准测试：比较逐行insertRecord与bulkLoad的导入吞吐量
+ *
+ * 运行方式：./run-benchmark.sh BulkLoadBenchmark [行数]
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Schema schema = PageSizeBenchmark.createSchema();
+        List<Tuple> tuples = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tuples.add(PageSizeBenchmark.createTuple(schema, i));
+        }
+
+        Path dir = Files.createTempDirectory("jdb-bulkload-bench");
+        try {
+            // 预热
+            runRowwise(dir, schema, tuples.subList(0, rows / 10), "warmup-rowwise.dat");
+            runBulk(dir, schema, tuples.subList(0, rows / 10), "warmup-bulk.dat");
+
+            System.out.println("行数: " + rows);
+            System.out.printf("%-12s %8s %14s%n", "方式", "页数", "rows/s");
+            long rowwiseNanos = runRowwise(dir, schema, tuples, "rowwise.dat");
+            int rowwisePages = pageCount(dir, "rowwise.dat");
+            System.out.printf("%-12s %8d %14.0f%n", "insertRecord", rowwisePages,
+                    BenchmarkSupport.perSecond(rows, rowwiseNanos));
+            BulkLoadResult result = runBulk(dir, schema, tuples, "bulk.dat");
+            System.out.printf("%-12s %8d %14.0f%n", "bulkLoad", result.getPageCount(), result.getRowsPerSecond());
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static long runRowwise(Path dir, Schema schema, List<Tuple> tuples, String fileName) throws IOException {
+        PageManager pageManager = new PageManager(dir.toString());
+        RecordManager recordManager = new RecordManager(pageManager);
+        try {
+            long t0 = System.nanoTime();
+            for (Tuple tuple : tuples) {
+                recordManager.insertRecord(fileName, schema, tuple);
+            }
+            return System.nanoTime() - t0;
+        } finally {
+            pageManager.close();
+        }
+    }
+
+    private static BulkLoadResult runBulk(Path dir, Schema schema, List<Tuple> tuples, String fileName) throws IOException {
+        PageManager pageManager = new PageManager(dir.toString());
+        RecordManager recordManager = new RecordManager(pageManager);
+        try {
+            BulkLoadResult result = recordManager.bulkLoad(fileName, schema, tuples.iterator(), null);
+            if (result.getRowCount() != tuples.size()) {
+                throw new IllegalStateException("row count mismatch: " + result.getRowCount());
+            }
+            return result;
+        } finally {
+            pageManager.close();
+        }
+    }
+
+    private static int pageCount(Path dir, String fileName) throws IOException {
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            return pageManager.getPageCount(fileName);
+        } finally {
+            pageManager.close();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.storage.CompressedPageFile;
+import com.jdatabase.storage.CompressionStats;
+import com.jdatabase.storage.PageCompression;
+import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.RecordManager;
+import com.jdatabase.storage.StorageOptions;
+import com.jdatabase.storage.TableScanCursor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 页面压缩基准测试：比较不压缩与deflate压缩的文件大小、压缩比、全表扫描吞吐量和每页解压耗时
+ * 数据文件在页缓存中时扫描受CPU限制，压缩主要节省磁盘空间和冷读时的I/O量。
+ *
+ * 运行方式：./run-benchmark.sh CompressionBenchmark [行数]
+ */
+public class CompressionBenchmark {
+    private static final int SCAN_PASSES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+        Schema schema = PageSizeBenchmark.createSchema();
+        List<Tuple> tuples = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tuples.add(PageSizeBenchmark.createTuple(schema, i));
+        }
+
+        Path dir = Files.createTempDirectory("jdb-compression-bench");
+        try {
+            System.out.println("行数: " + rows);
+            System.out.printf("%-10s %12s %8s %14s %16s%n", "压缩", "文件字节", "压缩比", "scan rows/s", "解压 us/页");
+            for (PageCompression compression : PageCompression.values()) {
+                String fileName = compression.name().toLowerCase() + ".dat";
+                StorageOptions options = new StorageOptions().setCompression(compression);
+                CompressionStats loadStats;
+                PageManager loader = new PageManager(dir.toString());
+                try {
+                    loader.setFileOptions(fileName, options);
+                    new RecordManager(loader).bulkLoad(fileName, schema, tuples.iterator(), null);
+                    loadStats = loader.getCompressionStats();
+                } finally {
+                    loader.close();
+                }
+
+                long fileBytes = Files.size(dir.resolve(fileName));
+                Path pageMap = dir.resolve(fileName + CompressedPageFile.PAGE_MAP_SUFFIX);
+                if (Files.exists(pageMap)) {
+                    fileBytes += Files.size(pageMap);
+                }
+
+                // 预热
+                scan(dir, schema, fileName, options);
+                long scanned = 0;
+                long decompressNanos = 0;
+                long decompressedPages = 0;
+                long t0 = System.nanoTime();
+                for (int pass = 0; pass < SCAN_PASSES; pass++) {
+                    ScanResult result = scan(dir, schema, fileName, options);
+                    scanned += result.rows;
+                    decompressNanos += result.stats.getDecompressNanos();
+                    decompressedPages += result.stats.getPagesDecompressed();
+                }
+                long nanos = System.nanoTime() - t0;
+                System.out.printf("%-10s %12d %8.2f %14.0f %16.1f%n", compression, fileBytes,
+                        loadStats.getCompressionRatio(), BenchmarkSupport.perSecond(scanned, nanos),
+                        decompressedPages == 0 ? 0.0 : decompressNanos / 1000.0 / decompressedPages);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static class ScanResult {
+        long rows;
+        CompressionStats stats;
+    }
+
+    private static ScanResult scan(Path dir, Schema schema, String fileName, StorageOptions options) throws IOException {
+        PageManager pageManager = new PageManager(dir.toString());
+        pageManager.setFileOptions(fileName, options);
+        try {
+            ScanResult result = new ScanResult();
+            try (TableScanCursor cursor = new RecordManager(pageManager).openScan(fileName, schema)) {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    result.rows++;
+                }
+            }
+            result.stats = pageManager.getCompressionStats();
+            return result;
+        } finally {
+            pageManager.close();
+        }
+    }
+}
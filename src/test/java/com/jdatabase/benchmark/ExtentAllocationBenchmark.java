@@ -0,0 +1,92 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.RecordManager;
+import com.jdatabase.storage.StorageOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 区段扩展基准测试：持续逐行插入时，每次扩展一个页面 vs 按区段预分配
+ * 把插入过程分成若干段，输出每段的吞吐量，观察随文件增大吞吐量是否下降。
+ *
+ * 运行方式：./run-benchmark.sh ExtentAllocationBenchmark [行数]
+ */
+public class ExtentAllocationBenchmark {
+    private static final int SEGMENTS = 5;
+    private static final int[] EXTENT_SIZES = {Page.PAGE_SIZE, 1024 * 1024, 16 * 1024 * 1024};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        Schema schema = PageSizeBenchmark.createSchema();
+        List<Tuple> tuples = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tuples.add(PageSizeBenchmark.createTuple(schema, i));
+        }
+
+        Path dir = Files.createTempDirectory("jdb-extent-bench");
+        try {
+            // 预热
+            run(dir, schema, tuples.subList(0, rows / 10), "warmup.dat", 1024 * 1024);
+
+            System.out.println("行数: " + rows + "，分" + SEGMENTS + "段统计插入吞吐量 (rows/s)");
+            StringBuilder header = new StringBuilder(String.format("%-12s", "extent_size"));
+            for (int s = 1; s <= SEGMENTS; s++) {
+                header.append(String.format(" %10s", "段" + s));
+            }
+            header.append(String.format(" %10s %8s", "总计", "页数"));
+            System.out.println(header);
+            for (int extentSize : EXTENT_SIZES) {
+                String fileName = "extent-" + extentSize + ".dat";
+                long[] segmentNanos = run(dir, schema, tuples, fileName, extentSize);
+                StringBuilder line = new StringBuilder(String.format("%-12s", formatSize(extentSize)));
+                long total = 0;
+                for (long nanos : segmentNanos) {
+                    line.append(String.format(" %10.0f", BenchmarkSupport.perSecond(rows / SEGMENTS, nanos)));
+                    total += nanos;
+                }
+                line.append(String.format(" %10.0f %8d", BenchmarkSupport.perSecond(rows, total),
+                        Files.size(dir.resolve(fileName)) / Page.PAGE_SIZE));
+                System.out.println(line);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * 逐行插入，返回每段的耗时
+     */
+    private static long[] run(Path dir, Schema schema, List<Tuple> tuples, String fileName, int extentSize)
+            throws IOException {
+        PageManager pageManager = new PageManager(dir.toString());
+        pageManager.setFileOptions(fileName, new StorageOptions().setExtentSize(extentSize));
+        RecordManager recordManager = new RecordManager(pageManager);
+        int segmentRows = tuples.size() / SEGMENTS;
+        long[] segmentNanos = new long[SEGMENTS];
+        try {
+            for (int s = 0; s < SEGMENTS; s++) {
+                long t0 = System.nanoTime();
+                for (Tuple tuple : tuples.subList(s * segmentRows, (s + 1) * segmentRows)) {
+                    recordManager.insertRecord(fileName, schema, tuple);
+                }
+                segmentNanos[s] = System.nanoTime() - t0;
+            }
+        } finally {
+            recordManager.close();
+            pageManager.close();
+        }
+        return segmentNanos;
+    }
+
+    private static String formatSize(int bytes) {
+        return bytes >= 1024 * 1024 ? bytes / (1024 * 1024) + "M" : bytes / 1024 + "K";
+    }
+}
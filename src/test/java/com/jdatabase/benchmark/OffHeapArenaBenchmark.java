@@ -0,0 +1,114 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 堆外帧区基准测试：大缓冲池对GC的影响
+ * 分别用堆内页面和堆外帧区创建同样容量的缓冲池并装满页面，输出：
+ * 装满后的堆占用、一次完整GC（System.gc）的平均耗时，以及命中查找混合短命对象分配时
+ * 的查找吞吐量和这段时间内的GC次数、GC总耗时。
+ * 页面由newPage创建，不读写磁盘；运行时需要足够的堆和直接内存（-Xmx、-XX:MaxDirectMemorySize）。
+ *
+ * 运行方式：./run-benchmark.sh OffHeapArenaBenchmark [缓冲池页面数] [查找次数]
+ */
+public class OffHeapArenaBenchmark {
+    private static final String FILE = "bench.dat";
+    private static final int FULL_GCS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 65536;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+        Path dir = Files.createTempDirectory("jdb-arena-bench");
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            System.out.println("缓冲池页面数: " + pages + "（" + (long) pages * Page.PAGE_SIZE / (1024 * 1024)
+                    + "MB），查找次数: " + lookups);
+            System.out.println(String.format("%-10s %12s %14s %14s %10s %12s", "帧", "堆占用(MB)", "完整GC(ms)",
+                    "lookups/s", "GC次数", "GC耗时(ms)"));
+            for (boolean offHeap : new boolean[]{false, true}) {
+                run(pageManager, pages, lookups, offHeap);
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void run(PageManager pageManager, int pages, int lookups, boolean offHeap) throws Exception {
+        System.gc();
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(pages + pages / 16)
+                .setOffHeap(offHeap), pageManager);
+        for (int pageId = 0; pageId < pages; pageId++) {
+            Page page = pool.newPage(FILE, pageId);
+            page.writeInt(Page.PAGE_HEADER_SIZE, pageId);
+            pool.unpinPage(page, false);
+        }
+        // 预热
+        lookup(pool, pages, lookups / 5);
+
+        long fullGcNanos = 0;
+        for (int i = 0; i < FULL_GCS; i++) {
+            long t0 = System.nanoTime();
+            System.gc();
+            fullGcNanos += System.nanoTime() - t0;
+        }
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long t0 = System.nanoTime();
+        lookup(pool, pages, lookups);
+        long nanos = System.nanoTime() - t0;
+        System.out.println(String.format("%-10s %12d %14.1f %14.0f %10d %12d", offHeap ? "off-heap" : "heap",
+                heapUsed / (1024 * 1024), fullGcNanos / 1e6 / FULL_GCS,
+                BenchmarkSupport.perSecond(lookups, nanos), gcCount() - gcCount, gcMillis() - gcMillis));
+        // 保证缓冲池在测量期间可达
+        if (pool.getPageCount() != pages) {
+            throw new IllegalStateException("Unexpected page count: " + pool.getPageCount());
+        }
+    }
+
+    /**
+     * 随机命中查找，每次查找把页面中的一段复制到新分配的数组（模拟解码记录产生的短命对象）
+     */
+    private static void lookup(BufferPool pool, int pages, int lookups) throws Exception {
+        Random random = new Random(42);
+        long sum = 0;
+        for (int i = 0; i < lookups; i++) {
+            int pageId = random.nextInt(pages);
+            Page page = pool.fetchPage(FILE, pageId);
+            byte[] record = new byte[128];
+            page.readBytes(Page.PAGE_HEADER_SIZE, record, 0, record.length);
+            sum += record[3];
+            pool.unpinPage(page, false);
+        }
+        if (sum == 42) {
+            System.out.print("");
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,149 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 页面锁基准测试：页面全部命中时读写页面内容的吞吐量
+ * 每次操作 fetchPage + 加页面锁 + 读（或改写）页面中64个整数 + 解锁 + unpinPage。
+ * 对比页面对象的监视器（synchronized，读者也互斥）和共享/排他页面锁：
+ * distinct  每个线程访问自己的页面，不同页面之间没有竞争
+ * hot-read  所有线程只读同一个页面
+ * hot-mixed 所有线程访问16个热点页面，10%的操作修改页面
+ * 分别用1、4、16个线程运行，输出每秒操作数。
+ *
+ * 运行方式：./run-benchmark.sh PageLatchBenchmark [每线程操作次数]
+ */
+public class PageLatchBenchmark {
+    private static final String FILE = "bench.dat";
+    private static final int PAGES_PER_THREAD = 64;
+    private static final int HOT_PAGES = 16;
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final String[] WORKLOADS = {"distinct", "hot-read", "hot-mixed"};
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        Path dir = Files.createTempDirectory("jdb-latch-bench");
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            int pages = PAGES_PER_THREAD * THREAD_COUNTS[THREAD_COUNTS.length - 1];
+            BufferPool pool = new BufferPool(pages + pages / 4, pageManager);
+            for (int pageId = 0; pageId < pages; pageId++) {
+                pool.unpinPage(pool.fetchPage(FILE, pageId), false);
+            }
+            // 预热
+            for (String workload : WORKLOADS) {
+                run(pool, workload, false, 4, operations / 4);
+                run(pool, workload, true, 4, operations / 4);
+            }
+
+            System.out.println("每线程操作次数: " + operations);
+            System.out.println(String.format("%-10s %-8s %16s %16s", "负载", "线程数", "monitor ops/s", "latch ops/s"));
+            for (String workload : WORKLOADS) {
+                for (int threads : THREAD_COUNTS) {
+                    long monitor = run(pool, workload, false, threads, operations);
+                    long latch = run(pool, workload, true, threads, operations);
+                    long total = (long) threads * operations;
+                    System.out.println(String.format("%-10s %-8d %16.0f %16.0f", workload, threads,
+                            BenchmarkSupport.perSecond(total, monitor), BenchmarkSupport.perSecond(total, latch)));
+                }
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * threads个线程同时运行负载，返回总耗时
+     */
+    private static long run(BufferPool pool, String workload, boolean latch, int threads, int operations)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    Random random = new Random(thread);
+                    long sum = 0;
+                    start.await();
+                    for (int i = 0; i < operations; i++) {
+                        int pageId;
+                        boolean write = false;
+                        if (workload.equals("distinct")) {
+                            pageId = thread * PAGES_PER_THREAD + random.nextInt(PAGES_PER_THREAD);
+                        } else if (workload.equals("hot-read")) {
+                            pageId = 0;
+                        } else {
+                            pageId = random.nextInt(HOT_PAGES);
+                            write = random.nextInt(10) == 0;
+                        }
+                        Page page = pool.fetchPage(FILE, pageId);
+                        try {
+                            if (latch) {
+                                sum += latchedAccess(page, write);
+                            } else {
+                                synchronized (page) {
+                                    sum += access(page, write);
+                                }
+                            }
+                        } finally {
+                            pool.unpinPage(page, write);
+                        }
+                    }
+                    if (sum == 42) {
+                        System.out.print("");
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - t0;
+    }
+
+    private static long latchedAccess(Page page, boolean write) {
+        if (write) {
+            page.latchExclusive();
+            try {
+                return access(page, true);
+            } finally {
+                page.unlatchExclusive();
+            }
+        }
+        page.latchShared();
+        try {
+            return access(page, false);
+        } finally {
+            page.unlatchShared();
+        }
+    }
+
+    /**
+     * 读取（或改写）页面中的64个整数，模拟解码一条记录
+     */
+    private static long access(Page page, boolean write) {
+        long sum = 0;
+        for (int offset = Page.PAGE_HEADER_SIZE; offset < Page.PAGE_HEADER_SIZE + 256; offset += 4) {
+            int value = page.readInt(offset);
+            if (write) {
+                page.writeInt(offset, value + 1);
+            }
+            sum += value;
+        }
+        return sum;
+    }
+}
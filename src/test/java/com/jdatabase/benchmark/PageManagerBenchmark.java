@@ -0,0 +1,174 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 页面I/O基准测试：比较每次操作都打开RandomAccessFile的旧路径
+ * 与PageManager复用FileChannel的新路径（pages/sec）
+ *
+ * 运行方式：./run-benchmark.sh PageManagerBenchmark [页面数]
+ */
+public class PageManagerBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int pageCount = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        Path dir = Files.createTempDirectory("jdb-pm-bench");
+        try {
+            System.out.println("页面数: " + pageCount + ", 页面大小: " + Page.PAGE_SIZE + "B");
+            System.out.printf("%-24s %14s %14s%n", "场景", "旧路径 pages/s", "新路径 pages/s");
+            for (int round = 1; round <= ROUNDS; round++) {
+                System.out.println("-- 第" + round + "轮");
+                runRound(dir, pageCount, round);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void runRound(Path dir, int pageCount, int round) throws IOException {
+        String legacyFile = "legacy" + round + ".dat";
+        String pooledFile = "pooled" + round + ".dat";
+        LegacyPageIO legacy = new LegacyPageIO(dir);
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            // 分配 + 写入（模拟插入路径）
+            long t0 = System.nanoTime();
+            for (int i = 0; i < pageCount; i++) {
+                int pageId = legacy.allocatePage(legacyFile);
+                legacy.writePage(legacyFile, filledPage(pageId));
+            }
+            long legacyAppend = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < pageCount; i++) {
+                int pageId = pageManager.allocatePage(pooledFile);
+                pageManager.writePage(pooledFile, filledPage(pageId));
+            }
+            long pooledAppend = System.nanoTime() - t0;
+            report("allocate+write", pageCount, legacyAppend, pooledAppend);
+
+            // 随机读
+            int[] order = BenchmarkSupport.randomOrder(pageCount, 42L + round);
+            long checksum = 0;
+            t0 = System.nanoTime();
+            for (int pageId : order) {
+                checksum += legacy.readPage(legacyFile, pageId).readInt(0);
+            }
+            long legacyRead = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int pageId : order) {
+                checksum -= pageManager.readPage(pooledFile, pageId).readInt(0);
+            }
+            long pooledRead = System.nanoTime() - t0;
+            report("random read", pageCount, legacyRead, pooledRead);
+
+            // 读-改-写（模拟单行插入：页数 + 读页 + 写页）
+            t0 = System.nanoTime();
+            for (int pageId : order) {
+                legacy.getPageCount(legacyFile);
+                Page page = legacy.readPage(legacyFile, pageId);
+                page.writeInt(4, pageId);
+                legacy.writePage(legacyFile, page);
+            }
+            long legacyRmw = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int pageId : order) {
+                pageManager.getPageCount(pooledFile);
+                Page page = pageManager.readPage(pooledFile, pageId);
+                page.writeInt(4, pageId);
+                pageManager.writePage(pooledFile, page);
+            }
+            long pooledRmw = System.nanoTime() - t0;
+            report("count+read+write", pageCount, legacyRmw, pooledRmw);
+
+            if (checksum != 0) {
+                throw new IllegalStateException("checksum mismatch: " + checksum);
+            }
+        } finally {
+            pageManager.close();
+        }
+    }
+
+    private static Page filledPage(int pageId) {
+        Page page = new Page(pageId);
+        page.writeInt(0, pageId);
+        return page;
+    }
+
+    private static void report(String name, int pages, long legacyNanos, long pooledNanos) {
+        System.out.printf("%-24s %14.0f %14.0f  (x%.1f)%n", name,
+                BenchmarkSupport.perSecond(pages, legacyNanos), BenchmarkSupport.perSecond(pages, pooledNanos),
+                (double) legacyNanos / pooledNanos);
+    }
+
+    /**
+     * 旧实现：每次操作打开并关闭一次RandomAccessFile
+     */
+    private static class LegacyPageIO {
+        private final Path dir;
+
+        LegacyPageIO(Path dir) {
+            this.dir = dir;
+        }
+
+        Page readPage(String fileName, int pageId) throws IOException {
+            Path filePath = dir.resolve(fileName);
+            if (!Files.exists(filePath)) {
+                return new Page(pageId);
+            }
+            try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
+                long offset = (long) pageId * Page.PAGE_SIZE;
+                if (offset >= file.length()) {
+                    return new Page(pageId);
+                }
+                file.seek(offset);
+                byte[] data = new byte[Page.PAGE_SIZE];
+                file.read(data);
+                return new Page(pageId, data);
+            }
+        }
+
+        void writePage(String fileName, Page page) throws IOException {
+            Path filePath = dir.resolve(fileName);
+            if (!Files.exists(filePath)) {
+                Files.createFile(filePath);
+            }
+            try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")) {
+                file.seek((long) page.getPageId() * Page.PAGE_SIZE);
+                file.write(page.getData());
+            }
+        }
+
+        int allocatePage(String fileName) throws IOException {
+            Path filePath = dir.resolve(fileName);
+            if (!Files.exists(filePath)) {
+                Files.createFile(filePath);
+            }
+            try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "rw")) {
+                int pageId = (int) (file.length() / Page.PAGE_SIZE);
+                file.setLength((long) (pageId + 1) * Page.PAGE_SIZE);
+                return pageId;
+            }
+        }
+
+        int getPageCount(String fileName) throws IOException {
+            Path filePath = Paths.get(dir.toString(), fileName);
+            if (!Files.exists(filePath)) {
+                return 0;
+            }
+            try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
+                return (int) (file.length() / Page.PAGE_SIZE);
+            }
+        }
+    }
+}
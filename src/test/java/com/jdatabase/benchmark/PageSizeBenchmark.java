@@ -0,0 +1,115 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.RecordId;
+import com.jdatabase.storage.RecordManager;
+import com.jdatabase.storage.StorageOptions;
+import com.jdatabase.storage.TableScanCursor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 页面大小基准测试：比较4KB~32KB页面的插入、全表扫描和按RecordId点查吞吐量
+ *
+ * 运行方式：./run-benchmark.sh PageSizeBenchmark [行数]
+ */
+public class PageSizeBenchmark {
+    private static final int[] PAGE_SIZES = {4096, 8192, 16384, 32768};
+    private static final int SCAN_PASSES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Schema schema = createSchema();
+        Path dir = Files.createTempDirectory("jdb-pagesize-bench");
+        try {
+            // 预热
+            for (int pageSize : PAGE_SIZES) {
+                runOnce(dir, schema, pageSize, rows / 10, "warmup");
+            }
+
+            System.out.println("行数: " + rows);
+            System.out.printf("%-10s %8s %14s %14s %14s%n", "页面大小", "页数", "insert rows/s", "scan rows/s", "lookup ops/s");
+            for (int pageSize : PAGE_SIZES) {
+                runOnce(dir, schema, pageSize, rows, null);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void runOnce(Path dir, Schema schema, int pageSize, int rows, String prefix) throws IOException {
+        String fileName = (prefix != null ? prefix : "table") + pageSize + ".dat";
+        PageManager pageManager = new PageManager(dir.toString());
+        pageManager.setFileOptions(fileName, new StorageOptions().setPageSize(pageSize));
+        RecordManager recordManager = new RecordManager(pageManager);
+        try {
+            List<RecordId> recordIds = new ArrayList<>(rows);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < rows; i++) {
+                recordIds.add(recordManager.insertRecord(fileName, schema, createTuple(schema, i)));
+            }
+            long insertNanos = System.nanoTime() - t0;
+
+            long scanned = 0;
+            t0 = System.nanoTime();
+            for (int pass = 0; pass < SCAN_PASSES; pass++) {
+                try (TableScanCursor cursor = recordManager.openScan(fileName, schema)) {
+                    while (cursor.hasNext()) {
+                        cursor.next();
+                        scanned++;
+                    }
+                }
+            }
+            long scanNanos = System.nanoTime() - t0;
+
+            int[] order = BenchmarkSupport.randomOrder(rows, 42L);
+            int found = 0;
+            t0 = System.nanoTime();
+            for (int index : order) {
+                if (recordManager.readRecord(fileName, schema, recordIds.get(index)) != null) {
+                    found++;
+                }
+            }
+            long lookupNanos = System.nanoTime() - t0;
+
+            if (scanned != (long) rows * SCAN_PASSES || found != rows) {
+                throw new IllegalStateException("row count mismatch: scanned=" + scanned + ", found=" + found);
+            }
+            if (prefix == null) {
+                System.out.printf("%-10s %8d %14.0f %14.0f %14.0f%n", pageSize / 1024 + "KB",
+                        pageManager.getPageCount(fileName),
+                        BenchmarkSupport.perSecond(rows, insertNanos),
+                        BenchmarkSupport.perSecond(scanned, scanNanos),
+                        BenchmarkSupport.perSecond(rows, lookupNanos));
+            }
+        } finally {
+            pageManager.close();
+        }
+    }
+
+    static Schema createSchema() {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("name", Types.VARCHAR, 50, true, false));
+        columns.add(new Schema.Column("score", Types.DOUBLE, -1, true, false));
+        columns.add(new Schema.Column("created", Types.LONG, -1, true, false));
+        return new Schema("bench", columns, "id");
+    }
+
+    static Tuple createTuple(Schema schema, int id) {
+        Tuple tuple = new Tuple(schema);
+        tuple.setValue(0, new Value(Types.INT, id));
+        tuple.setValue(1, new Value(Types.VARCHAR, "user-" + id));
+        tuple.setValue(2, new Value(Types.DOUBLE, id * 0.5));
+        tuple.setValue(3, new Value(Types.LONG, 1600000000000L + id));
+        return tuple;
+    }
+}
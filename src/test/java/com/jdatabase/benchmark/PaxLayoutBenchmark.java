@@ -0,0 +1,136 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import com.jdatabase.storage.ColumnScanCursor;
+import com.jdatabase.storage.MiniPage;
+import com.jdatabase.storage.PageLayout;
+import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.PaxPage;
+import com.jdatabase.storage.RecordManager;
+import com.jdatabase.storage.StorageOptions;
+import com.jdatabase.storage.TableScanCursor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * PAX布局基准测试：宽表上对单列求和
+ * 比较行存（带列掩码的游标）、PAX逐行游标和PAX直接读取minipage三种方式。
+ *
+ * 运行方式：./run-benchmark.sh PaxLayoutBenchmark [行数]
+ */
+public class PaxLayoutBenchmark {
+    private static final int COLUMNS = 16;
+    private static final int PASSES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Schema schema = createSchema();
+        List<Tuple> tuples = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tuples.add(createTuple(schema, i));
+        }
+
+        Path dir = Files.createTempDirectory("jdb-pax-bench");
+        PageManager pageManager = new PageManager(dir.toString());
+        try {
+            pageManager.setFileOptions("row.dat", new StorageOptions().setLayout(PageLayout.ROW));
+            pageManager.setFileOptions("pax.dat", new StorageOptions().setLayout(PageLayout.PAX));
+            RecordManager recordManager = new RecordManager(pageManager);
+            recordManager.bulkLoad("row.dat", schema, tuples.iterator(), null);
+            recordManager.bulkLoad("pax.dat", schema, tuples.iterator(), null);
+
+            // 预热
+            for (int i = 0; i < 3; i++) {
+                sumRowScan(recordManager, schema, "row.dat");
+                sumRowScan(recordManager, schema, "pax.dat");
+                sumMiniPages(recordManager, schema);
+            }
+
+            System.out.println("行数: " + rows + ", 列数: " + COLUMNS);
+            System.out.printf("%-24s %8s %14s%n", "方式", "页数", "rows/s");
+            long expected = sumRowScan(recordManager, schema, "row.dat");
+            report("row + 列掩码游标", pageManager.getPageCount("row.dat"), rows, () -> sumRowScan(recordManager, schema, "row.dat"), expected);
+            report("pax + 列掩码游标", pageManager.getPageCount("pax.dat"), rows, () -> sumRowScan(recordManager, schema, "pax.dat"), expected);
+            report("pax + minipage", pageManager.getPageCount("pax.dat"), rows, () -> sumMiniPages(recordManager, schema), expected);
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private interface Scan {
+        long run() throws IOException;
+    }
+
+    private static void report(String name, int pages, int rows, Scan scan, long expected) throws IOException {
+        long t0 = System.nanoTime();
+        for (int pass = 0; pass < PASSES; pass++) {
+            if (scan.run() != expected) {
+                throw new IllegalStateException("sum mismatch for " + name);
+            }
+        }
+        long nanos = System.nanoTime() - t0;
+        System.out.printf("%-24s %8d %14.0f%n", name, pages, BenchmarkSupport.perSecond((long) rows * PASSES, nanos));
+    }
+
+    private static long sumRowScan(RecordManager recordManager, Schema schema, String fileName) throws IOException {
+        BitSet columns = new BitSet();
+        columns.set(1);
+        long sum = 0;
+        try (TableScanCursor cursor = recordManager.openScan(fileName, schema, columns)) {
+            while (cursor.hasNext()) {
+                sum += cursor.next().getValue(1).getLong();
+            }
+        }
+        return sum;
+    }
+
+    private static long sumMiniPages(RecordManager recordManager, Schema schema) throws IOException {
+        long sum = 0;
+        try (ColumnScanCursor cursor = recordManager.openColumnScan("pax.dat", schema)) {
+            while (cursor.hasNext()) {
+                PaxPage page = cursor.next();
+                MiniPage values = page.getMiniPage(1);
+                for (int row = 0; row < page.getRowCount(); row++) {
+                    if (!page.isDeleted(row) && !values.isNull(row)) {
+                        sum += values.getLong(row);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static Schema createSchema() {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("amount", Types.LONG, -1, true, false));
+        for (int i = 2; i < COLUMNS; i++) {
+            Types type = i % 3 == 0 ? Types.VARCHAR : Types.DOUBLE;
+            columns.add(new Schema.Column("c" + i, type, 32, true, false));
+        }
+        return new Schema("wide", columns, "id");
+    }
+
+    private static Tuple createTuple(Schema schema, int id) {
+        Tuple tuple = new Tuple(schema);
+        tuple.setValue(0, new Value(Types.INT, id));
+        tuple.setValue(1, new Value(Types.LONG, (long) id % 1000));
+        for (int i = 2; i < COLUMNS; i++) {
+            if (schema.getColumn(i).getType() == Types.VARCHAR) {
+                tuple.setValue(i, new Value(Types.VARCHAR, "value-" + id + "-" + i));
+            } else {
+                tuple.setValue(i, new Value(Types.DOUBLE, id * 0.25 + i));
+            }
+        }
+        return tuple;
+    }
+}
@@ -0,0 +1,171 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.RecordCodec;
+
+import java.util.BitSet;
+
+/**
+ * 记录编解码基准测试：比较逐值读写Page（每次写入都标记脏页、每次读取都复制）的旧实现
+ * 与RecordCodec在页面缓冲区上批量编解码的新实现（records/sec）
+ *
+ * 运行方式：./run-benchmark.sh RecordCodecBenchmark [记录数]
+ */
+public class RecordCodecBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Schema schema = PageSizeBenchmark.createSchema();
+        Tuple[] tuples = new Tuple[1024];
+        for (int i = 0; i < tuples.length; i++) {
+            tuples[i] = PageSizeBenchmark.createTuple(schema, i);
+        }
+        int recordSize = RecordCodec.recordSize(schema, tuples[tuples.length - 1]);
+        int perPage = (Page.PAGE_SIZE - Page.PAGE_HEADER_SIZE) / recordSize;
+        Page page = new Page(0);
+
+        System.out.println("记录数: " + records + ", 记录大小: ~" + recordSize + "B");
+        System.out.printf("%-8s %16s %16s %16s %16s%n", "轮次", "旧 encode/s", "新 encode/s", "旧 decode/s", "新 decode/s");
+        long checksum = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                LegacyCodec.write(page, offsetOf(i, perPage, recordSize), schema, tuples[i & 1023]);
+            }
+            long legacyEncode = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                RecordCodec.write(page, offsetOf(i, perPage, recordSize), schema, tuples[i & 1023]);
+            }
+            long newEncode = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                checksum += LegacyCodec.read(page, offsetOf(i, perPage, recordSize), schema).getValue(0).getInt();
+            }
+            long legacyDecode = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < records; i++) {
+                checksum -= RecordCodec.read(page, offsetOf(i, perPage, recordSize), schema).getValue(0).getInt();
+            }
+            long newDecode = System.nanoTime() - t0;
+
+            System.out.printf("%-8d %16.0f %16.0f %16.0f %16.0f%n", round,
+                    BenchmarkSupport.perSecond(records, legacyEncode), BenchmarkSupport.perSecond(records, newEncode),
+                    BenchmarkSupport.perSecond(records, legacyDecode), BenchmarkSupport.perSecond(records, newDecode));
+        }
+        if (checksum != 0) {
+            throw new IllegalStateException("checksum mismatch: " + checksum);
+        }
+    }
+
+    private static int offsetOf(int i, int perPage, int recordSize) {
+        return Page.PAGE_HEADER_SIZE + (i % perPage) * recordSize;
+    }
+
+    /**
+     * 旧实现：BitSet位图 + 逐值调用Page.writeXxx/readBytes
+     */
+    private static class LegacyCodec {
+        static void write(Page page, int offset, Schema schema, Tuple tuple) {
+            int currentOffset = offset;
+            BitSet nullBitmap = new BitSet(schema.getColumnCount());
+            byte[] nullBytes = new byte[(schema.getColumnCount() + 7) / 8];
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                Value value = tuple.getValue(i);
+                if (value == null || value.getValue() == null) {
+                    nullBitmap.set(i);
+                }
+            }
+            System.arraycopy(nullBitmap.toByteArray(), 0, nullBytes, 0,
+                    Math.min(nullBitmap.toByteArray().length, nullBytes.length));
+            page.writeBytes(currentOffset, nullBytes, 0, nullBytes.length);
+            currentOffset += nullBytes.length;
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                Value value = tuple.getValue(i);
+                if (!nullBitmap.get(i) && value != null) {
+                    currentOffset = writeValue(page, schema.getColumn(i).getType(), value, currentOffset);
+                }
+            }
+        }
+
+        static Tuple read(Page page, int offset, Schema schema) {
+            Tuple tuple = new Tuple(schema);
+            int currentOffset = offset;
+            int nullBitmapSize = (schema.getColumnCount() + 7) / 8;
+            byte[] nullBytes = new byte[nullBitmapSize];
+            page.readBytes(currentOffset, nullBytes, 0, nullBitmapSize);
+            BitSet nullBitmap = BitSet.valueOf(nullBytes);
+            currentOffset += nullBitmapSize;
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                if (!nullBitmap.get(i)) {
+                    Types type = schema.getColumn(i).getType();
+                    Value value = readValue(page, type, currentOffset);
+                    tuple.setValue(i, value);
+                    currentOffset += type.isFixedLength() ? type.getSize() : 4 + value.getString().getBytes().length;
+                } else {
+                    tuple.setValue(i, null);
+                }
+            }
+            return tuple;
+        }
+
+        private static int writeValue(Page page, Types type, Value value, int offset) {
+            switch (type) {
+                case INT:
+                    page.writeInt(offset, value.getInt());
+                    return offset + 4;
+                case LONG:
+                    page.writeLong(offset, value.getLong());
+                    return offset + 8;
+                case FLOAT:
+                    page.writeInt(offset, Float.floatToIntBits(value.getFloat()));
+                    return offset + 4;
+                case DOUBLE:
+                    page.writeLong(offset, Double.doubleToLongBits(value.getDouble()));
+                    return offset + 8;
+                case VARCHAR:
+                    byte[] strBytes = value.getString().getBytes();
+                    page.writeInt(offset, strBytes.length);
+                    page.writeBytes(offset + 4, strBytes, 0, strBytes.length);
+                    return offset + 4 + strBytes.length;
+                case BOOLEAN:
+                    page.writeBytes(offset, new byte[]{(byte) (value.getBoolean() ? 1 : 0)}, 0, 1);
+                    return offset + 1;
+                default:
+                    throw new RuntimeException("Unsupported type: " + type);
+            }
+        }
+
+        private static Value readValue(Page page, Types type, int offset) {
+            switch (type) {
+                case INT:
+                    return new Value(Types.INT, page.readInt(offset));
+                case LONG:
+                    return new Value(Types.LONG, page.readLong(offset));
+                case FLOAT:
+                    return new Value(Types.FLOAT, Float.intBitsToFloat(page.readInt(offset)));
+                case DOUBLE:
+                    return new Value(Types.DOUBLE, Double.longBitsToDouble(page.readLong(offset)));
+                case VARCHAR:
+                    int length = page.readInt(offset);
+                    byte[] strBytes = new byte[length];
+                    page.readBytes(offset + 4, strBytes, 0, length);
+                    return new Value(Types.VARCHAR, new String(strBytes));
+                case BOOLEAN:
+                    byte[] boolBytes = new byte[1];
+                    page.readBytes(offset, boolBytes, 0, 1);
+                    return new Value(Types.BOOLEAN, boolBytes[0] != 0);
+                default:
+                    throw new RuntimeException("Unsupported type: " + type);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.jdatabase.benchmark;
+
+import com.jdatabase.buffer.BufferAccessStrategy;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
+import com.jdatabase.buffer.ReplacementPolicy;
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 抗扫描基准测试：点查与并发全表扫描混合时各替换策略（及扫描使用环形缓冲时）的命中率
+ * 点查线程反复随机访问热点表（能完整放入缓冲池），两个扫描线程同时顺序扫描一张比缓冲池大得多的表。
+ * 点查与扫描按1:1的页面访问比例推进（点查线程等待扫描进度），结果不依赖线程调度和CPU数。
+ * 分别统计点查和扫描的命中率：扫描页面只访问一次，理想的策略不让它们挤出热点页面。
+ * 带"+ring"的配置中每个扫描线程使用默认大小（256KB）的BufferAccessStrategy。
+ *
+ * 运行方式：./run-benchmark.sh ScanResistanceBenchmark [扫描遍数]
+ */
+public class ScanResistanceBenchmark {
+    private static final String HOT_FILE = "hot.dat";
+    private static final String SCAN_FILE = "scan.dat";
+    private static final int HOT_PAGES = 1024;
+    private static final int SCAN_PAGES = 16384;
+    private static final int CAPACITY = 2048;
+    private static final int SCANNERS = 2;
+    private static final String[] POLICIES = {ReplacementPolicy.LRU, ReplacementPolicy.CLOCK, ReplacementPolicy.TWO_QUEUE};
+    private static final String RING = "+ring";
+
+    /**
+     * 统计每个线程实际读盘的次数（未命中由发起加载的线程读盘）
+     */
+    private static class CountingPageManager extends PageManager {
+        private final ThreadLocal<long[]> reads = ThreadLocal.withInitial(() -> new long[1]);
+
+        CountingPageManager(String dataDir) {
+            super(dataDir);
+        }
+
+        @Override
+        public Page readPage(String fileName, int pageId) throws IOException {
+            reads.get()[0]++;
+            return super.readPage(fileName, pageId);
+        }
+
+        long readsOfCurrentThread() {
+            return reads.get()[0];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path dir = Files.createTempDirectory("jdb-scan-bench");
+        CountingPageManager pageManager = new CountingPageManager(dir.toString());
+        try {
+            createFile(pageManager, HOT_FILE, HOT_PAGES);
+            createFile(pageManager, SCAN_FILE, SCAN_PAGES);
+            System.out.println("缓冲池: " + CAPACITY + "页，热点表: " + HOT_PAGES + "页，扫描表: " + SCAN_PAGES
+                    + "页，扫描遍数: " + passes);
+            System.out.println(String.format("%-12s %14s %12s %12s", "策略", "点查/s", "点查命中率", "扫描命中率"));
+            List<String> configs = new ArrayList<>();
+            for (String policy : POLICIES) {
+                configs.add(policy);
+            }
+            configs.add(ReplacementPolicy.LRU + RING);
+            configs.add(ReplacementPolicy.CLOCK + RING);
+            for (String config : configs) {
+                String policy = config.replace(RING, "");
+                BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(CAPACITY).setPolicy(policy),
+                        pageManager);
+                run(pool, pageManager, config, passes);
+            }
+        } finally {
+            pageManager.close();
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private static void createFile(PageManager pageManager, String fileName, int pageCount) throws Exception {
+        int first = pageManager.allocatePages(fileName, pageCount);
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < pageCount; i++) {
+            Page page = new Page(first + i);
+            page.writeInt(0, i);
+            pages.add(page);
+            if (pages.size() == 1024) {
+                pageManager.writePages(fileName, pages);
+                pages.clear();
+            }
+        }
+        pageManager.writePages(fileName, pages);
+    }
+
+    private static void run(BufferPool pool, CountingPageManager pageManager, String config, int passes)
+            throws Exception {
+        boolean ring = config.endsWith(RING);
+        // 预热：热点页面各访问两次
+        for (int round = 0; round < 2; round++) {
+            for (int pageId = 0; pageId < HOT_PAGES; pageId++) {
+                pool.unpinPage(pool.fetchPage(HOT_FILE, pageId), false);
+            }
+        }
+
+        AtomicInteger running = new AtomicInteger(SCANNERS);
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong scanReads = new AtomicLong();
+        List<Thread> scanners = new ArrayList<>();
+        for (int s = 0; s < SCANNERS; s++) {
+            // 两个扫描错开起点
+            int offset = s * SCAN_PAGES / SCANNERS;
+            scanners.add(new Thread(() -> {
+                try {
+                    for (int pass = 0; pass < passes; pass++) {
+                        // 每遍扫描是一个新的操作
+                        BufferAccessStrategy strategy = ring ? new BufferAccessStrategy() : null;
+                        for (int i = 0; i < SCAN_PAGES; i++) {
+                            int pageId = (offset + i) % SCAN_PAGES;
+                            pool.unpinPage(pool.fetchPage(SCAN_FILE, pageId, strategy), false);
+                            scanned.incrementAndGet();
+                        }
+                    }
+                    scanReads.addAndGet(pageManager.readsOfCurrentThread());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+
+        Random random = new Random(42);
+        long lookups = 0;
+        long readsBefore = pageManager.readsOfCurrentThread();
+        long t0 = System.nanoTime();
+        scanners.forEach(Thread::start);
+        while (running.get() > 0) {
+            if (lookups >= scanned.get()) {
+                Thread.yield();
+                continue;
+            }
+            int pageId = random.nextInt(HOT_PAGES);
+            pool.unpinPage(pool.fetchPage(HOT_FILE, pageId), false);
+            lookups++;
+        }
+        long nanos = System.nanoTime() - t0;
+        for (Thread scanner : scanners) {
+            scanner.join();
+        }
+
+        long lookupMisses = pageManager.readsOfCurrentThread() - readsBefore;
+        long scans = (long) SCANNERS * passes * SCAN_PAGES;
+        System.out.println(String.format("%-12s %14.0f %11.1f%% %11.1f%%", config,
+                BenchmarkSupport.perSecond(lookups, nanos),
+                100.0 * (lookups - lookupMisses) / lookups,
+                100.0 * (scans - scanReads.get()) / scans));
+    }
+}
@@ -0,0 +1,97 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 后台写线程测试
+ */
+public class BackgroundWriterTest {
+    private PageManager pageManager;
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws Exception {
+        pageManager = new PageManager(tempDir.toString());
+        pool = new BufferPool(16, pageManager);
+        // 缓冲池装满脏页
+        for (int pageId = 0; pageId < 16; pageId++) {
+            Page page = pool.newPage("test.dat", pageId);
+            page.latchExclusive();
+            try {
+                page.writeInt(0, pageId + 1);
+            } finally {
+                page.unlatchExclusive();
+            }
+            pool.unpinPage(page, true);
+        }
+    }
+
+    @Test
+    void testRoundKeepsFreeFrames() throws Exception {
+        assertEquals(0, pool.getFreeFrameCount());
+        assertEquals(16, pool.getDirtyPageCount());
+
+        BackgroundWriter writer = new BackgroundWriter(pool, 1000, 0.25, 100);
+        assertEquals(4, writer.writeRound());
+        assertEquals(4, pool.getFreeFrameCount());
+        assertEquals(12, writer.getDirtyPageCount());
+        assertEquals(4, writer.getStats().getPagesWritten());
+        assertEquals(4, writer.getStats().getLastRoundPages());
+        assertTrue(writer.getStats().getPagesPerSecond() > 0);
+
+        // 未命中直接使用空闲帧，查询线程不写回脏页
+        long writeBacks = pool.getWriteBackCount();
+        for (int pageId = 16; pageId < 20; pageId++) {
+            pool.unpinPage(pool.fetchPage("test.dat", pageId), false);
+        }
+        assertEquals(writeBacks, pool.getWriteBackCount());
+
+        // 写回的页面内容正确
+        PageManager reader = new PageManager(pageManager.getDataDir());
+        int written = 0;
+        for (int pageId = 0; pageId < 16; pageId++) {
+            int value = reader.readPage("test.dat", pageId).readInt(0);
+            if (value != 0) {
+                assertEquals(pageId + 1, value);
+                written++;
+            }
+        }
+        assertEquals(4, written);
+        reader.close();
+    }
+
+    @Test
+    void testRoundRespectsWriteLimit() throws Exception {
+        BackgroundWriter writer = new BackgroundWriter(pool, 1000, 0.5, 3);
+        assertEquals(3, writer.writeRound());
+        assertEquals(13, pool.getDirtyPageCount());
+        // 已写回的页面是干净的，下一轮直接替换
+        assertEquals(3, writer.writeRound());
+        assertTrue(pool.getFreeFrameCount() >= 3);
+        assertEquals(2, writer.getStats().getRounds());
+    }
+
+    @Test
+    void testBackgroundThread() throws Exception {
+        BackgroundWriter writer = new BackgroundWriter(pool, 10, 0.25, 100);
+        writer.start();
+        try {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (pool.getFreeFrameCount() < 4 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(pool.getFreeFrameCount() >= 4);
+        } finally {
+            writer.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BackgroundWriter(pool, 10, 1.5, 100));
+    }
+}
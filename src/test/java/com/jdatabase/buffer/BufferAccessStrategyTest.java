@@ -0,0 +1,104 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 环形缓冲访问策略测试
+ */
+public class BufferAccessStrategyTest {
+    private PageManager pageManager;
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws Exception {
+        pageManager = new PageManager(tempDir.toString());
+        pool = new BufferPool(64, pageManager);
+        // 热点页面访问两次
+        for (int round = 0; round < 2; round++) {
+            for (int pageId = 0; pageId < 32; pageId++) {
+                pool.unpinPage(pool.fetchPage("hot.dat", pageId), false);
+            }
+        }
+    }
+
+    @Test
+    void testScanRecyclesRingFrames() throws Exception {
+        BufferAccessStrategy strategy = new BufferAccessStrategy(8 * Page.PAGE_SIZE);
+        for (int pageId = 0; pageId < 1000; pageId++) {
+            pool.unpinPage(pool.fetchPage("scan.dat", pageId, strategy), false);
+        }
+        // 扫描只占用环中的8帧
+        assertEquals(992, strategy.getRecycledCount());
+        assertEquals(40, pool.getPageCount());
+
+        long misses = pool.getMissCount();
+        for (int pageId = 0; pageId < 32; pageId++) {
+            pool.unpinPage(pool.fetchPage("hot.dat", pageId), false);
+        }
+        assertEquals(misses, pool.getMissCount());
+    }
+
+    @Test
+    void testPageUsedByOthersIsNotRecycled() throws Exception {
+        BufferAccessStrategy strategy = new BufferAccessStrategy(4 * Page.PAGE_SIZE);
+        for (int pageId = 0; pageId < 4; pageId++) {
+            pool.unpinPage(pool.fetchPage("scan.dat", pageId, strategy), false);
+        }
+        // 普通访问命中环中的页面0，之后它按普通页面处理
+        pool.unpinPage(pool.fetchPage("scan.dat", 0), false);
+        // 被固定的页面1也不回收
+        Page pinned = pool.fetchPage("scan.dat", 1);
+
+        pool.unpinPage(pool.fetchPage("scan.dat", 4, strategy), false);
+        pool.unpinPage(pool.fetchPage("scan.dat", 5, strategy), false);
+        pool.unpinPage(pool.fetchPage("scan.dat", 6, strategy), false);
+        assertEquals(1, strategy.getRecycledCount());
+
+        long misses = pool.getMissCount();
+        pool.unpinPage(pool.fetchPage("scan.dat", 0), false);
+        assertEquals(misses, pool.getMissCount());
+        pool.unpinPage(pinned, false);
+    }
+
+    @Test
+    void testDirtyRingPagesWrittenBackWhenRecycled() throws Exception {
+        BufferAccessStrategy strategy = new BufferAccessStrategy(4 * Page.PAGE_SIZE);
+        for (int pageId = 0; pageId < 20; pageId++) {
+            Page page = pool.newPage("bulk.dat", pageId, strategy);
+            page.latchExclusive();
+            try {
+                page.writeInt(0, pageId + 1);
+            } finally {
+                page.unlatchExclusive();
+            }
+            pool.unpinPage(page, true);
+        }
+        assertEquals(16, strategy.getRecycledCount());
+        assertEquals(16, pool.getWriteBackCount());
+        assertEquals(36, pool.getPageCount());
+
+        pool.flushAll();
+        PageManager reader = new PageManager(pageManager.getDataDir());
+        for (int pageId = 0; pageId < 20; pageId++) {
+            assertEquals(pageId + 1, reader.readPage("bulk.dat", pageId).readInt(0));
+        }
+        reader.close();
+    }
+
+    @Test
+    void testSelectStrategyByEstimatedSize() {
+        assertNull(pool.selectStrategy(64L * Page.PAGE_SIZE / BufferAccessStrategy.POOL_FRACTION));
+        BufferAccessStrategy strategy = pool.selectStrategy(64L * Page.PAGE_SIZE);
+        assertNotNull(strategy);
+        assertEquals(BufferAccessStrategy.DEFAULT_RING_BYTES, strategy.getRingBytes());
+        assertThrows(IllegalArgumentException.class, () -> new BufferAccessStrategy(100));
+    }
+}
@@ -0,0 +1,330 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 缓冲池分区测试：容量划分、锁外读盘、同一页面只加载一次、页面锁下的并发读写
+ */
+public class BufferPoolPartitionTest {
+
+    /**
+     * 读指定页面时阻塞，直到测试放行
+     */
+    private static class BlockingPageManager extends PageManager {
+        final AtomicInteger reads = new AtomicInteger();
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final int blockedPageId;
+
+        BlockingPageManager(String dataDir, int blockedPageId) {
+            super(dataDir);
+            this.blockedPageId = blockedPageId;
+        }
+
+        @Override
+        public Page readPage(String fileName, int pageId) throws IOException {
+            reads.incrementAndGet();
+            if (pageId == blockedPageId) {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return super.readPage(fileName, pageId);
+        }
+    }
+
+    @Test
+    void testPartitionsSplitCapacity(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(1026).setPartitions(4), pageManager);
+        assertEquals(4, pool.getPartitionCount());
+
+        int[] counts = new int[4];
+        for (int pageId = 0; pageId < 1000; pageId++) {
+            counts[pool.partitionIndex("test.dat", pageId)]++;
+            pool.unpinPage(pool.fetchPage("test.dat", pageId), false);
+        }
+        for (int count : counts) {
+            assertTrue(count > 150, "pages should spread over partitions: " + count);
+        }
+        // 每个分区最多缓存约1/4容量，总页面数不超过容量
+        assertTrue(pool.getPageCount() <= 1026);
+        assertEquals(1000, pool.getMissCount());
+        pageManager.close();
+    }
+
+    @Test
+    void testAutomaticPartitionCount() {
+        // 小缓冲池不分区
+        assertEquals(1, new BufferPoolConfig().setCapacity(10).resolvePartitions());
+        int count = new BufferPoolConfig().setCapacity(1 << 20).resolvePartitions();
+        assertTrue(count >= 1 && Integer.bitCount(count) == 1);
+        assertEquals(2, new BufferPoolConfig().setCapacity(2).setPartitions(8).resolvePartitions());
+        assertThrows(IllegalArgumentException.class, () -> new BufferPoolConfig().setPartitions(3));
+    }
+
+    @Test
+    void testConcurrentMissesLoadPageOnce(@TempDir Path tempDir) throws Exception {
+        BlockingPageManager pageManager = new BlockingPageManager(tempDir.toString(), 7);
+        BufferPool pool = new BufferPool(16, pageManager);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Page>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> pool.fetchPage("test.dat", 7)));
+            }
+            assertTrue(pageManager.reading.await(10, TimeUnit.SECONDS));
+            pageManager.release.countDown();
+
+            Page first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Page> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, pageManager.reads.get());
+            assertEquals(1, pool.getMissCount());
+            assertEquals(7, pool.getHitCount());
+            for (int i = 0; i < 8; i++) {
+                pool.unpinPage(first, false);
+            }
+            assertEquals(0, pool.getPinnedCount());
+        } finally {
+            executor.shutdownNow();
+            pageManager.close();
+        }
+    }
+
+    @Test
+    void testMissDoesNotBlockOtherPagesInPartition(@TempDir Path tempDir) throws Exception {
+        BlockingPageManager pageManager = new BlockingPageManager(tempDir.toString(), 1);
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(16).setPartitions(1), pageManager);
+        pool.unpinPage(pool.fetchPage("test.dat", 0), false);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Page> blocked = executor.submit(() -> pool.fetchPage("test.dat", 1));
+            assertTrue(pageManager.reading.await(10, TimeUnit.SECONDS));
+
+            // 页面1正在读盘，同一分区中的命中和其他页面的未命中照常进行
+            pool.unpinPage(pool.fetchPage("test.dat", 0), false);
+            pool.unpinPage(pool.fetchPage("test.dat", 2), false);
+            assertFalse(blocked.isDone());
+
+            pageManager.release.countDown();
+            Page loaded = blocked.get(10, TimeUnit.SECONDS);
+            assertEquals(1, loaded.getPageId());
+            pool.unpinPage(loaded, false);
+            assertEquals(3, pool.getPageCount());
+        } finally {
+            executor.shutdownNow();
+            pageManager.close();
+        }
+    }
+
+    @Test
+    void testDiscardWaitsForUnpinWithoutBlockingPartition(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(16).setPartitions(1), pageManager);
+        Page page = pool.fetchPage("test.dat", 0);
+        pool.unpinPage(pool.fetchPage("test.dat", 1), false);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 丢弃等待页面0解除固定，同一分区中其他页面的命中和未命中照常进行
+            Future<?> discard = executor.submit(() -> {
+                pool.discardPage("test.dat", 0);
+                return null;
+            });
+            Thread.sleep(50);
+            Future<?> others = executor.submit(() -> {
+                pool.unpinPage(pool.fetchPage("test.dat", 1), false);
+                pool.unpinPage(pool.fetchPage("test.dat", 2), false);
+                return null;
+            });
+            others.get(10, TimeUnit.SECONDS);
+            assertFalse(discard.isDone());
+            assertEquals(3, pool.getPageCount());
+
+            pool.unpinPage(page, false);
+            discard.get(10, TimeUnit.SECONDS);
+            assertEquals(2, pool.getPageCount());
+
+            // 重新加载的是另一个页面对象，旧页面不能再被固定
+            Page reloaded = pool.fetchPage("test.dat", 0);
+            assertNotSame(page, reloaded);
+            assertFalse(page.tryPin());
+            assertThrows(IllegalStateException.class, () -> pool.unpinPage(page, false));
+            assertEquals(1, reloaded.getPinCount());
+            pool.unpinPage(reloaded, false);
+        } finally {
+            executor.shutdownNow();
+            pageManager.close();
+        }
+    }
+
+    @Test
+    void testRemoveWaitsForUnpinAndKeepsLaterWrites(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(16).setPartitions(1), pageManager);
+        Page page = pool.fetchPage("test.dat", 0);
+        page.latchExclusive();
+        try {
+            page.writeInt(0, 1);
+        } finally {
+            page.unlatchExclusive();
+        }
+        page.markDirty();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 移除先写回脏页，页面仍被固定时等待
+            Future<?> remove = executor.submit(() -> {
+                pool.removePage("test.dat", 0);
+                return null;
+            });
+            long deadline = System.currentTimeMillis() + 10000;
+            while (pool.getWriteBackCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, pool.getWriteBackCount());
+            assertFalse(remove.isDone());
+
+            // 写回之后的修改在解除固定后再次写回，不会随页面一起丢弃
+            page.latchExclusive();
+            try {
+                page.writeInt(0, 2);
+            } finally {
+                page.unlatchExclusive();
+            }
+            pool.unpinPage(page, true);
+            remove.get(10, TimeUnit.SECONDS);
+            assertEquals(0, pool.getPageCount());
+            assertFalse(page.tryPin());
+
+            Page reloaded = pool.fetchPage("test.dat", 0);
+            assertEquals(2, reloaded.readInt(0));
+            pool.unpinPage(reloaded, false);
+        } finally {
+            executor.shutdownNow();
+            pageManager.close();
+        }
+    }
+
+    @Test
+    void testDirtyVictimWrittenBackBeforeReuse(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(2, pageManager);
+        for (int pageId = 0; pageId < 6; pageId++) {
+            Page page = pool.fetchPage("test.dat", pageId);
+            page.latchExclusive();
+            try {
+                page.writeInt(0, pageId + 100);
+            } finally {
+                page.unlatchExclusive();
+            }
+            pool.unpinPage(page, true);
+        }
+        assertTrue(pool.getUsedBytes() <= 2L * Page.PAGE_SIZE);
+        for (int pageId = 0; pageId < 6; pageId++) {
+            Page page = pool.fetchPage("test.dat", pageId);
+            assertEquals(pageId + 100, page.readInt(0));
+            pool.unpinPage(page, false);
+        }
+        pageManager.close();
+    }
+
+    @Test
+    void testConcurrentLatchedReadersAndWriters(@TempDir Path tempDir) throws Exception {
+        runLatchedReadersAndWriters(tempDir.resolve("heap"), false);
+        // 堆外帧被反复复用
+        runLatchedReadersAndWriters(tempDir.resolve("offheap"), true);
+    }
+
+    private void runLatchedReadersAndWriters(Path dir, boolean offHeap) throws Exception {
+        PageManager pageManager = new PageManager(dir.toString());
+        // 缓冲池只能放下一半的页面，读写与替换、写回、后台写线程并发进行
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(32).setPartitions(2)
+                .setOffHeap(offHeap), pageManager);
+        BackgroundWriter writer = new BackgroundWriter(pool, 1, 0.25, 8);
+        int pages = 64;
+        int threads = 8;
+        int operations = 3000;
+        AtomicIntegerArray expected = new AtomicIntegerArray(pages);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        writer.start();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < operations; i++) {
+                        int pageId = random.nextInt(pages);
+                        boolean write = random.nextInt(4) == 0;
+                        Page page = pool.fetchPage("test.dat", pageId);
+                        try {
+                            if (write) {
+                                // 两个字段分开写，写者不串行时读者会看到不一致的值
+                                page.latchExclusive();
+                                try {
+                                    int value = page.readInt(0) + 1;
+                                    page.writeInt(0, value);
+                                    page.writeInt(8, value);
+                                } finally {
+                                    page.unlatchExclusive();
+                                }
+                                expected.incrementAndGet(pageId);
+                            } else {
+                                page.latchShared();
+                                try {
+                                    assertEquals(page.readInt(0), page.readInt(8));
+                                } finally {
+                                    page.unlatchShared();
+                                }
+                            }
+                        } finally {
+                            pool.unpinPage(page, write);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writer.close();
+            executor.shutdownNow();
+        }
+        assertEquals(0, pool.getPinnedCount());
+
+        // 写回后从磁盘读取，所有修改都没有丢失
+        pool.clear();
+        for (int pageId = 0; pageId < pages; pageId++) {
+            Page page = pool.fetchPage("test.dat", pageId);
+            assertEquals(expected.get(pageId), page.readInt(0));
+            assertEquals(expected.get(pageId), page.readInt(8));
+            pool.unpinPage(page, false);
+        }
+        pageManager.close();
+    }
+}
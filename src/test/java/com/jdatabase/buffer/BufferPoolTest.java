@@ -2,6 +2,7 @@ package com.jdatabase.buffer;
 
 import com.jdatabase.storage.Page;
 import com.jdatabase.storage.PageManager;
+import com.jdatabase.storage.StorageOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -89,5 +90,160 @@ public class BufferPoolTest {
         Page page = bufferPool.getPage(fileName, 0);
         assertNotNull(page);
     }
-}
 
+    @Test
+    void testClearKeepsPinnedPages() throws Exception {
+        Page pinned = bufferPool.fetchPage("test.dat", 0);
+        pinned.writeInt(0, 7);
+        Page other = bufferPool.fetchPage("test.dat", 1);
+        other.writeInt(0, 8);
+        bufferPool.unpinPage(other, true);
+
+        // 被固定的页面留在缓冲池中，脏页写回后移除
+        bufferPool.clear();
+        assertEquals(1, bufferPool.getPageCount());
+        assertEquals(0, bufferPool.getDirtyPageCount());
+        bufferPool.unpinPage(pinned, false);
+        assertEquals(8, pageManager.readPage("test.dat", 1).readInt(0));
+        assertEquals(7, pageManager.readPage("test.dat", 0).readInt(0));
+    }
+
+    @Test
+    void testCapacityCountsPageBytes() throws Exception {
+        pageManager.setFileOptions("large.dat", new StorageOptions().setPageSize(16384));
+        BufferPool smallPool = new BufferPool(8, pageManager);
+
+        // 一个16KB页面占用4个默认页面的额度，容量8只能同时缓存两个大页面
+        smallPool.getPage("large.dat", 0);
+        smallPool.getPage("large.dat", 1);
+        assertEquals(2 * 16384, smallPool.getUsedBytes());
+        smallPool.getPage("large.dat", 2);
+        assertEquals(2 * 16384, smallPool.getUsedBytes());
+
+        smallPool.getPage("small.dat", 0);
+        assertTrue(smallPool.getUsedBytes() <= 8L * Page.PAGE_SIZE);
+    }
+
+    @Test
+    void testPinnedPageNotEvicted() throws Exception {
+        BufferPool smallPool = new BufferPool(2, pageManager);
+        Page pinned = smallPool.fetchPage("test.dat", 0);
+        assertEquals(1, pinned.getPinCount());
+
+        // 被固定的页面即使最久未访问也不会被替换
+        smallPool.getPage("test.dat", 1);
+        smallPool.getPage("test.dat", 2);
+        assertSame(pinned, smallPool.fetchPage("test.dat", 0));
+        assertEquals(2, pinned.getPinCount());
+        assertEquals(1, smallPool.getPinnedCount());
+
+        // 所有页面都被固定时无法加载新页面
+        Page other = smallPool.fetchPage("test.dat", 1);
+        assertThrows(RuntimeException.class, () -> smallPool.fetchPage("test.dat", 3));
+
+        smallPool.unpinPage(pinned, false);
+        smallPool.unpinPage(pinned, false);
+        smallPool.unpinPage(other, false);
+        assertEquals(0, smallPool.getPinnedCount());
+        assertNotNull(smallPool.fetchPage("test.dat", 3));
+        assertThrows(IllegalStateException.class, () -> smallPool.unpinPage(pinned, false));
+    }
+
+    @Test
+    void testDirtyPageWrittenBackOnEviction() throws Exception {
+        BufferPool smallPool = new BufferPool(1, pageManager);
+        Page page = smallPool.fetchPage("test.dat", 0);
+        page.writeInt(0, 42);
+        smallPool.unpinPage(page, true);
+
+        // 修改尚未写入磁盘
+        assertEquals(0, new PageManager(pageManager.getDataDir()).readPage("test.dat", 0).readInt(0));
+
+        // 加载另一个页面时替换脏页并写回
+        smallPool.unpinPage(smallPool.fetchPage("test.dat", 1), false);
+        assertEquals(1, smallPool.getWriteBackCount());
+        assertEquals(42, new PageManager(pageManager.getDataDir()).readPage("test.dat", 0).readInt(0));
+        assertEquals(42, smallPool.fetchPage("test.dat", 0).readInt(0));
+        assertEquals(3, smallPool.getMissCount());
+    }
+
+    @Test
+    void testDistinctPagesWithEqualHashesDoNotCollide() throws Exception {
+        // Objects.hash("a.dat", 28629151) == Objects.hash("b.dat", 0)
+        assertEquals(java.util.Objects.hash("a.dat", 28629151), java.util.Objects.hash("b.dat", 0));
+        Page a = bufferPool.fetchPage("a.dat", 28629151);
+        a.writeInt(0, 1);
+        bufferPool.unpinPage(a, true);
+        Page b = bufferPool.fetchPage("b.dat", 0);
+        bufferPool.unpinPage(b, false);
+
+        assertNotSame(a, b);
+        assertEquals(0, b.readInt(0));
+        assertEquals(1, bufferPool.getPage("a.dat", 28629151).readInt(0));
+        assertEquals(2, bufferPool.getPageCount());
+    }
+
+    @Test
+    void testOffHeapPageRoundTrip(@TempDir Path tempDir) throws Exception {
+        PageManager manager = new PageManager(tempDir.resolve("offheap").toString());
+        manager.setFileOptions("big.dat", new StorageOptions().setPageSize(16384));
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(4).setPartitions(1).setOffHeap(true),
+                manager);
+        assertEquals(4, pool.getFrameArena().getFrameCount());
+        assertNull(bufferPool.getFrameArena());
+
+        // 4倍于容量的页面，帧被反复复用，脏页写回后重新读入
+        for (int pageId = 0; pageId < 16; pageId++) {
+            Page page = pool.fetchPage("test.dat", pageId);
+            assertTrue(page.getBuffer().isDirect());
+            assertEquals(0, page.readInt(0));
+            page.writeInt(0, pageId + 1);
+            page.writeInt(Page.PAGE_SIZE - 4, pageId + 1);
+            pool.unpinPage(page, true);
+        }
+        for (int pageId = 0; pageId < 16; pageId++) {
+            Page page = pool.fetchPage("test.dat", pageId);
+            assertEquals(pageId + 1, page.readInt(0));
+            assertEquals(pageId + 1, page.readInt(Page.PAGE_SIZE - 4));
+            pool.unpinPage(page, false);
+        }
+        // 新页面使用复用的帧时内容清零
+        Page fresh = pool.newPage("test.dat", 100);
+        assertEquals(0, fresh.readInt(0));
+        assertEquals(0, fresh.readInt(Page.PAGE_SIZE - 4));
+        pool.unpinPage(fresh, false);
+
+        // 大小不同于帧的页面在堆内分配
+        Page big = pool.fetchPage("big.dat", 0);
+        assertEquals(16384, big.getPageSize());
+        assertFalse(big.getBuffer().isDirect());
+        pool.unpinPage(big, false);
+        manager.close();
+    }
+
+    @Test
+    void testOffHeapFrameNotReusedWhilePinned(@TempDir Path tempDir) throws Exception {
+        PageManager manager = new PageManager(tempDir.resolve("offheap").toString());
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(2).setPartitions(1).setOffHeap(true),
+                manager);
+        Page page = pool.fetchPage("test.dat", 0);
+        page.writeInt(0, 42);
+        // 页面被新页面替换时仍被固定，帧退役
+        pool.unpinPage(pool.newPage("test.dat", 0), false);
+        for (int pageId = 1; pageId < 8; pageId++) {
+            Page other = pool.fetchPage("test.dat", pageId);
+            other.writeInt(0, pageId);
+            pool.unpinPage(other, true);
+        }
+        assertEquals(42, page.readInt(0));
+
+        // 解除固定后帧被回收，旧页面不能再被固定
+        pool.unpinPage(page, false);
+        for (int pageId = 8; pageId < 12; pageId++) {
+            pool.unpinPage(pool.fetchPage("test.dat", pageId), false);
+        }
+        assertEquals(2, pool.getPageCount());
+        assertFalse(page.tryPin());
+        manager.close();
+    }
+}
@@ -0,0 +1,173 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 检查点测试
+ */
+public class CheckpointerTest {
+
+    /**
+     * 记录写回顺序
+     */
+    private static class RecordingPageManager extends PageManager {
+        final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingPageManager(String dataDir) {
+            super(dataDir);
+        }
+
+        @Override
+        public void writePage(String fileName, Page page) throws IOException {
+            writes.add(fileName + "#" + page.getPageId());
+            super.writePage(fileName, page);
+        }
+    }
+
+    /**
+     * 记录写回时缓冲池中被固定的最大页面数
+     */
+    private static class PinCountingPageManager extends PageManager {
+        BufferPool pool;
+        int maxPinned;
+
+        PinCountingPageManager(String dataDir) {
+            super(dataDir);
+        }
+
+        @Override
+        public void writePage(String fileName, Page page) throws IOException {
+            maxPinned = Math.max(maxPinned, pool.getPinnedCount());
+            super.writePage(fileName, page);
+        }
+    }
+
+    @Test
+    void testCheckpointWritesInFileAndPageOrder(@TempDir Path tempDir) throws Exception {
+        RecordingPageManager pageManager = new RecordingPageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(64).setPartitions(4), pageManager);
+        // 两个文件的页面交错、乱序修改
+        pool.getPage("a.dat", 0);
+        pool.getPage("b.dat", 0);
+        List<String> expected = new ArrayList<>();
+        for (String file : new String[]{"a.dat", "b.dat"}) {
+            for (int pageId = 0; pageId < 10; pageId++) {
+                expected.add(file + "#" + pageId);
+            }
+        }
+        for (int i = 9; i >= 0; i--) {
+            for (String file : new String[]{"b.dat", "a.dat"}) {
+                Page page = pool.fetchPage(file, i);
+                page.latchExclusive();
+                try {
+                    page.writeInt(0, i + 1);
+                } finally {
+                    page.unlatchExclusive();
+                }
+                pool.unpinPage(page, true);
+            }
+        }
+        assertEquals(20, pool.getDirtyPageCount());
+
+        Checkpointer checkpointer = new Checkpointer(pool, 60000, 0);
+        assertEquals(20, checkpointer.checkpoint());
+        assertEquals(expected, pageManager.writes);
+        assertEquals(0, checkpointer.getDirtyPageCount());
+        assertEquals(0, pool.getPinnedCount());
+        assertEquals(20, checkpointer.getStats().getPagesWritten());
+
+        // 没有脏页时不写
+        assertEquals(0, checkpointer.checkpoint());
+        assertEquals(20, pageManager.writes.size());
+        pageManager.close();
+    }
+
+    @Test
+    void testCheckpointIsRateLimited(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(64, pageManager);
+        for (int pageId = 0; pageId < 20; pageId++) {
+            pool.unpinPage(pool.newPage("test.dat", pageId), true);
+        }
+        Checkpointer checkpointer = new Checkpointer(pool, 60000, 100);
+        long start = System.nanoTime();
+        assertEquals(20, checkpointer.checkpoint());
+        // 100页/秒，20个页面至少约200毫秒
+        assertTrue(System.nanoTime() - start >= 190_000_000L);
+        assertTrue(checkpointer.getStats().getPagesPerSecond() <= 110);
+        pageManager.close();
+    }
+
+    @Test
+    void testCloseFinishesThrottledCheckpoint(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(64, pageManager);
+        for (int pageId = 0; pageId < 10; pageId++) {
+            pool.unpinPage(pool.newPage("test.dat", pageId), true);
+        }
+        // 每秒1页，不关闭需要约10秒
+        Checkpointer checkpointer = new Checkpointer(pool, 1, 1);
+        checkpointer.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pool.getDirtyPageCount() == 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        long start = System.nanoTime();
+        checkpointer.close();
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(0, pool.getDirtyPageCount());
+        // 关闭不中断线程，文件通道仍然可用
+        pool.clear();
+        assertNotNull(pool.fetchPage("test.dat", 3));
+        pageManager.close();
+    }
+
+    @Test
+    void testCheckpointPinsOnePageAtATime(@TempDir Path tempDir) throws Exception {
+        PinCountingPageManager pageManager = new PinCountingPageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(16, pageManager);
+        pageManager.pool = pool;
+        for (int pageId = 0; pageId < 8; pageId++) {
+            pool.unpinPage(pool.newPage("test.dat", pageId), true);
+        }
+        assertEquals(8, pool.collectDirtyPages().size());
+        assertEquals(0, pool.getPinnedCount());
+
+        // 写回某个页面时，其余脏页都没有被固定
+        assertEquals(8, new Checkpointer(pool, 60000, 0).checkpoint());
+        assertEquals(1, pageManager.maxPinned);
+        assertEquals(0, pool.getPinnedCount());
+        pageManager.close();
+    }
+
+    @Test
+    void testDiscardedPageNotWrittenByCheckpoint(@TempDir Path tempDir) throws Exception {
+        RecordingPageManager pageManager = new RecordingPageManager(tempDir.toString());
+        BufferPool pool = new BufferPool(16, pageManager);
+        pool.unpinPage(pool.newPage("drop.dat", 0), true);
+        pool.unpinPage(pool.newPage("keep.dat", 0), true);
+        List<DirtyPage> dirtyPages = pool.collectDirtyPages();
+        assertEquals(2, dirtyPages.size());
+
+        // 检查点收集脏页之后、写回之前文件被删除：丢弃不必等待检查点，被丢弃的页面不再写回
+        pool.discardFile("drop.dat");
+        dirtyPages.sort(Comparator.comparingLong(DirtyPage::getKey));
+        for (DirtyPage dirtyPage : dirtyPages) {
+            dirtyPage.write();
+        }
+        assertEquals(Collections.singletonList("keep.dat#0"), pageManager.writes);
+        pageManager.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.jdatabase.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 堆外帧区测试
+ */
+public class FrameArenaTest {
+
+    @Test
+    void testFramesSpanSlabs() {
+        // 每块16KB（4帧），10帧分为3块
+        FrameArena arena = new FrameArena(10, 4096, 16384);
+        assertEquals(3, arena.getSlabCount());
+        assertEquals(10L * 4096, arena.getCapacityBytes());
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer frame = arena.frame(i);
+            assertTrue(frame.isDirect());
+            assertEquals(4096, frame.capacity());
+            frame.putInt(0, i + 1);
+            frame.putInt(4092, i + 1);
+        }
+        // 帧之间不重叠，同一帧的视图共享内容
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, arena.frame(i).getInt(0));
+            assertEquals(i + 1, arena.frame(i).getInt(4092));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.frame(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.frame(-1));
+    }
+
+    @Test
+    void testZeroedFrame() {
+        FrameArena arena = new FrameArena(2, 4096);
+        assertEquals(1, arena.getSlabCount());
+        arena.frame(1).putLong(100, -1L);
+        ByteBuffer zeroed = arena.zeroedFrame(1);
+        assertEquals(0, zeroed.position());
+        assertEquals(0L, zeroed.getLong(100));
+        assertEquals(0L, arena.frame(1).getLong(100));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FrameArena(0, 4096));
+        assertThrows(IllegalArgumentException.class, () -> new FrameArena(4, 3000));
+        assertThrows(IllegalArgumentException.class, () -> new FrameArena(4, 8192, 4096));
+    }
+}
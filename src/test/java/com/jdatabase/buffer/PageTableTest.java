@@ -0,0 +1,68 @@
+package com.jdatabase.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 页表和文件编号测试
+ */
+public class PageTableTest {
+
+    @Test
+    void testPutGetRemove() {
+        PageTable table = new PageTable(4);
+        long key = FileIdRegistry.pageKey(1, 7);
+        assertEquals(-1, table.get(key));
+        table.put(key, 3);
+        table.put(FileIdRegistry.pageKey(7, 1), 4);
+        assertEquals(3, table.get(key));
+        assertEquals(4, table.get(FileIdRegistry.pageKey(7, 1)));
+        assertEquals(2, table.size());
+
+        assertEquals(3, table.remove(key));
+        assertEquals(-1, table.remove(key));
+        assertEquals(-1, table.get(key));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        // 小表频繁扩容，删除时向前移动的条目跨越数组末尾
+        PageTable table = new PageTable(8);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            long key = FileIdRegistry.pageKey(random.nextInt(4), random.nextInt(2000));
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : -1, table.remove(key));
+            } else {
+                expected.put(key, i);
+                table.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), table.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void testFileIdRegistry() {
+        FileIdRegistry registry = new FileIdRegistry();
+        int users = registry.getFileId("users.dat");
+        int orders = registry.getFileId("orders.dat");
+        assertNotEquals(users, orders);
+        assertEquals(users, registry.getFileId("users.dat"));
+        assertEquals("orders.dat", registry.getFileName(orders));
+
+        long key = FileIdRegistry.pageKey(orders, Integer.MAX_VALUE);
+        assertEquals(orders, FileIdRegistry.fileIdOf(key));
+        assertEquals(Integer.MAX_VALUE, FileIdRegistry.pageIdOf(key));
+    }
+}
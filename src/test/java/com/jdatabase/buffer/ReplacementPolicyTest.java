@@ -0,0 +1,127 @@
+package com.jdatabase.buffer;
+
+import com.jdatabase.storage.Page;
+import com.jdatabase.storage.PageManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 替换策略测试
+ */
+public class ReplacementPolicyTest {
+
+    @Test
+    void testLruEvictsLeastRecentlyUsed() {
+        ReplacementPolicy lru = ReplacementPolicy.create(ReplacementPolicy.LRU, 3);
+        lru.onInstall(0);
+        lru.onInstall(1);
+        lru.onInstall(2);
+        lru.onAccess(0);
+        assertEquals(1, lru.selectVictim(frame -> true));
+        // 跳过不可替换（被固定）的帧
+        assertEquals(2, lru.selectVictim(frame -> frame != 1));
+        lru.onRemove(1);
+        assertEquals(2, lru.selectVictim(frame -> true));
+        assertEquals(-1, lru.selectVictim(frame -> false));
+        assertFalse(lru.isConcurrentAccess());
+    }
+
+    @Test
+    void testClockGivesSecondChance() {
+        ReplacementPolicy clock = ReplacementPolicy.create(ReplacementPolicy.CLOCK, 3);
+        clock.onInstall(0);
+        clock.onInstall(1);
+        clock.onInstall(2);
+        // 所有引用位都为1：第一圈清零，第二圈替换指针处的帧
+        assertEquals(0, clock.selectVictim(frame -> true));
+        clock.onRemove(0);
+        clock.onInstall(0);
+
+        // 最近访问过的帧获得第二次机会
+        clock.onAccess(1);
+        assertEquals(2, clock.selectVictim(frame -> true));
+        assertEquals(-1, clock.selectVictim(frame -> false));
+        assertTrue(clock.isConcurrentAccess());
+        assertThrows(IllegalArgumentException.class, () -> ReplacementPolicy.create("fifo", 3));
+    }
+
+    @Test
+    void testTwoQueuePromotesOnSecondAccess() {
+        ReplacementPolicy twoQueue = ReplacementPolicy.create(ReplacementPolicy.TWO_QUEUE, 4);
+        twoQueue.onInstall(0);
+        twoQueue.onInstall(1);
+        twoQueue.onInstall(2);
+        // 帧0第二次被访问，进入保护队列；试用队列按进入顺序替换
+        twoQueue.onAccess(0);
+        assertEquals(1, twoQueue.selectVictim(frame -> true));
+        assertEquals(2, twoQueue.selectVictim(frame -> frame != 1));
+        // 试用队列没有可替换的帧时才替换保护队列
+        assertEquals(0, twoQueue.selectVictim(frame -> frame == 0));
+        twoQueue.onRemove(1);
+        twoQueue.onRemove(2);
+        assertEquals(0, twoQueue.selectVictim(frame -> true));
+
+        // 保护队列最多3帧，超出时最久未访问的帧降回试用队列
+        twoQueue.onInstall(1);
+        twoQueue.onInstall(2);
+        twoQueue.onInstall(3);
+        twoQueue.onAccess(1);
+        twoQueue.onAccess(2);
+        twoQueue.onAccess(3);
+        assertEquals(3, ((TwoQueuePolicy) twoQueue).getProtectedSize());
+        assertEquals(0, twoQueue.selectVictim(frame -> true));
+        assertFalse(twoQueue.isConcurrentAccess());
+    }
+
+    @Test
+    void testTwoQueueKeepsHotPagesDuringScan(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        for (String policy : new String[]{ReplacementPolicy.LRU, ReplacementPolicy.TWO_QUEUE}) {
+            BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(8).setPolicy(policy), pageManager);
+            // 热点页面0~3各访问两次
+            for (int round = 0; round < 2; round++) {
+                for (int pageId = 0; pageId < 4; pageId++) {
+                    pool.unpinPage(pool.fetchPage("hot.dat", pageId), false);
+                }
+            }
+            // 扫描100个只访问一次的页面
+            for (int pageId = 0; pageId < 100; pageId++) {
+                pool.unpinPage(pool.fetchPage("scan.dat", pageId), false);
+            }
+            long misses = pool.getMissCount();
+            for (int pageId = 0; pageId < 4; pageId++) {
+                pool.unpinPage(pool.fetchPage("hot.dat", pageId), false);
+            }
+            if (policy.equals(ReplacementPolicy.LRU)) {
+                assertEquals(misses + 4, pool.getMissCount());
+            } else {
+                assertEquals(misses, pool.getMissCount());
+            }
+        }
+    }
+
+    @Test
+    void testBufferPoolWithEachPolicy(@TempDir Path tempDir) throws Exception {
+        PageManager pageManager = new PageManager(tempDir.toString());
+        for (String policy : new String[]{ReplacementPolicy.LRU, ReplacementPolicy.CLOCK, ReplacementPolicy.TWO_QUEUE}) {
+            BufferPool pool = new BufferPool(new BufferPoolConfig().setCapacity(4).setPolicy(policy), pageManager);
+            Page hot = pool.fetchPage("test.dat", 0);
+            hot.writeInt(0, 7);
+            pool.unpinPage(hot, true);
+            for (int pageId = 1; pageId < 20; pageId++) {
+                // 每次加载新页面之前访问一次热点页面
+                pool.unpinPage(pool.fetchPage("test.dat", 0), false);
+                pool.unpinPage(pool.fetchPage("test.dat", pageId), false);
+            }
+            assertEquals(4, pool.getPageCount());
+            // 热点页面几乎总是命中（CLOCK在所有引用位都被置位时可能替换一次热点页面）
+            assertTrue(pool.getMissCount() - 19 <= 2, policy);
+            assertEquals(7, pool.getPage("test.dat", 0).readInt(0));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BufferPoolConfig().setPolicy("random"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.jdatabase.catalog;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Types;
+import com.jdatabase.storage.PageFileMode;
+import com.jdatabase.storage.PageLayout;
+import com.jdatabase.storage.StorageOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 元数据目录测试
+ */
+public class CatalogTest {
+
+    private Schema createSchema(String tableName) {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("name", Types.VARCHAR, 50, true, false));
+        return new Schema(tableName, columns, "id");
+    }
+
+    @Test
+    void testStorageOptionsPersisted(@TempDir Path tempDir) {
+        Catalog catalog = new Catalog(tempDir.toString());
+        catalog.createTable(createSchema("hot"));
+        catalog.createTable(createSchema("archive"), new StorageOptions().setFileMode(PageFileMode.MMAP));
+        catalog.close();
+
+        Catalog reopened = new Catalog(tempDir.toString());
+        try {
+            assertTrue(reopened.tableExists("hot"));
+            assertEquals(PageFileMode.CHANNEL, reopened.getStorageOptions("hot").getFileMode());
+            assertEquals(PageFileMode.MMAP, reopened.getStorageOptions("archive").getFileMode());
+            assertEquals(PageFileMode.MMAP,
+                    reopened.getPageManager().getFileOptions("archive.dat").getFileMode());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testDatabaseDefaultOptionsInherited(@TempDir Path tempDir) {
+        Catalog catalog = new Catalog(tempDir.toString(), new StorageOptions().setFileMode(PageFileMode.MMAP));
+        try {
+            catalog.createTable(createSchema("t"));
+            assertEquals(PageFileMode.MMAP, catalog.getStorageOptions("t").getFileMode());
+        } finally {
+            catalog.close();
+        }
+    }
+
+    @Test
+    void testPageSizePersisted(@TempDir Path tempDir) {
+        Catalog catalog = new Catalog(tempDir.toString(), new StorageOptions().setPageSize(8192));
+        catalog.createTable(createSchema("lookup"));
+        catalog.createTable(createSchema("analytic"), new StorageOptions().setPageSize(32768));
+        catalog.close();
+
+        Catalog reopened = new Catalog(tempDir.toString());
+        try {
+            assertEquals(8192, reopened.getStorageOptions("lookup").getPageSize());
+            assertEquals(32768, reopened.getStorageOptions("analytic").getPageSize());
+            assertEquals(32768, reopened.getPageManager().getPageSize("analytic.dat"));
+            assertEquals(16384, new StorageOptions().setOption("page_size", "16K").getPageSize());
+            assertEquals(16384, new StorageOptions().setOption("page_size", "16KB").getPageSize());
+            assertThrows(RuntimeException.class, () -> new StorageOptions().setOption("page_size", "4194304K"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testLayoutPersisted(@TempDir Path tempDir) {
+        Catalog catalog = new Catalog(tempDir.toString());
+        catalog.createTable(createSchema("facts"), new StorageOptions().setOption("layout", "pax"));
+        catalog.createTable(createSchema("rows"));
+        catalog.close();
+
+        Catalog reopened = new Catalog(tempDir.toString());
+        try {
+            assertEquals(PageLayout.PAX, reopened.getStorageOptions("facts").getLayout());
+            assertEquals(PageLayout.ROW, reopened.getStorageOptions("rows").getLayout());
+            assertEquals(PageLayout.PAX, reopened.getPageManager().getFileOptions("facts.dat").getLayout());
+        } finally {
+            reopened.close();
+        }
+    }
+}
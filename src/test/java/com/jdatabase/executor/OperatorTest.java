@@ -8,7 +8,10 @@ import com.jdatabase.common.Value;
 import com.jdatabase.index.IndexManager;
 import com.jdatabase.parser.ast.Expression;
 import com.jdatabase.parser.ast.SelectStatement;
+import com.jdatabase.storage.PageLayout;
+import com.jdatabase.storage.RecordId;
 import com.jdatabase.storage.StorageManager;
+import com.jdatabase.storage.StorageOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -23,12 +26,13 @@ import static org.junit.jupiter.api.Assertions.*;
  * 执行器操作符测试
  */
 public class OperatorTest {
+    private Catalog catalog;
     private StorageManager storageManager;
     private Schema schema;
 
     @BeforeEach
     void setUp(@TempDir Path tempDir) {
-        Catalog catalog = new Catalog(tempDir.toString());
+        catalog = new Catalog(tempDir.toString());
         IndexManager indexManager = new IndexManager(tempDir.toString());
         storageManager = new StorageManager(catalog, indexManager);
         
@@ -115,5 +119,142 @@ public class OperatorTest {
         
         assertEquals(5, count);
     }
-}
 
+    @Test
+    void testSeqScanOperatorWithColumnMask() throws Exception {
+        java.util.BitSet columns = new java.util.BitSet();
+        columns.set(2);
+        Operator scan = new SeqScanOperator(storageManager, "users", schema, columns);
+
+        scan.open();
+        int count = 0;
+        while (scan.hasNext()) {
+            Tuple tuple = scan.next();
+            // 只解码age列，其余列为null
+            assertNull(tuple.getValue(0));
+            assertNull(tuple.getValue(1));
+            assertEquals(20 + count, tuple.getValue(2).getInt());
+            count++;
+        }
+        scan.close();
+        assertEquals(5, count);
+    }
+
+    @Test
+    void testSeqScanOperatorWithDictionaryFilter() throws Exception {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("country", Types.VARCHAR, 20, true, false));
+        Schema orders = new Schema("orders", columns, "id");
+        catalog.createTable(orders, new StorageOptions().setOption(StorageOptions.DICTIONARY, "country"));
+        assertTrue(storageManager.isDictionaryEncoded("orders", "country"));
+        assertFalse(storageManager.isDictionaryEncoded("orders", "id"));
+        String[] countries = {"CN", "US", "DE", "FR"};
+        for (int i = 0; i < 200; i++) {
+            Tuple tuple = new Tuple(orders);
+            tuple.setValue(0, new Value(Types.INT, i));
+            tuple.setValue(1, new Value(Types.VARCHAR, countries[i % countries.length]));
+            storageManager.insertTuple("orders", tuple);
+        }
+
+        java.util.Map<Integer, String> filters = new java.util.HashMap<>();
+        filters.put(1, "DE");
+        Operator scan = new SeqScanOperator(storageManager, "orders", orders, null, filters);
+        scan.open();
+        int count = 0;
+        while (scan.hasNext()) {
+            assertEquals("DE", scan.next().getValue(1).getString());
+            count++;
+        }
+        scan.close();
+        assertEquals(50, count);
+
+        // 字典编码只能用于VARCHAR列
+        List<Schema.Column> badColumns = new ArrayList<>();
+        badColumns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        assertThrows(RuntimeException.class, () -> catalog.createTable(new Schema("bad", badColumns, "id"),
+                new StorageOptions().setOption(StorageOptions.DICTIONARY, "id")));
+    }
+
+    @Test
+    void testColumnarAggregateOperator() throws Exception {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, false));
+        columns.add(new Schema.Column("category", Types.VARCHAR, 20, true, false));
+        columns.add(new Schema.Column("amount", Types.DOUBLE, -1, true, false));
+        Schema events = new Schema("events", columns, null);
+        catalog.createTable(events, new StorageOptions().setLayout(PageLayout.PAX));
+
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Tuple tuple = new Tuple(events);
+            tuple.setValue(0, new Value(Types.INT, i));
+            tuple.setValue(1, new Value(Types.VARCHAR, i % 2 == 0 ? "even" : "odd"));
+            tuple.setValue(2, i == 7 ? null : new Value(Types.DOUBLE, 1.0));
+            tuples.add(tuple);
+        }
+        List<RecordId> recordIds = new ArrayList<>();
+        storageManager.bulkInsert("events", tuples.iterator());
+        try (com.jdatabase.storage.TableScanCursor cursor = storageManager.openScan("events")) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                recordIds.add(cursor.getCurrentRecordId());
+            }
+        }
+        storageManager.deleteTuple("events", recordIds.get(0));
+
+        // SELECT COUNT(*), SUM(amount), MIN(id), MAX(id) FROM events
+        List<SelectStatement.SelectItem> items = new ArrayList<>();
+        items.add(new SelectStatement.SelectItem(aggregate("COUNT", "*"), null));
+        items.add(new SelectStatement.SelectItem(aggregate("SUM", "amount"), "total"));
+        items.add(new SelectStatement.SelectItem(aggregate("MIN", "id"), null));
+        items.add(new SelectStatement.SelectItem(aggregate("MAX", "id"), null));
+        assertTrue(ColumnarAggregateOperator.supports(items, null, events));
+        List<Tuple> results = run(new ColumnarAggregateOperator(storageManager, "events", events, items, null));
+        assertEquals(1, results.size());
+        assertEquals(999L, results.get(0).getValue(0).getLong());
+        assertEquals(998.0, results.get(0).getValue("total").getDouble());
+        assertEquals(1, results.get(0).getValue(2).getInt());
+        assertEquals(999, results.get(0).getValue(3).getInt());
+
+        // SELECT category, COUNT(*), AVG(amount) FROM events GROUP BY category
+        List<Expression> groupBy = new ArrayList<>();
+        groupBy.add(new Expression.ColumnReference(null, "category"));
+        items = new ArrayList<>();
+        items.add(new SelectStatement.SelectItem(new Expression.ColumnReference(null, "category"), null));
+        items.add(new SelectStatement.SelectItem(aggregate("COUNT", "*"), null));
+        items.add(new SelectStatement.SelectItem(aggregate("AVG", "amount"), null));
+        assertTrue(ColumnarAggregateOperator.supports(items, groupBy, events));
+        results = run(new ColumnarAggregateOperator(storageManager, "events", events, items, groupBy));
+        assertEquals(2, results.size());
+        for (Tuple result : results) {
+            assertEquals(result.getValue(0).getString().equals("even") ? 499L : 500L, result.getValue(1).getLong());
+            assertEquals(1.0, result.getValue(2).getDouble());
+        }
+
+        // 非GROUP BY列或不支持的函数不走列式聚合
+        items = new ArrayList<>();
+        items.add(new SelectStatement.SelectItem(new Expression.ColumnReference(null, "amount"), null));
+        items.add(new SelectStatement.SelectItem(aggregate("COUNT", "*"), null));
+        assertFalse(ColumnarAggregateOperator.supports(items, groupBy, events));
+        items = new ArrayList<>();
+        items.add(new SelectStatement.SelectItem(aggregate("SUM", "category"), null));
+        assertFalse(ColumnarAggregateOperator.supports(items, null, events));
+    }
+
+    private static Expression.FunctionCall aggregate(String function, String column) {
+        List<Expression> args = new ArrayList<>();
+        args.add(new Expression.ColumnReference(null, column));
+        return new Expression.FunctionCall(function, args, false);
+    }
+
+    private static List<Tuple> run(Operator operator) {
+        List<Tuple> results = new ArrayList<>();
+        operator.open();
+        while (operator.hasNext()) {
+            results.add(operator.next());
+        }
+        operator.close();
+        return results;
+    }
+}
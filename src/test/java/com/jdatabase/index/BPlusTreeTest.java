@@ -6,7 +6,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -88,5 +90,78 @@ public class BPlusTreeTest {
             assertFalse(result.isEmpty());
         }
     }
-}
 
+    /**
+     * 节点按引用保存在内存中的页面管理器，只测试树的遍历逻辑
+     */
+    private static class MemoryPageManager extends BPlusTreePageManager {
+        private final Map<Integer, BPlusTree.BPlusTreeNode> nodes = new HashMap<>();
+        private int rootPageId = -1;
+
+        MemoryPageManager(String dataDir) {
+            super(dataDir);
+        }
+
+        @Override
+        public BPlusTree.BPlusTreeNode readNode(String indexFile, int pageId) {
+            return nodes.computeIfAbsent(pageId, id -> new BPlusTree.BPlusTreeNode(true));
+        }
+
+        @Override
+        public void writeNode(String indexFile, int pageId, BPlusTree.BPlusTreeNode node) {
+            nodes.put(pageId, node);
+        }
+
+        @Override
+        public int allocatePage(String indexFile) {
+            return nodes.size();
+        }
+
+        @Override
+        public int getRootPageId(String indexFile) {
+            return rootPageId;
+        }
+
+        @Override
+        public void setRootPageId(String indexFile, int pageId) {
+            rootPageId = pageId;
+        }
+    }
+
+    @Test
+    void testRemoveIfInBatches(@TempDir Path tempDir) throws Exception {
+        BPlusTree tree = new BPlusTree(indexFile, new MemoryPageManager(tempDir.toString()));
+        // 每个键两个条目，足够多的条目使节点分裂
+        for (int i = 0; i < 300; i++) {
+            tree.insert(i, new RecordId(0, i));
+            tree.insert(i, new RecordId(1, i));
+        }
+
+        int checked = 0;
+        int removed = 0;
+        int batches = 0;
+        Comparable<?> afterKey = null;
+        while (true) {
+            BPlusTree.RemoveBatch batch = tree.removeIf(afterKey, 25, (key, recordId) -> recordId.getPageId() == 1);
+            // 同一键的条目在同一批中检查
+            assertTrue(batch.getChecked() <= 26);
+            checked += batch.getChecked();
+            removed += batch.getRemoved();
+            batches++;
+            if (!batch.hasMore()) {
+                break;
+            }
+            afterKey = batch.getLastKey();
+        }
+        assertEquals(600, checked);
+        assertEquals(300, removed);
+        assertTrue(batches >= 24);
+        // 剩下的条目都在第0页
+        BPlusTree.RemoveBatch rest = tree.removeIf(null, Integer.MAX_VALUE, (key, recordId) -> {
+            assertEquals(0, recordId.getPageId());
+            return false;
+        });
+        assertEquals(300, rest.getChecked());
+        assertFalse(rest.hasMore());
+    }
+}
@@ -22,6 +22,19 @@ public class SQLParserTest {
         assertEquals(3, createStmt.getColumns().size());
     }
 
+    @Test
+    void testParseCreateTableWithOptions() {
+        String sql = "CREATE TABLE logs (id INT, msg VARCHAR(200)) WITH (file_mode = 'mmap', page_size = 16384)";
+        SQLParser parser = new SQLParser(sql);
+        Statement stmt = parser.parse();
+        
+        assertTrue(stmt instanceof CreateTableStatement);
+        CreateTableStatement createStmt = (CreateTableStatement) stmt;
+        assertEquals(2, createStmt.getColumns().size());
+        assertEquals("mmap", createStmt.getOptions().get("file_mode"));
+        assertEquals("16384", createStmt.getOptions().get("page_size"));
+    }
+
     @Test
     void testParseInsert() {
         String sql = "INSERT INTO users VALUES (1, 'Alice', 25)";
@@ -79,5 +92,13 @@ public class SQLParserTest {
         assertEquals("users", deleteStmt.getTableName());
         assertNotNull(deleteStmt.getWhereClause());
     }
-}
 
+    @Test
+    void testParseVacuum() {
+        Statement stmt = new SQLParser("VACUUM users").parse();
+
+        assertTrue(stmt instanceof VacuumStatement);
+        assertEquals("users", ((VacuumStatement) stmt).getTableName());
+        assertThrows(RuntimeException.class, () -> new SQLParser("VACUUM").parse());
+    }
+}
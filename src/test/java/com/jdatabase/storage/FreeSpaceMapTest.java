@@ -0,0 +1,77 @@
+package com.jdatabase.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 空闲空间映射测试
+ */
+public class FreeSpaceMapTest {
+
+    @Test
+    void testFindPage() {
+        FreeSpaceMap fsm = new FreeSpaceMap();
+        assertEquals(-1, fsm.findPage(100));
+
+        fsm.update(0, 50);
+        fsm.update(1, 2000);
+        fsm.update(2, 4000);
+        assertEquals(0, fsm.findPage(10));
+        assertEquals(1, fsm.findPage(100));
+        assertEquals(2, fsm.findPage(3000));
+        assertEquals(-1, fsm.findPage(Page.PAGE_SIZE));
+
+        fsm.update(1, 0);
+        assertEquals(2, fsm.findPage(100));
+    }
+
+    @Test
+    void testCategoriesRoundDown() {
+        FreeSpaceMap fsm = new FreeSpaceMap();
+        int categorySize = Page.PAGE_SIZE / FreeSpaceMap.CATEGORIES;
+        fsm.update(0, categorySize * 3 + 5);
+        // 登记的值是下界，不会承诺超过实际的空间
+        assertEquals(categorySize * 3, fsm.getFreeBytes(0));
+        assertEquals(0, fsm.findPage(categorySize * 3));
+        assertEquals(-1, fsm.findPage(categorySize * 3 + 1));
+    }
+
+    @Test
+    void testGrowsBeyondInitialCapacity() {
+        FreeSpaceMap fsm = new FreeSpaceMap();
+        for (int pageId = 0; pageId < 1000; pageId++) {
+            fsm.update(pageId, 0);
+        }
+        fsm.update(777, 1024);
+        assertEquals(1000, fsm.getPageCount());
+        assertEquals(777, fsm.findPage(512));
+    }
+
+    @Test
+    void testSaveAndLoad(@TempDir Path tempDir) throws Exception {
+        FreeSpaceMap fsm = new FreeSpaceMap();
+        fsm.update(0, 100);
+        fsm.update(5, 3000);
+        assertTrue(fsm.isDirty());
+
+        Path path = tempDir.resolve("t.fsm");
+        fsm.save(path);
+        assertFalse(fsm.isDirty());
+
+        FreeSpaceMap loaded = FreeSpaceMap.load(path);
+        assertNotNull(loaded);
+        assertEquals(6, loaded.getPageCount());
+        assertEquals(fsm.getFreeBytes(5), loaded.getFreeBytes(5));
+        assertEquals(5, loaded.findPage(2000));
+        assertNull(FreeSpaceMap.load(tempDir.resolve("missing.fsm")));
+    }
+
+    @Test
+    void testFileNameFor() {
+        assertEquals("users.fsm", FreeSpaceMap.fileNameFor("users.dat"));
+    }
+}
@@ -0,0 +1,375 @@
+package com.jdatabase.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 页面管理器测试
+ */
+public class PageManagerTest {
+    private PageManager pageManager;
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) {
+        this.tempDir = tempDir;
+        this.pageManager = new PageManager(tempDir.toString(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pageManager.close();
+    }
+
+    @Test
+    void testReadMissingFile() throws Exception {
+        Page page = pageManager.readPage("missing.dat", 3);
+        assertEquals(3, page.getPageId());
+        assertEquals(0, page.readInt(0));
+        assertEquals(0, pageManager.getPageCount("missing.dat"));
+        // 读取不应创建文件
+        assertFalse(Files.exists(tempDir.resolve("missing.dat")));
+    }
+
+    @Test
+    void testAllocateWriteRead() throws Exception {
+        String fileName = "test.dat";
+        assertEquals(0, pageManager.allocatePage(fileName));
+        assertEquals(1, pageManager.allocatePage(fileName));
+        assertEquals(2, pageManager.getPageCount(fileName));
+
+        Page page = new Page(1);
+        page.writeInt(0, 42);
+        page.writeLong(8, 123456789L);
+        pageManager.writePage(fileName, page);
+
+        Page readPage = pageManager.readPage(fileName, 1);
+        assertEquals(42, readPage.readInt(0));
+        assertEquals(123456789L, readPage.readLong(8));
+        assertFalse(readPage.isDirty());
+
+        // 超出文件末尾的页面返回空页
+        Page beyond = pageManager.readPage(fileName, 10);
+        assertEquals(0, beyond.readInt(0));
+    }
+
+    @Test
+    void testHandleEvictionIsBounded() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Page page = new Page(0);
+            page.writeInt(0, i);
+            pageManager.writePage("file" + i + ".dat", page);
+        }
+        assertTrue(pageManager.getFileHandles().getOpenFileCount() <= 2);
+
+        // 被淘汰的文件可以重新打开并读取
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, pageManager.readPage("file" + i + ".dat", 0).readInt(0));
+        }
+    }
+
+    @Test
+    void testCloseFileAllowsDelete() throws Exception {
+        String fileName = "drop.dat";
+        pageManager.allocatePage(fileName);
+        pageManager.closeFile(fileName);
+        Files.delete(tempDir.resolve(fileName));
+
+        assertEquals(0, pageManager.getPageCount(fileName));
+        assertEquals(0, pageManager.allocatePage(fileName));
+    }
+
+    @Test
+    void testCloseReleasesHandles() throws Exception {
+        pageManager.allocatePage("a.dat");
+        pageManager.close();
+        assertEquals(0, pageManager.getFileHandles().getOpenFileCount());
+        assertThrows(java.io.IOException.class, () -> pageManager.readPage("a.dat", 0));
+    }
+
+    @Test
+    void testMappedFileMode() throws Exception {
+        String fileName = "mapped.dat";
+        pageManager.setFileOptions(fileName, new StorageOptions().setFileMode(PageFileMode.MMAP));
+
+        assertEquals(0, pageManager.getPageCount(fileName));
+        assertEquals(0, pageManager.allocatePage(fileName));
+        assertEquals(1, pageManager.allocatePage(fileName));
+
+        Page page = new Page(1);
+        page.writeInt(0, 7);
+        pageManager.writePage(fileName, page);
+
+        // 映射模式下读取返回映射区域的视图，修改直接可见
+        Page view = pageManager.readPage(fileName, 1);
+        assertEquals(7, view.readInt(0));
+        view.writeInt(0, 8);
+        assertEquals(8, pageManager.readPage(fileName, 1).readInt(0));
+
+        // 关闭后以普通模式重新打开，数据已落盘
+        pageManager.close();
+        PageManager reopened = new PageManager(tempDir.toString());
+        try {
+            assertEquals(2, reopened.getPageCount(fileName));
+            assertEquals(8, reopened.readPage(fileName, 1).readInt(0));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testMappedFileGrowsAcrossSegments() throws Exception {
+        // 每段2页，分配5页需要3个段
+        MappedPageFile mapped = new MappedPageFile(tempDir.resolve("segments.dat"), 2 * Page.PAGE_SIZE);
+        try {
+            for (int i = 0; i < 5; i++) {
+                int pageId = mapped.allocatePage();
+                Page page = new Page(pageId);
+                page.writeInt(100, pageId * 10);
+                mapped.writePage(page);
+            }
+            assertEquals(5, mapped.getPageCount());
+            assertEquals(3, mapped.getSegmentCount());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i * 10, mapped.readPage(i).readInt(100));
+            }
+            assertNull(mapped.readPage(5));
+        } finally {
+            mapped.close();
+        }
+    }
+
+    @Test
+    void testMappedFileMapsWholeSegments() throws Exception {
+        Path path = tempDir.resolve("whole.dat");
+        int segmentSize = 16 * Page.PAGE_SIZE;
+        MappedPageFile mapped = new MappedPageFile(path, segmentSize);
+        try {
+            // 逐页分配只在跨过段边界时映射新段，文件按整段扩展
+            for (int i = 0; i < 40; i++) {
+                assertEquals(i, mapped.allocatePage());
+            }
+            assertEquals(40, mapped.getPageCount());
+            assertEquals(3, mapped.getSegmentCount());
+            assertEquals(3L * segmentSize, Files.size(path));
+            assertNull(mapped.readPage(40));
+        } finally {
+            mapped.close();
+        }
+        // 关闭时截断到逻辑末尾
+        assertEquals(40L * Page.PAGE_SIZE, Files.size(path));
+        mapped = new MappedPageFile(path, segmentSize);
+        try {
+            assertEquals(40, mapped.getPageCount());
+        } finally {
+            mapped.close();
+        }
+    }
+
+    @Test
+    void testPerFilePageSize() throws Exception {
+        String fileName = "large.dat";
+        pageManager.setFileOptions(fileName, new StorageOptions().setPageSize(16384));
+        assertEquals(16384, pageManager.getPageSize(fileName));
+
+        assertEquals(0, pageManager.allocatePage(fileName));
+        assertEquals(1, pageManager.allocatePage(fileName));
+        assertEquals(2, pageManager.getPageCount(fileName));
+
+        Page page = new Page(1, 16384);
+        page.writeInt(16000, 99);
+        pageManager.writePage(fileName, page);
+        Page readPage = pageManager.readPage(fileName, 1);
+        assertEquals(16384, readPage.getPageSize());
+        assertEquals(99, readPage.readInt(16000));
+
+        // 页面大小与文件不一致时拒绝写入
+        assertThrows(RuntimeException.class, () -> pageManager.writePage(fileName, new Page(0)));
+    }
+
+    @Test
+    void testMappedFileWithLargePages() throws Exception {
+        String fileName = "mapped-large.dat";
+        pageManager.setFileOptions(fileName,
+                new StorageOptions().setFileMode(PageFileMode.MMAP).setPageSize(32768));
+        assertEquals(0, pageManager.allocatePage(fileName));
+        Page page = new Page(0, 32768);
+        page.writeInt(32760, 5);
+        pageManager.writePage(fileName, page);
+        assertEquals(1, pageManager.getPageCount(fileName));
+        assertEquals(5, pageManager.readPage(fileName, 0).readInt(32760));
+    }
+
+    @Test
+    void testReadAheadOnSequentialScan() throws Exception {
+        String fileName = "scan.dat";
+        int pageCount = 300;
+        int first = pageManager.allocatePages(fileName, pageCount);
+        java.util.List<Page> pages = new java.util.ArrayList<>();
+        for (int i = 0; i < pageCount; i++) {
+            Page page = new Page(first + i);
+            page.writeInt(0, i);
+            page.writeInt(4092, -i);
+            pages.add(page);
+        }
+        pageManager.writePages(fileName, pages);
+
+        ReadAheadPrefetcher readAhead = pageManager.getReadAhead();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, pageManager.readPage(fileName, i).readInt(0));
+        }
+        // 预读范围内的页面被改写后，读到的是新内容
+        Page updated = new Page(25);
+        updated.writeInt(0, 1000);
+        pageManager.writePage(fileName, updated);
+        for (int i = 20; i < pageCount; i++) {
+            Page page = pageManager.readPage(fileName, i);
+            assertEquals(i == 25 ? 1000 : i, page.readInt(0));
+            if (i != 25) {
+                assertEquals(-i, page.readInt(4092));
+            }
+        }
+        assertTrue(readAhead.getHitCount() > 0);
+        assertTrue(readAhead.getPrefetchedPageCount() > 0);
+
+        // 关闭预读后不再命中暂存区
+        pageManager.setFileOptions(fileName, new StorageOptions().setOption(StorageOptions.READ_AHEAD, "off"));
+        long hits = readAhead.getHitCount();
+        for (int i = 0; i < pageCount; i++) {
+            pageManager.readPage(fileName, i);
+        }
+        assertEquals(hits, readAhead.getHitCount());
+    }
+
+    @Test
+    void testCompressedFile() throws Exception {
+        String fileName = "cold.dat";
+        pageManager.setFileOptions(fileName, new StorageOptions().setOption(StorageOptions.COMPRESSION, "deflate"));
+        int pageCount = 50;
+        int first = pageManager.allocatePages(fileName, pageCount);
+        java.util.List<Page> pages = new java.util.ArrayList<>();
+        for (int i = 0; i < pageCount; i++) {
+            Page page = new Page(first + i);
+            page.writeInt(0, i);
+            page.writeInt(4092, -i);
+            pages.add(page);
+        }
+        pageManager.writePages(fileName, pages);
+
+        // 数据文件只保存压缩后的页面，偏移表记录各页面位置
+        assertTrue(Files.size(tempDir.resolve(fileName)) < (long) pageCount * Page.PAGE_SIZE / 4);
+        assertTrue(Files.exists(tempDir.resolve(fileName + CompressedPageFile.PAGE_MAP_SUFFIX)));
+        CompressionStats stats = pageManager.getCompressionStats();
+        assertEquals(pageCount, stats.getPagesCompressed());
+        assertTrue(stats.getCompressionRatio() > 4);
+
+        // 改写为不可压缩的内容：原样存放并迁移到文件末尾
+        Page noisy = new Page(7);
+        java.util.Random random = new java.util.Random(7);
+        for (int offset = 0; offset < Page.PAGE_SIZE; offset += 4) {
+            noisy.writeInt(offset, random.nextInt());
+        }
+        pageManager.writePage(fileName, noisy);
+
+        // 重新打开后通过偏移表读回
+        pageManager.close();
+        pageManager = new PageManager(tempDir.toString(), 2);
+        pageManager.setFileOptions(fileName, new StorageOptions().setCompression(PageCompression.DEFLATE));
+        assertEquals(pageCount, pageManager.getPageCount(fileName));
+        for (int i = 0; i < pageCount; i++) {
+            Page page = pageManager.readPage(fileName, i);
+            if (i == 7) {
+                assertArrayEquals(noisy.getData(), page.getData());
+            } else {
+                assertEquals(i, page.readInt(0));
+                assertEquals(-i, page.readInt(4092));
+            }
+        }
+        assertEquals(pageCount - 1, pageManager.getCompressionStats().getPagesDecompressed());
+        assertTrue(pageManager.getCompressionStats().getDecompressNanos() > 0);
+
+        // 已分配未写入的页面读出全零页
+        int blank = pageManager.allocatePage(fileName);
+        assertEquals(0, pageManager.readPage(fileName, blank).readInt(0));
+
+        pageManager.deleteFile(fileName);
+        assertFalse(Files.exists(tempDir.resolve(fileName)));
+        assertFalse(Files.exists(tempDir.resolve(fileName + CompressedPageFile.PAGE_MAP_SUFFIX)));
+    }
+
+    @Test
+    void testExtentAllocation() throws Exception {
+        String fileName = "grow.dat";
+        int extentSize = 64 * 1024;
+        pageManager.setFileOptions(fileName, new StorageOptions().setOption(StorageOptions.EXTENT_SIZE, "64K"));
+        Path path = tempDir.resolve(fileName);
+
+        // 第一个页面就预分配整个区段，高水位只推进一页
+        assertEquals(0, pageManager.allocatePage(fileName));
+        assertEquals(extentSize, Files.size(path));
+        assertEquals(1, pageManager.getPageCount(fileName));
+
+        int pageCount = 40; // 跨越3个区段
+        for (int i = 1; i < pageCount; i++) {
+            assertEquals(i, pageManager.allocatePage(fileName));
+        }
+        assertEquals(pageCount, pageManager.getPageCount(fileName));
+        assertEquals(3L * extentSize, Files.size(path));
+        assertEquals(pageCount, pageManager.allocatePages(fileName, 10));
+        assertEquals(pageCount + 10, pageManager.getPageCount(fileName));
+        assertEquals(4L * extentSize, Files.size(path));
+
+        // 预分配区段中的页面读出为空页
+        assertEquals(0, pageManager.readPage(fileName, pageCount + 20).readInt(0));
+
+        // 关闭时截断到高水位，重新打开后页面数不变
+        pageManager.close();
+        assertEquals((long) (pageCount + 10) * Page.PAGE_SIZE, Files.size(path));
+        pageManager = new PageManager(tempDir.toString(), 2);
+        assertEquals(pageCount + 10, pageManager.getPageCount(fileName));
+
+        assertThrows(RuntimeException.class, () -> new StorageOptions().setOption(StorageOptions.EXTENT_SIZE, "128M"));
+        assertThrows(RuntimeException.class, () -> new StorageOptions().setExtentSize(100 * 1024));
+    }
+
+    @Test
+    void testHighWaterMarkSurvivesHandleEviction() throws Exception {
+        String fileName = "aligned.dat";
+        StorageOptions options = new StorageOptions().setOption(StorageOptions.EXTENT_SIZE, "64K");
+        pageManager.setFileOptions(fileName, options);
+        // 高水位正好在区段边界，已分配的页面还没有写回（全零）
+        assertEquals(0, pageManager.allocatePages(fileName, 16));
+        Page first = new Page(0);
+        first.writeInt(0, 1);
+        pageManager.writePage(fileName, first);
+
+        // 打开其他文件淘汰句柄，重新打开后不会把全零的页面当作未分配
+        pageManager.writePage("other1.dat", new Page(0));
+        pageManager.writePage("other2.dat", new Page(0));
+        assertEquals(16, pageManager.getPageCount(fileName));
+
+        // 上次未正常关闭（打开标记仍在）时才去掉末尾全零的预分配页面
+        PageManager recovering = new PageManager(tempDir.toString(), 2);
+        try {
+            recovering.setFileOptions(fileName, options);
+            assertEquals(1, recovering.getPageCount(fileName));
+        } finally {
+            recovering.close();
+        }
+        assertEquals(16, pageManager.allocatePage(fileName));
+
+        // 正常关闭后已分配的页面都保留
+        pageManager.close();
+        assertFalse(Files.exists(tempDir.resolve(PageManager.OPEN_MARKER)));
+        pageManager = new PageManager(tempDir.toString(), 2);
+        pageManager.setFileOptions(fileName, options);
+        assertEquals(17, pageManager.getPageCount(fileName));
+    }
+}
@@ -2,6 +2,8 @@ package com.jdatabase.storage;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -68,6 +70,75 @@ public class PageTest {
         assertFalse(page.isPinned());
     }
 
+    @Test
+    void testEvictionGuard() {
+        Page page = new Page(0);
+        page.pin();
+        // 固定的页面不能被替换
+        assertFalse(page.tryEvict());
+        page.unpin();
+        assertTrue(page.tryEvict());
+        // 已替换的页面不能再固定
+        assertFalse(page.tryPin());
+        assertFalse(page.isPinned());
+        assertEquals(0, page.getPinCount());
+        page.unpin();
+        assertFalse(page.tryPin());
+
+        Page other = new Page(1);
+        assertTrue(other.tryPin());
+        assertFalse(other.tryEvict());
+    }
+
+    @Test
+    void testPageLatch() throws Exception {
+        Page page = new Page(0);
+        // 共享锁可以同时持有
+        page.latchShared();
+        Thread reader = new Thread(() -> {
+            page.latchShared();
+            page.unlatchShared();
+        });
+        reader.start();
+        reader.join(10000);
+        assertFalse(reader.isAlive());
+
+        // 有读者时写者等待
+        AtomicBoolean written = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            page.latchExclusive();
+            try {
+                page.writeInt(0, 1);
+                written.set(true);
+            } finally {
+                page.unlatchExclusive();
+            }
+        });
+        writer.start();
+        Thread.sleep(50);
+        assertFalse(written.get());
+        page.unlatchShared();
+        writer.join(10000);
+        assertTrue(written.get());
+        assertFalse(page.isLatchedExclusive());
+    }
+
+    @Test
+    void testUnbalancedUnlatch() {
+        Page page = new Page(0);
+        assertThrows(IllegalMonitorStateException.class, page::unlatchShared);
+        assertThrows(IllegalMonitorStateException.class, page::unlatchExclusive);
+
+        // 释放的模式与持有的模式不一致
+        page.latchShared();
+        assertThrows(IllegalMonitorStateException.class, page::unlatchExclusive);
+        page.unlatchShared();
+        page.latchExclusive();
+        assertThrows(IllegalMonitorStateException.class, page::unlatchShared);
+        page.unlatchExclusive();
+        assertThrows(IllegalMonitorStateException.class, page::unlatchExclusive);
+    }
+
     @Test
     void testPageDirtyFlag() {
         Page page = new Page(0);
@@ -79,5 +150,17 @@ public class PageTest {
         page.setDirty(false);
         assertFalse(page.isDirty());
     }
-}
 
+    @Test
+    void testCustomPageSize() {
+        Page page = new Page(0, 16384);
+        assertEquals(16384, page.getPageSize());
+        assertEquals(16384, page.getData().length);
+        page.writeInt(16380, 7);
+        assertEquals(7, page.readInt(16380));
+
+        assertEquals(Page.PAGE_SIZE, new Page(1).getPageSize());
+        assertThrows(IllegalArgumentException.class, () -> new Page(0, 2048));
+        assertThrows(IllegalArgumentException.class, () -> new Page(0, 12288));
+    }
+}
@@ -0,0 +1,111 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 记录编解码测试
+ */
+public class RecordCodecTest {
+    private Schema schema;
+
+    @BeforeEach
+    void setUp() {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("i", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("l", Types.LONG, -1, true, false));
+        columns.add(new Schema.Column("f", Types.FLOAT, -1, true, false));
+        columns.add(new Schema.Column("d", Types.DOUBLE, -1, true, false));
+        columns.add(new Schema.Column("s", Types.VARCHAR, 100, true, false));
+        columns.add(new Schema.Column("b", Types.BOOLEAN, -1, true, false));
+        columns.add(new Schema.Column("n1", Types.INT, -1, true, false));
+        columns.add(new Schema.Column("n2", Types.VARCHAR, 10, true, false));
+        columns.add(new Schema.Column("t", Types.INT, -1, true, false));
+        schema = new Schema("codec", columns, "i");
+    }
+
+    @Test
+    void testRoundTripAllTypes() {
+        Tuple tuple = new Tuple(schema);
+        tuple.setValue(0, new Value(Types.INT, -42));
+        tuple.setValue(1, new Value(Types.LONG, Long.MAX_VALUE));
+        tuple.setValue(2, new Value(Types.FLOAT, 1.5f));
+        tuple.setValue(3, new Value(Types.DOUBLE, Math.PI));
+        tuple.setValue(4, new Value(Types.VARCHAR, "数据库 test 😀"));
+        tuple.setValue(5, new Value(Types.BOOLEAN, true));
+        tuple.setValue(6, null);
+        tuple.setValue(7, new Value(Types.VARCHAR, null));
+        tuple.setValue(8, new Value(Types.INT, 7));
+
+        int size = RecordCodec.recordSize(schema, tuple);
+        Page page = new Page(0);
+        int offset = 100;
+        RecordCodec.write(page, offset, schema, tuple);
+        assertTrue(page.isDirty());
+
+        // NULL位图：第6、7列为NULL，9列共2字节
+        assertEquals((byte) 0xC0, page.readByte(offset));
+        assertEquals(0, page.readByte(offset + 1));
+        // 记录最后一列（INT）恰好结束于offset + size
+        assertEquals(7, page.readInt(offset + size - 4));
+
+        Tuple decoded = RecordCodec.read(page, offset, schema);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(tuple.getValue(i), decoded.getValue(i));
+        }
+        assertNull(decoded.getValue(6));
+        assertNull(decoded.getValue(7));
+        assertEquals(7, decoded.getValue(8).getInt());
+    }
+
+    @Test
+    void testUtf8Length() {
+        String[] samples = {"", "abc", "é", "数据库", "😀", "a\uD800b"};
+        for (String sample : samples) {
+            assertEquals(sample.getBytes(java.nio.charset.StandardCharsets.UTF_8).length,
+                    RecordCodec.utf8Length(sample), sample);
+        }
+    }
+
+    @Test
+    void testReadWithColumnMask() {
+        Tuple tuple = new Tuple(schema);
+        tuple.setValue(0, new Value(Types.INT, 1));
+        tuple.setValue(1, new Value(Types.LONG, 2L));
+        tuple.setValue(2, null);
+        tuple.setValue(3, new Value(Types.DOUBLE, 3.0));
+        tuple.setValue(4, new Value(Types.VARCHAR, "skip me"));
+        tuple.setValue(5, new Value(Types.BOOLEAN, false));
+        tuple.setValue(6, new Value(Types.INT, 6));
+        tuple.setValue(7, new Value(Types.VARCHAR, "seven"));
+        tuple.setValue(8, new Value(Types.INT, 8));
+        Page page = new Page(0);
+        RecordCodec.write(page, 0, schema, tuple);
+
+        // 跳过VARCHAR和NULL列后仍能定位到后面的列
+        java.util.BitSet columns = new java.util.BitSet();
+        columns.set(0);
+        columns.set(7);
+        columns.set(8);
+        Tuple projected = RecordCodec.read(page, 0, schema, columns);
+        assertEquals(1, projected.getValue(0).getInt());
+        assertNull(projected.getValue(4));
+        assertNull(projected.getValue(6));
+        assertEquals("seven", projected.getValue(7).getString());
+        assertEquals(8, projected.getValue(8).getInt());
+
+        // 空掩码不解码任何列，但元组宽度不变
+        Tuple empty = RecordCodec.read(page, 0, schema, new java.util.BitSet());
+        assertEquals(schema.getColumnCount(), empty.getValues().size());
+        assertNull(empty.getValue(0));
+    }
+}
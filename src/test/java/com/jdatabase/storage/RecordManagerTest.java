@@ -1,5 +1,8 @@
 package com.jdatabase.storage;
 
+import com.jdatabase.buffer.BufferAccessStrategy;
+import com.jdatabase.buffer.BufferPool;
+import com.jdatabase.buffer.BufferPoolConfig;
 import com.jdatabase.catalog.Catalog;
 import com.jdatabase.common.Schema;
 import com.jdatabase.common.Types;
@@ -9,8 +12,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,9 +26,11 @@ import static org.junit.jupiter.api.Assertions.*;
 public class RecordManagerTest {
     private RecordManager recordManager;
     private Schema schema;
+    private Path tempDir;
 
     @BeforeEach
     void setUp(@TempDir Path tempDir) {
+        this.tempDir = tempDir;
         Catalog catalog = new Catalog(tempDir.toString());
         recordManager = catalog.getRecordManager();
         
@@ -117,5 +124,613 @@ public class RecordManagerTest {
         List<Tuple> records = recordManager.scanRecords(fileName, schema);
         assertEquals(5, records.size());
     }
-}
 
+    private Tuple createTuple(int id, String name) {
+        Tuple tuple = new Tuple(schema);
+        tuple.setValue(0, new Value(Types.INT, id));
+        tuple.setValue(1, new Value(Types.VARCHAR, name));
+        tuple.setValue(2, new Value(Types.INT, 20));
+        return tuple;
+    }
+
+    @Test
+    void testInsertUsesFreeSpaceMap() throws Exception {
+        String fileName = "test.dat";
+        
+        // 插入足够多的记录以占满多个页面
+        for (int i = 0; i < 500; i++) {
+            recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i));
+        }
+        FreeSpaceMap fsm = recordManager.getFreeSpaceMap(fileName);
+        int pageCount = fsm.getPageCount();
+        assertTrue(pageCount > 1);
+        // 前面的页面已满，只有最后一页还有空间
+        assertEquals(pageCount - 1, fsm.findPage(64));
+        assertEquals(500, recordManager.scanRecords(fileName, schema).size());
+    }
+
+    @Test
+    void testFreeSpaceMapPersisted() throws Exception {
+        String fileName = "test.dat";
+        for (int i = 0; i < 300; i++) {
+            recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i));
+        }
+        int pageCount = recordManager.getFreeSpaceMap(fileName).getPageCount();
+        recordManager.flush();
+        assertTrue(java.nio.file.Files.exists(tempDir.resolve("test.fsm")));
+
+        // 新的RecordManager从.fsm文件加载，并继续向有空间的页面插入
+        RecordManager reopened = new RecordManager(new PageManager(tempDir.toString()));
+        assertEquals(pageCount, reopened.getFreeSpaceMap(fileName).getPageCount());
+        RecordId recordId = reopened.insertRecord(fileName, schema, createTuple(1000, "Late"));
+        assertEquals(pageCount - 1, recordId.getPageId());
+    }
+
+    @Test
+    void testFreeSpaceMapRebuiltWhenMissing() throws Exception {
+        String fileName = "test.dat";
+        for (int i = 0; i < 300; i++) {
+            recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i));
+        }
+        int pageCount = recordManager.getFreeSpaceMap(fileName).getPageCount();
+        recordManager.getBufferPool().flushAll();
+
+        // 没有.fsm文件时通过扫描页面重建
+        RecordManager reopened = new RecordManager(new PageManager(tempDir.toString()));
+        FreeSpaceMap rebuilt = reopened.getFreeSpaceMap(fileName);
+        assertEquals(pageCount, rebuilt.getPageCount());
+        assertEquals(pageCount - 1, rebuilt.findPage(64));
+    }
+
+    @Test
+    void testFreeSpaceMapRebuildUsesRingBuffer() throws Exception {
+        String fileName = "rebuild.dat";
+        Path dir = tempDir.resolve("rebuild");
+        PageManager pageManager = new PageManager(dir.toString());
+        RecordManager manager = new RecordManager(pageManager, new BufferPool(256, pageManager));
+        BufferAccessStrategy strategy = manager.selectInsertStrategy(schema, createTuple(0, "User0"), 20000);
+        for (int i = 0; i < 20000; i++) {
+            manager.insertRecord(fileName, schema, createTuple(i, "User" + i), strategy);
+        }
+        int pageCount = manager.getFreeSpaceMap(fileName).getPageCount();
+        manager.close();
+        pageManager.close();
+        Files.deleteIfExists(dir.resolve(FreeSpaceMap.fileNameFor(fileName)));
+
+        // 重建大表的FSM时只占用环中的帧
+        PageManager reopenedPages = new PageManager(dir.toString());
+        BufferPool bufferPool = new BufferPool(256, reopenedPages);
+        try {
+            RecordManager reopened = new RecordManager(reopenedPages, bufferPool);
+            assertEquals(pageCount, reopened.getFreeSpaceMap(fileName).getPageCount());
+            assertTrue(bufferPool.getPageCount() <= BufferAccessStrategy.DEFAULT_RING_BYTES / Page.PAGE_SIZE);
+            assertEquals(0, bufferPool.getPinnedCount());
+        } finally {
+            reopenedPages.close();
+        }
+    }
+
+    @Test
+    void testPagesAccessedThroughBufferPool() throws Exception {
+        String fileName = "pooled.dat";
+        PageManager pageManager = new PageManager(tempDir.resolve("pooled").toString());
+        BufferPool bufferPool = new BufferPool(4, pageManager);
+        RecordManager manager = new RecordManager(pageManager, bufferPool);
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            recordIds.add(manager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        // 页面数超过缓冲池容量，替换出去的脏页已写回
+        assertTrue(pageManager.getPageCount(fileName) > 4);
+        assertTrue(bufferPool.getWriteBackCount() > 0);
+        assertEquals(0, bufferPool.getPinnedCount());
+
+        // 热点页面直接从缓冲池读取
+        long misses = bufferPool.getMissCount();
+        for (int i = 0; i < 100; i++) {
+            assertEquals("User1999", manager.readRecord(fileName, schema, recordIds.get(1999)).getValue(1).getValue());
+        }
+        assertEquals(misses, bufferPool.getMissCount());
+        assertEquals(2000, manager.scanRecords(fileName, schema).size());
+        assertEquals(0, bufferPool.getPinnedCount());
+
+        // 关闭时写回剩余的脏页
+        manager.close();
+        pageManager.close();
+        PageManager reopened = new PageManager(tempDir.resolve("pooled").toString());
+        try {
+            assertEquals(2000, new RecordManager(reopened).scanRecords(fileName, schema).size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testLargeScanUsesRingBuffer() throws Exception {
+        String fileName = "ring.dat";
+        PageManager pageManager = new PageManager(tempDir.resolve("ring").toString());
+        BufferPool bufferPool = new BufferPool(256, pageManager);
+        RecordManager manager = new RecordManager(pageManager, bufferPool);
+        manager.insertRecord("small.dat", schema, createTuple(0, "User0"));
+        BufferAccessStrategy strategy = manager.selectInsertStrategy(schema, createTuple(0, "User0"), 20000);
+        assertNotNull(strategy);
+        for (int i = 0; i < 20000; i++) {
+            manager.insertRecord(fileName, schema, createTuple(i, "User" + i), strategy);
+        }
+        // 批量插入只占用环中的帧
+        assertTrue(strategy.getRecycledCount() > 0);
+        assertTrue(bufferPool.getPageCount() <= 1 + BufferAccessStrategy.DEFAULT_RING_BYTES / Page.PAGE_SIZE);
+
+        try (TableScanCursor cursor = manager.openScan("small.dat", schema)) {
+            assertNull(cursor.getAccessStrategy());
+        }
+        try (TableScanCursor cursor = manager.openScan(fileName, schema)) {
+            assertNotNull(cursor.getAccessStrategy());
+            int count = 0;
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+            assertEquals(20000, count);
+            assertTrue(cursor.getAccessStrategy().getRecycledCount() > 0);
+        }
+        assertTrue(bufferPool.getPageCount() <= 1 + 2 * BufferAccessStrategy.DEFAULT_RING_BYTES / Page.PAGE_SIZE);
+        assertEquals(0, bufferPool.getPinnedCount());
+        manager.close();
+        pageManager.close();
+    }
+
+    @Test
+    void testOffHeapBufferPool() throws Exception {
+        String fileName = "offheap.dat";
+        PageManager pageManager = new PageManager(tempDir.resolve("offheap").toString());
+        BufferPool bufferPool = new BufferPool(new BufferPoolConfig().setCapacity(16).setOffHeap(true), pageManager);
+        RecordManager manager = new RecordManager(pageManager, bufferPool);
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            recordIds.add(manager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        // 数据页远多于缓冲池的帧，读写都经过帧的复用
+        assertTrue(pageManager.getPageCount(fileName) > 16);
+        manager.updateRecord(fileName, schema, recordIds.get(7), createTuple(7, "Updated"));
+        manager.deleteRecord(fileName, schema, recordIds.get(8));
+        assertEquals("Updated", manager.readRecord(fileName, schema, recordIds.get(7)).getValue(1).getString());
+        try (TableScanCursor cursor = manager.openScan(fileName, schema)) {
+            int count = 0;
+            while (cursor.hasNext()) {
+                Tuple tuple = cursor.next();
+                int id = tuple.getValue(0).getInt();
+                assertEquals(id == 7 ? "Updated" : "User" + id, tuple.getValue(1).getString());
+                count++;
+            }
+            assertEquals(2999, count);
+        }
+        assertEquals(0, bufferPool.getPinnedCount());
+        manager.close();
+        pageManager.close();
+    }
+
+    @Test
+    void testUpdateHeavyWorkloadDoesNotGrowFile() throws Exception {
+        String fileName = "test.dat";
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            recordIds.add(recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        int pageCount = recordManager.getFreeSpaceMap(fileName).getPageCount();
+
+        // 长短交替更新，旧版本占用的空间应在页内回收
+        for (int round = 0; round < 200; round++) {
+            String name = round % 2 == 0 ? "A much longer name " + round : "N" + round;
+            for (int i = 0; i < recordIds.size(); i++) {
+                recordManager.updateRecord(fileName, schema, recordIds.get(i), createTuple(i, name));
+            }
+        }
+
+        assertEquals(pageCount, recordManager.getFreeSpaceMap(fileName).getPageCount());
+        for (int i = 0; i < recordIds.size(); i++) {
+            Tuple tuple = recordManager.readRecord(fileName, schema, recordIds.get(i));
+            assertEquals(i, tuple.getValue(0).getValue());
+            assertEquals("N199", tuple.getValue(1).getValue());
+        }
+    }
+
+    @Test
+    void testDeletedSlotReusedOnlyAfterVacuum() throws Exception {
+        String fileName = "test.dat";
+        RecordId first = recordManager.insertRecord(fileName, schema, createTuple(1, "Alice"));
+        RecordId second = recordManager.insertRecord(fileName, schema, createTuple(2, "Bob"));
+        recordManager.deleteRecord(fileName, schema, first);
+
+        // 索引中可能还有条目指向已删除的槽，整理和VACUUM标记后都不复用
+        assertNotEquals(first, recordManager.insertRecord(fileName, schema, createTuple(4, "Dave")));
+        recordManager.compactPage(fileName, 0);
+        recordManager.vacuumPage(fileName, 0);
+        assertNotEquals(first, recordManager.insertRecord(fileName, schema, createTuple(5, "Eve")));
+
+        recordManager.freeVacuumedSlots(fileName, 0);
+        RecordId reused = recordManager.insertRecord(fileName, schema, createTuple(3, "Carol"));
+        assertEquals(first, reused);
+        assertEquals("Carol", recordManager.readRecord(fileName, schema, reused).getValue(1).getValue());
+        assertEquals("Bob", recordManager.readRecord(fileName, schema, second).getValue(1).getValue());
+    }
+
+    @Test
+    void testCompactPageKeepsRecordIds() throws Exception {
+        String fileName = "test.dat";
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            recordIds.add(recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        // 删除少量记录，不触发自动整理
+        for (int i = 0; i < 20; i += 5) {
+            recordManager.deleteRecord(fileName, schema, recordIds.get(i));
+        }
+        int freeBefore = recordManager.getFreeSpaceMap(fileName).getFreeBytes(0);
+
+        assertTrue(recordManager.compactPage(fileName, 0) > 0);
+        assertEquals(0, recordManager.compactPage(fileName, 0));
+        assertTrue(recordManager.getFreeSpaceMap(fileName).getFreeBytes(0) >= freeBefore);
+
+        for (int i = 0; i < 20; i++) {
+            Tuple tuple = recordManager.readRecord(fileName, schema, recordIds.get(i));
+            if (i % 5 == 0) {
+                assertNull(tuple);
+            } else {
+                assertEquals("User" + i, tuple.getValue(1).getValue());
+            }
+        }
+        assertEquals(16, recordManager.scanRecords(fileName, schema).size());
+    }
+
+    @Test
+    void testVacuumPageTrimsTrailingSlots() throws Exception {
+        String fileName = "test.dat";
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            recordIds.add(recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        // 删除中间的一条和末尾的五条
+        recordManager.deleteRecord(fileName, schema, recordIds.get(3));
+        for (int i = 15; i < 20; i++) {
+            recordManager.deleteRecord(fileName, schema, recordIds.get(i));
+        }
+        int freeBefore = recordManager.getFreeSpaceMap(fileName).getFreeBytes(0);
+
+        assertTrue(recordManager.vacuumPage(fileName, 0) > 0);
+        assertEquals(0, recordManager.vacuumPage(fileName, 0));
+        // 槽变为空闲槽后末尾五个槽被截掉，中间的槽保留为空闲槽（整理后的页面由缓冲池写回）
+        assertEquals(5 * 8, recordManager.freeVacuumedSlots(fileName, 0));
+        assertEquals(0, recordManager.freeVacuumedSlots(fileName, 0));
+        recordManager.getBufferPool().flushAll();
+        PageManager pageManager = new PageManager(tempDir.toString());
+        try {
+            assertEquals(15, recordManager.getSlotCount(pageManager.readPage(fileName, 0)));
+        } finally {
+            pageManager.close();
+        }
+        assertTrue(recordManager.getFreeSpaceMap(fileName).getFreeBytes(0) > freeBefore);
+
+        assertNull(recordManager.readRecord(fileName, schema, recordIds.get(3)));
+        assertEquals("User14", recordManager.readRecord(fileName, schema, recordIds.get(14)).getValue(1).getValue());
+        assertEquals(14, recordManager.scanRecords(fileName, schema).size());
+        // 新记录优先复用中间的空闲槽
+        assertEquals(recordIds.get(3), recordManager.insertRecord(fileName, schema, createTuple(100, "Late")));
+    }
+
+    @Test
+    void testScanCursorStreamsWithRecordIds() throws Exception {
+        String fileName = "test.dat";
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            recordIds.add(recordManager.insertRecord(fileName, schema, createTuple(i, "User" + i)));
+        }
+        recordManager.deleteRecord(fileName, schema, recordIds.get(7));
+
+        int count = 0;
+        try (TableScanCursor cursor = recordManager.openScan(fileName, schema)) {
+            while (cursor.hasNext()) {
+                Tuple tuple = cursor.next();
+                RecordId recordId = cursor.getCurrentRecordId();
+                int id = (Integer) tuple.getValue(0).getValue();
+                assertNotEquals(7, id);
+                assertEquals(recordIds.get(id), recordId);
+                count++;
+            }
+            assertFalse(cursor.hasNext());
+            assertThrows(java.util.NoSuchElementException.class, cursor::next);
+        }
+        assertEquals(299, count);
+    }
+
+    @Test
+    void testScanCursorOnMissingFile() throws Exception {
+        try (TableScanCursor cursor = recordManager.openScan("missing.dat", schema)) {
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    void testLargePageSize() throws Exception {
+        String smallFile = "small.dat";
+        String largeFile = "large.dat";
+        PageManager pageManager = new PageManager(tempDir.toString());
+        pageManager.setFileOptions(largeFile, new StorageOptions().setPageSize(32768));
+        RecordManager manager = new RecordManager(pageManager);
+
+        for (int i = 0; i < 1000; i++) {
+            manager.insertRecord(smallFile, schema, createTuple(i, "User" + i));
+            manager.insertRecord(largeFile, schema, createTuple(i, "User" + i));
+        }
+
+        int smallPages = pageManager.getPageCount(smallFile);
+        int largePages = pageManager.getPageCount(largeFile);
+        assertTrue(largePages * 8 <= smallPages + 8);
+        assertEquals(1000, manager.scanRecords(largeFile, schema).size());
+
+        // 大页面可以内联容纳超过4KB的记录，不需要溢出页
+        Tuple wide = createTuple(5000, new String(new char[6000]).replace('\0', 'x'));
+        RecordId recordId = manager.insertRecord(largeFile, schema, wide);
+        assertEquals(6000, ((String) manager.readRecord(largeFile, schema, recordId).getValue(1).getValue()).length());
+        assertEquals(0, manager.getOverflowStore(largeFile).getPageCount());
+        pageManager.close();
+    }
+
+    @Test
+    void testLargeVarcharStoredInOverflowPages() throws Exception {
+        String fileName = "test.dat";
+        String big = new String(new char[20000]).replace('\0', 'z');
+        RecordId small = recordManager.insertRecord(fileName, schema, createTuple(1, "short"));
+        RecordId large = recordManager.insertRecord(fileName, schema, createTuple(2, big));
+
+        // 值大于页面，只在记录中保留指针
+        assertEquals(1, recordManager.getFreeSpaceMap(fileName).getPageCount());
+        OverflowStore overflow = recordManager.getOverflowStore(fileName);
+        int overflowPages = overflow.getPageCount();
+        assertTrue(overflowPages >= 6);
+        assertEquals(big, recordManager.readRecord(fileName, schema, large).getValue(1).getString());
+        assertEquals("short", recordManager.readRecord(fileName, schema, small).getValue(1).getString());
+
+        // 不引用该列的扫描不读取溢出页：破坏溢出文件后仍可扫描id列
+        BitSet idOnly = new BitSet();
+        idOnly.set(0);
+        java.nio.file.Files.write(tempDir.resolve(OverflowStore.fileNameFor(fileName)), new byte[0]);
+        int count = 0;
+        try (TableScanCursor cursor = recordManager.openScan(fileName, schema, idOnly)) {
+            while (cursor.hasNext()) {
+                assertNotNull(cursor.next().getValue(0));
+                count++;
+            }
+        }
+        assertEquals(2, count);
+        assertThrows(RuntimeException.class, () -> recordManager.readRecord(fileName, schema, large));
+    }
+
+    @Test
+    void testOverflowPagesReusedAfterDeleteAndUpdate() throws Exception {
+        String fileName = "test.dat";
+        String big = new String(new char[10000]).replace('\0', 'a');
+        RecordId recordId = recordManager.insertRecord(fileName, schema, createTuple(1, big));
+        int pageCount = recordManager.getOverflowStore(fileName).getPageCount();
+
+        // 更新为新的大值：旧链释放后被复用
+        for (int i = 0; i < 5; i++) {
+            String value = new String(new char[10000]).replace('\0', (char) ('b' + i));
+            recordManager.updateRecord(fileName, schema, recordId, createTuple(1, value));
+            assertEquals(value, recordManager.readRecord(fileName, schema, recordId).getValue(1).getString());
+        }
+        assertTrue(recordManager.getOverflowStore(fileName).getPageCount() <= 2 * pageCount);
+
+        // 更新为短值后删除，再插入大值不再增长文件
+        recordManager.updateRecord(fileName, schema, recordId, createTuple(1, "tiny"));
+        recordManager.deleteRecord(fileName, schema, recordId);
+        int afterDelete = recordManager.getOverflowStore(fileName).getPageCount();
+        recordManager.insertRecord(fileName, schema, createTuple(2, big));
+        assertEquals(afterDelete, recordManager.getOverflowStore(fileName).getPageCount());
+    }
+
+    @Test
+    void testBulkLoad() throws Exception {
+        String fileName = "test.dat";
+        int rows = 5000;
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            tuples.add(createTuple(i, "bulk-" + i));
+        }
+        List<RecordId> recordIds = new ArrayList<>();
+        BulkLoadResult result = recordManager.bulkLoad(fileName, schema, tuples.iterator(),
+                (tuple, recordId) -> recordIds.add(recordId));
+        assertEquals(rows, result.getRowCount());
+        assertEquals(rows, recordIds.size());
+        assertTrue(result.getRowsPerSecond() > 0);
+
+        // 与逐行插入占用相同数量的数据页
+        for (int i = 0; i < rows; i++) {
+            recordManager.insertRecord("rowwise.dat", schema, tuples.get(i));
+        }
+        assertEquals(recordManager.getFreeSpaceMap("rowwise.dat").getPageCount(), result.getPageCount());
+
+        // 按回调给出的RecordId读取、按顺序扫描
+        assertEquals("bulk-1234", recordManager.readRecord(fileName, schema, recordIds.get(1234)).getValue(1).getString());
+        int count = 0;
+        try (TableScanCursor cursor = recordManager.openScan(fileName, schema)) {
+            while (cursor.hasNext()) {
+                assertEquals(count, cursor.next().getValue(0).getInt());
+                count++;
+            }
+        }
+        assertEquals(rows, count);
+
+        // 预留但未用完的页面之后的普通插入可以复用
+        int pageCount = recordManager.getFreeSpaceMap(fileName).getPageCount();
+        recordManager.insertRecord(fileName, schema, createTuple(rows, "after"));
+        assertEquals(pageCount, recordManager.getFreeSpaceMap(fileName).getPageCount());
+    }
+
+    @Test
+    void testPaxLayout() throws Exception {
+        String fileName = "pax.dat";
+        Catalog catalog = new Catalog(tempDir.resolve("pax").toString());
+        RecordManager manager = catalog.getRecordManager();
+        catalog.getPageManager().setFileOptions(fileName, new StorageOptions().setLayout(PageLayout.PAX));
+
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            recordIds.add(manager.insertRecord(fileName, schema, createTuple(i, i % 10 == 0 ? null : "name-" + i)));
+        }
+        manager.flush();
+        Page first = catalog.getPageManager().readPage(fileName, 0);
+        assertTrue(PaxPage.isPaxPage(first));
+
+        // 列存储：age列的minipage中值连续存放
+        PaxPage paxPage = new PaxPage(first, schema);
+        MiniPage ids = paxPage.getMiniPage(0);
+        for (int row = 0; row < paxPage.getRowCount(); row++) {
+            assertEquals(row, ids.getInt(row));
+        }
+        assertTrue(paxPage.getMiniPage(1).isNull(0));
+        assertEquals("name-1", paxPage.getMiniPage(1).getString(1));
+
+        // 点查、更新、删除后RecordId保持不变
+        assertEquals("name-123", manager.readRecord(fileName, schema, recordIds.get(123)).getValue(1).getString());
+        manager.updateRecord(fileName, schema, recordIds.get(123), createTuple(123, "renamed"));
+        assertEquals("renamed", manager.readRecord(fileName, schema, recordIds.get(123)).getValue(1).getString());
+        manager.deleteRecord(fileName, schema, recordIds.get(5));
+        assertNull(manager.readRecord(fileName, schema, recordIds.get(5)));
+        assertEquals("name-6", manager.readRecord(fileName, schema, recordIds.get(6)).getValue(1).getString());
+
+        // 同一页面中已删除的行号被复用
+        String small = "pax-small.dat";
+        catalog.getPageManager().setFileOptions(small, new StorageOptions().setLayout(PageLayout.PAX));
+        manager.insertRecord(small, schema, createTuple(1, "a"));
+        RecordId deleted = manager.insertRecord(small, schema, createTuple(2, "b"));
+        manager.insertRecord(small, schema, createTuple(3, "c"));
+        manager.deleteRecord(small, schema, deleted);
+        assertEquals(deleted, manager.insertRecord(small, schema, createTuple(4, "d")));
+        assertEquals(4, manager.readRecord(small, schema, deleted).getValue(0).getInt());
+
+        // 带列掩码的游标只解码请求的列
+        BitSet columns = new BitSet();
+        columns.set(0);
+        int count = 0;
+        try (TableScanCursor cursor = manager.openScan(fileName, schema, columns)) {
+            while (cursor.hasNext()) {
+                Tuple tuple = cursor.next();
+                assertNotNull(tuple.getValue(0));
+                assertNull(tuple.getValue(1));
+                count++;
+            }
+        }
+        assertEquals(499, count);
+
+        // 行存表不能打开列式扫描
+        assertThrows(RuntimeException.class, () -> manager.openColumnScan("row.dat", schema));
+    }
+
+    @Test
+    void testPaxBulkLoad() throws Exception {
+        String fileName = "pax.dat";
+        Catalog catalog = new Catalog(tempDir.resolve("pax").toString());
+        RecordManager manager = catalog.getRecordManager();
+        catalog.getPageManager().setFileOptions(fileName, new StorageOptions().setLayout(PageLayout.PAX));
+
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tuples.add(createTuple(i, "bulk-" + i));
+        }
+        List<RecordId> recordIds = new ArrayList<>();
+        BulkLoadResult result = manager.bulkLoad(fileName, schema, tuples.iterator(),
+                (tuple, recordId) -> recordIds.add(recordId));
+        assertEquals(3000, result.getRowCount());
+        assertEquals("bulk-2999", manager.readRecord(fileName, schema, recordIds.get(2999)).getValue(1).getString());
+
+        // 列式扫描逐页返回minipage
+        long sum = 0;
+        int rows = 0;
+        try (ColumnScanCursor cursor = manager.openColumnScan(fileName, schema)) {
+            while (cursor.hasNext()) {
+                PaxPage page = cursor.next();
+                MiniPage ids = page.getMiniPage(0);
+                for (int row = 0; row < page.getRowCount(); row++) {
+                    sum += ids.getInt(row);
+                    rows++;
+                }
+            }
+        }
+        assertEquals(3000, rows);
+        assertEquals(2999L * 3000 / 2, sum);
+    }
+
+    @Test
+    void testDictionaryEncoding() throws Exception {
+        String fileName = "orders.dat";
+        PageManager pageManager = new PageManager(tempDir.toString());
+        pageManager.setFileOptions(fileName, new StorageOptions().setOption(StorageOptions.DICTIONARY, "name"));
+        pageManager.setFileOptions("plain.dat", new StorageOptions());
+        RecordManager manager = new RecordManager(pageManager);
+        String[] statuses = {"pending", "shipped", "delivered"};
+        String longValue = new String(new char[TableDictionary.MAX_VALUE_BYTES + 1]).replace('\0', 'x');
+        List<RecordId> ids = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            Tuple tuple = createTuple(i, statuses[i % 3] + "-status-with-a-longer-label");
+            ids.add(manager.insertRecord(fileName, schema, tuple));
+            manager.insertRecord("plain.dat", schema, tuple);
+        }
+        RecordId longId = manager.insertRecord(fileName, schema, createTuple(900, longValue));
+        RecordId nullId = manager.insertRecord(fileName, schema, createTuple(901, null));
+
+        // 记录中只保存编码，过长的值仍内联存放
+        TableDictionary dictionary = manager.getDictionary(fileName, schema);
+        assertEquals(3, dictionary.getColumn(1).size());
+        assertTrue(pageManager.getPageCount(fileName) < pageManager.getPageCount("plain.dat"));
+        Tuple first = manager.readRecord(fileName, schema, ids.get(0));
+        Tuple fourth = manager.readRecord(fileName, schema, ids.get(3));
+        assertEquals("pending-status-with-a-longer-label", first.getValue(1).getString());
+        assertSame(first.getValue(1).getValue(), fourth.getValue(1).getValue());
+        assertEquals(longValue, manager.readRecord(fileName, schema, longId).getValue(1).getString());
+        assertNull(manager.readRecord(fileName, schema, nullId).getValue(1));
+
+        // 等值过滤比较编码，不匹配的记录不解码
+        try (TableScanCursor cursor = manager.openScan(fileName, schema)) {
+            cursor.filterEquals(1, "shipped-status-with-a-longer-label");
+            int count = 0;
+            while (cursor.hasNext()) {
+                assertEquals("shipped-status-with-a-longer-label", cursor.next().getValue(1).getString());
+                count++;
+            }
+            assertEquals(300, count);
+            assertEquals(602, cursor.getFilteredCount());
+        }
+        assertEquals(1, countMatches(manager, fileName, longValue));
+        assertEquals(0, countMatches(manager, fileName, "unknown"));
+
+        // 更新为新值后字典增长，重新打开时从侧文件恢复
+        manager.updateRecord(fileName, schema, ids.get(1), createTuple(1, "returned"));
+        manager.flush();
+        pageManager.close();
+        pageManager = new PageManager(tempDir.toString());
+        pageManager.setFileOptions(fileName, new StorageOptions().setOption(StorageOptions.DICTIONARY, "name"));
+        manager = new RecordManager(pageManager);
+        assertEquals("returned", manager.readRecord(fileName, schema, ids.get(1)).getValue(1).getString());
+        assertEquals("shipped-status-with-a-longer-label",
+                manager.readRecord(fileName, schema, ids.get(4)).getValue(1).getString());
+        assertEquals(4, manager.getDictionary(fileName, schema).getColumn(1).size());
+        assertEquals(1, countMatches(manager, fileName, "returned"));
+
+        manager.dropDictionary(fileName);
+        assertFalse(java.nio.file.Files.exists(tempDir.resolve(TableDictionary.fileNameFor(fileName))));
+        pageManager.close();
+    }
+
+    private int countMatches(RecordManager manager, String fileName, String value) throws Exception {
+        int count = 0;
+        try (TableScanCursor cursor = manager.openScan(fileName, schema)) {
+            cursor.filterEquals(1, value);
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        }
+        return count;
+    }
+}
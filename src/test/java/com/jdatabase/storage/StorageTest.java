@@ -80,5 +80,61 @@ public class StorageTest {
         List<Tuple> tuples = storageManager.scanTable("users");
         assertEquals(5, tuples.size());
     }
-}
 
+    @Test
+    void testBulkInsert() throws Exception {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("name", Types.VARCHAR, 50, true, false));
+        Schema schema = new Schema("users", columns, "id");
+        catalog.createTable(schema);
+        
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Tuple tuple = new Tuple(schema);
+            tuple.setValue(0, new Value(Types.INT, i));
+            tuple.setValue(1, new Value(Types.VARCHAR, "User" + i));
+            tuples.add(tuple);
+        }
+        
+        BulkLoadResult result = storageManager.bulkInsert("users", tuples.iterator());
+        assertEquals(1000, result.getRowCount());
+        assertTrue(result.getRowsPerSecond() > 0);
+        assertEquals(1000, storageManager.scanTable("users").size());
+        
+        // 非空约束在导入时同样检查
+        Tuple invalid = new Tuple(schema);
+        invalid.setValue(1, new Value(Types.VARCHAR, "no id"));
+        assertThrows(RuntimeException.class,
+                () -> storageManager.bulkInsert("users", java.util.Collections.singletonList(invalid).iterator()));
+    }
+
+    @Test
+    void testUpdateAndDeleteOfDeletedRecordAreNoOps() throws Exception {
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, true));
+        columns.add(new Schema.Column("name", Types.VARCHAR, 50, true, false));
+        Schema schema = new Schema("users", columns, "id");
+        catalog.createTable(schema);
+        
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Tuple tuple = new Tuple(schema);
+            tuple.setValue(0, new Value(Types.INT, i));
+            tuple.setValue(1, new Value(Types.VARCHAR, "User" + i));
+            recordIds.add(storageManager.insertTuple("users", tuple));
+        }
+        storageManager.deleteTuple("users", recordIds.get(0));
+        
+        // 收集RecordId之后记录已被删除：再次删除或更新什么也不做
+        storageManager.deleteTuple("users", recordIds.get(0));
+        Tuple update = new Tuple(schema);
+        update.setValue(0, new Value(Types.INT, 0));
+        update.setValue(1, new Value(Types.VARCHAR, "Ghost"));
+        storageManager.updateTuple("users", recordIds.get(0), update);
+        
+        assertNull(storageManager.readTuple("users", recordIds.get(0)));
+        assertEquals(1, storageManager.scanTable("users").size());
+        assertEquals(1, storageManager.getDeadTupleCount("users"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.jdatabase.storage;
+
+import com.jdatabase.catalog.Catalog;
+import com.jdatabase.common.Schema;
+import com.jdatabase.common.Tuple;
+import com.jdatabase.common.Types;
+import com.jdatabase.common.Value;
+import com.jdatabase.index.IndexManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 清理服务测试
+ */
+public class VacuumServiceTest {
+    private Catalog catalog;
+    private IndexManager indexManager;
+    private StorageManager storageManager;
+    private Schema schema;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) {
+        this.catalog = new Catalog(tempDir.toString());
+        this.indexManager = new IndexManager(tempDir.toString());
+        this.storageManager = new StorageManager(catalog, indexManager);
+
+        List<Schema.Column> columns = new ArrayList<>();
+        columns.add(new Schema.Column("id", Types.INT, -1, false, false));
+        columns.add(new Schema.Column("name", Types.VARCHAR, 50, true, false));
+        schema = new Schema("users", columns, null);
+        catalog.createTable(schema);
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalog.close();
+    }
+
+    @Test
+    void testManualVacuumReclaimsDeletedRecords() throws Exception {
+        List<RecordId> recordIds = insertUsers(1000);
+        // 每页只删除少量记录，不触发插入/删除路径上的自动整理
+        for (int i = 0; i < recordIds.size(); i += 10) {
+            storageManager.deleteTuple("users", recordIds.get(i));
+        }
+        assertEquals(100, storageManager.getDeadTupleCount("users"));
+
+        VacuumService vacuumService = new VacuumService(storageManager, indexManager);
+        VacuumStats stats = vacuumService.vacuum("users");
+        int pageCount = catalog.getPageManager().getPageCount("users.dat");
+        assertEquals(pageCount, stats.getPagesScanned());
+        assertTrue(stats.getPagesCompacted() > 0);
+        assertTrue(stats.getBytesReclaimed() > 0);
+        assertEquals(1, stats.getTablesVacuumed());
+        assertEquals(0, storageManager.getDeadTupleCount("users"));
+        assertEquals(stats.getBytesReclaimed(), vacuumService.getTotalStats().getBytesReclaimed());
+        assertNull(vacuumService.getCurrentTable());
+
+        // 再次清理没有可回收的空间
+        assertEquals(0, vacuumService.vacuum("users").getBytesReclaimed());
+        assertEquals(900, storageManager.scanTable("users").size());
+        assertEquals("User1", storageManager.readTuple("users", recordIds.get(1)).getValue(1).getValue());
+        assertThrows(RuntimeException.class, () -> vacuumService.vacuum("missing"));
+    }
+
+    @Test
+    void testBackgroundVacuumRunsAfterThreshold() throws Exception {
+        List<RecordId> recordIds = insertUsers((int) VacuumService.AUTO_VACUUM_THRESHOLD * 2);
+        // 后台清理按I/O预算限速
+        VacuumService vacuumService = new VacuumService(storageManager, indexManager, 500, 20);
+        vacuumService.start();
+        try {
+            for (int i = 0; i < VacuumService.AUTO_VACUUM_THRESHOLD; i++) {
+                storageManager.deleteTuple("users", recordIds.get(i * 2));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (vacuumService.getTotalStats().getTablesVacuumed() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(vacuumService.getTotalStats().getTablesVacuumed() > 0);
+            assertTrue(vacuumService.getTotalStats().getBytesReclaimed() > 0);
+            assertTrue(vacuumService.getTotalStats().getThrottleNanos() > 0);
+        } finally {
+            vacuumService.close();
+        }
+        assertEquals(VacuumService.AUTO_VACUUM_THRESHOLD, storageManager.scanTable("users").size());
+    }
+
+    @Test
+    void testCloseCancelsThrottledVacuum() throws Exception {
+        List<RecordId> recordIds = insertUsers((int) VacuumService.AUTO_VACUUM_THRESHOLD * 2);
+        for (int i = 0; i < VacuumService.AUTO_VACUUM_THRESHOLD; i++) {
+            storageManager.deleteTuple("users", recordIds.get(i * 2));
+        }
+        // 每秒一个页面，后台清理停在限速等待中
+        VacuumService vacuumService = new VacuumService(storageManager, indexManager, 1, 20);
+        vacuumService.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (vacuumService.getCurrentTable() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("users", vacuumService.getCurrentTable());
+
+        long start = System.nanoTime();
+        vacuumService.close();
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertNull(vacuumService.getCurrentTable());
+        assertEquals(0, vacuumService.getTotalStats().getTablesVacuumed());
+
+        // 没有中断线程，共享的文件通道仍然可用
+        catalog.getRecordManager().flush();
+        assertEquals(VacuumService.AUTO_VACUUM_THRESHOLD, storageManager.scanTable("users").size());
+    }
+
+    @Test
+    void testDeletedSlotsReusedAfterVacuum() throws Exception {
+        List<RecordId> recordIds = insertUsers(10);
+        storageManager.deleteTuple("users", recordIds.get(3));
+        assertFalse(recordIds.contains(insertUsers(1).get(0)));
+
+        new VacuumService(storageManager, indexManager).vacuum("users");
+        assertEquals(recordIds.get(3), insertUsers(1).get(0));
+    }
+
+    private List<RecordId> insertUsers(int count) throws Exception {
+        List<RecordId> recordIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Tuple tuple = new Tuple(schema);
+            tuple.setValue(0, new Value(Types.INT, i));
+            tuple.setValue(1, new Value(Types.VARCHAR, "User" + i));
+            recordIds.add(storageManager.insertTuple("users", tuple));
+        }
+        return recordIds;
+    }
+}